@@ -32,6 +32,7 @@
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.variables.VariablesPlugin;
 import org.eclipse.emf.ecore.EReference;
+import org.eclipse.rcptt.core.Q7Features;
 import org.eclipse.rcptt.filesystem.FSFile;
 import org.eclipse.rcptt.filesystem.FSFolder;
 import org.eclipse.rcptt.filesystem.FSResource;
@@ -39,6 +40,8 @@
 import org.eclipse.rcptt.filesystem.FilesystemFactory;
 import org.eclipse.rcptt.util.FileSystemResolver;
 import org.eclipse.rcptt.util.FileUtil;
+import org.eclipse.rcptt.util.ParallelFiles;
+import org.eclipse.rcptt.util.ParallelFiles.FileTask;
 import org.eclipse.rcptt.util.PrefixScheme;
 
 public class FSUtils {
@@ -74,9 +77,14 @@ public static void apply(FilesystemContext context,
 		try {
 			File filePath = new File(resolved);
 
+			boolean parallel = Q7Features.getInstance().isTrue(Q7Features.Q7_CONTEXTS_PARALLEL_FILES);
 			if (context.isClear() && filePath.exists()) {
-				if (filePath.isDirectory())
-					FileUtil.deleteFile(filePath, false);
+				if (filePath.isDirectory()) {
+					if (parallel)
+						ParallelFiles.deleteChildren(filePath);
+					else
+						FileUtil.deleteFile(filePath, false);
+				}
 				if (filePath.exists()
 						&& (filePath.isFile() || (filePath.isDirectory() && filePath
 								.listFiles().length > 0)))
@@ -88,8 +96,14 @@ public static void apply(FilesystemContext context,
 				throw new CoreException(createErr("Unable to create '%s'",
 						resolved));
 
-			if (context.getRoot() != null)
-				apply(context.getRoot(), filePath);
+			if (context.getRoot() != null) {
+				if (parallel) {
+					List<FileTask> writes = new ArrayList<FileTask>();
+					createFolders(context.getRoot(), filePath, writes);
+					ParallelFiles.runAll(writes);
+				} else
+					apply(context.getRoot(), filePath);
+			}
 		} catch (CoreException e) {
 			throw e;
 		} catch (Exception e) {
@@ -128,6 +142,37 @@ private static void apply(FSFolder folder, File path) throws CoreException {
 		}
 	}
 
+	/**
+	 * Creates folders and collects writes of files, which are independent and
+	 * can be done in parallel once all folders exist.
+	 */
+	private static void createFolders(FSFolder folder, File path,
+			List<FileTask> writes) throws CoreException {
+		for (final FSFile f : folder.getFiles()) {
+			final File filePath = new File(path, f.getName());
+			writes.add(new FileTask() {
+				@Override
+				public void run() throws IOException {
+					if ((!filePath.exists() && !filePath.createNewFile())
+							|| !filePath.isFile())
+						throw new IOException("Unable to create " + filePath);
+					save(f, filePath);
+				}
+			});
+		}
+
+		for (FSFolder f : folder.getFolders()) {
+			File folderPath = new File(path, f.getName());
+			if ((!folderPath.exists() && !folderPath.mkdirs())
+					|| !folderPath.isDirectory())
+				throw new CoreException(new Status(IStatus.ERROR,
+						FilesystemContextPlugin.PLUGIN_ID,
+						"Unable to create " + folderPath));
+
+			createFolders(f, folderPath, writes);
+		}
+	}
+
 	public static void capture(FilesystemContext context, String path,
 			FileSystemResolver resolver) throws CoreException {
 		if (path == null)
@@ -14,6 +14,8 @@
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.rcptt.core.ContextType;
 import org.eclipse.rcptt.core.DefaultContextMaker;
@@ -27,6 +29,7 @@
 import org.eclipse.rcptt.resources.WSUtils;
 import org.eclipse.rcptt.resources.WorkspaceDataImporter;
 import org.eclipse.rcptt.resources.WorkspaceDataMaker;
+import org.eclipse.rcptt.workspace.WSLink;
 import org.eclipse.rcptt.workspace.WSProject;
 import org.eclipse.rcptt.workspace.WSRoot;
 import org.eclipse.rcptt.workspace.WorkspaceContext;
@@ -56,6 +59,22 @@ public void makeExecutable(Context context, IQ7NamedElement source)
 				source.getModifiedPersistenceModel(), source);
 	}
 
+	/**
+	 * Files are stored with the context, while content of links is loaded
+	 * from outside of it.
+	 */
+	@Override
+	public boolean isSelfContained(IQ7NamedElement source)
+			throws ModelException {
+		TreeIterator<EObject> contents = source.getNamedElement().eAllContents();
+		while (contents.hasNext()) {
+			if (contents.next() instanceof WSLink) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public void captureContents(IContext context, Context data,
 			IProgressMonitor monitor) throws CoreException {
@@ -24,6 +24,7 @@
  * </p>
  * <ul>
  *   <li>{@link org.eclipse.rcptt.core.ecl.core.model.EnterContext#getData <em>Data</em>}</li>
+ *   <li>{@link org.eclipse.rcptt.core.ecl.core.model.EnterContext#getHash <em>Hash</em>}</li>
  * </ul>
  *
  * @see org.eclipse.rcptt.core.ecl.core.model.Q7CorePackage#getEnterContext()
@@ -57,4 +58,30 @@ public interface EnterContext extends Command {
 	 */
 	void setData(Context value);
 
+	/**
+	 * Returns the value of the '<em><b>Hash</b></em>' attribute.
+	 * <!-- begin-user-doc -->
+	 * <p>
+	 * Content hash of context data. When set, data may be omitted if AUT has
+	 * context with this hash cached.
+	 * </p>
+	 * <!-- end-user-doc -->
+	 * @return the value of the '<em>Hash</em>' attribute.
+	 * @see #setHash(String)
+	 * @see org.eclipse.rcptt.core.ecl.core.model.Q7CorePackage#getEnterContext_Hash()
+	 * @model
+	 * @generated
+	 */
+	String getHash();
+
+	/**
+	 * Sets the value of the '{@link org.eclipse.rcptt.core.ecl.core.model.EnterContext#getHash <em>Hash</em>}' attribute.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @param value the new value of the '<em>Hash</em>' attribute.
+	 * @see #getHash()
+	 * @generated
+	 */
+	void setHash(String value);
+
 } // EnterContext
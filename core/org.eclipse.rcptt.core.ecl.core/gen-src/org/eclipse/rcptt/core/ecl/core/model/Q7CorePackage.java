@@ -103,6 +103,15 @@ public interface Q7CorePackage extends EPackage {
 	 */
 	int ENTER_CONTEXT__DATA = CorePackage.COMMAND_FEATURE_COUNT + 0;
 
+	/**
+	 * The feature id for the '<em><b>Hash</b></em>' attribute.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated
+	 * @ordered
+	 */
+	int ENTER_CONTEXT__HASH = CorePackage.COMMAND_FEATURE_COUNT + 1;
+
 	/**
 	 * The number of structural features of the '<em>Enter Context</em>' class.
 	 * <!-- begin-user-doc -->
@@ -110,7 +119,7 @@ public interface Q7CorePackage extends EPackage {
 	 * @generated
 	 * @ordered
 	 */
-	int ENTER_CONTEXT_FEATURE_COUNT = CorePackage.COMMAND_FEATURE_COUNT + 1;
+	int ENTER_CONTEXT_FEATURE_COUNT = CorePackage.COMMAND_FEATURE_COUNT + 2;
 
 	/**
 	 * The meta object id for the '{@link org.eclipse.rcptt.core.ecl.core.model.impl.CreateContextImpl <em>Create Context</em>}' class.
@@ -1265,6 +1274,17 @@ public interface Q7CorePackage extends EPackage {
 	 */
 	EReference getEnterContext_Data();
 
+	/**
+	 * Returns the meta object for the attribute '{@link org.eclipse.rcptt.core.ecl.core.model.EnterContext#getHash <em>Hash</em>}'.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @return the meta object for the attribute '<em>Hash</em>'.
+	 * @see org.eclipse.rcptt.core.ecl.core.model.EnterContext#getHash()
+	 * @see #getEnterContext()
+	 * @generated
+	 */
+	EAttribute getEnterContext_Hash();
+
 	/**
 	 * Returns the meta object for class '{@link org.eclipse.rcptt.core.ecl.core.model.CreateContext <em>Create Context</em>}'.
 	 * <!-- begin-user-doc -->
@@ -1962,6 +1982,14 @@ interface Literals {
 		 */
 		EReference ENTER_CONTEXT__DATA = eINSTANCE.getEnterContext_Data();
 
+		/**
+		 * The meta object literal for the '<em><b>Hash</b></em>' attribute feature.
+		 * <!-- begin-user-doc -->
+		 * <!-- end-user-doc -->
+		 * @generated
+		 */
+		EAttribute ENTER_CONTEXT__HASH = eINSTANCE.getEnterContext_Hash();
+
 		/**
 		 * The meta object literal for the '{@link org.eclipse.rcptt.core.ecl.core.model.impl.CreateContextImpl <em>Create Context</em>}' class.
 		 * <!-- begin-user-doc -->
@@ -34,6 +34,7 @@
  * </p>
  * <ul>
  *   <li>{@link org.eclipse.rcptt.core.ecl.core.model.impl.EnterContextImpl#getData <em>Data</em>}</li>
+ *   <li>{@link org.eclipse.rcptt.core.ecl.core.model.impl.EnterContextImpl#getHash <em>Hash</em>}</li>
  * </ul>
  *
  * @generated
@@ -49,6 +50,26 @@ public class EnterContextImpl extends CommandImpl implements EnterContext {
 	 */
 	protected Context data;
 
+	/**
+	 * The default value of the '{@link #getHash() <em>Hash</em>}' attribute.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @see #getHash()
+	 * @generated
+	 * @ordered
+	 */
+	protected static final String HASH_EDEFAULT = null;
+
+	/**
+	 * The cached value of the '{@link #getHash() <em>Hash</em>}' attribute.
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @see #getHash()
+	 * @generated
+	 * @ordered
+	 */
+	protected String hash = HASH_EDEFAULT;
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
@@ -111,6 +132,27 @@ else if (eNotificationRequired())
 			eNotify(new ENotificationImpl(this, Notification.SET, Q7CorePackage.ENTER_CONTEXT__DATA, newData, newData));
 	}
 
+	/**
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated
+	 */
+	public String getHash() {
+		return hash;
+	}
+
+	/**
+	 * <!-- begin-user-doc -->
+	 * <!-- end-user-doc -->
+	 * @generated
+	 */
+	public void setHash(String newHash) {
+		String oldHash = hash;
+		hash = newHash;
+		if (eNotificationRequired())
+			eNotify(new ENotificationImpl(this, Notification.SET, Q7CorePackage.ENTER_CONTEXT__HASH, oldHash, hash));
+	}
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
@@ -135,6 +177,8 @@ public Object eGet(int featureID, boolean resolve, boolean coreType) {
 		switch (featureID) {
 			case Q7CorePackage.ENTER_CONTEXT__DATA:
 				return getData();
+			case Q7CorePackage.ENTER_CONTEXT__HASH:
+				return getHash();
 		}
 		return super.eGet(featureID, resolve, coreType);
 	}
@@ -150,6 +194,9 @@ public void eSet(int featureID, Object newValue) {
 			case Q7CorePackage.ENTER_CONTEXT__DATA:
 				setData((Context)newValue);
 				return;
+			case Q7CorePackage.ENTER_CONTEXT__HASH:
+				setHash((String)newValue);
+				return;
 		}
 		super.eSet(featureID, newValue);
 	}
@@ -165,6 +212,9 @@ public void eUnset(int featureID) {
 			case Q7CorePackage.ENTER_CONTEXT__DATA:
 				setData((Context)null);
 				return;
+			case Q7CorePackage.ENTER_CONTEXT__HASH:
+				setHash(HASH_EDEFAULT);
+				return;
 		}
 		super.eUnset(featureID);
 	}
@@ -179,13 +229,15 @@ public boolean eIsSet(int featureID) {
 		switch (featureID) {
 			case Q7CorePackage.ENTER_CONTEXT__DATA:
 				return data != null;
+			case Q7CorePackage.ENTER_CONTEXT__HASH:
+				return HASH_EDEFAULT == null ? hash != null : !HASH_EDEFAULT.equals(hash);
 		}
 		return super.eIsSet(featureID);
 	}
 	
 	@Override
 	public String toString() {
-		return super.toString() + "\ndata:\n" + data;
+		return super.toString() + "\nhash: " + hash + "\ndata:\n" + data;
 	}
 
 } //EnterContextImpl
@@ -304,6 +304,14 @@ public EReference getEnterContext_Data() {
 		return (EReference)enterContextEClass.getEStructuralFeatures().get(0);
 	}
 
+	/**
+	 * <!-- begin-user-doc --> <!-- end-user-doc -->
+	 * @generated
+	 */
+	public EAttribute getEnterContext_Hash() {
+		return (EAttribute)enterContextEClass.getEStructuralFeatures().get(1);
+	}
+
 	/**
 	 * <!-- begin-user-doc --> <!-- end-user-doc -->
 	 * @generated
@@ -841,6 +849,7 @@ public void createPackageContents() {
 		// Create classes and their features
 		enterContextEClass = createEClass(ENTER_CONTEXT);
 		createEReference(enterContextEClass, ENTER_CONTEXT__DATA);
+		createEAttribute(enterContextEClass, ENTER_CONTEXT__HASH);
 
 		createContextEClass = createEClass(CREATE_CONTEXT);
 		createEAttribute(createContextEClass, CREATE_CONTEXT__TYPE);
@@ -988,6 +997,7 @@ public void initializePackageContents() {
 		// Initialize classes and features; add operations and parameters
 		initEClass(enterContextEClass, EnterContext.class, "EnterContext", !IS_ABSTRACT, !IS_INTERFACE, IS_GENERATED_INSTANCE_CLASS);
 		initEReference(getEnterContext_Data(), theScenarioPackage.getContext(), null, "data", null, 0, 1, EnterContext.class, !IS_TRANSIENT, !IS_VOLATILE, IS_CHANGEABLE, IS_COMPOSITE, !IS_RESOLVE_PROXIES, !IS_UNSETTABLE, IS_UNIQUE, !IS_DERIVED, IS_ORDERED);
+		initEAttribute(getEnterContext_Hash(), theEcorePackage.getEString(), "hash", null, 0, 1, EnterContext.class, !IS_TRANSIENT, !IS_VOLATILE, IS_CHANGEABLE, !IS_UNSETTABLE, !IS_ID, IS_UNIQUE, !IS_DERIVED, IS_ORDERED);
 
 		initEClass(createContextEClass, CreateContext.class, "CreateContext", !IS_ABSTRACT, !IS_INTERFACE, IS_GENERATED_INSTANCE_CLASS);
 		initEAttribute(getCreateContext_Type(), theEcorePackage.getEString(), "type", null, 0, 1, CreateContext.class, !IS_TRANSIENT, !IS_VOLATILE, IS_CHANGEABLE, !IS_UNSETTABLE, !IS_ID, IS_UNIQUE, !IS_DERIVED, IS_ORDERED);
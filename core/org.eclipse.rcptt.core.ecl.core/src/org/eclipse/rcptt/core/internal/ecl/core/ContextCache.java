@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.core.internal.ecl.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.rcptt.core.scenario.Context;
+
+/**
+ * Contexts received by AUT, by content hash computed on runner side. Lets
+ * runner send only a hash of a context already applied before.
+ * <p>
+ * Cache size is limited by approximate memory used by contexts, least
+ * recently used contexts are evicted first.
+ */
+public class ContextCache {
+	/**
+	 * Status code returned by AUT when context is entered by hash, but is not
+	 * in cache. Runner should send context data in this case.
+	 */
+	public static final int MISS_CODE = 0x7C7C;
+
+	/** Cache size in megabytes */
+	public static final String SIZE_PROPERTY = "org.eclipse.rcptt.context.cache.size";
+	private static final long DEFAULT_SIZE = 64;
+
+	public static final ContextCache INSTANCE = new ContextCache(
+			Long.getLong(SIZE_PROPERTY, DEFAULT_SIZE) * 1024 * 1024);
+
+	private static final class Entry {
+		final Context context;
+		final long size;
+
+		Entry(Context context, long size) {
+			this.context = context;
+			this.size = size;
+		}
+	}
+
+	private final long capacity;
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	private long size = 0;
+
+	public ContextCache(long capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * @return context with given hash or <code>null</code> if it is not
+	 *         cached
+	 */
+	public synchronized Context get(String hash) {
+		Entry entry = entries.get(hash);
+		return entry == null ? null : entry.context;
+	}
+
+	/**
+	 * Caches context unless it alone exceeds cache capacity. Context must not
+	 * be modified afterwards.
+	 */
+	public synchronized void put(String hash, Context context) {
+		long contextSize = estimateSize(context);
+		Entry previous = entries.remove(hash);
+		if (previous != null) {
+			size -= previous.size;
+		}
+		if (contextSize > capacity) {
+			return;
+		}
+		entries.put(hash, new Entry(context, contextSize));
+		size += contextSize;
+		Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+		while (size > capacity && eldest.hasNext()) {
+			size -= eldest.next().getValue().size;
+			eldest.remove();
+		}
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+		size = 0;
+	}
+
+	public synchronized long getSize() {
+		return size;
+	}
+
+	/**
+	 * Approximates memory used by attribute values of the object tree, which
+	 * is dominated by file contents for workspace contexts.
+	 */
+	static long estimateSize(EObject root) {
+		long result = 0;
+		Iterator<EObject> objects = EcoreUtil.getAllProperContents(root, false);
+		result += estimateAttributes(root);
+		while (objects.hasNext()) {
+			result += estimateAttributes(objects.next());
+		}
+		return result;
+	}
+
+	private static long estimateAttributes(EObject object) {
+		long result = 16;
+		for (EAttribute attribute : object.eClass().getEAllAttributes()) {
+			if (attribute.isMany() || !object.eIsSet(attribute)) {
+				continue;
+			}
+			Object value = object.eGet(attribute);
+			if (value instanceof byte[]) {
+				result += ((byte[]) value).length;
+			} else if (value instanceof String) {
+				result += 2 * ((String) value).length();
+			} else {
+				result += 8;
+			}
+		}
+		return result;
+	}
+}
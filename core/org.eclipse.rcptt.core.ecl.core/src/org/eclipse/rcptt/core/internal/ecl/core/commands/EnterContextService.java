@@ -15,6 +15,8 @@
 import org.eclipse.core.runtime.Status;
 import org.eclipse.rcptt.core.ContextTypeManager;
 import org.eclipse.rcptt.core.ecl.core.model.EnterContext;
+import org.eclipse.rcptt.core.internal.ecl.core.Activator;
+import org.eclipse.rcptt.core.internal.ecl.core.ContextCache;
 import org.eclipse.rcptt.core.internal.ecl.core.Utils;
 import org.eclipse.rcptt.core.scenario.Context;
 import org.eclipse.rcptt.ecl.core.Command;
@@ -31,7 +33,11 @@ public class EnterContextService implements ICommandService {
 	public IStatus service(Command command, final IProcess context)
 			throws InterruptedException, CoreException {
 		EnterContext ewc = (EnterContext) command;
-		final Context data = ewc.getData();
+		final Context data = resolveData(ewc);
+		if (data == null) {
+			return new Status(IStatus.ERROR, Activator.PLUGIN_ID, ContextCache.MISS_CODE,
+					"Context " + ewc.getHash() + " is not cached", null);
+		}
 		Q7Info info = ReportingFactory.eINSTANCE.createQ7Info();
 		info.setType(ItemKind.CONTEXT);
 		info.setId(data.getId());
@@ -49,4 +55,17 @@ public void run() throws CoreException {
 				: data.getName(), info);
 		return Status.OK_STATUS;
 	}
+
+	private static Context resolveData(EnterContext command) {
+		String hash = command.getHash();
+		Context data = command.getData();
+		if (hash == null) {
+			return data;
+		}
+		if (data == null) {
+			return ContextCache.INSTANCE.get(hash);
+		}
+		ContextCache.INSTANCE.put(hash, data);
+		return data;
+	}
 }
@@ -50,8 +50,7 @@ public IStatus service(Command command, IProcess context)
 			final CreateReport cr = (CreateReport) command;
 			ReportManager.createReport(cr.getName(), cr.getQ7info());
 		} else if (command instanceof GetReport) {
-			Report reportCopy = ReportManager.getReportCopy();
-			ReportManager.clear();
+			Report reportCopy = ReportManager.takeReport();
 			stack.clear();
 			ECLBinaryResourceImpl res = new ECLBinaryResourceImpl();
 			if (reportCopy != null) {
@@ -52,6 +52,20 @@ public void makeExecutable(Context context, IQ7NamedElement source)
 			throws ModelException {
 	}
 
+	/**
+	 * Context is self contained unless a subclass makes it executable in its
+	 * own way, in which case the subclass should tell.
+	 */
+	public boolean isSelfContained(IQ7NamedElement source)
+			throws ModelException {
+		try {
+			return getClass().getMethod("makeExecutable", Context.class,
+					IQ7NamedElement.class).getDeclaringClass() == DefaultContextMaker.class;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
 	public void captureContents(IContext context, Context data,
 			IProgressMonitor monitor) throws CoreException {
 		Context thisData = (Context) context.getNamedElement();
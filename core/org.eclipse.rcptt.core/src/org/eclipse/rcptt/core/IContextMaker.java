@@ -29,6 +29,17 @@ public interface IContextMaker {
 	public void makeExecutable(Context context, IQ7NamedElement source)
 			throws ModelException;
 
+	/**
+	 * @return <code>true</code> if result of
+	 *         {@link #makeExecutable(Context, IQ7NamedElement)} depends only
+	 *         on the resource of the source, so it may be reused while the
+	 *         resource is not modified
+	 */
+	public default boolean isSelfContained(IQ7NamedElement source)
+			throws ModelException {
+		return false;
+	}
+
 	public void captureContents(IContext context, Context data,
 			IProgressMonitor monitor) throws CoreException;
 
@@ -21,6 +21,7 @@ public class Q7Features extends AbstractFeatureManager {
 	// public static final String Q7_WORKSPACE_CLEAR_TIMEOUT =
 	// "q7.contexts.workspace.clear.timeout";
 	public static final String Q7_WORKSPACE_FORCE_GC = "q7.contexts.workspace.clear.force.gc";
+	public static final String Q7_CONTEXTS_PARALLEL_FILES = "q7.contexts.files.parallel";
 	public static final String LAUNCHING_KILL_AUT_ON_CONNECT_ERROR = "launching.kill.aut.on.connect.error";
 	// Code:
 	private static Q7Features features;
@@ -69,6 +70,15 @@ public Q7Features() {
 				.value("true").defaultValue("true").editable(true)
 				.values(TeslaFeatures.BOOLEAN_VALUES)
 				.showIn(TeslaFeatures.ADV_OPTIONS);
+		option(Q7_CONTEXTS_PARALLEL_FILES)
+				.category("Resources Context")
+				.name("Write and delete files in parallel")
+				.description(
+						"If on, workspace and file system contexts write and delete files on several threads "
+								+ "and register written files in workspace with a single refresh")
+				.value("false").defaultValue("false").editable(true)
+				.values(TeslaFeatures.BOOLEAN_VALUES)
+				.showIn(TeslaFeatures.ADV_OPTIONS);
 
 		option(LAUNCHING_KILL_AUT_ON_CONNECT_ERROR)
 				.name("Kill AUT on connect error")
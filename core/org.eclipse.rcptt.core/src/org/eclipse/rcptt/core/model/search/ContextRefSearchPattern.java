@@ -32,6 +32,11 @@ public boolean accept(String key, String value) {
 		};
 	}
 
+	@Override
+	public String getValue() {
+		return cid;
+	}
+
 	@Override
 	public String[] getKeys() {
 		return new String[] { IQ7IndexConstants.CONTEXT_REF };
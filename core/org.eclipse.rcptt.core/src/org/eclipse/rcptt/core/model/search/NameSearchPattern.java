@@ -31,6 +31,11 @@ public boolean accept(String key, String value) {
 		};
 	}
 
+	@Override
+	public String getValue() {
+		return name;
+	}
+
 	@Override
 	public String[] getKeys() {
 		return new String[] { IQ7IndexConstants.NAME };
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.core.model.search;
+
+import java.util.List;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.rcptt.core.model.index.IQ7IndexConstants;
+import org.eclipse.rcptt.core.workspace.RcpttCore;
+import org.eclipse.rcptt.internal.core.model.index.Index;
+import org.eclipse.rcptt.internal.core.model.index.QueryResult;
+
+/**
+ * Finds elements by name pattern, where <code>*</code> matches any sequence
+ * of characters and <code>?</code> matches any single character.
+ */
+public class NameWildcardSearchPattern implements ISearchPattern {
+	private final String pattern;
+
+	public NameWildcardSearchPattern(String pattern) {
+		this.pattern = pattern;
+	}
+
+	public void findIndexMatches(Index index, IProgressMonitor monitor,
+			IIndexRequestor requestor) {
+		List<QueryResult> results = index.queryWildcard(
+				IQ7IndexConstants.NAME, pattern);
+		final IPath path = index.getPath();
+		final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		for (final QueryResult queryResult : results) {
+			IResource resource = root.findMember(path.append(new Path(
+					queryResult.path)));
+			if (resource != null) {
+				requestor.acceptMatch(RcpttCore.create(resource),
+						queryResult.key, queryResult.value);
+			}
+		}
+	}
+}
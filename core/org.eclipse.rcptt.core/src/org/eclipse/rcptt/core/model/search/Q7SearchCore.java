@@ -94,6 +94,31 @@ public static IQ7NamedElement[] findByName(String name, ISearchScope scope,
 		return elements.toArray(new IQ7NamedElement[elements.size()]);
 	}
 
+	/**
+	 * @param pattern
+	 *            name pattern, where <code>*</code> matches any sequence of
+	 *            characters and <code>?</code> matches any single character
+	 */
+	public static IQ7NamedElement[] findByNamePattern(String pattern,
+			ISearchScope scope, IProgressMonitor monitor) {
+
+		IndexManager indexManager = ModelManager.getModelManager().getIndexManager();
+
+		Q7NamedElementCollector collector = new Q7NamedElementCollector();
+
+		indexManager.performConcurrentJob(new PatternSearchJob(
+				new NameWildcardSearchPattern(pattern), scope, collector),
+				IJob.WaitUntilReady, monitor);
+
+		List<IQ7NamedElement> elements = new ArrayList<IQ7NamedElement>();
+		for (IQ7Element e : collector.getElements()) {
+			if (e instanceof IQ7NamedElement) {
+				elements.add((IQ7NamedElement) e);
+			}
+		}
+		return elements.toArray(new IQ7NamedElement[elements.size()]);
+	}
+
 	public static IQ7NamedElement[] findContextUsage(String cid, ISearchScope scope,
 			IProgressMonitor monitor) {
 
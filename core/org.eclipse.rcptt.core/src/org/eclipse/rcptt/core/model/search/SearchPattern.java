@@ -45,7 +45,9 @@ public void findIndexMatches(Index index, IProgressMonitor monitor,
 		if (monitor != null && monitor.isCanceled())
 			throw new OperationCanceledException();
 		// ExecutorService executor = Executors.newFixedThreadPool(N_THREADS);
-		final List<QueryResult> results = index.query(getKeys(), getPattern(),
+		final String value = getValue();
+		final List<QueryResult> results = value != null ? index.query(
+				getKeys(), value) : index.query(getKeys(), getPattern(),
 				monitor);
 		final IPath path = index.getPath();
 		final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
@@ -86,4 +88,13 @@ public void findIndexMatches(Index index, IProgressMonitor monitor,
 	 * @see org.eclipse.rcptt.core.model.search.ISearchPattern#getKeys()
 	 */
 	public abstract String[] getKeys();
+
+	/**
+	 * @return the only value accepted by pattern, to be looked up in index
+	 *         directly, or <code>null</code> if pattern should be checked
+	 *         against every value of the keys
+	 */
+	public String getValue() {
+		return null;
+	}
 }
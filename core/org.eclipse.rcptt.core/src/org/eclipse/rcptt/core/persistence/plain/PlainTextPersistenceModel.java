@@ -24,6 +24,7 @@
 import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -86,6 +87,89 @@ public class PlainTextPersistenceModel extends BasePersistenceModel implements I
 	private Map<String, String> masterAttributes = new HashMap<String, String>();
 	private String plainStoreFormat = PLAIN_HEADER;
 
+	/**
+	 * Metadata of an element as stored in plain format header. Reading it does
+	 * not extract or parse any entries, so ECL, Tesla content and attachments
+	 * stay on disk.
+	 */
+	public static final class Header {
+		private final Map<String, String> attributes;
+		private final boolean contentEntry;
+
+		private Header(Map<String, String> attributes, boolean contentEntry) {
+			this.attributes = attributes;
+			this.contentEntry = contentEntry;
+		}
+
+		public String getElementType() {
+			return attributes.get(ATTR_ELEMENT_TYPE);
+		}
+
+		public String getId() {
+			return attributes.get(ATTR_ID);
+		}
+
+		public String getName() {
+			return attributes.get(ATTR_ELEMENT_NAME);
+		}
+
+		/**
+		 * @return tags or <code>null</code> if they can't be known without
+		 *         loading the element
+		 */
+		public String getTags() {
+			String tags = attributes.get(ATTR_TAGS);
+			if (tags == null && !contentEntry) {
+				// Empty tags are not saved
+				return "";
+			}
+			return tags;
+		}
+
+		/**
+		 * @return context references of a test case or <code>null</code> if
+		 *         they can't be known without loading the element
+		 */
+		public List<String> getContexts() {
+			if (!KIND_TESTCASE.equals(getElementType())) {
+				return null;
+			}
+			String contexts = attributes.get(ATTR_CONTEXTS);
+			if (contexts != null) {
+				return Arrays.asList(contexts.split(","));
+			}
+			return contentEntry ? null : Collections.<String> emptyList();
+		}
+	}
+
+	/**
+	 * Reads element metadata from plain format header. Entries are only
+	 * scanned for a metadata entry, which may define attributes absent in
+	 * header, and their content is skipped.
+	 *
+	 * @return header or <code>null</code> if contents is not in supported
+	 *         plain format
+	 */
+	public static Header readHeader(InputStream contents) throws IOException {
+		try (PlainReader reader = new PlainReader(contents)) {
+			Map<String, String> header = reader.readHeader();
+			if (header == null || !FORMAT_VERSION.equals(header.get(ATTR_FORMAT_VERSION))) {
+				return null;
+			}
+			boolean contentEntry = true;
+			if (!header.containsKey(ATTR_TAGS) || !header.containsKey(ATTR_CONTEXTS)) {
+				contentEntry = false;
+				for (Entry entry = reader.readEntry(); entry != null; entry = reader.readEntry()) {
+					if (PersistenceManager.CONTENT_ENTRY.equals(entry.name)) {
+						contentEntry = true;
+						break;
+					}
+				}
+			}
+			return new Header(header, contentEntry);
+		}
+	}
+
 	public PlainTextPersistenceModel(Resource element) {
 		super(element);
 	}
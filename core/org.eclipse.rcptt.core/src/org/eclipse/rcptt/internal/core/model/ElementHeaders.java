@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.internal.core.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.rcptt.core.persistence.plain.PlainTextPersistenceModel;
+import org.eclipse.rcptt.core.persistence.plain.PlainTextPersistenceModel.Header;
+
+/**
+ * Plain format headers of named elements, by file path. Lets id, name, tags
+ * and context references be read without opening elements, which keeps
+ * their whole models in memory.
+ * <p>
+ * A header is valid while modification stamp of its file is unchanged. Number
+ * of cached headers is limited, least recently used are evicted first.
+ */
+final class ElementHeaders {
+	static final ElementHeaders INSTANCE = new ElementHeaders();
+
+	private static final int MAX_SIZE = 4096;
+
+	private static final class Cached {
+		final long stamp;
+		final Header header;
+
+		Cached(long stamp, Header header) {
+			this.stamp = stamp;
+			this.header = header;
+		}
+	}
+
+	private final Map<IPath, Cached> headers = new LinkedHashMap<IPath, Cached>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IPath, Cached> eldest) {
+			return size() > MAX_SIZE;
+		}
+	};
+
+	/**
+	 * @return header of the file or <code>null</code> if the file does not
+	 *         exist, is not in plain format or can't be read
+	 */
+	Header get(IFile file) {
+		long stamp = file.getModificationStamp();
+		if (stamp == IResource.NULL_STAMP) {
+			return null;
+		}
+		IPath path = file.getFullPath();
+		synchronized (headers) {
+			Cached cached = headers.get(path);
+			if (cached != null && cached.stamp == stamp) {
+				return cached.header;
+			}
+		}
+		Header header;
+		try (InputStream contents = file.getContents()) {
+			header = PlainTextPersistenceModel.readHeader(contents);
+		} catch (CoreException | IOException e) {
+			// Element is loaded instead and reports the problem
+			return null;
+		}
+		synchronized (headers) {
+			headers.put(path, new Cached(stamp, header));
+		}
+		return header;
+	}
+}
@@ -85,6 +85,11 @@ public String getID() throws ModelException {
 		return scenario.getId();
 	}
 
+	@Override
+	public String[] getContexts() throws ModelException {
+		return scenario.getContexts().toArray(new String[0]);
+	}
+
 	@Override
 	protected boolean buildStructure(OpenableElementInfo info,
 			IProgressMonitor pm,
@@ -11,6 +11,7 @@
 package org.eclipse.rcptt.internal.core.model;
 
 import java.io.IOException;
+import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -27,6 +28,7 @@
 import org.eclipse.rcptt.core.model.Q7Status;
 import org.eclipse.rcptt.core.persistence.IPersistenceModel;
 import org.eclipse.rcptt.core.persistence.plain.IPlainConstants;
+import org.eclipse.rcptt.core.persistence.plain.PlainTextPersistenceModel.Header;
 import org.eclipse.rcptt.core.scenario.NamedElement;
 import org.eclipse.rcptt.internal.core.RcpttPlugin;
 import org.eclipse.rcptt.internal.core.model.ModelManager.PerWorkingCopyInfo;
@@ -93,11 +95,11 @@ public IPath getPath() {
 	}
 
 	public String getID() throws ModelException {
-		return accessResourceInfo(info -> info.getNamedElement().getId());
+		return accessHeader(Header::getId, info -> info.getNamedElement().getId());
 	}
 
 	public String getElementName() throws ModelException {
-		return accessResourceInfo(info -> info.getNamedElement().getName());
+		return accessHeader(Header::getName, info -> info.getNamedElement().getName());
 	}
 
 	public String getDescription() throws ModelException {
@@ -109,7 +111,7 @@ public String getVersion() throws ModelException {
 	}
 
 	public String getTags() throws ModelException {
-		return accessResourceInfo(info -> info.getNamedElement().getTags());
+		return accessHeader(Header::getTags, info -> info.getNamedElement().getTags());
 	}
 
 	public NamedElement getMeta() throws ModelException {
@@ -319,6 +321,38 @@ public final <V> V accessResourceInfo(Function<Q7ResourceInfo, V> infoToValue) t
 		}
 	}
 
+	/**
+	 * Reads a value from plain format header without opening this element, so
+	 * that discovery of many elements does not keep their models in memory.
+	 * Falls back to element info for working copies, already opened elements
+	 * and values header does not define.
+	 */
+	protected final <V> V accessHeader(Function<Header, V> headerToValue,
+			Function<Q7ResourceInfo, V> infoToValue) throws ModelException {
+		if (!isInWorkingCopyMode()) {
+			IFile file = getResource();
+			try {
+				Optional<V> opened = accessInfoIfOpened(info -> infoToValue.apply((Q7ResourceInfo) info));
+				if (opened.isPresent()) {
+					return opened.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ModelException(e, 0);
+			}
+			if (file.isSynchronized(IResource.DEPTH_ZERO)) {
+				Header header = ElementHeaders.INSTANCE.get(file);
+				if (header != null) {
+					V value = headerToValue.apply(header);
+					if (value != null) {
+						return value;
+					}
+				}
+			}
+		}
+		return accessResourceInfo(infoToValue);
+	}
+
 	@Override
 	protected boolean isInWorkingCopyMode() {
 		return workingCopyMode;
@@ -12,6 +12,7 @@
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.Path;
@@ -19,6 +20,7 @@
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.rcptt.core.model.ITestCase;
 import org.eclipse.rcptt.core.model.ModelException;
+import org.eclipse.rcptt.core.persistence.plain.PlainTextPersistenceModel.Header;
 import org.eclipse.rcptt.core.scenario.NamedElement;
 import org.eclipse.rcptt.core.scenario.Scenario;
 import org.eclipse.rcptt.core.scenario.ScenarioProperty;
@@ -42,7 +44,8 @@ public EObject getContent() throws ModelException {
 	}
 
 	public String[] getContexts() throws ModelException {
-		EList<String> contexts = getScenario().getContexts();
+		List<String> contexts = accessHeader(Header::getContexts,
+				info -> ((Scenario) info.getNamedElement()).getContexts());
 		return contexts.toArray(new String[contexts.size()]);
 	}
 
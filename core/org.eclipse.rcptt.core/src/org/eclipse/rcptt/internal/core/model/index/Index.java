@@ -10,19 +10,36 @@
  *******************************************************************************/
 package org.eclipse.rcptt.internal.core.model.index;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -33,34 +50,188 @@
 import org.eclipse.rcptt.internal.core.RcpttPlugin;
 import org.eclipse.rcptt.util.FileUtil;
 
+/**
+ * Index of named elements of a single project.
+ * <p>
+ * Besides documents, index keeps an inverted index from key to sorted values
+ * to documents, built for a key on its first query. Modifications are
+ * synchronized, while queries take the lock only to build a key: a document
+ * is replaced as a whole, and each value maps to an immutable array of
+ * documents, which a modification replaces only for values it changes. A
+ * document gets its new values before it loses old ones, so a concurrent
+ * query may find it by both, but never misses it.
+ * <p>
+ * Index file consists of a compacted base followed by an append-only journal
+ * of documents changed since the base was written. Base starts with a header:
+ *
+ * <pre>
+ * UTF      version
+ * int      string count
+ * int      document count
+ * int      base length, where journal starts
+ * int[]    string offsets
+ * record[] documents: int path, long timestamp, int pairs offset, int pair count
+ * strings: int length, UTF-8 bytes
+ * pairs:   int key, int value
+ * </pre>
+ *
+ * Offsets are positions in file and strings are referred by indices in
+ * string table, which holds every path, key and value once. Loading decodes
+ * paths only: documents refer to their records in file buffer, a string is
+ * decoded on first use and shared by documents, and inverted index of a key
+ * is built from records when the key is queried.
+ * Journal records are a byte {@link #PUT} or {@link #REMOVE} followed by a
+ * path, and for put a timestamp, a pair count and key/value pairs, all
+ * written with {@link DataOutputStream}.
+ */
 public class Index {
-	private static final String CURRENT_VERSION = "INDEX_ID_1.0.3";
+	private static final String CURRENT_VERSION = "INDEX_ID_2.0.0";
+	/** Previous format, read for migration only */
+	private static final String VERSION_1_0 = "INDEX_ID_1.0.3";
+	private static final byte PUT = 1;
+	private static final byte REMOVE = 2;
+	/** Journal longer than that and half of the base is compacted on save */
+	private static final long MIN_COMPACTED_JOURNAL = 64 * 1024;
 	// private static final int N_THREADS = 8;
 	// private IPath path;
 	public ReadWriteMonitor monitor;
 	private File indexFile;
-	private Map<String, Entry> docToEnties = new HashMap<String, Entry>();
-	private Map<String, String> pathToIDCache = new HashMap<String, String>();
-	private Map<String, List<String>> idToPathCache = new HashMap<String, List<String>>();
+	private final Map<String, Entry> docToEnties = new ConcurrentHashMap<String, Entry>();
+	/**
+	 * Key to value to documents, only for keys queried since load. Modified
+	 * under lock and read without it.
+	 */
+	private final Map<String, ConcurrentSkipListMap<String, String[]>> postings = new ConcurrentHashMap<String, ConcurrentSkipListMap<String, String[]>>();
+	/** Documents changed since index was saved, guarded by this */
+	private final Set<String> changedDocuments = new LinkedHashSet<String>();
+	/** Length of base and journal in index file, zero if no base */
+	private long baseLength = 0;
+	private long journalLength = 0;
 
-	private Map<String, String> pathToNameCache = new HashMap<String, String>();
 	private int changes = 0;
 	private IPath path;
 
+	/**
+	 * Immutable document. Keys of a document loaded from index file are read
+	 * from its record whenever they are needed, and are not kept, as they are
+	 * needed once to write or replace the document.
+	 */
 	private static class Entry {
-		Map<String, List<String>> keys = new HashMap<String, List<String>>();
-		String path;
-		long timestamp = -1;
+		private final Map<String, List<String>> keys;
+		private final StringTable table;
+		private final int pairsOffset;
+		private final int pairCount;
+		final String path;
+		final long timestamp;
+
+		Entry(String path, long timestamp, Map<String, List<String>> keys) {
+			this.path = path;
+			this.timestamp = timestamp;
+			this.keys = keys;
+			this.table = null;
+			this.pairsOffset = 0;
+			this.pairCount = 0;
+		}
+
+		Entry(String path, long timestamp, StringTable table, int pairsOffset, int pairCount) {
+			this.path = path;
+			this.timestamp = timestamp;
+			this.keys = null;
+			this.table = table;
+			this.pairsOffset = pairsOffset;
+			this.pairCount = pairCount;
+		}
+
+		Map<String, List<String>> getKeys() {
+			if (keys != null) {
+				return keys;
+			}
+			Map<String, List<String>> decoded = new HashMap<String, List<String>>();
+			for (int i = 0; i < pairCount; i++) {
+				String key = table.get(table.getInt(pairsOffset + i * 8));
+				List<String> values = decoded.get(key);
+				if (values == null) {
+					values = new ArrayList<String>(1);
+					decoded.put(key, values);
+				}
+				values.add(table.get(table.getInt(pairsOffset + i * 8 + 4)));
+			}
+			for (Map.Entry<String, List<String>> entry : decoded.entrySet()) {
+				entry.setValue(Collections.unmodifiableList(entry.getValue()));
+			}
+			return Collections.unmodifiableMap(decoded);
+		}
 
-		public void addKey(String key, String value) {
+		/**
+		 * @return values of a single key, decoding only them
+		 */
+		List<String> getValues(String key) {
+			if (keys != null) {
+				List<String> values = keys.get(key);
+				return values == null ? Collections.<String> emptyList() : values;
+			}
+			List<String> values = new ArrayList<String>(1);
+			for (int i = 0; i < pairCount; i++) {
+				if (table.get(table.getInt(pairsOffset + i * 8)).equals(key)) {
+					values.add(table.get(table.getInt(pairsOffset + i * 8 + 4)));
+				}
+			}
+			return values;
+		}
+
+		Entry withKey(String key, String value) {
+			Map<String, List<String>> keys = getKeys();
 			List<String> list = keys.get(key);
-			if (list == null) {
-				list = new ArrayList<String>();
-				keys.put(key, list);
+			if (list != null && list.contains(value)) {
+				return this;
 			}
-			if( !list.contains(value)) {
-				list.add(value);
+			Map<String, List<String>> copy = new HashMap<String, List<String>>(keys);
+			List<String> values = list == null ? new ArrayList<String>(1) : new ArrayList<String>(list);
+			values.add(value);
+			copy.put(key, Collections.unmodifiableList(values));
+			return new Entry(path, timestamp, Collections.unmodifiableMap(copy));
+		}
+
+		Entry withTimestamp(long stamp) {
+			return table == null ? new Entry(path, stamp, keys)
+					: new Entry(path, stamp, table, pairsOffset, pairCount);
+		}
+
+		String getSingle(String key) {
+			List<String> values = getValues(key);
+			return values.size() == 1 ? values.get(0) : null;
+		}
+	}
+
+	/**
+	 * String table of index file, which decodes a string on first use. Only
+	 * absolute reads of the buffer are used, so it is safe to share.
+	 */
+	private static class StringTable {
+		private final ByteBuffer buffer;
+		private final int offsets;
+		private final String[] strings;
+
+		StringTable(ByteBuffer buffer, int offsets, int count) {
+			this.buffer = buffer;
+			this.offsets = offsets;
+			this.strings = new String[count];
+		}
+
+		int getInt(int position) {
+			return buffer.getInt(position);
+		}
+
+		/** Decoding is idempotent, so a racy cache is enough */
+		String get(int index) {
+			String result = strings[index];
+			if (result == null) {
+				int offset = buffer.getInt(offsets + index * 4);
+				result = new String(buffer.array(), buffer.arrayOffset() + offset + 4,
+						buffer.getInt(offset), StandardCharsets.UTF_8);
+				strings[index] = result;
 			}
+			return result;
 		}
 	}
 
@@ -75,30 +246,137 @@ public Index(IPath fullPath) {
 	}
 
 	public synchronized void load() {
-		this.docToEnties.clear();
+		clear();
 		if (indexFile.exists()) {
-			DataInputStream din = null;
 			try {
-				din = new DataInputStream(new BufferedInputStream(
-						new FileInputStream(indexFile)));
-				String id = din.readUTF();
+				ByteBuffer buffer = readFile();
+				String id = readUTF(buffer);
 				if (id.equals(CURRENT_VERSION)) {
-					readIndex_1_0(din);
+					readIndex_2_0(buffer);
+				} else if (id.equals(VERSION_1_0)) {
+					readIndex_1_0(new DataInputStream(new ByteArrayInputStream(
+							buffer.array(), buffer.position(), buffer.remaining())));
+					// Rewrite in current format on next save
+					changes++;
 				}
-			} catch (IOException e) {
+			} catch (IOException | RuntimeException e) {
 				RcpttPlugin.log(e);
-			} finally {
-				FileUtil.safeClose(din);
+				clear();
+			}
+		}
+		changedDocuments.clear();
+	}
+
+	/**
+	 * Reads index file into a buffer with a single read. Format is suitable
+	 * for memory mapping, but a heap buffer is used, as a mapped file can't be
+	 * rewritten or appended to on Windows until mapping is garbage collected.
+	 */
+	private ByteBuffer readFile() throws IOException {
+		try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Index file is too large: " + indexFile);
 			}
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0)
+				;
+			buffer.flip();
+			return buffer;
+		}
+	}
+
+	private static String readUTF(ByteBuffer buffer) {
+		int length = buffer.getShort() & 0xFFFF;
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads records and checks that every offset and string index is within
+	 * the base, so that documents can be decoded lazily without failing later.
+	 * Only paths are decoded.
+	 */
+	private void readIndex_2_0(ByteBuffer buffer) throws IOException {
+		int stringCount = buffer.getInt();
+		int documentCount = buffer.getInt();
+		int base = buffer.getInt();
+		int offsets = buffer.position();
+		long documents = offsets + stringCount * 4L;
+		if (stringCount < 0 || documentCount < 0 || base > buffer.limit()
+				|| documents + documentCount * 20L > base) {
+			throw new IOException("Index file is truncated: " + indexFile);
+		}
+		for (int i = 0; i < stringCount; i++) {
+			int offset = buffer.getInt(offsets + i * 4);
+			if (offset < documents || offset > base - 4
+					|| buffer.getInt(offset) < 0 || offset + 4L + buffer.getInt(offset) > base) {
+				throw new IOException("Index file is corrupt: " + indexFile);
+			}
+		}
+		StringTable table = new StringTable(buffer, offsets, stringCount);
+		for (int i = 0; i < documentCount; i++) {
+			int record = (int) documents + i * 20;
+			int pathId = buffer.getInt(record);
+			long timestamp = buffer.getLong(record + 4);
+			int pairsOffset = buffer.getInt(record + 12);
+			int pairCount = buffer.getInt(record + 16);
+			if (pathId < 0 || pathId >= stringCount || pairsOffset < documents || pairCount < 0
+					|| pairsOffset + pairCount * 8L > base) {
+				throw new IOException("Index file is corrupt: " + indexFile);
+			}
+			for (int j = 0; j < pairCount * 2; j++) {
+				int string = buffer.getInt(pairsOffset + j * 4);
+				if (string < 0 || string >= stringCount) {
+					throw new IOException("Index file is corrupt: " + indexFile);
+				}
+			}
+			String path = table.get(pathId);
+			docToEnties.put(path, new Entry(path, timestamp, table, pairsOffset, pairCount));
+		}
+		baseLength = base;
+		journalLength = buffer.limit() - base;
+		replayJournal(new DataInputStream(new ByteArrayInputStream(
+				buffer.array(), base, buffer.limit() - base)));
+	}
+
+	private void replayJournal(DataInputStream din) throws IOException {
+		try {
+			while (din.available() > 0) {
+				byte operation = din.readByte();
+				String path = din.readUTF();
+				if (operation == REMOVE) {
+					put(path, null);
+					continue;
+				}
+				long timestamp = din.readLong();
+				int count = din.readInt();
+				Map<String, List<String>> keys = new HashMap<String, List<String>>();
+				for (int i = 0; i < count; i++) {
+					String key = din.readUTF();
+					List<String> values = keys.get(key);
+					if (values == null) {
+						values = new ArrayList<String>();
+						keys.put(key, values);
+					}
+					values.add(din.readUTF());
+				}
+				put(createEntry(path, timestamp, keys));
+			}
+		} catch (EOFException e) {
+			// Last record is incomplete, compact it away on next save
+			journalLength = Long.MAX_VALUE / 2;
+			changes++;
 		}
 	}
 
 	private void readIndex_1_0(DataInputStream din) throws IOException {
 		int entriesCount = din.readInt();
 		for (int i = 0; i < entriesCount; i++) {
-			Entry entry = new Entry();
-			entry.path = din.readUTF();
-			entry.timestamp = din.readLong();
+			String path = din.readUTF();
+			long timestamp = din.readLong();
+			Map<String, List<String>> keys = new HashMap<String, List<String>>();
 			int keysCount = din.readInt();
 			for (int j = 0; j < keysCount; j++) {
 				String key = din.readUTF();
@@ -107,92 +385,208 @@ private void readIndex_1_0(DataInputStream din) throws IOException {
 				for (int k = 0; k < valuesCount; k++) {
 					values.add(din.readUTF());
 				}
-				entry.keys.put(key, values);
-				if (IQ7IndexConstants.ID.equals(key) && values.size() == 1) {
-					pathToIDCache.put(entry.path, values.get(0));
-					updateIdToPath(entry.path, values.get(0));
-				}
-				if (IQ7IndexConstants.NAME.equals(key) && values.size() == 1) {
-					pathToNameCache.put(entry.path, values.get(0));
+				keys.put(key, values);
+			}
+			put(createEntry(path, timestamp, keys));
+		}
+	}
+
+	/**
+	 * Writes all documents as a new base.
+	 *
+	 * @return base length
+	 */
+	private long writeIndex_2_0(File file) throws IOException {
+		List<Entry> entries = new ArrayList<Entry>(docToEnties.values());
+		Map<String, Integer> stringIds = new LinkedHashMap<String, Integer>();
+		ByteArrayOutputStream pairBytes = new ByteArrayOutputStream();
+		DataOutputStream pairs = new DataOutputStream(pairBytes);
+		int[] pairOffsets = new int[entries.size()];
+		int[] pairCounts = new int[entries.size()];
+		for (int i = 0; i < entries.size(); i++) {
+			Entry entry = entries.get(i);
+			intern(entry.path, stringIds);
+			pairOffsets[i] = pairs.size();
+			for (Map.Entry<String, List<String>> key : entry.getKeys().entrySet()) {
+				int keyId = intern(key.getKey(), stringIds);
+				for (String value : key.getValue()) {
+					pairs.writeInt(keyId);
+					pairs.writeInt(intern(value, stringIds));
+					pairCounts[i]++;
 				}
 			}
-			docToEnties.put(entry.path, entry);
 		}
+		ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+		DataOutputStream strings = new DataOutputStream(stringBytes);
+		int[] stringOffsets = new int[stringIds.size()];
+		int i = 0;
+		for (String string : stringIds.keySet()) {
+			stringOffsets[i++] = strings.size();
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			strings.writeInt(bytes.length);
+			strings.write(bytes);
+		}
+
+		int header = 2 + CURRENT_VERSION.getBytes(StandardCharsets.UTF_8).length + 12;
+		long stringsStart = header + stringOffsets.length * 4L + entries.size() * 20L;
+		long pairsStart = stringsStart + strings.size();
+		long base = pairsStart + pairs.size();
+		if (base > Integer.MAX_VALUE) {
+			throw new IOException("Index is too large: " + path);
+		}
+		DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file)));
+		try {
+			dout.writeUTF(CURRENT_VERSION);
+			dout.writeInt(stringOffsets.length);
+			dout.writeInt(entries.size());
+			dout.writeInt((int) base);
+			for (int offset : stringOffsets) {
+				dout.writeInt((int) stringsStart + offset);
+			}
+			for (int j = 0; j < entries.size(); j++) {
+				dout.writeInt(stringIds.get(entries.get(j).path));
+				dout.writeLong(entries.get(j).timestamp);
+				dout.writeInt((int) pairsStart + pairOffsets[j]);
+				dout.writeInt(pairCounts[j]);
+			}
+			stringBytes.writeTo(dout);
+			pairBytes.writeTo(dout);
+		} finally {
+			FileUtil.safeClose(dout);
+		}
+		return base;
 	}
 
-	private void writeIndex_1_0(DataOutputStream dout) throws IOException {
-		dout.writeUTF(CURRENT_VERSION);
-		List<String> keySet = new ArrayList<String>(docToEnties.keySet());
-		int entriesCount = docToEnties.size();
-		dout.writeInt(entriesCount);
-		for (int i = 0; i < entriesCount; i++) {
-			Entry entry = docToEnties.get(keySet.get(i));
-			dout.writeUTF(entry.path);
-			dout.writeLong(entry.timestamp);
-			int keysCount = entry.keys.size();
-			dout.writeInt(keysCount);
-			List<String> eKeys = new ArrayList<String>(entry.keys.keySet());
-			for (int j = 0; j < keysCount; j++) {
-				String key = eKeys.get(j);
-				dout.writeUTF(key);
-				List<String> values = entry.keys.get(key);
-				int valuesCount = values.size();
-				dout.writeInt(valuesCount);
-				for (int k = 0; k < valuesCount; k++) {
-					dout.writeUTF(values.get(k));
+	private static int intern(String string, Map<String, Integer> ids) {
+		Integer id = ids.get(string);
+		if (id == null) {
+			id = ids.size();
+			ids.put(string, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Appends documents changed since last save to journal.
+	 */
+	private void appendJournal() throws IOException {
+		DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(indexFile, true)));
+		try {
+			for (String document : changedDocuments) {
+				Entry entry = docToEnties.get(document);
+				if (entry == null) {
+					dout.writeByte(REMOVE);
+					dout.writeUTF(document);
+					continue;
+				}
+				dout.writeByte(PUT);
+				dout.writeUTF(document);
+				dout.writeLong(entry.timestamp);
+				Map<String, List<String>> keys = entry.getKeys();
+				int count = 0;
+				for (List<String> values : keys.values()) {
+					count += values.size();
+				}
+				dout.writeInt(count);
+				for (Map.Entry<String, List<String>> key : keys.entrySet()) {
+					for (String value : key.getValue()) {
+						dout.writeUTF(key.getKey());
+						dout.writeUTF(value);
+					}
 				}
 			}
+		} finally {
+			FileUtil.safeClose(dout);
 		}
+		journalLength = indexFile.length() - baseLength;
 	}
 
-	public synchronized String[] queryDocumentNames() {
+	/**
+	 * Rewrites index file as a single base, replacing it atomically where
+	 * possible.
+	 */
+	private void compact() throws IOException {
+		File temp = new File(indexFile.getPath() + ".tmp");
+		baseLength = 0;
+		long base = writeIndex_2_0(temp);
+		try {
+			Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		baseLength = base;
+		journalLength = 0;
+	}
+
+	public String[] queryDocumentNames() {
 		Set<String> names = docToEnties.keySet();
-		return names.toArray(new String[names.size()]);
+		return names.toArray(new String[0]);
 	}
 
 	public synchronized void remove(String path) {
 		changes++;
-		docToEnties.remove(path);
-		String id = pathToIDCache.remove(path);
-		pathToNameCache.remove(path);
-		List<String> list = idToPathCache.get(id);
-		if (list != null) {
-			list.remove(path);
-			if (list.isEmpty()) {
-				idToPathCache.remove(id);
-			}
-		}
-
+		put(path, null);
 	}
 
 	public synchronized void save() throws IOException {
 		if (changes == 0 && indexFile.exists()) {
 			return;
 		}
-		if (docToEnties.isEmpty()) {
-			if (indexFile.exists()) {
-				indexFile.delete();
-			}
-		}
-		DataOutputStream dout = null;
-		try {
-			dout = new DataOutputStream(new BufferedOutputStream(
-					new FileOutputStream(indexFile)));
-			writeIndex_1_0(dout);
-		} finally {
-			FileUtil.safeClose(dout);
+		boolean append = baseLength > 0 && indexFile.length() == baseLength + journalLength
+				&& journalLength < Math.max(MIN_COMPACTED_JOURNAL, baseLength / 2);
+		if (append) {
+			appendJournal();
+		} else {
+			compact();
 		}
+		changedDocuments.clear();
 		changes = 0;
 	}
 
 	public synchronized void dispose() {
-		docToEnties.clear();
+		clear();
 		if (indexFile.exists()) {
 			indexFile.delete();
 		}
 	}
 
 	public synchronized void addKey(String path, String key, String value) {
+		saveIfTooManyChanges();
+		changes++;
+		put(getEntry(path).withKey(key, value));
+	}
+
+	/**
+	 * Replaces a document as a whole, so that queries never see it partially
+	 * indexed. Only values which differ from previous version of the document
+	 * are updated in inverted index.
+	 */
+	public synchronized void update(String path, long stamp,
+			Map<String, List<String>> keys) {
+		saveIfTooManyChanges();
+		changes++;
+		put(createEntry(path, stamp, keys));
+	}
+
+	private static Entry createEntry(String path, long stamp,
+			Map<String, List<String>> keys) {
+		Map<String, List<String>> copy = new HashMap<String, List<String>>();
+		for (Map.Entry<String, List<String>> key : keys.entrySet()) {
+			List<String> values = new ArrayList<String>();
+			for (String value : key.getValue()) {
+				if (!values.contains(value)) {
+					values.add(value);
+				}
+			}
+			copy.put(key.getKey(), Collections.unmodifiableList(values));
+		}
+		return new Entry(path, stamp, Collections.unmodifiableMap(copy));
+	}
+
+	private void saveIfTooManyChanges() {
 		if (changes >= 2500) {
 			try {
 				save();
@@ -200,115 +594,269 @@ public synchronized void addKey(String path, String key, String value) {
 				RcpttPlugin.log(e);
 			}
 		}
-		changes++;
-		getEntry(path).addKey(key, value);
-		if (IQ7IndexConstants.ID.equals(key)) {
-			pathToIDCache.put(path, value);
-			updateIdToPath(path, value);
+	}
+
+	private Entry getEntry(String path) {
+		Entry entry = docToEnties.get(path);
+		if (entry == null) {
+			entry = new Entry(path, -1, Collections.<String, List<String>> emptyMap());
 		}
-		if (IQ7IndexConstants.NAME.equals(key)) {
-			pathToNameCache.put(path, value);
+		return entry;
+	}
+
+	private void put(Entry entry) {
+		put(entry.path, entry);
+	}
+
+	/**
+	 * Replaces or removes a document, updating inverted index of built keys
+	 * with the difference. New values are added before old ones are removed.
+	 */
+	private void put(String path, Entry entry) {
+		changedDocuments.add(path);
+		Entry old = entry == null ? docToEnties.remove(path) : docToEnties.put(path, entry);
+		for (String key : postings.keySet()) {
+			List<String> oldValues = old == null ? Collections.<String> emptyList() : old.getValues(key);
+			List<String> newValues = entry == null ? Collections.<String> emptyList() : entry.getValues(key);
+			for (String value : newValues) {
+				if (!oldValues.contains(value)) {
+					addPosting(key, value, path);
+				}
+			}
+			for (String value : oldValues) {
+				if (!newValues.contains(value)) {
+					removePosting(key, value, path);
+				}
+			}
 		}
 	}
 
-	private void updateIdToPath(String path, String id) {
-		List<String> list = idToPathCache.get(id);
-		if (list == null) {
-			list = new ArrayList<String>();
-			idToPathCache.put(id, list);
+	/**
+	 * Replaces documents of a single value, so that the change costs the
+	 * number of documents having the value rather than the size of the key.
+	 * Document must not have the value yet. Keys not queried yet are skipped,
+	 * they are built from documents.
+	 */
+	private void addPosting(String key, String value, String path) {
+		ConcurrentSkipListMap<String, String[]> values = postings.get(key);
+		if (values == null) {
+			return;
 		}
-		if (!list.contains(path)) {
-			list.add(path);
+		String[] documents = values.get(value);
+		if (documents == null) {
+			values.put(value, new String[] { path });
+		} else {
+			String[] copy = Arrays.copyOf(documents, documents.length + 1);
+			copy[documents.length] = path;
+			values.put(value, copy);
 		}
 	}
 
-	private Entry getEntry(String path) {
-		Entry entry = docToEnties.get(path);
-		if (entry == null) {
-			entry = new Entry();
-			entry.path = path;
-			docToEnties.put(path, entry);
+	private void removePosting(String key, String value, String path) {
+		ConcurrentSkipListMap<String, String[]> values = postings.get(key);
+		String[] documents = values == null ? null : values.get(value);
+		if (documents == null) {
+			return;
 		}
-		return entry;
+		int index = Arrays.asList(documents).indexOf(path);
+		if (index < 0) {
+			return;
+		}
+		if (documents.length == 1) {
+			values.remove(value);
+			return;
+		}
+		String[] copy = new String[documents.length - 1];
+		System.arraycopy(documents, 0, copy, 0, index);
+		System.arraycopy(documents, index + 1, copy, index, copy.length - index);
+		values.put(value, copy);
 	}
 
-	public synchronized void updateModificationstamp(String path, long stamp) {
-		changes++;
-		getEntry(path).timestamp = stamp;
+	private void clear() {
+		docToEnties.clear();
+		changedDocuments.clear();
+		baseLength = 0;
+		journalLength = 0;
+		postings.clear();
 	}
 
-	public synchronized long getModificationStamp(String path) {
-		return getEntry(path).timestamp;
+	/**
+	 * @return sorted values of a key with their documents, blocks only on
+	 *         first query of the key
+	 */
+	private NavigableMap<String, String[]> getValues(String key) {
+		NavigableMap<String, String[]> values = postings.get(key);
+		return values == null ? buildPostings(key) : values;
 	}
 
-	public synchronized List<QueryResult> queryIDs(String id) {
-		List<QueryResult> result = new ArrayList<QueryResult>();
-		List<String> list = idToPathCache.get(id);
-		if (list == null) {
-			return result;
+	/**
+	 * Builds inverted index of a key from documents, decoding only values of
+	 * the key.
+	 */
+	private synchronized NavigableMap<String, String[]> buildPostings(String key) {
+		ConcurrentSkipListMap<String, String[]> values = postings.get(key);
+		if (values != null) {
+			return values;
 		}
-		for (String path : list) {
-			result.add(new QueryResult(path, IQ7IndexConstants.ID, id));
+		Map<String, List<String>> documents = new HashMap<String, List<String>>();
+		for (Entry entry : docToEnties.values()) {
+			for (String value : entry.getValues(key)) {
+				List<String> paths = documents.get(value);
+				if (paths == null) {
+					paths = new ArrayList<String>(1);
+					documents.put(value, paths);
+				}
+				paths.add(entry.path);
+			}
 		}
+		// Skip list is built in linear time from a sorted map
+		TreeMap<String, String[]> sorted = new TreeMap<String, String[]>();
+		for (Map.Entry<String, List<String>> value : documents.entrySet()) {
+			sorted.put(value.getKey(), value.getValue().toArray(new String[value.getValue().size()]));
+		}
+		values = new ConcurrentSkipListMap<String, String[]>(sorted);
+		postings.put(key, values);
+		return values;
+	}
 
-		return result;
+	public synchronized void updateModificationstamp(String path, long stamp) {
+		changes++;
+		put(getEntry(path).withTimestamp(stamp));
+	}
+
+	public long getModificationStamp(String path) {
+		Entry entry = docToEnties.get(path);
+		return entry == null ? -1 : entry.timestamp;
+	}
+
+	public List<QueryResult> queryIDs(String id) {
+		return query(new String[] { IQ7IndexConstants.ID }, id);
 	}
 
-	public synchronized String queryID(String path) {
-		return pathToIDCache.get(path);
+	public String queryID(String path) {
+		Entry entry = docToEnties.get(path);
+		return entry == null ? null : entry.getSingle(IQ7IndexConstants.ID);
 	}
 
-	public synchronized String queryName(String path) {
-		return pathToNameCache.get(path);
+	public String queryName(String path) {
+		Entry entry = docToEnties.get(path);
+		return entry == null ? null : entry.getSingle(IQ7IndexConstants.NAME);
 	}
 
-	public synchronized List<QueryResult> query(final String[] keys,
+	/**
+	 * Checks each distinct value of given keys against the pattern, instead
+	 * of checking each document.
+	 */
+	public List<QueryResult> query(final String[] keys,
 			final IKeyQuery pattern, IProgressMonitor monitor) {
-		// ExecutorService executor = Executors.newFixedThreadPool(N_THREADS);
 		final List<QueryResult> results = new ArrayList<QueryResult>();
-		for (final Map.Entry<String, Entry> entry : docToEnties.entrySet()) {
-			if (monitor.isCanceled()) {
-				throw new OperationCanceledException();
-			}
-			// executor.execute(new Runnable() {
-			// public void run() {
-			Entry value = entry.getValue();
-			for (String k : keys) {
-				List<String> list = value.keys.get(k);
-				if (list != null) {
-					for (String val : list) {
-						if (pattern.accept(k, val)) {
-							synchronized (results) {
-								results.add(new QueryResult(entry.getKey(), k,
-										val));
-							}
-						}
-					}
+		for (String k : keys) {
+			for (Map.Entry<String, String[]> value : getValues(k).entrySet()) {
+				if (monitor != null && monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				if (pattern.accept(k, value.getKey())) {
+					addResults(k, value.getKey(), value.getValue(), results);
 				}
 			}
-			// }
-			// });
-		}
-		// executor.shutdown();
-		// while (!executor.isTerminated()) {
-		// try {
-		// Thread.sleep(50);
-		// } catch (Throwable e) {
-		// // ignore
-		// }
-		// }
+		}
+		return results;
+	}
+
+	/**
+	 * @return documents having exactly the given value of any of the keys
+	 */
+	public List<QueryResult> query(String[] keys, String value) {
+		final List<QueryResult> results = new ArrayList<QueryResult>();
+		for (String k : keys) {
+			String[] documents = getValues(k).get(value);
+			if (documents != null) {
+				addResults(k, value, documents, results);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * @return documents having a value of the key starting with the prefix
+	 */
+	public List<QueryResult> queryPrefix(String key, String prefix) {
+		final List<QueryResult> results = new ArrayList<QueryResult>();
+		for (Map.Entry<String, String[]> value : getValues(key).tailMap(prefix, true).entrySet()) {
+			if (!value.getKey().startsWith(prefix)) {
+				break;
+			}
+			addResults(key, value.getKey(), value.getValue(), results);
+		}
+		return results;
+	}
+
+	/**
+	 * @param pattern
+	 *            value pattern, where <code>*</code> matches any sequence of
+	 *            characters and <code>?</code> matches any single character
+	 * @return documents having a value of the key matching the pattern
+	 */
+	public List<QueryResult> queryWildcard(String key, String pattern) {
+		int wildcard = 0;
+		while (wildcard < pattern.length() && pattern.charAt(wildcard) != '*'
+				&& pattern.charAt(wildcard) != '?') {
+			wildcard++;
+		}
+		if (wildcard == pattern.length()) {
+			return query(new String[] { key }, pattern);
+		}
+		String prefix = pattern.substring(0, wildcard);
+		Pattern regex = toRegex(pattern);
+		final List<QueryResult> results = new ArrayList<QueryResult>();
+		for (Map.Entry<String, String[]> value : getValues(key).tailMap(prefix, true).entrySet()) {
+			if (!value.getKey().startsWith(prefix)) {
+				break;
+			}
+			if (regex.matcher(value.getKey()).matches()) {
+				addResults(key, value.getKey(), value.getValue(), results);
+			}
+		}
 		return results;
 	}
 
+	private static Pattern toRegex(String wildcard) {
+		StringBuilder regex = new StringBuilder();
+		int start = 0;
+		for (int i = 0; i < wildcard.length(); i++) {
+			char c = wildcard.charAt(i);
+			if (c == '*' || c == '?') {
+				if (start < i) {
+					regex.append(Pattern.quote(wildcard.substring(start, i)));
+				}
+				regex.append(c == '*' ? ".*" : ".");
+				start = i + 1;
+			}
+		}
+		if (start < wildcard.length()) {
+			regex.append(Pattern.quote(wildcard.substring(start)));
+		}
+		return Pattern.compile(regex.toString(), Pattern.DOTALL);
+	}
+
+	private static void addResults(String key, String value, String[] documents,
+			List<QueryResult> results) {
+		for (String document : documents) {
+			results.add(new QueryResult(document, key, value));
+		}
+	}
+
 	public IPath getPath() {
 		return path;
 	}
 
-	public synchronized Map<String, List<String>> query(String documentName) {
-		Entry entry = getEntry(documentName);
-		Map<String, List<String>> copy = new HashMap<String, List<String>>();
-		Set<Map.Entry<String, List<String>>> entrySet = entry.keys.entrySet();
-		for (Map.Entry<String, List<String>> entryValue : entrySet) {
+	public Map<String, List<String>> query(String documentName) {
+		Entry entry = docToEnties.get(documentName);
+		Map<String, List<String>> copy = new LinkedHashMap<String, List<String>>();
+		if (entry == null) {
+			return copy;
+		}
+		for (Map.Entry<String, List<String>> entryValue : entry.getKeys().entrySet()) {
 			copy.put(entryValue.getKey(),
 					new ArrayList<String>(entryValue.getValue()));
 		}
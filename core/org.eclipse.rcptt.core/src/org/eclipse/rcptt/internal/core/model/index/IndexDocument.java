@@ -10,16 +10,26 @@
  *******************************************************************************/
 package org.eclipse.rcptt.internal.core.model.index;
 
-import org.eclipse.core.runtime.IPath;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.rcptt.core.model.IQ7NamedElement;
 import org.eclipse.rcptt.core.model.index.IIndexDocument;
 
+/**
+ * Collects keys of a document, which are put to index at once by
+ * {@link #commit()}.
+ */
 public class IndexDocument implements IIndexDocument {
 
 	private String path;
 	private IQ7NamedElement element;
 	private Index index;
+	private final Map<String, List<String>> keys = new HashMap<String, List<String>>();
+	private long stamp = -1;
+	private boolean removed = false;
 
 	public IndexDocument(IQ7NamedElement element,
 			Index index) {
@@ -55,11 +65,26 @@ public IQ7NamedElement getElement() {
 	 * .String, java.lang.String)
 	 */
 	public void addKey(String key, String value) {
-		index.addKey(path, key, value);
+		List<String> values = keys.get(key);
+		if (values == null) {
+			values = new ArrayList<String>();
+			keys.put(key, values);
+		}
+		values.add(value);
 	}
 
 	public void updateModificationStamp(long stamp) {
-		index.updateModificationstamp(path, stamp);
+		this.stamp = stamp;
+	}
+
+	/**
+	 * Replaces document in index with collected keys, unless it has been
+	 * removed.
+	 */
+	public void commit() {
+		if (!removed) {
+			index.update(path, stamp, keys);
+		}
 	}
 
 	public Index getIndex() {
@@ -67,6 +92,7 @@ public Index getIndex() {
 	}
 
 	public void remove() {
+		removed = true;
 		index.remove(path);
 	}
 }
@@ -111,7 +111,7 @@ public boolean wantRefreshOnStart() {
 
 	public void indexNamedElement(Index index, IQ7NamedElement element) {
 		IQ7NamedElement originalElement = element;
-		final IIndexDocument document = new IndexDocument(element, index);
+		final IndexDocument document = new IndexDocument(element, index);
 		try {
 			synchronized (indexingSet) {
 				while (indexingSet.contains(originalElement)) {
@@ -133,9 +133,10 @@ public void indexNamedElement(Index index, IQ7NamedElement element) {
 			}
 			element = element.getIndexingWorkingCopy(new NullProgressMonitor());
 			long stamp = element.getResource().getModificationStamp();
-			index.remove(document.getContainerRelativePath());
 			document.updateModificationStamp(stamp);
 			doIndexing(document);
+			// Only the difference with previous version is applied to index
+			document.commit();
 		} catch (ModelException e) {
 			if (e.getStatus() instanceof Q7Status) {
 				Q7StatusCode code = ((Q7Status) e.getStatus()).getStatusCode();
@@ -62,6 +62,9 @@ private synchronized static void initializeBuilder(String title, ReportBuilderSt
 		builder.registerProviders(eventProviders);
 	}
 
+	/**
+	 * @see ReportBuilder#getReportCopy()
+	 */
 	public synchronized static Report getReportCopy() {
 		if (builder == null) {
 			return null;
@@ -69,6 +72,16 @@ public synchronized static Report getReportCopy() {
 		return builder.getReportCopy();
 	}
 
+	/**
+	 * Completes current report and discards its builder. Unlike
+	 * {@link #getReportCopy()}, report is not copied.
+	 */
+	public synchronized static Report takeReport() {
+		Report result = builder == null ? null : builder.takeReport();
+		clear();
+		return result;
+	}
+
 	public synchronized static ReportBuilder getBuilder() {
 		return builder;
 	}
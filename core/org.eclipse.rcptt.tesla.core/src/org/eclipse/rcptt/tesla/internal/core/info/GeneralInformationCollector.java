@@ -48,7 +48,8 @@ private static void collectThreadInformation(AdvancedInformation information) {
 					|| threadClassName.contains("java.lang.ref.Reference")
 					|| threadClassName.contains("org.eclipse.rcptt.tesla.core.server.TeslaNetworkServer")
 					|| threadClassName.contains("org.eclipse.rcptt.ecl.server.tcp.EclTcpServer")
-					|| threadClassName.contains("org.eclipse.osgi.framework.eventmgr")) {
+					|| threadClassName.contains("org.eclipse.osgi.framework.eventmgr")
+					|| key.getName().startsWith("ECL TCP session worker")) {
 				continue;
 			}
 			StackTraceElement[] value = e.getValue();
@@ -59,8 +60,7 @@ private static void collectThreadInformation(AdvancedInformation information) {
 			boolean add = true;
 			for (StackTraceElement stackTraceElement : value) {
 				String stElement = stackTraceElement.toString();
-				if (stElement.contains("org.eclipse.rcptt.ecl.server.tcp.SessionRequestHandler.writeOutput")
-						|| stElement.contains("org.eclipse.rcptt.ecl.server.tcp.SessionRequestHandler")
+				if (stElement.contains("org.eclipse.rcptt.ecl.server.tcp.")
 						|| stElement.contains("org.eclipse.rcptt.ecl.client.tcp.EclTcpSession")) {
 					add = false;
 					break;
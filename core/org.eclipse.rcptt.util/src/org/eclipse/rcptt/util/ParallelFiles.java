@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs independent file system operations, like writing or deleting files, on
+ * a shared pool of worker threads.
+ */
+public class ParallelFiles {
+	/** Number of worker threads, number of processors by default */
+	public static final String THREADS_PROPERTY = "org.eclipse.rcptt.files.threads";
+
+	private static final int THREADS = Math.max(1,
+			Integer.getInteger(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+
+	public interface FileTask {
+		void run() throws IOException;
+	}
+
+	private static ExecutorService executor;
+
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "RCPTT file worker " + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return executor;
+	}
+
+	/**
+	 * Runs all tasks and waits for all of them to complete, so that no task is
+	 * running when this method returns. Must not be called from a task.
+	 *
+	 * @throws IOException
+	 *             the first failure of a task, or
+	 *             {@link InterruptedIOException} if the calling thread is
+	 *             interrupted, in which case remaining tasks are cancelled
+	 */
+	public static void runAll(Collection<? extends FileTask> tasks) throws IOException {
+		if (tasks.size() < 2 || THREADS < 2) {
+			for (FileTask task : tasks) {
+				task.run();
+			}
+			return;
+		}
+		ExecutorService executor = getExecutor();
+		List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+		for (final FileTask task : tasks) {
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					task.run();
+					return null;
+				}
+			}));
+		}
+		Throwable failure = null;
+		try {
+			for (Future<Void> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause();
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			for (Future<Void> future : futures) {
+				future.cancel(true);
+			}
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for file operations");
+		}
+		if (failure instanceof IOException) {
+			throw (IOException) failure;
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+	}
+
+	/**
+	 * Deletes all children of a folder, but not the folder itself. Children
+	 * are deleted in parallel, each one recursively.
+	 *
+	 * @see FileUtil#deleteFile(File, boolean)
+	 */
+	public static void deleteChildren(File folder) throws IOException {
+		File[] children = folder.listFiles();
+		if (children == null) {
+			return;
+		}
+		List<FileTask> tasks = new ArrayList<FileTask>(children.length);
+		for (final File child : children) {
+			tasks.add(new FileTask() {
+				@Override
+				public void run() {
+					FileUtil.deleteFile(child, true);
+				}
+			});
+		}
+		runAll(tasks);
+	}
+}
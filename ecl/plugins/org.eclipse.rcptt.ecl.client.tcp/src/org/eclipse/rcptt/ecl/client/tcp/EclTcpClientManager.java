@@ -12,6 +12,9 @@
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.eclipse.rcptt.ecl.runtime.ISession;
 
@@ -21,8 +24,150 @@ public enum EclTcpClientManager {
 
 	public final static int DEFAULT_PORT = EclTcpClientPlugin.DEFAULT_PORT;
 
+	/**
+	 * Set to <code>false</code> to always use one socket per session with
+	 * sequential command execution.
+	 */
+	public final static String MULTIPLEXED_PROPERTY = "org.eclipse.rcptt.ecl.client.tcp.multiplexed";
+
+	/**
+	 * Servers found not to support multiplexing are asked again after this
+	 * time, as another server may have been started on the same port
+	 */
+	private static final long LEGACY_RECHECK_INTERVAL = 60000;
+
+	private final Map<InetSocketAddress, EclTcpConnection> connections = new HashMap<InetSocketAddress, EclTcpConnection>();
+	/** Time of the next multiplexing probe, by server address */
+	private final Map<InetSocketAddress, Long> legacyServers = new HashMap<InetSocketAddress, Long>();
+	/** Serializes connecting to a server, by server address */
+	private final Map<InetSocketAddress, Object> openLocks = new HashMap<InetSocketAddress, Object>();
+
+	/**
+	 * Opens a session sharing a multiplexed connection with other sessions to
+	 * the same server. Falls back to {@link EclTcpSession} if server does not
+	 * support multiplexing.
+	 */
 	public ISession startClientSession(InetAddress address, int port)
 			throws IOException {
-		return new EclTcpSession(address, port);
+		if (!Boolean.parseBoolean(System.getProperty(MULTIPLEXED_PROPERTY, "true"))) {
+			return new EclTcpSession(address, port);
+		}
+		EclTcpMultiplexedSession session = openSession(address, port);
+		if (session == null) {
+			return new EclTcpSession(address, port);
+		}
+		try {
+			session.open();
+			return session;
+		} catch (IOException e) {
+			// Connection has been closed concurrently, try a new one once
+			session.getConnection().close();
+			session = openSession(address, port);
+			if (session == null) {
+				return new EclTcpSession(address, port);
+			}
+			session.open();
+			return session;
+		}
+	}
+
+	/**
+	 * Reserves a session on a shared connection. The connection is not closed
+	 * until the session is released by {@link #releaseSession}.
+	 *
+	 * @return <code>null</code> if server does not support multiplexing
+	 */
+	private EclTcpMultiplexedSession openSession(InetAddress address, int port) throws IOException {
+		InetSocketAddress key = new InetSocketAddress(address, port);
+		while (true) {
+			EclTcpConnection connection = getConnection(key);
+			if (connection == null) {
+				return null;
+			}
+			synchronized (this) {
+				// Last session of the connection may have closed it meanwhile
+				if (!connection.isClosed()) {
+					return new EclTcpMultiplexedSession(connection, connection.reserveSession());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Closes connection when its last session is released. Runs under the
+	 * same lock as {@link #openSession} reserves sessions, so a concurrently
+	 * opened session either keeps the connection open or gets a new one.
+	 */
+	synchronized void releaseSession(EclTcpConnection connection) {
+		if (connection.releaseSession()) {
+			connection.close();
+		}
+	}
+
+	/**
+	 * Connects and does the handshake under a lock of the server address
+	 * only, so an unreachable server does not delay sessions to others.
+	 */
+	private EclTcpConnection getConnection(InetSocketAddress key) throws IOException {
+		if (isLegacy(key)) {
+			return null;
+		}
+		EclTcpConnection connection = getOpenConnection(key);
+		if (connection != null) {
+			return connection;
+		}
+		synchronized (getOpenLock(key)) {
+			// Another thread may have connected while this one waited
+			if (isLegacy(key)) {
+				return null;
+			}
+			connection = getOpenConnection(key);
+			if (connection != null) {
+				return connection;
+			}
+			connection = EclTcpConnection.open(key.getAddress(), key.getPort());
+			synchronized (this) {
+				if (connection == null) {
+					legacyServers.put(key, System.currentTimeMillis() + LEGACY_RECHECK_INTERVAL);
+					EclTcpClientPlugin.logInfo(
+							"ECL server %s does not support multiplexing, using one socket per session", key);
+					return null;
+				}
+				connections.put(key, connection);
+			}
+			return connection;
+		}
+	}
+
+	private synchronized boolean isLegacy(InetSocketAddress key) {
+		Long recheck = legacyServers.get(key);
+		if (recheck == null) {
+			return false;
+		}
+		if (System.currentTimeMillis() < recheck) {
+			return true;
+		}
+		legacyServers.remove(key);
+		return false;
+	}
+
+	private synchronized EclTcpConnection getOpenConnection(InetSocketAddress key) {
+		EclTcpConnection connection = connections.get(key);
+		return connection == null || connection.isClosed() ? null : connection;
+	}
+
+	private synchronized Object getOpenLock(InetSocketAddress key) {
+		Object lock = openLocks.get(key);
+		if (lock == null) {
+			lock = new Object();
+			openLocks.put(key, lock);
+		}
+		return lock;
+	}
+
+	synchronized void connectionClosed(EclTcpConnection connection) {
+		if (connections.get(connection.getAddress()) == connection) {
+			connections.remove(connection.getAddress());
+		}
 	}
 }
@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.client.tcp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.rcptt.ecl.core.Command;
+import org.eclipse.rcptt.ecl.internal.core.CorePlugin;
+import org.eclipse.rcptt.ecl.internal.core.MultiplexedProtocol;
+import org.eclipse.rcptt.ecl.internal.core.MultiplexedProtocol.Frame;
+import org.eclipse.rcptt.ecl.internal.core.Process;
+import org.eclipse.rcptt.ecl.runtime.IPipe;
+
+/**
+ * Client side of {@link MultiplexedProtocol}. One connection is shared by all
+ * {@link EclTcpMultiplexedSession}s to the same host and port. Commands are
+ * written by the calling thread and all responses are dispatched by a single
+ * reader thread, so any number of commands can be in flight at once.
+ */
+final class EclTcpConnection {
+
+	private static final ExecutorService inputWriters = Executors.newCachedThreadPool(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "ECL TCP command input writer");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	private static class Request {
+		final Process process;
+		final IPipe output;
+
+		Request(Process process, IPipe output) {
+			this.process = process;
+			this.output = output;
+		}
+	}
+
+	private final InetSocketAddress address;
+	private final Socket socket;
+	private final MultiplexedProtocol.Input in;
+	private final MultiplexedProtocol.Output out;
+	private final AtomicInteger ids = new AtomicInteger();
+	private final Map<Integer, Request> requests = new ConcurrentHashMap<Integer, Request>();
+	private final AtomicInteger sessions = new AtomicInteger();
+	private volatile boolean closed = false;
+
+	private EclTcpConnection(InetSocketAddress address, Socket socket) throws IOException {
+		this.address = address;
+		this.socket = socket;
+		this.in = new MultiplexedProtocol.Input(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+		this.out = new MultiplexedProtocol.Output(
+				new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				readResponses();
+			}
+		}, "ECL TCP connection reader: " + address);
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * @return connection or <code>null</code> if server does not support
+	 *         multiplexing
+	 */
+	static EclTcpConnection open(InetAddress address, int port) throws IOException {
+		NetworkUtil.initTimeouts();
+		Socket socket = new Socket();
+		try {
+			socket.setTcpNoDelay(true);
+			socket.connect(new InetSocketAddress(address, port), NetworkUtil.getConnectTimeout());
+			socket.setSoTimeout(NetworkUtil.getReadTimeout());
+			DataOutputStream dout = new DataOutputStream(socket.getOutputStream());
+			DataInputStream din = new DataInputStream(socket.getInputStream());
+			dout.writeUTF(MultiplexedProtocol.HANDSHAKE);
+			dout.flush();
+			din.readUTF(); // connection id
+			if (!MultiplexedProtocol.ACCEPTED.equals(din.readUTF())) {
+				socket.close();
+				return null;
+			}
+			// Responses may take arbitrary time to arrive
+			socket.setSoTimeout(0);
+		} catch (EOFException e) {
+			// Server closes connection on unknown handshake
+			socket.close();
+			return null;
+		} catch (IOException e) {
+			socket.close();
+			throw e;
+		}
+		return new EclTcpConnection(new InetSocketAddress(address, port), socket);
+	}
+
+	InetSocketAddress getAddress() {
+		return address;
+	}
+
+	boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Counts a new session of the connection. Called by
+	 * {@link EclTcpClientManager} under its lock, so that a connection is
+	 * never reused after its last session has been released.
+	 */
+	int reserveSession() {
+		sessions.incrementAndGet();
+		return ids.incrementAndGet();
+	}
+
+	/**
+	 * @return <code>true</code> if it was the last session of the connection
+	 */
+	boolean releaseSession() {
+		return sessions.decrementAndGet() == 0;
+	}
+
+	void openSession(int id) throws IOException {
+		out.write(MultiplexedProtocol.OPEN_SESSION, id, 0);
+	}
+
+	void closeSession(int id) {
+		try {
+			out.write(MultiplexedProtocol.CLOSE_SESSION, id, 0);
+		} catch (IOException e) {
+			// Connection is already broken
+		}
+	}
+
+	void execute(int session, Command command, final IPipe input, Process process) throws CoreException {
+		final int request = ids.incrementAndGet();
+		requests.put(request, new Request(process, process.getOutput()));
+		try {
+			send(MultiplexedProtocol.COMMAND, session, request, command);
+		} catch (CoreException e) {
+			requests.remove(request);
+			throw e;
+		} catch (IOException e) {
+			requests.remove(request);
+			throw new CoreException(CorePlugin.err("Failed to send ECL command", e));
+		}
+		inputWriters.execute(new Runnable() {
+			public void run() {
+				writeInput(request, input);
+			}
+		});
+	}
+
+	private void writeInput(int request, IPipe input) {
+		try {
+			while (true) {
+				Object object = input.take(Long.MAX_VALUE);
+				if (object instanceof IStatus) {
+					send(MultiplexedProtocol.INPUT_END, 0, request, object);
+					return;
+				}
+				send(MultiplexedProtocol.INPUT, 0, request, object);
+			}
+		} catch (Throwable t) {
+			fail(request, t);
+		}
+	}
+
+	private void send(byte type, int session, int request, Object payload) throws IOException, CoreException {
+		out.write(type, session, request, payload);
+	}
+
+	private void readResponses() {
+		try {
+			while (!closed) {
+				Frame frame = in.read();
+				Request request = frame.type == MultiplexedProtocol.STATUS ? requests.remove(frame.request)
+						: requests.get(frame.request);
+				if (request == null) {
+					continue;
+				}
+				try {
+					Object object = frame.getPayload();
+					if (frame.type == MultiplexedProtocol.STATUS) {
+						request.process.setStatus((IStatus) object);
+					} else {
+						request.output.write(object);
+					}
+				} catch (Throwable t) {
+					fail(frame.request, t);
+				}
+			}
+		} catch (Throwable t) {
+			if (!closed) {
+				CorePlugin.log(CorePlugin.err("ECL TCP connection to " + address + " is lost", t));
+			}
+			failAll(t);
+		} finally {
+			close();
+		}
+	}
+
+	private void fail(int id, Throwable t) {
+		Request request = requests.remove(id);
+		if (request == null) {
+			return;
+		}
+		IStatus status = t instanceof CoreException ? ((CoreException) t).getStatus() : CorePlugin.err(t);
+		try {
+			request.process.setStatus(new EclTcpSocketStatus(status));
+		} catch (CoreException e) {
+			CorePlugin.log(e);
+		}
+	}
+
+	private void failAll(Throwable t) {
+		for (Integer id : new ArrayList<Integer>(requests.keySet())) {
+			fail(id, t);
+		}
+	}
+
+	void close() {
+		closed = true;
+		EclTcpClientManager.Instance.connectionClosed(this);
+		try {
+			socket.close();
+		} catch (IOException e) {
+			CorePlugin.log(e);
+		}
+		failAll(new IOException("Connection closed"));
+	}
+
+	static IStatus cancelStatus() {
+		return new Status(IStatus.CANCEL, EclTcpClientPlugin.PLUGIN_ID, "Session is closed");
+	}
+}
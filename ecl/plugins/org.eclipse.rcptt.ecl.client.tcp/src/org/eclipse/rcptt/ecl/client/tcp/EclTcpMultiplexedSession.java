@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.client.tcp;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.rcptt.ecl.core.Command;
+import org.eclipse.rcptt.ecl.internal.core.Pipe;
+import org.eclipse.rcptt.ecl.internal.core.Process;
+import org.eclipse.rcptt.ecl.runtime.IPipe;
+import org.eclipse.rcptt.ecl.runtime.IProcess;
+import org.eclipse.rcptt.ecl.runtime.ISession;
+
+/**
+ * Logical ECL session on a shared multiplexed connection. Unlike
+ * {@link EclTcpSession}, {@link #execute(Command, IPipe, IPipe)} sends the
+ * command right away and does not wait for previous commands to complete.
+ */
+public class EclTcpMultiplexedSession implements ISession {
+
+	private final Map<String, Object> properties = new HashMap<String, Object>();
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+	private final EclTcpConnection connection;
+	private final int id;
+
+	EclTcpMultiplexedSession(EclTcpConnection connection, int id) {
+		this.connection = connection;
+		this.id = id;
+	}
+
+	void open() throws IOException {
+		connection.openSession(id);
+	}
+
+	EclTcpConnection getConnection() {
+		return connection;
+	}
+
+	public IPipe createPipe() {
+		return new Pipe();
+	}
+
+	public IProcess execute(Command command) throws CoreException {
+		return execute(command, null, null);
+	}
+
+	public IProcess execute(Command command, IPipe in, IPipe out) throws CoreException {
+		if (isClosed()) {
+			throw new CoreException(EclTcpConnection.cancelStatus());
+		}
+		IPipe input = in == null ? createPipe().close(Status.OK_STATUS) : in;
+		IPipe output = out == null ? createPipe() : out;
+		Process process = new Process(this, input, output);
+		connection.execute(id, command, input, process);
+		return process;
+	}
+
+	public void close() throws CoreException {
+		if (closed.compareAndSet(false, true)) {
+			connection.closeSession(id);
+			EclTcpClientManager.Instance.releaseSession(connection);
+		}
+	}
+
+	public boolean isClosed() {
+		return closed.get() || connection.isClosed();
+	}
+
+	public synchronized void putProperty(String key, Object value) {
+		if (value == null) {
+			properties.remove(key);
+		} else {
+			properties.put(key, value);
+		}
+	}
+
+	public synchronized Object getProperty(String key) {
+		return properties.get(key);
+	}
+}
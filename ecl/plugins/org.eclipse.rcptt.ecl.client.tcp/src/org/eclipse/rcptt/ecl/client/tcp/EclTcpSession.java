@@ -28,9 +28,10 @@
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.rcptt.ecl.core.Command;
+import org.eclipse.rcptt.ecl.internal.core.ChunkedMessage;
 import org.eclipse.rcptt.ecl.internal.core.CorePlugin;
+import org.eclipse.rcptt.ecl.internal.core.EMFStreamPipe;
 import org.eclipse.rcptt.ecl.internal.core.IMarkeredPipe;
 import org.eclipse.rcptt.ecl.internal.core.Pipe;
 import org.eclipse.rcptt.ecl.internal.core.Process;
@@ -56,7 +57,8 @@ public class EclTcpSession implements ISession {
 	private String sessionID;
 
 	private static class ExecutionNode {
-		Command command;
+		/** Serialized when queued, so the caller's command is not copied */
+		ChunkedMessage command;
 		IPipe input;
 		IPipe output;
 		Process process;
@@ -169,7 +171,7 @@ public IProcess execute(final Command command) throws CoreException {
 	public IProcess execute(final Command command, IPipe in, IPipe out)
 			throws CoreException {
 		ExecutionNode node = new ExecutionNode();
-		node.command = (Command) EcoreUtil.copy(command);
+		node.command = EMFStreamPipe.snapshot(command);
 		node.input = in == null ? createPipe().close(Status.OK_STATUS) : in;
 		node.output = out == null ? createPipe() : out;
 		node.process = new Process(this, node.input, node.output);
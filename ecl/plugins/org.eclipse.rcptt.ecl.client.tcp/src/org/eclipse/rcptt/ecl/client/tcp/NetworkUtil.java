@@ -39,11 +39,11 @@ private static void setTimeout(String prop, int val) {
 		System.setProperty(prop, Integer.toString(val));
 	}
 
-	private static int getReadTimeout() {
+	static int getReadTimeout() {
 		return 120000; // 2 minutes to read timeout.
 	}
 
-	private static int getConnectTimeout() {
+	static int getConnectTimeout() {
 		return 60000; // 60 seconds to establish connection.
 	}
 }
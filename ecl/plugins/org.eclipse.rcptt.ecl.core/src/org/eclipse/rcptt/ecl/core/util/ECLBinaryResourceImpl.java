@@ -12,18 +12,23 @@
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
 import org.eclipse.emf.ecore.EDataType;
 import org.eclipse.emf.ecore.EFactory;
 import org.eclipse.emf.ecore.EObject;
@@ -60,6 +65,20 @@ public class ECLBinaryResourceImpl extends ResourceImpl {
 	 */
 	public static final int DEFAULT_BUFFER_CAPACITY = 1024;
 
+	/**
+	 * Keep package, class and feature tables between resources saved to or
+	 * loaded from the same connection, so that resources only carry their
+	 * ids. The value is an {@link EObjectOutputStream.TypeDictionary.References}
+	 * when saving and an {@link EObjectInputStream.TypeDictionary} when
+	 * loading. Types themselves are transferred separately, see
+	 * {@link EObjectOutputStream.TypeDictionary}.
+	 */
+	public static final String OPTION_TYPE_DICTIONARY = "TYPE_DICTIONARY";
+
+	private static final byte DEFINITIONS_END = 0;
+	private static final byte PACKAGE_DEFINITION = 1;
+	private static final byte CLASS_DEFINITION = 2;
+
 	/**
 	 * Extract the {@link #OPTION_BUFFER_CAPACITY} from the options.
 	 * 
@@ -301,6 +320,9 @@ public enum Check {
 		protected static class EPackageData {
 			public int id;
 			public EClassData[] eClassData;
+			/** Set in type dictionaries only */
+			public EPackage ePackage;
+			public boolean defined;
 
 			public final int allocateEClassID() {
 				for (int i = 0, length = eClassData.length; i < length; ++i) {
@@ -317,6 +339,10 @@ protected static class EClassData {
 			public int ePackageID;
 			public int id;
 			public EStructuralFeatureData[] eStructuralFeatureData;
+			/** Set in type dictionaries only */
+			public EClass eClass;
+			public EPackageData ePackageData;
+			public boolean defined;
 		}
 
 		protected static class EStructuralFeatureData {
@@ -327,7 +353,138 @@ protected static class EStructuralFeatureData {
 			public EDataType eDataType;
 		}
 
+		/**
+		 * Type tables of a connection. Resources saved with a dictionary refer
+		 * to classes and features by ids only. Classes are described by
+		 * {@link #writeDefinitions}, which has to be called for each resource
+		 * right before it is written to the connection. So the reader
+		 * registers all types of a resource before loading it, and a resource
+		 * it fails to load leaves its tables in sync.
+		 * <p>
+		 * Thread safe, resources may be saved concurrently and written in any
+		 * order.
+		 */
+		public static class TypeDictionary {
+			private final Map<EPackage, EPackageData> ePackageDataMap = new HashMap<EPackage, EPackageData>();
+			private final Map<EClass, EClassData> eClassDataMap = new HashMap<EClass, EClassData>();
+
+			/**
+			 * Classes used by one resource which have not been defined on
+			 * the connection when the resource was saved.
+			 */
+			public final class References {
+				private final Set<EClassData> classes = new LinkedHashSet<EClassData>();
+
+				public TypeDictionary getDictionary() {
+					return TypeDictionary.this;
+				}
+			}
+
+			public References newReferences() {
+				return new References();
+			}
+
+			synchronized EClassData getEClassData(EClass eClass, References references) {
+				EClassData eClassData = eClassDataMap.get(eClass);
+				if (eClassData == null) {
+					EPackage ePackage = eClass.getEPackage();
+					EPackageData ePackageData = ePackageDataMap.get(ePackage);
+					if (ePackageData == null) {
+						ePackageData = new EPackageData();
+						ePackageData.id = ePackageDataMap.size();
+						ePackageData.ePackage = ePackage;
+						ePackageData.eClassData = new EClassData[ePackage.getEClassifiers().size()];
+						ePackageDataMap.put(ePackage, ePackageData);
+					}
+					eClassData = new EClassData();
+					eClassData.eClass = eClass;
+					eClassData.ePackageData = ePackageData;
+					eClassData.ePackageID = ePackageData.id;
+					eClassData.id = ePackageData.allocateEClassID();
+					eClassData.eStructuralFeatureData = newEStructuralFeatureData(eClass);
+					ePackageData.eClassData[eClassData.id] = eClassData;
+					eClassDataMap.put(eClass, eClassData);
+				}
+				if (!eClassData.defined) {
+					references.classes.add(eClassData);
+				}
+				return eClassData;
+			}
+
+			/**
+			 * Writes definitions of referenced classes and their packages
+			 * which have not been written to the connection yet. Calls have
+			 * to be made in the order resources are written.
+			 */
+			public void writeDefinitions(References references, DataOutputStream out) throws IOException {
+				List<EClassData> classes = new ArrayList<EClassData>();
+				List<EPackageData> packages = new ArrayList<EPackageData>();
+				synchronized (this) {
+					for (EClassData eClassData : references.classes) {
+						if (!eClassData.defined) {
+							if (!eClassData.ePackageData.defined) {
+								eClassData.ePackageData.defined = true;
+								packages.add(eClassData.ePackageData);
+							}
+							eClassData.defined = true;
+							classes.add(eClassData);
+						}
+					}
+				}
+				for (EPackageData ePackageData : packages) {
+					out.writeByte(PACKAGE_DEFINITION);
+					out.writeInt(ePackageData.id);
+					out.writeUTF(ePackageData.ePackage.getNsURI());
+				}
+				for (EClassData eClassData : classes) {
+					out.writeByte(CLASS_DEFINITION);
+					out.writeInt(eClassData.ePackageID);
+					out.writeInt(eClassData.id);
+					out.writeUTF(eClassData.eClass.getName());
+					out.writeInt(eClassData.eStructuralFeatureData.length);
+					for (EStructuralFeatureData eStructuralFeatureData : eClassData.eStructuralFeatureData) {
+						out.writeUTF(eStructuralFeatureData.name);
+					}
+				}
+				out.writeByte(DEFINITIONS_END);
+			}
+
+			public synchronized int getPackageCount() {
+				return ePackageDataMap.size();
+			}
+
+			public synchronized int getClassCount() {
+				return eClassDataMap.size();
+			}
+		}
+
+		protected static EStructuralFeatureData[] newEStructuralFeatureData(EClass eClass) {
+			int featureCount = eClass.getFeatureCount();
+			EStructuralFeatureData[] eStructuralFeaturesData = new EStructuralFeatureData[featureCount];
+			for (int i = 0; i < featureCount; ++i) {
+				EStructuralFeatureData eStructuralFeatureData = eStructuralFeaturesData[i] = new EStructuralFeatureData();
+				EStructuralFeature.Internal eStructuralFeature = (EStructuralFeature.Internal) eClass
+						.getEStructuralFeature(i);
+				eStructuralFeatureData.name = eStructuralFeature.getName();
+				eStructuralFeatureData.isTransient = eStructuralFeature
+						.isTransient()
+						|| eStructuralFeature.isContainer()
+						&& !eStructuralFeature.isResolveProxies();
+				eStructuralFeatureData.kind = FeatureKind
+						.get(eStructuralFeature);
+				if (eStructuralFeature instanceof EAttribute) {
+					EAttribute eAttribute = (EAttribute) eStructuralFeature;
+					EDataType eDataType = eAttribute.getEAttributeType();
+					eStructuralFeatureData.eDataType = eDataType;
+					eStructuralFeatureData.eFactory = eDataType
+							.getEPackage().getEFactoryInstance();
+				}
+			}
+			return eStructuralFeaturesData;
+		}
+
 		protected OutputStream outputStream;
+		protected TypeDictionary.References references;
 		protected Map<EPackage, EPackageData> ePackageDataMap = new HashMap<EPackage, EPackageData>();
 		protected Map<EClass, EClassData> eClassDataMap = new HashMap<EClass, EClassData>();
 		protected Map<EObject, Integer> eObjectIDMap = new HashMap<EObject, Integer>();
@@ -343,6 +500,9 @@ public EObjectOutputStream(OutputStream outputStream,
 			this.outputStream = outputStream;
 			this.options = options;
 			this.version = version;
+			if (options != null && options.get(OPTION_TYPE_DICTIONARY) instanceof TypeDictionary.References) {
+				references = (TypeDictionary.References) options.get(OPTION_TYPE_DICTIONARY);
+			}
 			writeSignature();
 			writeVersion();
 		}
@@ -386,6 +546,12 @@ protected EPackageData writeEPackage(EPackage ePackage)
 		}
 
 		protected EClassData writeEClass(EClass eClass) throws IOException {
+			if (references != null) {
+				EClassData eClassData = references.getDictionary().getEClassData(eClass, references);
+				writeCompressedInt(eClassData.ePackageID);
+				writeCompressedInt(eClassData.id);
+				return eClassData;
+			}
 			EClassData eClassData = eClassDataMap.get(eClass);
 			if (eClassData == null) {
 				eClassData = new EClassData();
@@ -394,27 +560,7 @@ protected EClassData writeEClass(EClass eClass) throws IOException {
 				writeCompressedInt(eClassData.id = ePackageData
 						.allocateEClassID());
 				writeString(eClass.getName());
-				int featureCount = eClass.getFeatureCount();
-				EStructuralFeatureData[] eStructuralFeaturesData = eClassData.eStructuralFeatureData = new EStructuralFeatureData[featureCount];
-				for (int i = 0; i < featureCount; ++i) {
-					EStructuralFeatureData eStructuralFeatureData = eStructuralFeaturesData[i] = new EStructuralFeatureData();
-					EStructuralFeature.Internal eStructuralFeature = (EStructuralFeature.Internal) eClass
-							.getEStructuralFeature(i);
-					eStructuralFeatureData.name = eStructuralFeature.getName();
-					eStructuralFeatureData.isTransient = eStructuralFeature
-							.isTransient()
-							|| eStructuralFeature.isContainer()
-							&& !eStructuralFeature.isResolveProxies();
-					eStructuralFeatureData.kind = FeatureKind
-							.get(eStructuralFeature);
-					if (eStructuralFeature instanceof EAttribute) {
-						EAttribute eAttribute = (EAttribute) eStructuralFeature;
-						EDataType eDataType = eAttribute.getEAttributeType();
-						eStructuralFeatureData.eDataType = eDataType;
-						eStructuralFeatureData.eFactory = eDataType
-								.getEPackage().getEFactoryInstance();
-					}
-				}
+				eClassData.eStructuralFeatureData = newEStructuralFeatureData(eClass);
 				ePackageData.eClassData[eClassData.id] = eClassData;
 				eClassDataMap.put(eClass, eClassData);
 			} else {
@@ -431,11 +577,19 @@ protected EStructuralFeatureData writeEStructuralFeature(
 			int featureID = eClass.getFeatureID(eStructuralFeature);
 			EStructuralFeatureData eStructuralFeatureData = eClassData.eStructuralFeatureData[featureID];
 			writeCompressedInt(featureID);
-			if (eStructuralFeatureData.name != null) {
+			writeFeatureName(eStructuralFeatureData);
+			return eStructuralFeatureData;
+		}
+
+		/**
+		 * Feature name is written once, on the first value of the feature.
+		 * With a type dictionary names are part of class definitions.
+		 */
+		protected void writeFeatureName(EStructuralFeatureData eStructuralFeatureData) throws IOException {
+			if (references == null && eStructuralFeatureData.name != null) {
 				writeString(eStructuralFeatureData.name);
 				eStructuralFeatureData.name = null;
 			}
-			return eStructuralFeatureData;
 		}
 
 		public void saveResource(Resource resource) throws IOException {
@@ -618,10 +772,7 @@ protected void saveFeatureValue(InternalEObject internalEObject,
 				throws IOException {
 			if (internalEObject.eIsSet(featureID)) {
 				writeCompressedInt(featureID + 1);
-				if (eStructuralFeatureData.name != null) {
-					writeString(eStructuralFeatureData.name);
-					eStructuralFeatureData.name = null;
-				}
+				writeFeatureName(eStructuralFeatureData);
 				Object value = internalEObject.eGet(featureID, false, true);
 				switch (eStructuralFeatureData.kind) {
 				case EOBJECT:
@@ -865,7 +1016,8 @@ protected static class EClassData {
 			public EClass eClass;
 			public EFactory eFactory;
 			public EStructuralFeatureData[] eStructuralFeatureData;
-
+			/** Qualified name of a dictionary class unknown to this side */
+			public String unknown;
 		}
 
 		protected static class EStructuralFeatureData {
@@ -876,6 +1028,117 @@ protected static class EStructuralFeatureData {
 			public EDataType eDataType;
 		}
 
+		/**
+		 * Type tables of a connection, filled by {@link #readDefinitions}
+		 * before each resource is loaded. Classes unknown to this side are
+		 * registered too, so only resources which use them fail to load. Not
+		 * thread safe.
+		 */
+		public static class TypeDictionary {
+			private final List<EPackageData> ePackageDataList = new ArrayList<EPackageData>();
+			private final List<String> nsURIs = new ArrayList<String>();
+
+			/**
+			 * Reads definitions written by
+			 * {@link EObjectOutputStream.TypeDictionary#writeDefinitions}.
+			 */
+			public void readDefinitions(DataInputStream in) throws IOException {
+				while (true) {
+					byte kind = in.readByte();
+					if (kind == DEFINITIONS_END) {
+						return;
+					} else if (kind == PACKAGE_DEFINITION) {
+						int id = in.readInt();
+						String nsURI = in.readUTF();
+						if (id != ePackageDataList.size()) {
+							throw new IOException("Package id is not incremented by 1");
+						}
+						EPackageData ePackageData = new EPackageData();
+						ePackageData.ePackage = EPackage.Registry.INSTANCE.getEPackage(nsURI);
+						ePackageData.eClassData = new EClassData[0];
+						ePackageDataList.add(ePackageData);
+						nsURIs.add(nsURI);
+					} else if (kind == CLASS_DEFINITION) {
+						readClassDefinition(in);
+					} else {
+						throw new IOException("Unknown type definition " + kind);
+					}
+				}
+			}
+
+			private void readClassDefinition(DataInputStream in) throws IOException {
+				int packageID = in.readInt();
+				int id = in.readInt();
+				String name = in.readUTF();
+				int featureCount = in.readInt();
+				if (packageID < 0 || packageID >= ePackageDataList.size() || id < 0 || featureCount < 0) {
+					throw new IOException("Malformed class definition " + packageID + "/" + id);
+				}
+				EPackageData ePackageData = ePackageDataList.get(packageID);
+				EClassData eClassData = new EClassData();
+				EClassifier eClassifier = ePackageData.ePackage == null ? null
+						: ePackageData.ePackage.getEClassifier(name);
+				if (eClassifier instanceof EClass) {
+					eClassData.eClass = (EClass) eClassifier;
+					eClassData.eFactory = ePackageData.ePackage.getEFactoryInstance();
+				} else {
+					eClassData.unknown = nsURIs.get(packageID) + "#" + name;
+				}
+				eClassData.eStructuralFeatureData = new EStructuralFeatureData[featureCount];
+				for (int i = 0; i < featureCount; i++) {
+					String featureName = in.readUTF();
+					if (eClassData.eClass != null) {
+						EStructuralFeature eStructuralFeature = eClassData.eClass.getEStructuralFeature(featureName);
+						if (eStructuralFeature != null) {
+							eClassData.eStructuralFeatureData[i] = newEStructuralFeatureData(eClassData.eClass,
+									eStructuralFeature);
+						}
+					}
+				}
+				if (id >= ePackageData.eClassData.length) {
+					EClassData[] eClassDataArray = new EClassData[Math.max(id + 1, ePackageData.eClassData.length * 2)];
+					System.arraycopy(ePackageData.eClassData, 0, eClassDataArray, 0, ePackageData.eClassData.length);
+					ePackageData.eClassData = eClassDataArray;
+				}
+				ePackageData.eClassData[id] = eClassData;
+			}
+
+			EClassData getEClassData(int packageID, int id) throws IOException {
+				EPackageData ePackageData = packageID >= 0 && packageID < ePackageDataList.size()
+						? ePackageDataList.get(packageID)
+						: null;
+				EClassData eClassData = ePackageData != null && id >= 0 && id < ePackageData.eClassData.length
+						? ePackageData.eClassData[id]
+						: null;
+				if (eClassData == null) {
+					throw new IOException("Undefined class " + packageID + "/" + id);
+				}
+				if (eClassData.eClass == null) {
+					throw new IOException("Unknown class " + eClassData.unknown);
+				}
+				return eClassData;
+			}
+
+			public int getPackageCount() {
+				return ePackageDataList.size();
+			}
+		}
+
+		protected static EStructuralFeatureData newEStructuralFeatureData(EClass eClass,
+				EStructuralFeature eStructuralFeature) {
+			EStructuralFeatureData eStructuralFeatureData = new EStructuralFeatureData();
+			eStructuralFeatureData.eStructuralFeature = eStructuralFeature;
+			eStructuralFeatureData.featureID = eClass.getFeatureID(eStructuralFeature);
+			eStructuralFeatureData.kind = FeatureKind.get(eStructuralFeature);
+			if (eStructuralFeature instanceof EAttribute) {
+				EAttribute eAttribute = (EAttribute) eStructuralFeature;
+				eStructuralFeatureData.eDataType = eAttribute.getEAttributeType();
+				eStructuralFeatureData.eFactory = eStructuralFeatureData.eDataType.getEPackage()
+						.getEFactoryInstance();
+			}
+			return eStructuralFeatureData;
+		}
+
 		protected ResourceSet resourceSet;
 		protected InputStream inputStream;
 		protected List<EPackageData> ePackageDataList = new ArrayList<EPackageData>();
@@ -885,11 +1148,15 @@ protected static class EStructuralFeatureData {
 
 		protected BasicEList<InternalEObject> internalEObjectList = new BasicEList<InternalEObject>();
 		protected BasicEList<Object> dataValueList = new BasicEList<Object>();
+		protected TypeDictionary dictionary;
 
 		public EObjectInputStream(InputStream inputStream, Map<?, ?> options)
 				throws IOException {
 			this.inputStream = inputStream;
 			this.options = options;
+			if (options != null && options.get(OPTION_TYPE_DICTIONARY) instanceof TypeDictionary) {
+				dictionary = (TypeDictionary) options.get(OPTION_TYPE_DICTIONARY);
+			}
 			readSignature();
 			readVersion();
 		}
@@ -963,6 +1230,10 @@ protected EPackageData readEPackage() throws IOException {
 		}
 
 		protected EClassData readEClass() throws IOException {
+			if (dictionary != null) {
+				int ePackageID = readCompressedInt();
+				return dictionary.getEClassData(ePackageID, readCompressedInt());
+			}
 			EPackageData ePackageData = readEPackage();
 			int id = readCompressedInt();
 			EClassData eClassData = ePackageData.eClassData[id];
@@ -988,23 +1259,21 @@ protected EStructuralFeatureData readEStructuralFeature()
 
 		protected EStructuralFeatureData getEStructuralFeatureData(
 				EClassData eClassData, int featureID) throws IOException {
+			if (dictionary != null) {
+				EStructuralFeatureData eStructuralFeatureData = featureID >= 0
+						&& featureID < eClassData.eStructuralFeatureData.length
+								? eClassData.eStructuralFeatureData[featureID]
+								: null;
+				if (eStructuralFeatureData == null) {
+					throw new IOException("Unknown feature " + featureID + " of " + eClassData.eClass.getName());
+				}
+				return eStructuralFeatureData;
+			}
 			EStructuralFeatureData eStructuralFeatureData = eClassData.eStructuralFeatureData[featureID];
 			if (eStructuralFeatureData == null) {
-				eStructuralFeatureData = eClassData.eStructuralFeatureData[featureID] = new EStructuralFeatureData();
 				String name = readString();
-				eStructuralFeatureData.eStructuralFeature = eClassData.eClass
-						.getEStructuralFeature(name);
-				eStructuralFeatureData.featureID = eClassData.eClass
-						.getFeatureID(eStructuralFeatureData.eStructuralFeature);
-				eStructuralFeatureData.kind = FeatureKind
-						.get(eStructuralFeatureData.eStructuralFeature);
-				if (eStructuralFeatureData.eStructuralFeature instanceof EAttribute) {
-					EAttribute eAttribute = (EAttribute) eStructuralFeatureData.eStructuralFeature;
-					eStructuralFeatureData.eDataType = eAttribute
-							.getEAttributeType();
-					eStructuralFeatureData.eFactory = eStructuralFeatureData.eDataType
-							.getEPackage().getEFactoryInstance();
-				}
+				eStructuralFeatureData = eClassData.eStructuralFeatureData[featureID] = newEStructuralFeatureData(
+						eClassData.eClass, eClassData.eClass.getEStructuralFeature(name));
 			}
 			return eStructuralFeatureData;
 		}
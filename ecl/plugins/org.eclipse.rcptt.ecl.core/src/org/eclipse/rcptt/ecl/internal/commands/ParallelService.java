@@ -8,32 +8,141 @@
  * Contributors:
  *     Xored Software Inc - initial API and implementation and/or initial documentation
  *******************************************************************************/
-
 package org.eclipse.rcptt.ecl.internal.commands;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.rcptt.ecl.core.Command;
 import org.eclipse.rcptt.ecl.core.Parallel;
+import org.eclipse.rcptt.ecl.internal.core.CorePlugin;
+import org.eclipse.rcptt.ecl.internal.core.Process;
 import org.eclipse.rcptt.ecl.runtime.ICommandService;
 import org.eclipse.rcptt.ecl.runtime.IProcess;
+import org.eclipse.rcptt.ecl.runtime.ISession;
 
+/**
+ * Runs child commands concurrently, at most {@link #MAX_PARALLELISM} at a
+ * time. The first child which fails or is canceled cancels the running
+ * siblings, children which have not been started yet are skipped. Statuses of
+ * all failed children are aggregated into a {@link MultiStatus}.
+ */
 public class ParallelService implements ICommandService {
 
+	/**
+	 * Session or system property with the maximum number of children running
+	 * at once. Twice the number of processors, but at least four, by default.
+	 * Children which wait for each other have to fit into the limit.
+	 */
+	public static final String MAX_PARALLELISM = "org.eclipse.rcptt.ecl.parallel.max";
+
+	/**
+	 * Waits for children of other sessions than the local ones, which can't
+	 * notify about completion
+	 */
+	private static final ExecutorService waiters = Executors.newCachedThreadPool(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "ECL parallel child waiter");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
 	public IStatus service(Command command, IProcess process) throws InterruptedException, CoreException {
-		List<IProcess> processes = new ArrayList<IProcess>();
-		Parallel seq = (Parallel)command;
-		for (Command cmd: seq.getCommands()) {
-			processes.add(process.getSession().execute(cmd, null, null));
-		}		
-		for (IProcess p: processes) {
-			p.waitFor();
+		List<Command> commands = ((Parallel) command).getCommands();
+		ISession session = process.getSession();
+		int limit = getMaxParallelism(session);
+		BlockingQueue<Integer> done = new LinkedBlockingQueue<Integer>();
+		IProcess[] children = new IProcess[commands.size()];
+		MultiStatus result = new MultiStatus(CorePlugin.PLUGIN_ID, 0, "Parallel execution failed", null);
+		int next = 0;
+		int running = 0;
+		boolean failed = false;
+		try {
+			while (running > 0 || !failed && next < commands.size()) {
+				while (!failed && running < limit && next < commands.size()) {
+					int index = next++;
+					children[index] = session.execute(commands.get(index), null, null);
+					running++;
+					notifyWhenDone(children[index], index, done);
+				}
+				int index = done.take();
+				running--;
+				IStatus status = children[index].waitFor();
+				if (failed && status.matches(IStatus.CANCEL)) {
+					continue; // canceled by us
+				}
+				if (status.matches(IStatus.ERROR | IStatus.CANCEL)) {
+					result.add(status);
+				}
+				if (!failed && (status.matches(IStatus.ERROR | IStatus.CANCEL) || !process.isAlive())) {
+					failed = true;
+					cancel(children);
+				}
+			}
+		} catch (InterruptedException e) {
+			cancel(children);
+			throw e;
+		}
+		if (failed && result.isOK()) {
+			return Status.CANCEL_STATUS;
+		}
+		return result.isOK() ? Status.OK_STATUS : result;
+	}
+
+	private static void notifyWhenDone(final IProcess child, final int index, final BlockingQueue<Integer> done) {
+		Runnable listener = new Runnable() {
+			public void run() {
+				done.add(index);
+			}
+		};
+		if (child instanceof Process) {
+			((Process) child).whenDone(listener);
+			return;
+		}
+		waiters.execute(new Runnable() {
+			public void run() {
+				try {
+					child.waitFor();
+				} catch (InterruptedException e) {
+					// Report anyway, status is read by the service
+				}
+				done.add(index);
+			}
+		});
+	}
+
+	private static void cancel(IProcess[] children) {
+		for (IProcess child : children) {
+			if (child instanceof Process) {
+				((Process) child).cancel();
+			}
 		}
-		return Status.OK_STATUS;
 	}
 
+	private static int getMaxParallelism(ISession session) {
+		Object value = session.getProperty(MAX_PARALLELISM);
+		if (value == null) {
+			value = System.getProperty(MAX_PARALLELISM);
+		}
+		if (value != null) {
+			try {
+				int result = Integer.parseInt(value.toString().trim());
+				if (result > 0) {
+					return result;
+				}
+			} catch (NumberFormatException e) {
+				CorePlugin.log(CorePlugin.err("Invalid " + MAX_PARALLELISM + " value: " + value, e));
+			}
+		}
+		return Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+	}
 }
@@ -11,6 +11,9 @@
 
 package org.eclipse.rcptt.ecl.internal.commands;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.rcptt.ecl.core.Command;
@@ -26,20 +29,26 @@ public IStatus service(Command command, IProcess process)
 		Pipeline seq = (Pipeline) command;
 		IPipe in = process.getInput();
 		IPipe out = null;
-		IProcess child = null;
 		IStatus status = null;
 		int size = seq.getCommands().size();
+		// Stages are started without waiting for the previous one, so
+		// streaming commands can consume their upstream while it is being
+		// produced. Other commands block in execute() until the upstream
+		// is closed, and fail there if it has failed.
+		List<IProcess> children = new ArrayList<IProcess>(size);
 		for (int i = 0; i < size; i++) {
 			if (i == size - 1)
 				out = process.getOutput();
 			else
 				out = process.getSession().createPipe();
-			child = process.getSession().execute(seq.getCommands().get(i), in,
-					out);
+			children.add(process.getSession().execute(seq.getCommands().get(i), in,
+					out));
+			in = out;
+		}
+		for (IProcess child : children) {
 			status = child.waitFor();
 			if (!status.isOK())
 				return status;
-			in = out;
 		}
 		return status;
 	}
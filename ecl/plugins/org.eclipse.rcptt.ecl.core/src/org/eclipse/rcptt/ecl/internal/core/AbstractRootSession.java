@@ -10,10 +10,12 @@
  *******************************************************************************/
 package org.eclipse.rcptt.ecl.internal.core;
 
+import java.util.Locale;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.rcptt.ecl.core.CommandStack;
+import org.eclipse.rcptt.ecl.runtime.EclRuntime;
 
 public abstract class AbstractRootSession extends AbstractSession {
 
@@ -21,6 +23,8 @@ public abstract class AbstractRootSession extends AbstractSession {
 
 	public AbstractRootSession() {
 		super();
+		pipeCapacity = parsePipeCapacity(System.getProperty(EclRuntime.PIPE_CAPACITY));
+		pipeBackpressure = parseBackpressure(System.getProperty(EclRuntime.PIPE_BACKPRESSURE));
 	}
 
 	@Override
@@ -56,4 +60,62 @@ public DeclarationContainer getGlobals() {
 	public boolean isClosed() {
 		return closed.get();
 	}
+
+	private volatile int pipeCapacity;
+	private volatile RingBufferPipe.Backpressure pipeBackpressure;
+
+	/**
+	 * Makes {@link #createPipe()} return {@link RingBufferPipe} instances of
+	 * given capacity. Zero capacity restores default unbounded {@link Pipe}.
+	 * Same as setting {@link EclRuntime#PIPE_CAPACITY} and
+	 * {@link EclRuntime#PIPE_BACKPRESSURE} properties.
+	 */
+	public void setPipeCapacity(int capacity, RingBufferPipe.Backpressure backpressure) {
+		this.pipeCapacity = capacity;
+		this.pipeBackpressure = backpressure;
+	}
+
+	public int getPipeCapacity() {
+		return pipeCapacity;
+	}
+
+	public RingBufferPipe.Backpressure getPipeBackpressure() {
+		return pipeBackpressure;
+	}
+
+	@Override
+	public synchronized void putProperty(String key, Object value) {
+		super.putProperty(key, value);
+		if (EclRuntime.PIPE_CAPACITY.equals(key)) {
+			pipeCapacity = parsePipeCapacity(value);
+		} else if (EclRuntime.PIPE_BACKPRESSURE.equals(key)) {
+			pipeBackpressure = parseBackpressure(value);
+		}
+	}
+
+	private static int parsePipeCapacity(Object value) {
+		if (value != null) {
+			try {
+				int result = Integer.parseInt(value.toString().trim());
+				if (result >= 0) {
+					return result;
+				}
+			} catch (NumberFormatException e) {
+				// logged below
+			}
+			CorePlugin.log(CorePlugin.err("Invalid " + EclRuntime.PIPE_CAPACITY + " value: " + value));
+		}
+		return 0;
+	}
+
+	private static RingBufferPipe.Backpressure parseBackpressure(Object value) {
+		if (value != null) {
+			try {
+				return RingBufferPipe.Backpressure.valueOf(value.toString().trim().toUpperCase(Locale.ENGLISH));
+			} catch (IllegalArgumentException e) {
+				CorePlugin.log(CorePlugin.err("Invalid " + EclRuntime.PIPE_BACKPRESSURE + " value: " + value, e));
+			}
+		}
+		return RingBufferPipe.Backpressure.GROW;
+	}
 }
@@ -31,6 +31,7 @@
 import org.eclipse.rcptt.ecl.runtime.IPipe;
 import org.eclipse.rcptt.ecl.runtime.IProcess;
 import org.eclipse.rcptt.ecl.runtime.ISession;
+import org.eclipse.rcptt.ecl.runtime.IStreamingCommandService;
 
 public abstract class AbstractSession implements ISession {
 	private Map<String, Object> properties = null;
@@ -53,33 +54,60 @@ public IProcess execute(Command scriptlet, IPipe in, IPipe out) throws CoreExcep
 			throw new CoreException(Status.CANCEL_STATUS);
 		}
 		final ICommandService svc = scriptlet instanceof ProcInstance ? new ProcInstanceService()
-				: CorePlugin.getScriptletManager().getScriptletService(scriptlet);
+				: CommandDescriptor.get(scriptlet.eClass()).getService(scriptlet);
 		final IPipe tinput = in == null ? createPipe().close(Status.OK_STATUS) : in;
 		final IPipe output = out == null ? createPipe() : out;
-		final List<Object> inputContent = CoreUtils.readPipeContent(tinput);
-		final IPipe input = createPipe();
-		for (Object o : inputContent)
-			input.write(o);
-		input.close(Status.OK_STATUS);
+		final List<Object> inputContent;
+		final IPipe input;
+		if (isStreaming(scriptlet, svc)) {
+			// Command reads upstream pipe by itself
+			inputContent = null;
+			input = tinput;
+		} else {
+			inputContent = CoreUtils.readPipeContent(tinput);
+			input = createPipe();
+			for (Object o : inputContent)
+				input.write(o);
+			input.close(Status.OK_STATUS);
+		}
 
 		CommandSession session = new CommandSession(getRoot(), new CommandStack(scriptlet, getStack()), this);
 
 		final Process process = new Process(session, input, output);
+		session.setProcess(process);
 		doExecute(scriptlet, svc, inputContent, process);
 		return process;
 	}
 
+	private static boolean isStreaming(Command scriptlet, ICommandService svc) {
+		return svc instanceof IStreamingCommandService && scriptlet.getBindings().isEmpty();
+	}
+
 	// protected void internalDoExecute(final Command scriptlet,
 	// final ICommandService svc, final List<Object> inputContent,
 	// final Process process)
 	protected void internalDoExecute(Command scriptlet, final ICommandService svc, final List<Object> inputContent,
 			final Process process) {
+		if (process.isCanceled()) {
+			try {
+				process.setStatus(Status.CANCEL_STATUS);
+			} catch (CoreException e) {
+				CorePlugin.log(e.getStatus());
+			}
+			return;
+		}
 		IStatus s = null;
 		CommandStack stack = ((AbstractSession) process.getSession()).getStack();
+		CommandDescriptor descriptor = CommandDescriptor.get(scriptlet.eClass());
+		ParameterFrame frame = new ParameterFrame(scriptlet, descriptor);
 		try {
-			resolveBindings(scriptlet, inputContent);
-			setupInputFeature(scriptlet, inputContent);
-			checkParams(scriptlet);
+			if (inputContent != null) {
+				resolveBindings(scriptlet, inputContent);
+				setupInputFeature(scriptlet, inputContent);
+				checkParams(scriptlet);
+			} else {
+				checkStreamingParams(scriptlet);
+			}
 
 			CommandStack.fireEnter(stack);
 			SessionListenerManager.beginCommand(scriptlet);
@@ -106,6 +134,11 @@ protected void internalDoExecute(Command scriptlet, final ICommandService svc, f
 			log(s = err(t));
 		} finally {
 			CommandStack.fireExit(stack);
+			try {
+				frame.restore();
+			} catch (Throwable t) {
+				log(err(t));
+			}
 			try {
 				process.setStatus(s);
 			} catch (CoreException ioe) {
@@ -121,20 +154,10 @@ protected void internalDoExecute(Command scriptlet, final ICommandService svc, f
 	}
 
 	protected void setupInputFeature(Command scriptlet, List<Object> inputContent) throws CoreException {
-		EStructuralFeature inputFeature = null;
-		for (EStructuralFeature feature : CoreUtils.getFeatures(scriptlet.eClass())) {
-			if (feature.getEAnnotation(CoreUtils.INPUT_ANN) != null && !scriptlet.eIsSet(feature)) {
-				if (inputFeature == null) {
-					inputFeature = feature;
-				} else {
-					IStatus status = new Status(IStatus.ERROR, CorePlugin.PLUGIN_ID,
-							"Command has more than one input param");
-					throw new CoreException(status);
-				}
-			}
-		}
+		CommandDescriptor descriptor = CommandDescriptor.get(scriptlet.eClass());
+		EStructuralFeature inputFeature = descriptor.getUnsetInputFeature(scriptlet);
 		if (inputFeature != null) {
-			CoreUtils.featureSafeSet(scriptlet, inputFeature, inputContent);
+			descriptor.set(scriptlet, inputFeature, inputContent);
 		}
 	}
 
@@ -152,17 +175,27 @@ protected void resolveBindings(Command scriptlet, List<Object> inputContent)
 			IStatus status = process.waitFor();
 			if (!status.isOK())
 				throw new CoreException(status);
-			CoreUtils.featureSafeSet(scriptlet, feature, CoreUtils.readPipeContent(out));
+			CommandDescriptor.get(scriptlet.eClass()).set(scriptlet, feature, CoreUtils.readPipeContent(out));
 		}
 	}
 
 	protected void checkParams(Command scriptlet) throws CoreException {
-		for (EStructuralFeature feature : scriptlet.eClass().getEStructuralFeatures()) {
-			CoreUtils.checkBounds(feature, scriptlet.eGet(feature));
-		}
+		CommandDescriptor.get(scriptlet.eClass()).checkBounds(scriptlet, false);
+	}
+
+	/**
+	 * Same as {@link #checkParams(Command)}, but skips unset input feature,
+	 * which is read from the input pipe by the streaming command itself.
+	 */
+	protected void checkStreamingParams(Command scriptlet) throws CoreException {
+		CommandDescriptor.get(scriptlet.eClass()).checkBounds(scriptlet, true);
 	}
 
 	public IPipe createPipe() {
+		AbstractRootSession root = getRoot();
+		if (root.getPipeCapacity() > 0) {
+			return new RingBufferPipe(root.getPipeCapacity(), root.getPipeBackpressure());
+		}
 		return new Pipe();
 	}
 
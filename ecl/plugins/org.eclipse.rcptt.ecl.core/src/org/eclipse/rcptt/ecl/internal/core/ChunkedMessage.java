@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.internal.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.rcptt.ecl.core.util.ECLBinaryResourceImpl;
+import org.eclipse.rcptt.ecl.core.util.ECLBinaryResourceImpl.EObjectInputStream;
+import org.eclipse.rcptt.ecl.core.util.ECLBinaryResourceImpl.EObjectOutputStream;
+
+/**
+ * EMF binary message split into length prefixed chunks.
+ * <p>
+ * {@link ECLBinaryResourceImpl.EObjectOutputStream} writes straight into
+ * pooled chunk buffers, so a message is never accumulated in a growing array
+ * and copied again before going to the socket. On the wire it is a sequence of
+ * {@code length:int bytes} chunks terminated by a zero length. The reader
+ * deserializes directly from the stream through {@link ChunkedInputStream}.
+ * <p>
+ * Chunk buffers are heap arrays: sockets are used through streams here, so a
+ * direct buffer would only add one more copy on the way to the socket.
+ */
+public final class ChunkedMessage {
+
+	public static final boolean TRACE_MESSAGES = Boolean
+			.valueOf(Platform.getDebugOption(CorePlugin.PLUGIN_ID + "/traceMessages")).booleanValue();
+
+	private static final int CHUNK_SIZE = 32 * 1024;
+	private static final int MAX_POOLED_CHUNKS = 64;
+
+	/** Output is buffered by chunks already */
+	private static final Map<String, Object> SAVE_OPTIONS = Collections
+			.<String, Object> singletonMap(ECLBinaryResourceImpl.OPTION_BUFFER_CAPACITY, 0);
+	/** Small read buffer turns byte reads into bulk reads of a chunk */
+	private static final Map<String, Object> LOAD_OPTIONS = Collections
+			.<String, Object> singletonMap(ECLBinaryResourceImpl.OPTION_BUFFER_CAPACITY, 8192);
+
+	private static final ConcurrentLinkedQueue<byte[]> pool = new ConcurrentLinkedQueue<byte[]>();
+	private static final AtomicInteger pooled = new AtomicInteger();
+
+	private static final AtomicLong totalMessages = new AtomicLong();
+	private static final AtomicLong totalBytes = new AtomicLong();
+	private static final AtomicLong allocatedChunks = new AtomicLong();
+	private static final AtomicLong reusedChunks = new AtomicLong();
+
+	private final List<byte[]> chunks = new ArrayList<byte[]>(1);
+	private EObjectOutputStream.TypeDictionary.References types;
+	private int last = 0;
+	private int size = 0;
+	private int allocated = 0;
+
+	private ChunkedMessage() {
+	}
+
+	public static ChunkedMessage encode(EObject eObject) throws IOException {
+		return encode(eObject, null);
+	}
+
+	/**
+	 * @param types
+	 *            dictionary of the connection the message is written to or
+	 *            <code>null</code>. Messages may be encoded concurrently and
+	 *            written in any order, {@link #writeTo(DataOutputStream)}
+	 *            writes definitions of types not sent yet.
+	 */
+	public static ChunkedMessage encode(EObject eObject, EObjectOutputStream.TypeDictionary types)
+			throws IOException {
+		ChunkedMessage message = new ChunkedMessage();
+		if (types != null) {
+			message.types = types.newReferences();
+		}
+		Resource r = new ECLBinaryResourceImpl();
+		r.getContents().add(eObject);
+		try {
+			r.save(message.new ChunkOutputStream(), withTypes(SAVE_OPTIONS, message.types));
+		} catch (IOException e) {
+			message.release();
+			throw e;
+		} finally {
+			r.getContents().clear();
+		}
+		totalMessages.incrementAndGet();
+		totalBytes.addAndGet(message.size);
+		if (TRACE_MESSAGES) {
+			CorePlugin.log(new Status(IStatus.INFO, CorePlugin.PLUGIN_ID,
+					String.format("ECL message %s: %d bytes, %d chunks, %d new chunk buffers. Total: %s",
+							eObject.eClass().getName(), message.size, message.chunks.size(), message.allocated,
+							getStatistics())));
+		}
+		return message;
+	}
+
+	/**
+	 * Reads a message written by {@link #writeTo(DataOutputStream)}.
+	 */
+	public static EObject decode(DataInputStream in) throws IOException, CoreException {
+		return decode(in, null);
+	}
+
+	/**
+	 * @param types
+	 *            dictionary of the connection the message is read from or
+	 *            <code>null</code>
+	 * @throws IOException
+	 *             if the stream is broken or malformed and can not be read
+	 *             further
+	 * @throws CoreException
+	 *             if the message has been read completely but could not be
+	 *             deserialized. Stream and dictionary stay usable.
+	 */
+	public static EObject decode(DataInputStream in, EObjectInputStream.TypeDictionary types)
+			throws IOException, CoreException {
+		if (types != null) {
+			types.readDefinitions(in);
+		}
+		ChunkedInputStream stream = new ChunkedInputStream(in);
+		Resource r = new ECLBinaryResourceImpl();
+		Exception failure = null;
+		try {
+			r.load(stream, withTypes(LOAD_OPTIONS, types));
+		} catch (IOException e) {
+			failure = e;
+		} catch (RuntimeException e) {
+			failure = e;
+		}
+		// Fails if the stream itself is broken
+		stream.skipRemaining();
+		if (failure != null || r.getContents().isEmpty()) {
+			throw new CoreException(CorePlugin.err("Malformed ECL message", failure));
+		}
+		return r.getContents().get(0);
+	}
+
+	private static Map<String, Object> withTypes(Map<String, Object> options, Object types) {
+		if (types == null) {
+			return options;
+		}
+		Map<String, Object> result = new HashMap<String, Object>(options);
+		result.put(ECLBinaryResourceImpl.OPTION_TYPE_DICTIONARY, types);
+		return result;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Writes chunks and returns them to the pool. Message can not be used
+	 * after that. Messages encoded with a type dictionary are preceded by
+	 * definitions of types they use, so they have to be written under the
+	 * lock which orders writes to the connection.
+	 */
+	public void writeTo(DataOutputStream out) throws IOException {
+		try {
+			if (types != null) {
+				types.getDictionary().writeDefinitions(types, out);
+			}
+			for (int i = 0; i < chunks.size(); i++) {
+				int length = i == chunks.size() - 1 ? last : CHUNK_SIZE;
+				out.writeInt(length);
+				out.write(chunks.get(i), 0, length);
+			}
+			out.writeInt(0);
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Writes message content without chunk framing, as one block of
+	 * {@link #size()} bytes, and returns chunks to the pool.
+	 */
+	public void writeRawTo(DataOutputStream out) throws IOException {
+		try {
+			for (int i = 0; i < chunks.size(); i++) {
+				out.write(chunks.get(i), 0, i == chunks.size() - 1 ? last : CHUNK_SIZE);
+			}
+		} finally {
+			release();
+		}
+	}
+
+	public void release() {
+		for (byte[] chunk : chunks) {
+			if (pooled.incrementAndGet() <= MAX_POOLED_CHUNKS) {
+				pool.offer(chunk);
+			} else {
+				pooled.decrementAndGet();
+			}
+		}
+		chunks.clear();
+	}
+
+	private byte[] acquire() {
+		byte[] chunk = pool.poll();
+		if (chunk != null) {
+			pooled.decrementAndGet();
+			reusedChunks.incrementAndGet();
+			return chunk;
+		}
+		allocated++;
+		allocatedChunks.incrementAndGet();
+		return new byte[CHUNK_SIZE];
+	}
+
+	private static String getStatistics() {
+		return String.format("%d messages, %d bytes, %d chunk buffers allocated, %d reused", totalMessages.get(),
+				totalBytes.get(), allocatedChunks.get(), reusedChunks.get());
+	}
+
+	private class ChunkOutputStream extends OutputStream {
+		private byte[] current;
+
+		private void ensureSpace() {
+			if (current == null || last == CHUNK_SIZE) {
+				current = acquire();
+				chunks.add(current);
+				last = 0;
+			}
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			ensureSpace();
+			current[last++] = (byte) b;
+			size++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				ensureSpace();
+				int count = Math.min(len, CHUNK_SIZE - last);
+				System.arraycopy(b, off, current, last, count);
+				last += count;
+				off += count;
+				len -= count;
+				size += count;
+			}
+		}
+	}
+
+	/**
+	 * Reads chunk payload directly from underlying stream and reports end of
+	 * stream at the terminating chunk.
+	 */
+	private static class ChunkedInputStream extends InputStream {
+		private final DataInputStream in;
+		private int remaining = 0;
+		private boolean finished = false;
+
+		ChunkedInputStream(DataInputStream in) {
+			this.in = in;
+		}
+
+		private boolean nextChunk() throws IOException {
+			while (remaining == 0 && !finished) {
+				remaining = in.readInt();
+				if (remaining < 0) {
+					throw new IOException("Malformed chunk of length " + remaining);
+				}
+				finished = remaining == 0;
+			}
+			return !finished;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!nextChunk()) {
+				return -1;
+			}
+			int result = in.read();
+			if (result < 0) {
+				throw new IOException("Unexpected end of stream");
+			}
+			remaining--;
+			return result;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (!nextChunk()) {
+				return -1;
+			}
+			int result = in.read(b, off, Math.min(len, remaining));
+			if (result < 0) {
+				throw new IOException("Unexpected end of stream");
+			}
+			remaining -= result;
+			return result;
+		}
+
+		void skipRemaining() throws IOException {
+			while (nextChunk()) {
+				int skipped = in.skipBytes(remaining);
+				if (skipped == 0) {
+					throw new EOFException();
+				}
+				remaining -= skipped;
+			}
+		}
+	}
+}
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.internal.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.rcptt.ecl.core.Command;
+import org.eclipse.rcptt.ecl.core.CorePackage;
+import org.eclipse.rcptt.ecl.runtime.CoreUtils;
+import org.eclipse.rcptt.ecl.runtime.ICommandService;
+import org.eclipse.rcptt.ecl.runtime.IStreamingCommandService;
+
+/**
+ * Everything session needs to know about a command class to execute it,
+ * computed once per {@link EClass}: the command service, input parameter
+ * candidates, parameters checked for bounds and conversions of assigned
+ * values. Dispatch of a command is a map lookup then, instead of a scriptlet
+ * registry lookup and a walk over all features with annotation checks.
+ */
+public final class CommandDescriptor {
+
+	private static final ConcurrentMap<EClass, CommandDescriptor> descriptors = new ConcurrentHashMap<EClass, CommandDescriptor>();
+
+	private final EClass eClass;
+	/** Features with input annotation in {@link CoreUtils#getFeatures(EClass)} order */
+	private final List<EStructuralFeature> inputFeatures;
+	/** Own features of the class, inherited ones are not checked */
+	private final List<EStructuralFeature> checkedFeatures;
+	/** Parameters an invocation may assign, see {@link ParameterFrame} */
+	private final List<EStructuralFeature> parameterFeatures;
+	private final Map<EStructuralFeature, Setter> setters = new HashMap<EStructuralFeature, Setter>();
+	private volatile ICommandService service;
+
+	private CommandDescriptor(EClass eClass) {
+		this.eClass = eClass;
+		List<EStructuralFeature> inputs = new ArrayList<EStructuralFeature>(1);
+		List<EStructuralFeature> parameters = new ArrayList<EStructuralFeature>();
+		for (EStructuralFeature feature : CoreUtils.getFeatures(eClass)) {
+			if (feature.getEAnnotation(CoreUtils.INPUT_ANN) != null) {
+				inputs.add(feature);
+			}
+			// Bindings and host are set by parser only
+			if (feature.isChangeable() && !feature.isDerived()
+					&& feature.getEContainingClass() != CorePackage.Literals.COMMAND) {
+				parameters.add(feature);
+			}
+			setters.put(feature, new Setter(feature));
+		}
+		this.inputFeatures = Collections.unmodifiableList(inputs);
+		this.parameterFeatures = Collections.unmodifiableList(parameters);
+		this.checkedFeatures = Collections
+				.unmodifiableList(new ArrayList<EStructuralFeature>(eClass.getEStructuralFeatures()));
+	}
+
+	/**
+	 * @return cached descriptor of a command class
+	 */
+	public static CommandDescriptor get(EClass eClass) {
+		CommandDescriptor result = descriptors.get(eClass);
+		if (result == null) {
+			result = create(eClass);
+			CommandDescriptor existing = descriptors.putIfAbsent(eClass, result);
+			if (existing != null) {
+				result = existing;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Drops cached descriptors, called when scriptlet extensions change.
+	 */
+	static void clear() {
+		descriptors.clear();
+	}
+
+	/**
+	 * Computes a new descriptor without caching it.
+	 */
+	public static CommandDescriptor create(EClass eClass) {
+		return new CommandDescriptor(eClass);
+	}
+
+	public EClass getEClass() {
+		return eClass;
+	}
+
+	/**
+	 * Resolves the scriptlet service on first call. Failed lookups are not
+	 * cached, so a scriptlet registered later is still found.
+	 */
+	public ICommandService getService(Command command) throws CoreException {
+		ICommandService result = service;
+		if (result == null) {
+			result = service = CorePlugin.getScriptletManager().getScriptletService(command);
+		}
+		return result;
+	}
+
+	/**
+	 * @return <code>true</code> if the command reads its input pipe by
+	 *         itself, otherwise session reads the whole input before the
+	 *         command starts
+	 */
+	public boolean isStreaming(Command command) throws CoreException {
+		return command.getBindings().isEmpty() && getService(command) instanceof IStreamingCommandService;
+	}
+
+	public List<EStructuralFeature> getInputFeatures() {
+		return inputFeatures;
+	}
+
+	List<EStructuralFeature> getParameterFeatures() {
+		return parameterFeatures;
+	}
+
+	/**
+	 * @return input feature which is not assigned in the given command or
+	 *         <code>null</code>
+	 * @throws CoreException
+	 *             if there are several such features
+	 */
+	public EStructuralFeature getUnsetInputFeature(Command command) throws CoreException {
+		EStructuralFeature result = null;
+		for (EStructuralFeature feature : inputFeatures) {
+			if (!command.eIsSet(feature)) {
+				if (result != null) {
+					throw new CoreException(CorePlugin.err("Command has more than one input param"));
+				}
+				result = feature;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param skipUnsetInput
+	 *            do not check unset input features, which are read by
+	 *            streaming commands from their input pipe
+	 */
+	public void checkBounds(Command command, boolean skipUnsetInput) throws CoreException {
+		for (EStructuralFeature feature : checkedFeatures) {
+			if (skipUnsetInput && inputFeatures.contains(feature) && !command.eIsSet(feature)) {
+				continue;
+			}
+			CoreUtils.checkBounds(feature, command.eGet(feature));
+		}
+	}
+
+	/**
+	 * Same as {@link CoreUtils#featureSafeSet(EObject, EStructuralFeature, List)}
+	 * with conversion kind of the feature resolved once.
+	 */
+	public void set(EObject command, EStructuralFeature feature, List<?> value) throws CoreException {
+		Setter setter = setters.get(feature);
+		if (setter == null) {
+			CoreUtils.featureSafeSet(command, feature, value);
+		} else {
+			setter.set(command, value);
+		}
+	}
+
+	private static final class Setter {
+		private final EStructuralFeature feature;
+		private final Class<?> instanceClass;
+		private final boolean box;
+		private final boolean single;
+
+		Setter(EStructuralFeature feature) {
+			this.feature = feature;
+			this.instanceClass = feature.getEType().getInstanceClass();
+			this.box = feature instanceof EReference;
+			this.single = feature.getUpperBound() == 1;
+		}
+
+		void set(EObject object, List<?> value) throws CoreException {
+			CoreUtils.checkBounds(feature, value);
+			if (value.isEmpty()) {
+				return;
+			}
+			if (single) {
+				object.eSet(feature, CoreUtils.adaptSingleObject(instanceClass, value.get(0), box));
+				return;
+			}
+			List<Object> result = new ArrayList<Object>(value.size());
+			for (Object item : value) {
+				result.add(CoreUtils.adaptSingleObject(instanceClass, item, box));
+			}
+			object.eSet(feature, result);
+		}
+	}
+}
@@ -23,6 +23,7 @@ public class CommandSession extends AbstractSession {
 	private final CommandStack stack;
 	private final AbstractRootSession session;
 	private final ISession parent;
+	private volatile Process process;
 
 	public CommandSession(AbstractRootSession session, CommandStack stack, ISession parent) {
 		this.session = session;
@@ -30,6 +31,24 @@ public CommandSession(AbstractRootSession session, CommandStack stack, ISession
 		this.parent = parent;
 	}
 
+	/**
+	 * Sets the process of the command this session was created for.
+	 */
+	void setProcess(Process process) {
+		this.process = process;
+	}
+
+	/**
+	 * @return whether the command which started this one has been canceled
+	 */
+	boolean isParentCanceled() {
+		if (!(parent instanceof CommandSession)) {
+			return false;
+		}
+		Process parentProcess = ((CommandSession) parent).process;
+		return parentProcess != null && parentProcess.isCanceled();
+	}
+
 	@Override
 	public AbstractRootSession getRoot() {
 		return session;
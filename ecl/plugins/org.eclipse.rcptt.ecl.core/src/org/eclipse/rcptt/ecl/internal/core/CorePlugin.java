@@ -14,6 +14,7 @@
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
@@ -50,6 +51,7 @@ public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
 		manager = new ScriptletManager();
+		Platform.getExtensionRegistry().addListener(manager, ScriptletManager.SCRIPTLET_EXTPT);
 	}
 
 	/*
@@ -60,6 +62,7 @@ public void start(BundleContext context) throws Exception {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		Platform.getExtensionRegistry().removeListener(manager);
 		manager = null;
 		plugin = null;
 		super.stop(context);
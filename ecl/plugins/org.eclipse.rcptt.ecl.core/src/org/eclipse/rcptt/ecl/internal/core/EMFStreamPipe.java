@@ -18,7 +18,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.Map;
 
 import org.eclipse.core.runtime.CoreException;
@@ -26,6 +26,7 @@
 import org.eclipse.core.runtime.Status;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.rcptt.ecl.core.ConvertedToEMFPipe;
 import org.eclipse.rcptt.ecl.core.CoreFactory;
 import org.eclipse.rcptt.ecl.core.util.ECLBinaryResourceImpl;
@@ -33,8 +34,11 @@
 
 public class EMFStreamPipe implements IPipe, IMarkeredPipe {
 
-	private static final int CLOSE_PIPE_ID = 123;
-	private static final int OBJECT_ID = 121;
+	/** Ends a sequence of objects. No data */
+	public static final int CLOSE_PIPE_ID = 123;
+	/** Object followed by {@code size:int} and serialized bytes */
+	public static final int OBJECT_ID = 121;
+	private static final Map<String, Object> OPTIONS = Collections.emptyMap();
 	private final DataInputStream in;
 	private final DataOutputStream out;
 	private boolean closed = false;
@@ -84,9 +88,6 @@ public Object take(long timeout) throws CoreException {
 		if (closed) {
 			return null;
 		}
-		Resource r = new ECLBinaryResourceImpl();
-		int size = 0;
-		byte[] data = null;
 		try {
 			int kind = in.readByte();
 			if (CLOSE_PIPE_ID == kind) {
@@ -95,21 +96,15 @@ public Object take(long timeout) throws CoreException {
 			} else if (OBJECT_ID != kind) {
 				throw new IOException("Failed to read object from stream");
 			}
-			size = in.readInt();
+			int size = in.readInt();
 			if (size <= 0) {
 				throw new IOException("Failed to read from stream");
 			}
-			data = new byte[size];
+			byte[] data = new byte[size];
 			in.readFully(data);
-			ByteArrayInputStream bin = new ByteArrayInputStream(data);
-			r.load(bin, getOptions());
-			EObject eObject = r.getContents().get(0);
-			if (eObject instanceof ConvertedToEMFPipe) {
-				return EMFConverterManager.INSTANCE
-						.fromEObject(((ConvertedToEMFPipe) eObject).getObject());
-			} else {
-				return eObject;
-			}
+			Resource r = new ECLBinaryResourceImpl();
+			r.load(new ByteArrayInputStream(data), OPTIONS);
+			return fromEObject(r.getContents().get(0));
 		} catch (Throwable e) {
 			if (e instanceof EOFException) {
 				return new Status(IStatus.ERROR, CorePlugin.PLUGIN_ID,
@@ -122,26 +117,57 @@ public Object take(long timeout) throws CoreException {
 		}
 	}
 
-	private Map<String, Object> getOptions() {
-		Map<String, Object> opts = new HashMap<String, Object>();
-		return opts;
+	static EObject toEObject(Object object) throws CoreException {
+		if (object instanceof EObject) {
+			return (EObject) object;
+		}
+		ConvertedToEMFPipe converted = CoreFactory.eINSTANCE
+				.createConvertedToEMFPipe();
+		converted.setObject(EMFConverterManager.INSTANCE.toEObject(object));
+		return converted;
+	}
+
+	static Object fromEObject(EObject eObject) throws CoreException {
+		if (eObject instanceof ConvertedToEMFPipe) {
+			return EMFConverterManager.INSTANCE
+					.fromEObject(((ConvertedToEMFPipe) eObject).getObject());
+		}
+		return eObject;
+	}
+
+	/**
+	 * Serializes an object right away, so that it can be passed to
+	 * {@link #write(Object)} later without keeping a copy of it. Object which
+	 * is not owned by a container or resource is not copied at all.
+	 */
+	public static ChunkedMessage snapshot(Object object) throws CoreException {
+		EObject eObject = toEObject(object);
+		if (eObject.eContainer() != null || eObject.eResource() != null) {
+			// adding to resource would detach it from its owner
+			eObject = EcoreUtil.copy(eObject);
+		}
+		try {
+			return ChunkedMessage.encode(eObject);
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR,
+					CorePlugin.PLUGIN_ID, "Failed to write " + object, e));
+		} catch (RuntimeException e) {
+			throw new CoreException(new Status(IStatus.ERROR,
+					CorePlugin.PLUGIN_ID, "Failed to write " + object, e));
+		}
 	}
 
 	public IPipe write(Object object) throws CoreException {
-		EObject eObject;
-		if (object instanceof EObject) {
-			eObject = (EObject) object;
-		} else {
-			ConvertedToEMFPipe converted = CoreFactory.eINSTANCE
-					.createConvertedToEMFPipe();
-			converted.setObject(EMFConverterManager.INSTANCE.toEObject(object));
-			eObject = converted;
+		if (object instanceof ChunkedMessage) {
+			writeSnapshot((ChunkedMessage) object);
+			return this;
 		}
-		Resource r = new ECLBinaryResourceImpl();
-		r.getContents().add(eObject);
+		EObject eObject = toEObject(object);
 		try {
+			Resource r = new ECLBinaryResourceImpl();
+			r.getContents().add(eObject);
 			ByteArrayOutputStream bout = new ByteArrayOutputStream();
-			r.save(bout, getOptions());
+			r.save(bout, OPTIONS);
 			out.writeByte(OBJECT_ID);
 			out.writeInt(bout.size());
 			bout.writeTo(out);
@@ -153,6 +179,17 @@ public IPipe write(Object object) throws CoreException {
 		return this;
 	}
 
+	private void writeSnapshot(ChunkedMessage message) throws CoreException {
+		try {
+			out.writeByte(OBJECT_ID);
+			out.writeInt(message.size());
+			message.writeRawTo(out);
+		} catch (IOException e) {
+			throw new CoreException(new Status(IStatus.ERROR,
+					CorePlugin.PLUGIN_ID, "Failed to write message", e));
+		}
+	}
+
 	private void writeStatus(int status) throws CoreException {
 		try {
 			out.writeByte(status);
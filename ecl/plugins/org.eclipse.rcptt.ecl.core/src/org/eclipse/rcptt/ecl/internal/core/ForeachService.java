@@ -15,68 +15,99 @@
 import org.eclipse.core.runtime.Status;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.rcptt.ecl.core.Command;
-import org.eclipse.rcptt.ecl.core.CoreFactory;
+import org.eclipse.rcptt.ecl.core.CorePackage;
 import org.eclipse.rcptt.ecl.core.Foreach;
-import org.eclipse.rcptt.ecl.core.Let;
 import org.eclipse.rcptt.ecl.core.Val;
 import org.eclipse.rcptt.ecl.runtime.BoxedValues;
 import org.eclipse.rcptt.ecl.runtime.CoreUtils;
-import org.eclipse.rcptt.ecl.runtime.ICommandService;
 import org.eclipse.rcptt.ecl.runtime.IPipe;
 import org.eclipse.rcptt.ecl.runtime.IProcess;
 import org.eclipse.rcptt.ecl.runtime.ISession;
+import org.eclipse.rcptt.ecl.runtime.IStreamingCommandService;
 
-public class ForeachService implements ICommandService {
+public class ForeachService implements IStreamingCommandService {
 
 	public IStatus service(Command command, IProcess context)
 			throws InterruptedException, CoreException {
 		Foreach foreach = (Foreach) command;
 		IStatus status = Status.OK_STATUS;
-		Val val = foreach.getItem();
-		Val indexVal = foreach.getIndex();
-		boolean valSet = val != null;
-
+		boolean streaming = !foreach.eIsSet(CorePackage.Literals.FOREACH__INPUT);
 		EList<EObject> objects = foreach.getInput();
-		for (int i = 0, size = objects.size(); i < size; i++) {
-			if (!context.isAlive()) {
-				throw new CoreException(Status.CANCEL_STATUS);
+		IPipe input = context.getInput();
+		boolean drained = false;
+		try {
+			for (int i = 0;; i++) {
+				if (!context.isAlive()) {
+					throw new CoreException(Status.CANCEL_STATUS);
+				}
+				EObject o;
+				if (streaming) {
+					Object item = input.take(Long.MAX_VALUE);
+					if (item instanceof IStatus) {
+						drained = true;
+						IStatus inputStatus = (IStatus) item;
+						return inputStatus.isOK() ? status : inputStatus;
+					}
+					o = (EObject) CoreUtils.adaptSingleObject(EObject.class, item, true);
+				} else {
+					if (i >= objects.size()) {
+						return status;
+					}
+					o = objects.get(i);
+				}
+				status = executeBody(foreach, i, o, context);
+				if (status.getSeverity() != IStatus.OK) {
+					return status;
+				}
 			}
-			EObject o = objects.get(i);
-			ISession session = context.getSession();
-			IPipe in = null;
-			if (valSet) {
-				val.setValue(o);
-				LetService.getLocals(context).declare(val.getName(), val, true);
-			} else {
-				in = session.createPipe();
-				in.write(o);
-				in.close(Status.OK_STATUS);
-			}
-			IPipe out = session.createPipe();
-			Command doCommand = foreach.getDo();
-
-			status = session.execute(wrapBody(i, indexVal, doCommand), in, out).waitFor();
-			if (status.getSeverity() != IStatus.OK) {
-				break;
-			}
-			for (Object outObj : CoreUtils.readPipeContent(out)) {
-				context.getOutput().write(outObj);
+		} finally {
+			if (!drained) {
+				// Upstream writer may block on a bounded pipe until its
+				// output is read to the end
+				drain(input);
 			}
 		}
-		return status;
 	}
 
-	private static Command wrapBody(int i, Val indexVal, Command body) {
-		Let let = CoreFactory.eINSTANCE.createLet();
-		let.setBody(EcoreUtil.copy(body));
+	private static void drain(IPipe input) throws CoreException {
+		if (input == null) {
+			return;
+		}
+		while (!(input.take(Long.MAX_VALUE) instanceof IStatus)) {
+			// skip unread items
+		}
+	}
 
+	private static IStatus executeBody(Foreach foreach, int i, EObject o, IProcess context)
+			throws InterruptedException, CoreException {
+		Val val = foreach.getItem();
+		Val indexVal = foreach.getIndex();
+		ISession session = context.getSession();
+		IPipe in = null;
+		if (val != null) {
+			val.setValue(o);
+			LetService.getLocals(context).declare(val.getName(), val, true);
+		} else {
+			in = session.createPipe();
+			in.write(o);
+			in.close(Status.OK_STATUS);
+		}
 		if (indexVal != null) {
 			indexVal.setValue(BoxedValues.box(i));
-			let.getVals().add(indexVal);
+			LetService.getLocals(context).declare(indexVal.getName(), indexVal, true);
+		}
+		IPipe out = session.createPipe();
+		// Body is not copied: parameters assigned by an iteration are
+		// restored when it completes
+		IStatus status = session.execute(foreach.getDo(), in, out).waitFor();
+		if (status.getSeverity() != IStatus.OK) {
+			return status;
 		}
-		return let;
+		for (Object outObj : CoreUtils.readPipeContent(out)) {
+			context.getOutput().write(outObj);
+		}
+		return status;
 	}
 
 }
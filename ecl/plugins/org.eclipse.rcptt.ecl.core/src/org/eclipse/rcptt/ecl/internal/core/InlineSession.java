@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.internal.core;
+
+import java.util.List;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.rcptt.ecl.core.Command;
+import org.eclipse.rcptt.ecl.core.Parallel;
+import org.eclipse.rcptt.ecl.runtime.ICommandService;
+import org.eclipse.rcptt.ecl.runtime.ISession;
+
+/**
+ * Session which does not schedule a job per command.
+ * <p>
+ * Top level commands are handed over to a small bounded pool, so
+ * {@link #execute(Command)} stays asynchronous for the caller. Nested commands
+ * issued from a command which is already running in this session are executed
+ * directly on the caller thread. When the pool is saturated the command runs on
+ * the caller thread as well, so nested waits can never starve the pool.
+ * Children of {@code parallel} are always dispatched to the pool since the
+ * command relies on them being concurrent.
+ * <p>
+ * Commands touching UI should use {@link Session} instead.
+ */
+public class InlineSession extends AbstractRootSession implements ISession {
+
+	private static final int MAX_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+	private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(0, MAX_THREADS, 60L,
+			TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+				private final AtomicInteger counter = new AtomicInteger();
+
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "ECL inline session worker " + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			}, new ThreadPoolExecutor.CallerRunsPolicy());
+
+	/**
+	 * Session of the command running on the current thread, if any.
+	 */
+	private static final ThreadLocal<InlineSession> current = new ThreadLocal<InlineSession>();
+
+	@Override
+	protected void doExecute(final Command scriptlet, final ICommandService svc, final List<Object> inputContent,
+			final Process process) {
+		Runnable task = new Runnable() {
+			public void run() {
+				InlineSession previous = current.get();
+				current.set(InlineSession.this);
+				try {
+					internalDoExecute(scriptlet, svc, inputContent, process);
+				} finally {
+					current.set(previous);
+				}
+			}
+		};
+		if (current.get() == this && !(scriptlet.eContainer() instanceof Parallel)) {
+			task.run();
+		} else {
+			executor.execute(task);
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.internal.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.rcptt.ecl.core.util.ECLBinaryResourceImpl.EObjectInputStream;
+import org.eclipse.rcptt.ecl.core.util.ECLBinaryResourceImpl.EObjectOutputStream;
+
+/**
+ * Framed ECL TCP protocol which allows several commands of several sessions to
+ * be in flight on one connection at once.
+ * <p>
+ * Client asks for it by sending {@link #HANDSHAKE} instead of
+ * {@code "newsession"}. Server which supports it answers with a connection id
+ * followed by {@link #ACCEPTED}. Older servers drop the connection, and the
+ * client falls back to one socket per session with sequential round trips.
+ * <p>
+ * Every frame is {@code type:byte session:int request:int hasPayload:boolean}
+ * optionally followed by an object serialized as a {@link ChunkedMessage}.
+ * Each direction of a connection keeps its own type dictionary, so EMF
+ * packages, classes and features are only described before the first payload
+ * which uses them. Payloads only refer to them by ids.
+ */
+public final class MultiplexedProtocol {
+
+	public static final String HANDSHAKE = "newsession:mux3";
+	public static final String ACCEPTED = "mux3";
+
+	/** Client opens logical session. No payload */
+	public static final byte OPEN_SESSION = 1;
+	/** Client closes logical session. No payload */
+	public static final byte CLOSE_SESSION = 2;
+	/** Client starts a command. Payload is the command */
+	public static final byte COMMAND = 3;
+	/** Client sends an input object of a command */
+	public static final byte INPUT = 4;
+	/** Client closes command input. Payload is the input status */
+	public static final byte INPUT_END = 5;
+	/** Server sends an output object of a command */
+	public static final byte OUTPUT = 6;
+	/** Server finishes a command. Payload is the command status */
+	public static final byte STATUS = 7;
+
+	public static final class Frame {
+		public final byte type;
+		public final int session;
+		public final int request;
+		/** Decoded object or <code>null</code> for frames without payload */
+		public final Object payload;
+		/** Set if payload was read but could not be converted */
+		public final CoreException error;
+
+		Frame(byte type, int session, int request, Object payload, CoreException error) {
+			this.type = type;
+			this.session = session;
+			this.request = request;
+			this.payload = payload;
+			this.error = error;
+		}
+
+		public Object getPayload() throws CoreException {
+			if (error != null) {
+				throw error;
+			}
+			return payload;
+		}
+	}
+
+	/**
+	 * Writing side of a connection. Payloads are serialized by the calling
+	 * threads concurrently, only writing of frames and of the type definitions
+	 * they need is done under the write lock.
+	 */
+	public static final class Output {
+		private final DataOutputStream out;
+		private final EObjectOutputStream.TypeDictionary types = new EObjectOutputStream.TypeDictionary();
+
+		public Output(DataOutputStream out) {
+			this.out = out;
+		}
+
+		/**
+		 * Writes and flushes a frame without payload.
+		 */
+		public synchronized void write(byte type, int session, int request) throws IOException {
+			writeFrame(type, session, request, null);
+		}
+
+		/**
+		 * Writes and flushes a frame.
+		 * 
+		 * @throws CoreException
+		 *             if payload can not be serialized, nothing is written then
+		 */
+		public void write(byte type, int session, int request, Object payload)
+				throws IOException, CoreException {
+			ChunkedMessage message = encode(payload);
+			synchronized (this) {
+				writeFrame(type, session, request, message);
+			}
+		}
+
+		private void writeFrame(byte type, int session, int request, ChunkedMessage message) throws IOException {
+			out.writeByte(type);
+			out.writeInt(session);
+			out.writeInt(request);
+			out.writeBoolean(message != null);
+			if (message != null) {
+				message.writeTo(out);
+			}
+			out.flush();
+		}
+
+		private ChunkedMessage encode(Object object) throws CoreException {
+			EObject eObject = EMFStreamPipe.toEObject(object);
+			if (eObject.eContainer() != null || eObject.eResource() != null) {
+				// adding to resource would detach it from its owner
+				eObject = EcoreUtil.copy(eObject);
+			}
+			try {
+				return ChunkedMessage.encode(eObject, types);
+			} catch (IOException e) {
+				throw new CoreException(
+						new Status(IStatus.ERROR, CorePlugin.PLUGIN_ID, "Failed to write " + object, e));
+			}
+		}
+	}
+
+	/**
+	 * Reading side of a connection. Frames have to be read by one thread.
+	 */
+	public static final class Input {
+		private final DataInputStream in;
+		private final EObjectInputStream.TypeDictionary types = new EObjectInputStream.TypeDictionary();
+
+		public Input(DataInputStream in) {
+			this.in = in;
+		}
+
+		/**
+		 * Reads a frame and deserializes its payload directly from the stream.
+		 * Payload which can not be deserialized is reported by
+		 * {@link Frame#error}, the connection stays usable.
+		 */
+		public Frame read() throws IOException {
+			byte type = in.readByte();
+			int session = in.readInt();
+			int request = in.readInt();
+			Object payload = null;
+			CoreException error = null;
+			if (in.readBoolean()) {
+				try {
+					payload = EMFStreamPipe.fromEObject(ChunkedMessage.decode(in, types));
+				} catch (CoreException e) {
+					error = e;
+				}
+			}
+			return new Frame(type, session, request, payload, error);
+		}
+	}
+
+	private MultiplexedProtocol() {
+	}
+}
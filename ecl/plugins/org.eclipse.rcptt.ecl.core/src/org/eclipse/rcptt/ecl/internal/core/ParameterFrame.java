@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.internal.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.rcptt.ecl.core.Command;
+
+/**
+ * Parameters of a command as they were before one invocation. Session assigns
+ * bound parameters and the input parameter, and services may assign others.
+ * Restoring them after the invocation lets the same command tree be executed
+ * again, e.g. by every iteration of a loop, without a deep copy of the tree.
+ * Values are saved by reference: commands contained in parameters are
+ * restored by frames of their own invocations.
+ */
+final class ParameterFrame {
+	private final Command command;
+	private final List<EStructuralFeature> features;
+	private final Object[] values;
+
+	private static final Object UNSET = new Object();
+
+	ParameterFrame(Command command, CommandDescriptor descriptor) {
+		this.command = command;
+		this.features = descriptor.getParameterFeatures();
+		this.values = new Object[features.size()];
+		for (int i = 0; i < values.length; i++) {
+			EStructuralFeature feature = features.get(i);
+			if (!command.eIsSet(feature)) {
+				values[i] = UNSET;
+			} else if (feature.isMany()) {
+				values[i] = new ArrayList<Object>((List<?>) command.eGet(feature));
+			} else {
+				values[i] = command.eGet(feature);
+			}
+		}
+	}
+
+	/**
+	 * Reassigns changed parameters only, unchanged ones are left untouched.
+	 */
+	@SuppressWarnings("unchecked")
+	void restore() {
+		for (int i = 0; i < values.length; i++) {
+			EStructuralFeature feature = features.get(i);
+			Object value = values[i];
+			if (value == UNSET) {
+				if (command.eIsSet(feature)) {
+					command.eUnset(feature);
+				}
+			} else if (feature.isMany()) {
+				List<Object> list = (List<Object>) command.eGet(feature);
+				if (!list.equals(value)) {
+					list.clear();
+					list.addAll((List<Object>) value);
+				}
+			} else if (command.eGet(feature) != value) {
+				command.eSet(feature, value);
+			}
+		}
+	}
+}
@@ -22,7 +22,7 @@ public class Pipe implements IPipe {
 	private static Object CLOSE_OBJECT = new Object();
 	private static final int DELTA = 100;
 	private final LinkedBlockingQueue<Object> queue;
-	private boolean closed = false;
+	private volatile boolean closed = false;
 	private IStatus status = null;
 
 	public Pipe() {
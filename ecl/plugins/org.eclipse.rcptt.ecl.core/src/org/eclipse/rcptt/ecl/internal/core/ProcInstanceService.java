@@ -17,6 +17,8 @@
 import org.eclipse.core.runtime.Status;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.rcptt.ecl.core.Command;
+import org.eclipse.rcptt.ecl.core.CoreFactory;
+import org.eclipse.rcptt.ecl.core.CorePackage;
 import org.eclipse.rcptt.ecl.core.Declaration;
 import org.eclipse.rcptt.ecl.core.ProcInstance;
 import org.eclipse.rcptt.ecl.core.Val;
@@ -40,7 +42,7 @@ public IStatus service(Command command, IProcess context)
 				continue; // TODO: pipe support
 			}
 
-			Val val = EcoreUtil.copy((Val) decl);
+			Val val = newFrameVal((Val) decl);
 			val.setValue(BoxedValues.box(instance.eGet(instance.eClass()
 					.getEStructuralFeature(val.getName()))));
 			if (val.isInput()) {
@@ -58,4 +60,18 @@ public IStatus service(Command command, IProcess context)
 		return s.isOK() ? Status.OK_STATUS : new ProcErrorStatus(s);
 	}
 
+	/**
+	 * Declaration for one call. Plain vals are created directly rather than
+	 * copied, procs are often called thousands of times.
+	 */
+	private static Val newFrameVal(Val decl) {
+		if (decl.eClass() != CorePackage.Literals.VAL) {
+			return EcoreUtil.copy(decl);
+		}
+		Val val = CoreFactory.eINSTANCE.createVal();
+		val.setName(decl.getName());
+		val.setInput(decl.isInput());
+		return val;
+	}
+
 }
@@ -11,6 +11,9 @@
 
 package org.eclipse.rcptt.ecl.internal.core;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -25,6 +28,9 @@ public class Process implements IProcess {
 	private final IPipe out;
 	private IStatus status;
 	private final ISession session;
+	private volatile boolean canceled = false;
+	private List<Runnable> doneListeners;
+	private List<Runnable> cancelListeners;
 
 	public Process(ISession session, IPipe in, IPipe out) {
 		this.session = session;
@@ -40,10 +46,38 @@ public IPipe getOutput() {
 		return out;
 	}
 
-	public synchronized void setStatus(IStatus status) throws CoreException {
-		this.status = status;
-		out.close(status);
-		notifyAll();
+	public void setStatus(IStatus status) throws CoreException {
+		List<Runnable> listeners;
+		synchronized (this) {
+			this.status = status;
+			out.close(status);
+			notifyAll();
+			listeners = doneListeners;
+			doneListeners = null;
+		}
+		if (listeners != null) {
+			for (Runnable listener : listeners) {
+				listener.run();
+			}
+		}
+	}
+
+	/**
+	 * Runs listener once the status is set, or right away if it is set
+	 * already. Listener is called by the thread which sets the status and
+	 * should not block.
+	 */
+	public void whenDone(Runnable listener) {
+		synchronized (this) {
+			if (status == null) {
+				if (doneListeners == null) {
+					doneListeners = new ArrayList<Runnable>(1);
+				}
+				doneListeners.add(listener);
+				return;
+			}
+		}
+		listener.run();
 	}
 
 	public synchronized IStatus waitFor() throws InterruptedException {
@@ -71,11 +105,56 @@ public synchronized IStatus waitFor(long timeout, IProgressMonitor monitor) thro
 	}
 
 	public synchronized boolean isAlive() {
-		return status == null && !session.isClosed();
+		return status == null && !isCanceled() && !session.isClosed();
 	}
 
 	public ISession getSession() {
 		return session;
 	}
 
+	/**
+	 * Requests cooperative cancellation. A command which has not been started
+	 * yet is finished with cancel status instead of being serviced, a running
+	 * one is no longer {@link #isAlive() alive}. Cancellation applies to
+	 * nested commands as well.
+	 */
+	public void cancel() {
+		List<Runnable> listeners;
+		synchronized (this) {
+			if (canceled) {
+				return;
+			}
+			canceled = true;
+			listeners = cancelListeners;
+			cancelListeners = null;
+		}
+		if (listeners != null) {
+			for (Runnable listener : listeners) {
+				listener.run();
+			}
+		}
+	}
+
+	/**
+	 * Runs listener when {@link #cancel()} is called for the first time, or
+	 * right away if it has been called already. Lets sessions pass
+	 * cancellation on to the jobs executing commands.
+	 */
+	public void whenCanceled(Runnable listener) {
+		synchronized (this) {
+			if (!canceled) {
+				if (cancelListeners == null) {
+					cancelListeners = new ArrayList<Runnable>(1);
+				}
+				cancelListeners.add(listener);
+				return;
+			}
+		}
+		listener.run();
+	}
+
+	public boolean isCanceled() {
+		return canceled || session instanceof CommandSession && ((CommandSession) session).isParentCanceled();
+	}
+
 }
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.internal.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.rcptt.ecl.runtime.IPipe;
+
+/**
+ * Single producer, single consumer pipe backed by an array ring buffer.
+ * <p>
+ * Neither side takes a lock: slots are published by volatile writes of the
+ * head and tail counters, and a waiting side is parked and unparked directly.
+ * A consumer waiting on an empty pipe is woken as soon as the pipe is closed.
+ * <p>
+ * When the buffer is full, the writer either waits for the consumer
+ * ({@link Backpressure#BLOCK}) or doubles the buffer ({@link Backpressure#GROW}).
+ * Blocking is only safe when the consumer runs concurrently with the producer,
+ * e.g. between stages of a pipeline executed by a job based session.
+ * <p>
+ * Only one thread may write and one thread may take at a time.
+ */
+public class RingBufferPipe implements IPipe {
+
+	public enum Backpressure {
+		BLOCK, GROW
+	}
+
+	private static final long SPIN_LIMIT = 100;
+
+	private final Backpressure backpressure;
+	private volatile Object[] buffer;
+	/** Index of the next slot to take. Written by consumer only */
+	private final AtomicLong head = new AtomicLong();
+	/** Index of the next slot to write. Written by producer only */
+	private final AtomicLong tail = new AtomicLong();
+
+	private volatile Thread waitingConsumer;
+	private volatile Thread waitingProducer;
+
+	private volatile boolean closed = false;
+	private volatile IStatus status = null;
+
+	public RingBufferPipe(int capacity, Backpressure backpressure) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+		}
+		this.buffer = new Object[roundToPowerOfTwo(capacity)];
+		this.backpressure = backpressure;
+	}
+
+	private static int roundToPowerOfTwo(int value) {
+		int result = Integer.highestOneBit(value);
+		return result == value ? value : result << 1;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	public Object take(long timeout) throws CoreException {
+		long h = head.get();
+		long deadline = 0;
+		long spins = 0;
+		while (true) {
+			if (h < tail.get()) {
+				Object[] b = buffer;
+				int index = (int) h & (b.length - 1);
+				Object result = b[index];
+				b[index] = null;
+				head.set(h + 1);
+				Thread producer = waitingProducer;
+				if (producer != null) {
+					LockSupport.unpark(producer);
+				}
+				return result;
+			}
+			if (closed) {
+				// Producer could write before closing, re-check
+				if (h < tail.get()) {
+					continue;
+				}
+				return status;
+			}
+			if (spins++ < SPIN_LIMIT) {
+				Thread.yield();
+				continue;
+			}
+			long now = System.nanoTime();
+			if (deadline == 0) {
+				deadline = timeout >= TimeUnit.NANOSECONDS.toMillis(Long.MAX_VALUE) ? Long.MAX_VALUE
+						: now + TimeUnit.MILLISECONDS.toNanos(timeout);
+			}
+			if (deadline != Long.MAX_VALUE && now - deadline >= 0) {
+				return null;
+			}
+			waitingConsumer = Thread.currentThread();
+			try {
+				if (h == tail.get() && !closed) {
+					if (deadline == Long.MAX_VALUE) {
+						LockSupport.park(this);
+					} else {
+						LockSupport.parkNanos(this, deadline - now);
+					}
+				}
+			} finally {
+				waitingConsumer = null;
+			}
+			if (Thread.interrupted()) {
+				throw new CoreException(CorePlugin.err("Interrupted while reading from pipe"));
+			}
+		}
+	}
+
+	public IPipe write(Object object) throws CoreException {
+		long t = tail.get();
+		Object[] b = buffer;
+		while (t - head.get() >= b.length) {
+			if (backpressure == Backpressure.GROW) {
+				b = grow(b, t);
+				break;
+			}
+			waitingProducer = Thread.currentThread();
+			try {
+				if (t - head.get() >= b.length) {
+					LockSupport.park(this);
+				}
+			} finally {
+				waitingProducer = null;
+			}
+			if (Thread.interrupted()) {
+				throw new CoreException(CorePlugin.err("Interrupted while writing to pipe"));
+			}
+		}
+		b[(int) t & (b.length - 1)] = object;
+		tail.set(t + 1);
+		signalConsumer();
+		return this;
+	}
+
+	/**
+	 * Copies pending elements into a twice larger array. Elements keep their
+	 * absolute indexes, so a consumer reading from the old array concurrently
+	 * still gets the right element.
+	 */
+	private Object[] grow(Object[] old, long t) {
+		Object[] result = new Object[old.length << 1];
+		for (long i = head.get(); i < t; i++) {
+			result[(int) i & (result.length - 1)] = old[(int) i & (old.length - 1)];
+		}
+		buffer = result;
+		return result;
+	}
+
+	private void signalConsumer() {
+		Thread consumer = waitingConsumer;
+		if (consumer != null) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	public IPipe close(IStatus status) throws CoreException {
+		if ((this.status = status) == null) {
+			throw new CoreException(CorePlugin.err("Pipe was closed without status specified"));
+		}
+		closed = true;
+		signalConsumer();
+		return this;
+	}
+
+	public void reinit() {
+		status = null;
+		closed = false;
+	}
+}
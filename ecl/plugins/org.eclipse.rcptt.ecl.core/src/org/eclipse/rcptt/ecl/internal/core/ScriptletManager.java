@@ -20,6 +20,9 @@
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IRegistryEventListener;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
@@ -29,7 +32,7 @@
 import org.eclipse.rcptt.ecl.runtime.FQName;
 import org.eclipse.rcptt.ecl.runtime.ICommandService;
 
-public class ScriptletManager {
+public class ScriptletManager implements IRegistryEventListener {
 
 	final static String SCRIPTLET_EXTPT = "org.eclipse.rcptt.ecl.core.scriptlet";
 	public final static String SCRIPTLET_NAME_ATTR = "name";
@@ -129,6 +132,33 @@ synchronized public Set<String> getFriendlyNames(String ns, String name)
 		return def == null ? null : def.getFriendlyNames();
 	}
 
+	public void added(IExtension[] extensions) {
+		reset();
+	}
+
+	public void removed(IExtension[] extensions) {
+		reset();
+	}
+
+	public void added(IExtensionPoint[] extensionPoints) {
+		reset();
+	}
+
+	public void removed(IExtensionPoint[] extensionPoints) {
+		reset();
+	}
+
+	/**
+	 * Forgets loaded scriptlets and command descriptors holding their
+	 * services, so that both are looked up again on next use.
+	 */
+	private void reset() {
+		synchronized (this) {
+			scriptlets = null;
+		}
+		CommandDescriptor.clear();
+	}
+
 	private void loadScriptlets() {
 		scriptlets = new HashMap<FQName, ScriptletDefinition>();
 		IConfigurationElement[] configs = Platform.getExtensionRegistry()
@@ -44,20 +44,26 @@ protected void doExecute(Command scriptlet,
 		
 		EclJob job = new EclJob(scriptlet) {
 			@Override
-			protected IStatus run(IProgressMonitor monitor) {
+			protected IStatus run(final IProgressMonitor monitor) {
+				// Commands canceled through their process see a canceled
+				// job monitor as well
+				process.whenCanceled(new Runnable() {
+					public void run() {
+						monitor.setCanceled(true);
+					}
+				});
 				internalDoExecute(scriptlet, svc, inputContent, process);
 				return Status.OK_STATUS;
 			}
 
 			@Override
 			protected void canceling() {
-				// Waiting for process is finished
-				while (getResult() == null) {
-					try {
-						Thread.sleep(50);
-					} catch (InterruptedException e) {
-						// Ignore
-					}
+				// Ask the command to stop and wait for the process to finish
+				process.cancel();
+				try {
+					process.waitFor();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
 				}
 				super.canceling();
 			}
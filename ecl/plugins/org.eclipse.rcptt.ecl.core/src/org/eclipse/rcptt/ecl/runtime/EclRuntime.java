@@ -11,11 +11,29 @@
 
 package org.eclipse.rcptt.ecl.runtime;
 
+import org.eclipse.rcptt.ecl.internal.core.InlineSession;
 import org.eclipse.rcptt.ecl.internal.core.Session;
 import org.eclipse.rcptt.ecl.internal.core.ThreadSession;
 
 public class EclRuntime {
 
+	/**
+	 * Session or system property with capacity of pipes created by a session.
+	 * A positive value makes sessions use bounded ring buffer pipes instead of
+	 * unbounded ones. Unset or zero keeps unbounded pipes, which is the
+	 * default because many services fill a pipe before anyone reads it. Set
+	 * as a session property, it only affects pipes created afterwards.
+	 */
+	public static final String PIPE_CAPACITY = "org.eclipse.rcptt.ecl.pipe.capacity";
+
+	/**
+	 * Session or system property telling what a writer to a full bounded pipe
+	 * does: <code>grow</code> (default) doubles the buffer, <code>block</code>
+	 * waits for the reader. Blocking is only safe when every pipe has a
+	 * concurrent reader, e.g. in job based sessions.
+	 */
+	public static final String PIPE_BACKPRESSURE = "org.eclipse.rcptt.ecl.pipe.backpressure";
+
 	public static ISession createSession() {
 		return new Session();
 	}
@@ -28,4 +46,13 @@ public static ISession createSession(boolean useJobs) {
 		}
 	}
 
+	/**
+	 * Creates a session which runs nested commands on the caller thread
+	 * instead of scheduling a job per command. Should not be used for
+	 * commands which must run as jobs, e.g. UI bound ones.
+	 */
+	public static ISession createInlineSession() {
+		return new InlineSession();
+	}
+
 }
@@ -0,0 +1,24 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.runtime;
+
+/**
+ * Command service which consumes its input pipe lazily.
+ * <p>
+ * When such a command has no bindings, the session does not read the upstream
+ * pipe before the command starts: {@link IProcess#getInput()} is the upstream
+ * pipe itself and the input feature of the command is left unset. The service
+ * must read the input with {@link IPipe#take(long)} until a status is returned,
+ * and fail with that status if it is not OK.
+ */
+public interface IStreamingCommandService extends ICommandService {
+
+}
@@ -34,6 +34,9 @@ public class EachElementService implements IScriptletExtension {
 	public IStatus service(Command command, IProcess context) throws InterruptedException, CoreException {
 		Each cmd = (Each) command;
 		EclList list = (EclList) cmd.getInput();
+		// Body, val and key move to the let of each element without a copy.
+		// Session puts them back to the command when it completes.
+		Command body = cmd.getDo();
 		Val val = cmd.getVal();
 		Val index = cmd.getKey();
 
@@ -50,7 +53,7 @@ public IStatus service(Command command, IProcess context) throws InterruptedExce
 			}
 
 			IPipe out = context.getSession().createPipe();
-			let.setBody(EcoreUtil.copy(cmd.getDo()));
+			let.setBody(body);
 			IStatus bodyStatus = context.getSession().execute(let, null, out).waitFor();
 			if (!bodyStatus.isOK()) {
 				if (bodyStatus instanceof MultiStatus) {
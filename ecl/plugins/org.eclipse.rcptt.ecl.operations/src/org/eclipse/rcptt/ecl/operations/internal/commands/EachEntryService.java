@@ -32,6 +32,9 @@ public class EachEntryService implements IScriptletExtension {
 	public IStatus service(Command command, IProcess context) throws InterruptedException, CoreException {
 		Each cmd = (Each) command;
 		EclMap map = (EclMap) cmd.getInput();
+		// Body, val and key move to the let of each element without a copy.
+		// Session puts them back to the command when it completes.
+		Command body = cmd.getDo();
 		Val val = cmd.getVal();
 		Val key = cmd.getKey();
 
@@ -47,7 +50,7 @@ public IStatus service(Command command, IProcess context) throws InterruptedExce
 			}
 
 			IPipe out = context.getSession().createPipe();
-			let.setBody(EcoreUtil.copy(cmd.getDo()));
+			let.setBody(body);
 			IStatus bodyStatus = context.getSession().execute(let, null, out).waitFor();
 			if (!bodyStatus.isOK()) {
 				return bodyStatus;
@@ -10,7 +10,10 @@
  *******************************************************************************/
 package org.eclipse.rcptt.ecl.parser;
 
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.antlr.runtime.ANTLRStringStream;
 import org.antlr.runtime.CommonTokenStream;
@@ -18,6 +21,7 @@
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.rcptt.ecl.core.Block;
 import org.eclipse.rcptt.ecl.core.Command;
 import org.eclipse.rcptt.ecl.core.ExecutableParameter;
@@ -32,6 +36,56 @@
 
 public class EclCoreParser {
 
+	private static final int CACHE_SIZE = 512;
+	/** Total length of cached scripts, parsed trees are proportional to it */
+	private static final int CACHE_CHARS = 1024 * 1024;
+	/**
+	 * Longer scripts, like whole test cases, are rarely parsed twice and
+	 * would evict many small ones
+	 */
+	private static final int MAX_CACHED_SCRIPT = 16 * 1024;
+
+	/**
+	 * Parsed scripts by content and location. Commands passed as literal
+	 * parameters, like bodies of loops and procs, are parsed on every
+	 * execution of the enclosing command, so the same text comes here over
+	 * and over.
+	 */
+	private static final Map<Key, Command> cache = new LinkedHashMap<Key, Command>(CACHE_SIZE, 0.75f, true);
+	private static int cachedChars = 0;
+
+	private static final class Key {
+		final String content;
+		final String resource;
+		final int line;
+		final int pos;
+
+		Key(String content, String resource, int line, int pos) {
+			this.content = content;
+			this.resource = resource;
+			this.line = line;
+			this.pos = pos;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = content.hashCode();
+			result = 31 * result + (resource == null ? 0 : resource.hashCode());
+			result = 31 * result + line;
+			return 31 * result + pos;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return line == other.line && pos == other.pos && content.equals(other.content)
+					&& (resource == null ? other.resource == null : resource.equals(other.resource));
+		}
+	}
+
 	public static Command newCommand(String content) throws CoreException {
 		return newCommand(content, null);
 	}
@@ -43,6 +97,35 @@ public static Command newCommand(String content, String resource) throws CoreExc
 	public static Command newCommand(String content, String resource, int line, int pos) throws CoreException {
 		if (content == null || content.trim().length() == 0)
 			return ScriptletFactory.makeSeq();
+		Key key = new Key(content, resource, line, pos);
+		Command template;
+		synchronized (cache) {
+			template = cache.get(key);
+		}
+		if (template == null) {
+			template = parse(content, resource, line, pos);
+			if (content.length() <= MAX_CACHED_SCRIPT) {
+				cache(key, template);
+			}
+		}
+		// Callers own and modify the result, cached tree is never handed out
+		return EcoreUtil.copy(template);
+	}
+
+	private static void cache(Key key, Command template) {
+		synchronized (cache) {
+			if (cache.put(key, template) == null) {
+				cachedChars += key.content.length();
+			}
+			Iterator<Key> eldest = cache.keySet().iterator();
+			while ((cache.size() > CACHE_SIZE || cachedChars > CACHE_CHARS) && eldest.hasNext()) {
+				cachedChars -= eldest.next().content.length();
+				eldest.remove();
+			}
+		}
+	}
+
+	private static Command parse(String content, String resource, int line, int pos) throws CoreException {
 		ANTLRStringStream input = new ANTLRStringStream(content);
 		input.setLine(line);
 		input.setCharPositionInLine(pos - 1);
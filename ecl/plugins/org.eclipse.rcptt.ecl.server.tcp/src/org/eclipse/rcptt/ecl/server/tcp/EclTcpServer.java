@@ -12,18 +12,36 @@
 
 import static org.eclipse.rcptt.ecl.internal.core.CorePlugin.log;
 
-import java.io.Closeable;
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.eclipse.rcptt.ecl.internal.core.CorePlugin;
 
+/**
+ * Accepts ECL connections and serves all sockets of one-session-per-socket
+ * clients from a single selector thread, see {@link SessionConnection}.
+ * Connections using {@link org.eclipse.rcptt.ecl.internal.core.MultiplexedProtocol}
+ * carry any number of sessions and are served by a reader thread each.
+ */
 public class EclTcpServer extends Thread {
-	private final ServerSocket socket;
+	private final ServerSocketChannel socket;
+	private final Selector selector;
 	private final int port;
 	private volatile boolean starting = true;
 	private SessionManager manager = null;
+	private final Queue<SessionConnection> pendingWrites = new ConcurrentLinkedQueue<SessionConnection>();
+	/** Accessed by selector thread only */
+	private final List<SessionConnection> handOffs = new ArrayList<SessionConnection>();
 
 	public boolean isStarting() {
 		return starting;
@@ -31,7 +49,17 @@ public boolean isStarting() {
 
 	public EclTcpServer(int port, boolean useJobs) throws IOException {
 		super("ECL TCP server: " + port + " main");
-		this.socket = new ServerSocket(port);
+		this.selector = Selector.open();
+		this.socket = ServerSocketChannel.open();
+		try {
+			socket.bind(new InetSocketAddress(port));
+			socket.configureBlocking(false);
+			socket.register(selector, SelectionKey.OP_ACCEPT);
+		} catch (IOException e) {
+			socket.close();
+			selector.close();
+			throw e;
+		}
 		this.port = port;
 		manager = new SessionManager(useJobs);
 	}
@@ -39,38 +67,154 @@ public EclTcpServer(int port, boolean useJobs) throws IOException {
 	@Override
 	public void run() {
 		starting = false;
-		try (Closeable closeable = socket) {
-			while (!isInterrupted()) {
-				try {
-					Socket client = socket.accept();
-					//client.setKeepAlive(true);
-					client.setTcpNoDelay(true);
-					manager.acceptNewConnection(client);
-				} catch (Exception e) {
-					if (!socket.isClosed()) {
-						log(CorePlugin.err(
-								"Failed to accept connection", e));
+		try {
+			while (!isInterrupted() && socket.isOpen()) {
+				selector.select();
+				flushWrites();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if (!key.isValid()) {
+						continue;
+					}
+					if (key.isAcceptable()) {
+						accept();
+						continue;
+					}
+					SessionConnection connection = (SessionConnection) key.attachment();
+					try {
+						if (key.isReadable()) {
+							connection.readable();
+						}
+						if (key.isValid() && key.isWritable()) {
+							connection.writable();
+						}
+					} catch (IOException e) {
+						// Client has disconnected
+						connection.close();
 					}
 				}
+				completeHandOffs();
 			}
+		} catch (ClosedSelectorException e) {
+			// Server is stopped
 		} catch (Exception e) {
 			log(CorePlugin.err("Failed to start ECL TCP server", e));
 		} finally {
+			closeConnections();
+			manager.shutdown();
 			log(String.format("ECL TCP server on port %d has stopped", port));
 		}
 	}
 
+	private void accept() {
+		SocketChannel client = null;
+		try {
+			client = socket.accept();
+			if (client == null) {
+				return;
+			}
+			client.socket().setTcpNoDelay(true);
+			client.configureBlocking(false);
+			SelectionKey key = client.register(selector, SelectionKey.OP_READ);
+			key.attach(new SessionConnection(this, manager, client, key));
+		} catch (IOException e) {
+			if (socket.isOpen()) {
+				log(CorePlugin.err("Failed to accept connection", e));
+			}
+			if (client != null) {
+				try {
+					client.close();
+				} catch (IOException e1) {
+					// Ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Asks selector thread to send queued output of the connection.
+	 */
+	void requestWrite(SessionConnection connection) {
+		pendingWrites.add(connection);
+		selector.wakeup();
+	}
+
+	private void flushWrites() {
+		SessionConnection connection;
+		while ((connection = pendingWrites.poll()) != null) {
+			if (connection.isClosed()) {
+				continue;
+			}
+			try {
+				connection.writable();
+			} catch (IOException e) {
+				// Client has disconnected
+				connection.close();
+			}
+		}
+	}
+
+	/**
+	 * Schedules connection to be served by a blocking
+	 * {@link MultiplexedRequestHandler} once it leaves the selector.
+	 */
+	void handOff(SessionConnection connection) {
+		connection.getKey().cancel();
+		handOffs.add(connection);
+	}
+
+	private void completeHandOffs() throws IOException {
+		if (handOffs.isEmpty()) {
+			return;
+		}
+		// Deregisters canceled keys, so that channels can block again
+		selector.selectNow();
+		for (SessionConnection connection : handOffs) {
+			SocketChannel channel = connection.getChannel();
+			try {
+				channel.configureBlocking(true);
+				manager.startMultiplexed(channel.socket());
+			} catch (IOException e) {
+				connection.close();
+			}
+		}
+		handOffs.clear();
+	}
+
+	private void closeConnections() {
+		try {
+			for (SelectionKey key : selector.keys()) {
+				if (key.attachment() instanceof SessionConnection) {
+					((SessionConnection) key.attachment()).close();
+				}
+			}
+			selector.close();
+		} catch (ClosedSelectorException e) {
+			// Already closed
+		} catch (IOException e) {
+			log(CorePlugin.err("Failed to close ECL TCP server", e));
+		}
+		try {
+			socket.close();
+		} catch (IOException e) {
+			log(CorePlugin.err("Failed to close ECL TCP server", e));
+		}
+	}
+
 	public int getPort() {
 		return port;
 	}
-	
+
 	@Override
 	public void interrupt() {
 		try {
 			socket.close();
 		} catch (IOException e) {
-			throw new RuntimeException(e);
+			log(CorePlugin.err("Failed to close ECL TCP server", e));
 		} finally {
+			selector.wakeup();
 			super.interrupt();
 		}
 	}
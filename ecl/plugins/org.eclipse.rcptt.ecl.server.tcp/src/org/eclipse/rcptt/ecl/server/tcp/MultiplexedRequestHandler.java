@@ -0,0 +1,288 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.server.tcp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.rcptt.ecl.core.Command;
+import org.eclipse.rcptt.ecl.internal.core.CommandDescriptor;
+import org.eclipse.rcptt.ecl.internal.core.CorePlugin;
+import org.eclipse.rcptt.ecl.internal.core.MultiplexedProtocol;
+import org.eclipse.rcptt.ecl.internal.core.MultiplexedProtocol.Frame;
+import org.eclipse.rcptt.ecl.internal.core.Pipe;
+import org.eclipse.rcptt.ecl.internal.core.Process;
+import org.eclipse.rcptt.ecl.runtime.EclRuntime;
+import org.eclipse.rcptt.ecl.runtime.IPipe;
+import org.eclipse.rcptt.ecl.runtime.IProcess;
+import org.eclipse.rcptt.ecl.runtime.ISession;
+
+/**
+ * Serves a connection using {@link MultiplexedProtocol}. Frames are read by a
+ * single thread, commands are started by {@link SessionManager} workers and
+ * run in their sessions, so commands of one or several sessions run
+ * concurrently. Input of a command which does not stream it is buffered by
+ * the reading thread and the command is started once the input ends, so
+ * workers never wait for a client. Command output is sent by the thread which
+ * writes it and the status is sent when the process completes. Disconnect is
+ * detected by the reading thread, which closes all sessions.
+ */
+final class MultiplexedRequestHandler implements Runnable {
+	private final Socket socket;
+	private final boolean useJobs;
+	private final Executor executor;
+	private final MultiplexedProtocol.Input in;
+	private final MultiplexedProtocol.Output out;
+	private final Map<Integer, ISession> sessions = new ConcurrentHashMap<Integer, ISession>();
+	/** Commands still receiving input, by request. Used by the reading thread only */
+	private final Map<Integer, Request> inputs = new HashMap<Integer, Request>();
+
+	private static final class Request {
+		final int session;
+		final IPipe input;
+		/** Starts the command when input ends, <code>null</code> if started */
+		final Runnable start;
+
+		Request(int session, IPipe input, Runnable start) {
+			this.session = session;
+			this.input = input;
+			this.start = start;
+		}
+	}
+
+	MultiplexedRequestHandler(Socket socket, boolean useJobs, Executor executor) throws IOException {
+		this.socket = socket;
+		this.useJobs = useJobs;
+		this.executor = executor;
+		this.in = new MultiplexedProtocol.Input(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+		this.out = new MultiplexedProtocol.Output(
+				new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+	}
+
+	public void run() {
+		try {
+			while (!Thread.currentThread().isInterrupted() && !socket.isClosed()) {
+				Frame frame = in.read();
+				try {
+					handle(frame);
+				} catch (CoreException e) {
+					CorePlugin.log(e.getStatus());
+				}
+			}
+		} catch (IOException e) {
+			// Client has disconnected
+		} catch (Exception e) {
+			CorePlugin.log(e);
+		} finally {
+			try {
+				socket.close();
+			} catch (Exception e) {
+				CorePlugin.log(e);
+			}
+			for (ISession session : sessions.values()) {
+				try {
+					session.close();
+				} catch (Exception e) {
+					CorePlugin.log(e);
+				}
+			}
+			sessions.clear();
+			for (Request request : inputs.values()) {
+				closeInput(request);
+			}
+			inputs.clear();
+		}
+	}
+
+	private void handle(Frame frame) throws CoreException {
+		switch (frame.type) {
+		case MultiplexedProtocol.OPEN_SESSION:
+			sessions.put(frame.session, EclRuntime.createSession(useJobs));
+			break;
+		case MultiplexedProtocol.CLOSE_SESSION:
+			for (Iterator<Request> i = inputs.values().iterator(); i.hasNext();) {
+				Request request = i.next();
+				if (request.session == frame.session) {
+					i.remove();
+					closeInput(request);
+				}
+			}
+			ISession closed = sessions.remove(frame.session);
+			if (closed != null) {
+				closed.close();
+			}
+			break;
+		case MultiplexedProtocol.COMMAND:
+			ISession session = sessions.get(frame.session);
+			if (session == null) {
+				sendStatus(frame.request, CorePlugin.err("Unknown ECL session " + frame.session));
+				break;
+			}
+			if (frame.error != null) {
+				sendStatus(frame.request, frame.error.getStatus());
+				break;
+			}
+			Command command = (Command) frame.payload;
+			boolean streaming;
+			try {
+				streaming = CommandDescriptor.get(command.eClass()).isStreaming(command);
+			} catch (CoreException e) {
+				// Started right away to report the failure
+				streaming = true;
+			}
+			if (streaming) {
+				IPipe input = session.createPipe();
+				inputs.put(frame.request, new Request(frame.session, input, null));
+				executor.execute(newStart(session, frame.request, command, input));
+			} else {
+				// Unbounded, nothing reads it until it ends
+				IPipe input = new Pipe();
+				inputs.put(frame.request,
+						new Request(frame.session, input, newStart(session, frame.request, command, input)));
+			}
+			break;
+		case MultiplexedProtocol.INPUT:
+			Request request = inputs.get(frame.request);
+			if (request != null) {
+				request.input.write(frame.getPayload());
+			}
+			break;
+		case MultiplexedProtocol.INPUT_END:
+			Request ended = inputs.remove(frame.request);
+			if (ended != null) {
+				ended.input.close((IStatus) frame.getPayload());
+				if (ended.start != null) {
+					executor.execute(ended.start);
+				}
+			}
+			break;
+		default:
+			throw new CoreException(CorePlugin.err("Unknown ECL frame type " + frame.type));
+		}
+	}
+
+	private Runnable newStart(final ISession session, final int request, final Command command,
+			final IPipe input) {
+		return new Runnable() {
+			public void run() {
+				final IProcess process;
+				try {
+					process = session.execute(command, input, new OutputPipe(request));
+				} catch (CoreException e) {
+					sendStatus(request, e.getStatus());
+					return;
+				}
+				Runnable finish = new Runnable() {
+					public void run() {
+						IStatus status;
+						try {
+							status = process.waitFor();
+						} catch (InterruptedException e) {
+							status = CorePlugin.err(e);
+						}
+						sendStatus(request, status);
+					}
+				};
+				if (process instanceof Process) {
+					((Process) process).whenDone(finish);
+				} else {
+					// Not an ECL core session, waited for by a thread of its own
+					Thread waiter = new Thread(finish, "ECL TCP command waiter " + request);
+					waiter.setDaemon(true);
+					waiter.start();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Cancels input of a command whose session or connection has been
+	 * closed. A command waiting for its input to end is not started.
+	 */
+	private static void closeInput(Request request) {
+		try {
+			request.input.close(Status.CANCEL_STATUS);
+		} catch (CoreException e) {
+			CorePlugin.log(e.getStatus());
+		}
+	}
+
+	private void sendStatus(int request, IStatus status) {
+		try {
+			try {
+				out.write(MultiplexedProtocol.STATUS, 0, request, status);
+			} catch (ClassCastException e) { // Serialization errors
+				CorePlugin.log(e);
+				out.write(MultiplexedProtocol.STATUS, 0, request, CorePlugin.err(e));
+			} catch (CoreException e) {
+				// Status could not be converted, client still has to be
+				// notified or its command never completes
+				CorePlugin.log(e.getStatus());
+				out.write(MultiplexedProtocol.STATUS, 0, request, CorePlugin.err(status.getMessage()));
+			}
+		} catch (IOException e) {
+			// Client has disconnected
+		} catch (CoreException e) {
+			CorePlugin.log(e.getStatus());
+		}
+	}
+
+	/**
+	 * Sends command output to the client as soon as it is written.
+	 */
+	private final class OutputPipe implements IPipe {
+		private final int request;
+		private volatile IStatus status;
+
+		OutputPipe(int request) {
+			this.request = request;
+		}
+
+		public Object take(long timeout) throws CoreException {
+			// Objects are sent right away, there is nothing to take
+			return status;
+		}
+
+		public IPipe write(Object object) throws CoreException {
+			try {
+				out.write(MultiplexedProtocol.OUTPUT, 0, request, object);
+			} catch (IOException e) {
+				throw new CoreException(CorePlugin.err("ECL client has disconnected", e));
+			}
+			return this;
+		}
+
+		public IPipe close(IStatus status) throws CoreException {
+			this.status = status;
+			return this;
+		}
+
+		public void reinit() {
+			status = null;
+		}
+
+		public boolean isClosed() {
+			return status != null;
+		}
+	}
+}
@@ -0,0 +1,374 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.server.tcp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.rcptt.ecl.core.Command;
+import org.eclipse.rcptt.ecl.internal.core.CorePlugin;
+import org.eclipse.rcptt.ecl.internal.core.EMFStreamPipe;
+import org.eclipse.rcptt.ecl.internal.core.MultiplexedProtocol;
+import org.eclipse.rcptt.ecl.internal.core.Process;
+import org.eclipse.rcptt.ecl.runtime.IPipe;
+import org.eclipse.rcptt.ecl.runtime.IProcess;
+import org.eclipse.rcptt.ecl.runtime.ISession;
+
+/**
+ * Connection of a client using one socket per session and
+ * {@link EMFStreamPipe} framing: a command followed by its input objects and
+ * input status, answered by output objects and the command status.
+ * <p>
+ * Socket is only touched by the server selector thread. Complete frames are
+ * decoded and commands are started by {@link SessionManager} workers, one
+ * task per connection at a time. Command output is serialized by the thread
+ * which writes it and queued for the selector, so no thread waits for the
+ * output or polls the socket. Writing thread is blocked while more than
+ * {@link #WRITE_BUDGET} bytes are queued, so a slow client holds back the
+ * command rather than growing the queue. Disconnect is seen by the selector as end of
+ * stream and cancels the running command.
+ */
+final class SessionConnection {
+	private static final int READ_BUFFER_SIZE = 8192;
+	/** Number of queued output bytes above which writers wait */
+	private static final int WRITE_BUDGET = 1024 * 1024;
+
+	private final EclTcpServer server;
+	private final SessionManager manager;
+	private final SocketChannel channel;
+	private final SelectionKey key;
+	private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+	private final StreamFrameDecoder decoder = new StreamFrameDecoder();
+	private final Queue<ByteBuffer> writes = new ConcurrentLinkedQueue<ByteBuffer>();
+	/** Guarded by writes */
+	private long queuedBytes = 0;
+	private final Queue<byte[]> requests = new ConcurrentLinkedQueue<byte[]>();
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+	private boolean handshaken = false;
+	private volatile ISession session;
+
+	/* Request state, used by one worker at a time */
+	private Command command;
+	private IPipe input;
+	private volatile IProcess process;
+
+	private final Runnable drain = new Runnable() {
+		public void run() {
+			drainRequests();
+		}
+	};
+
+	SessionConnection(EclTcpServer server, SessionManager manager, SocketChannel channel, SelectionKey key) {
+		this.server = server;
+		this.manager = manager;
+		this.channel = channel;
+		this.key = key;
+	}
+
+	SocketChannel getChannel() {
+		return channel;
+	}
+
+	SelectionKey getKey() {
+		return key;
+	}
+
+	/**
+	 * Called by selector thread when channel has data.
+	 */
+	void readable() throws IOException {
+		if (channel.read(readBuffer) < 0) {
+			close();
+			return;
+		}
+		readBuffer.flip();
+		try {
+			if (!handshaken && !readHandshake()) {
+				return;
+			}
+			if (closed.get()) {
+				return;
+			}
+			requests.addAll(decoder.feed(readBuffer));
+		} finally {
+			readBuffer.compact();
+		}
+		schedule();
+	}
+
+	/**
+	 * Called by selector thread to send queued output.
+	 */
+	void writable() throws IOException {
+		if (!key.isValid()) {
+			return;
+		}
+		ByteBuffer buffer;
+		while ((buffer = writes.peek()) != null) {
+			channel.write(buffer);
+			if (buffer.hasRemaining()) {
+				key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+				return;
+			}
+			writes.poll();
+			synchronized (writes) {
+				queuedBytes -= buffer.limit();
+				writes.notifyAll();
+			}
+		}
+		key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+	}
+
+	/**
+	 * @return <code>false</code> if handshake is not complete yet or
+	 *         connection is not served by this class
+	 */
+	private boolean readHandshake() throws IOException {
+		if (readBuffer.remaining() < 2) {
+			return false;
+		}
+		int length = 2 + (readBuffer.getShort(readBuffer.position()) & 0xffff);
+		if (length > readBuffer.capacity()) {
+			throw new IOException("Malformed ECL handshake");
+		}
+		if (readBuffer.remaining() < length) {
+			return false;
+		}
+		byte[] bytes = new byte[length];
+		readBuffer.get(bytes);
+		String handshake = new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+		handshaken = true;
+		if ("newsession".equals(handshake)) {
+			session = manager.createSession();
+			send(writeUTF(manager.newConnectionId()));
+			return true;
+		}
+		if (MultiplexedProtocol.HANDSHAKE.equals(handshake) && !readBuffer.hasRemaining()) {
+			// Client waits for the answer before sending frames
+			server.handOff(this);
+		} else {
+			close();
+		}
+		return false;
+	}
+
+	private static byte[] writeUTF(String value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new DataOutputStream(bytes).writeUTF(value);
+		return bytes.toByteArray();
+	}
+
+	private void schedule() {
+		if (!requests.isEmpty() && scheduled.compareAndSet(false, true)) {
+			manager.getWorkers().execute(drain);
+		}
+	}
+
+	private void drainRequests() {
+		try {
+			byte[] frame;
+			while (!closed.get() && (frame = requests.poll()) != null) {
+				handle(decode(frame));
+			}
+		} catch (Throwable t) {
+			CorePlugin.log(t);
+			close();
+		} finally {
+			scheduled.set(false);
+		}
+		if (!closed.get()) {
+			schedule();
+		}
+	}
+
+	private static Object decode(byte[] frame) throws CoreException {
+		return new EMFStreamPipe(new ByteArrayInputStream(frame), OutputStream.nullOutputStream()).take(0);
+	}
+
+	private void handle(Object object) throws CoreException {
+		if (command == null) {
+			if (!(object instanceof Command)) {
+				close();
+				return;
+			}
+			command = (Command) object;
+			input = session.createPipe();
+			return;
+		}
+		if (object instanceof IStatus) {
+			input.close((IStatus) object);
+			Command toExecute = command;
+			IPipe commandInput = input;
+			command = null;
+			input = null;
+			start(toExecute, commandInput);
+			return;
+		}
+		input.write(object);
+	}
+
+	private void start(Command command, IPipe input) {
+		final IProcess started;
+		try {
+			started = session.execute(command, input, new OutputPipe());
+		} catch (CoreException e) {
+			sendStatus(e.getStatus());
+			return;
+		}
+		process = started;
+		Runnable finish = new Runnable() {
+			public void run() {
+				IStatus status;
+				try {
+					status = started.waitFor();
+				} catch (InterruptedException e) {
+					status = Status.CANCEL_STATUS;
+				}
+				process = null;
+				sendStatus(status);
+			}
+		};
+		if (started instanceof Process) {
+			((Process) started).whenDone(finish);
+		} else {
+			manager.getWorkers().execute(finish);
+		}
+	}
+
+	private void sendStatus(IStatus status) {
+		try {
+			try {
+				send(status);
+			} catch (ClassCastException e) { // Serialization errors
+				CorePlugin.log(e);
+				send(CorePlugin.err(e));
+			}
+		} catch (CoreException e) {
+			if (!closed.get()) {
+				CorePlugin.log(e.getStatus());
+				close();
+			}
+		}
+	}
+
+	private void send(Object object) throws CoreException {
+		awaitBudget();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new EMFStreamPipe(InputStream.nullInputStream(), bytes).write(object);
+		send(bytes.toByteArray());
+	}
+
+	private void send(byte[] bytes) {
+		synchronized (writes) {
+			queuedBytes += bytes.length;
+		}
+		writes.add(ByteBuffer.wrap(bytes));
+		server.requestWrite(this);
+	}
+
+	/**
+	 * Waits until selector sends enough of queued output. Never called on the
+	 * selector thread.
+	 */
+	private void awaitBudget() throws CoreException {
+		synchronized (writes) {
+			while (queuedBytes >= WRITE_BUDGET && !closed.get()) {
+				try {
+					writes.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new CoreException(Status.CANCEL_STATUS);
+				}
+			}
+		}
+		if (closed.get()) {
+			throw new CoreException(Status.CANCEL_STATUS);
+		}
+	}
+
+	boolean isClosed() {
+		return closed.get();
+	}
+
+	void close() {
+		if (!closed.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			channel.close();
+		} catch (IOException e) {
+			CorePlugin.log(e);
+		}
+		IProcess running = process;
+		if (running instanceof Process) {
+			((Process) running).cancel();
+		}
+		ISession closedSession = session;
+		if (closedSession != null) {
+			try {
+				closedSession.close();
+			} catch (Exception e) {
+				CorePlugin.log(e);
+			}
+		}
+		synchronized (writes) {
+			writes.clear();
+			queuedBytes = 0;
+			writes.notifyAll();
+		}
+		requests.clear();
+	}
+
+	/**
+	 * Pushes command output to the client as soon as it is written.
+	 */
+	private final class OutputPipe implements IPipe {
+		private volatile IStatus status;
+
+		public Object take(long timeout) throws CoreException {
+			// Objects are sent right away, there is nothing to take
+			return status;
+		}
+
+		public IPipe write(Object object) throws CoreException {
+			send(object);
+			return this;
+		}
+
+		public IPipe close(IStatus status) throws CoreException {
+			this.status = status;
+			return this;
+		}
+
+		public void reinit() {
+			status = null;
+		}
+
+		public boolean isClosed() {
+			return status != null;
+		}
+	}
+}
@@ -10,50 +10,87 @@
  *******************************************************************************/
 package org.eclipse.rcptt.ecl.server.tcp;
 
-import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.Socket;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.emf.ecore.util.EcoreUtil;
-import org.eclipse.rcptt.ecl.internal.core.CorePlugin;
+import org.eclipse.rcptt.ecl.internal.core.MultiplexedProtocol;
+import org.eclipse.rcptt.ecl.runtime.EclRuntime;
+import org.eclipse.rcptt.ecl.runtime.ISession;
 
 public class SessionManager {
-	private ExecutorService executor;
-	int count = 0;
-	private boolean useJobs = false;;
+	/**
+	 * Decode requests and start commands of all connections. Commands
+	 * themselves run in their sessions and are started once their input is
+	 * available, so these threads never wait for a command or a client and
+	 * their number does not depend on the number of connections.
+	 */
+	private static final int WORKERS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	private final ExecutorService workers;
+	private final AtomicInteger count = new AtomicInteger();
+	private final boolean useJobs;
 
 	public SessionManager(boolean useJobs) {
-		executor = Executors.newCachedThreadPool();
 		this.useJobs = useJobs;
+		this.workers = Executors.newFixedThreadPool(WORKERS, new ThreadFactory() {
+			private final AtomicInteger ids = new AtomicInteger();
+
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "ECL TCP session worker " + ids.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	Executor getWorkers() {
+		return workers;
+	}
+
+	ISession createSession() {
+		count.incrementAndGet();
+		return EclRuntime.createSession(useJobs);
 	}
 
-	public void acceptNewConnection(Socket client) throws IOException {
-		count++;
-		String uuid = initRecover(client);
-		if (uuid != null) {
-			executor.execute(new SessionRequestHandler(client, useJobs));
-		} else {
-			client.close();
-		}
+	String newConnectionId() {
+		return EcoreUtil.generateUUID();
 	}
 
-	private String initRecover(Socket client) throws IOException {
-		InputStream stream = client.getInputStream();
-		DataInputStream din = new DataInputStream(stream);
+	/**
+	 * Answers multiplexed handshake and serves the connection by a blocking
+	 * reader thread of its own. Socket should be in blocking mode.
+	 */
+	void startMultiplexed(Socket client) throws IOException {
+		int id = count.incrementAndGet();
 		DataOutputStream dout = new DataOutputStream(client.getOutputStream());
-		String utf = din.readUTF();
-		if ("newsession".equals(utf)) {
-			String uuid = EcoreUtil.generateUUID();
-			uuid = EcoreUtil.generateUUID();
-			dout.writeUTF(uuid);
-			dout.flush();
-			return uuid;
-
-		}
-		return null;
+		dout.writeUTF(newConnectionId());
+		dout.writeUTF(MultiplexedProtocol.ACCEPTED);
+		dout.flush();
+		Thread reader = new Thread(new MultiplexedRequestHandler(client, useJobs, workers),
+				"ECL TCP multiplexed connection " + id);
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * @return number of sessions and multiplexed connections served so far
+	 */
+	public int getConnectionCount() {
+		return count.get();
+	}
+
+	/**
+	 * Stops workers. Multiplexed connections are read until they are closed
+	 * by the client, but new commands are no longer started.
+	 */
+	void shutdown() {
+		workers.shutdown();
 	}
 }
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.server.tcp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.rcptt.ecl.internal.core.EMFStreamPipe;
+
+/**
+ * Splits bytes arriving on a non-blocking channel into objects written by
+ * {@link EMFStreamPipe}, without deserializing them. Every complete frame is
+ * returned with its marker, so it can be read back by an
+ * {@link EMFStreamPipe} over the frame bytes. Close markers carry no object
+ * and are dropped.
+ */
+final class StreamFrameDecoder {
+
+	private enum State {
+		MARKER, SIZE, BODY
+	}
+
+	private final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+	private State state = State.MARKER;
+	private int value;
+	private int valueBytes;
+	private int remaining;
+
+	List<byte[]> feed(ByteBuffer buffer) throws IOException {
+		List<byte[]> result = null;
+		while (buffer.hasRemaining()) {
+			switch (state) {
+			case MARKER:
+				int marker = buffer.get() & 0xff;
+				if (marker == EMFStreamPipe.CLOSE_PIPE_ID) {
+					break;
+				}
+				frame.write(marker);
+				if (marker != EMFStreamPipe.OBJECT_ID) {
+					throw new IOException("Unexpected ECL object marker " + marker);
+				}
+				startInt(State.SIZE);
+				break;
+			case SIZE:
+				if (readInt(buffer)) {
+					if (value <= 0) {
+						throw new IOException("Malformed ECL object of size " + value);
+					}
+					remaining = value;
+					state = State.BODY;
+				}
+				break;
+			case BODY:
+				int count = Math.min(remaining, buffer.remaining());
+				frame.write(buffer.array(), buffer.arrayOffset() + buffer.position(), count);
+				buffer.position(buffer.position() + count);
+				remaining -= count;
+				if (remaining == 0) {
+					result = complete(result);
+				}
+				break;
+			}
+		}
+		return result == null ? Collections.<byte[]> emptyList() : result;
+	}
+
+	private void startInt(State next) {
+		state = next;
+		value = 0;
+		valueBytes = 0;
+	}
+
+	private boolean readInt(ByteBuffer buffer) {
+		while (buffer.hasRemaining() && valueBytes < 4) {
+			byte b = buffer.get();
+			frame.write(b);
+			value = value << 8 | b & 0xff;
+			valueBytes++;
+		}
+		return valueBytes == 4;
+	}
+
+	private List<byte[]> complete(List<byte[]> result) {
+		if (result == null) {
+			result = new ArrayList<byte[]>(1);
+		}
+		result.add(frame.toByteArray());
+		frame.reset();
+		state = State.MARKER;
+		return result;
+	}
+}
@@ -18,6 +18,8 @@
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -189,4 +191,104 @@ public void processDiesIfSessionIsClosed() throws CoreException, InterruptedExce
 		assertTrue(stop.await(1, TimeUnit.SECONDS));
 		Assert.assertFalse(isAlive.get());
 	}
+
+	@Test(timeout = 10000)
+	public void commandsAreInFlightConcurrently() throws Exception {
+		CountDownLatch started = new CountDownLatch(2);
+		EclInjectedCommandService.inject(ignored -> {
+			started.countDown();
+			try {
+				return started.await(5, TimeUnit.SECONDS) ? Status.OK_STATUS : Status.CANCEL_STATUS;
+			} catch (InterruptedException e) {
+				return Status.CANCEL_STATUS;
+			}
+		});
+		ISession other = EclTcpClientManager.Instance.startClientSession(InetAddress.getByName(LOCALHOST), PORT);
+		try {
+			IProcess first = session
+					.execute(org.eclipse.rcptt.ecl.client.tcp.tests.TestsFactory.eINSTANCE.createEclInjectedCommand());
+			IProcess second = other
+					.execute(org.eclipse.rcptt.ecl.client.tcp.tests.TestsFactory.eINSTANCE.createEclInjectedCommand());
+			Assert.assertTrue(first.waitFor().isOK());
+			Assert.assertTrue(second.waitFor().isOK());
+		} finally {
+			other.close();
+		}
+	}
+
+	private static ISession startLegacySession() throws IOException {
+		System.setProperty(EclTcpClientManager.MULTIPLEXED_PROPERTY, "false");
+		try {
+			return EclTcpClientManager.Instance.startClientSession(InetAddress.getByName(LOCALHOST), PORT);
+		} finally {
+			System.clearProperty(EclTcpClientManager.MULTIPLEXED_PROPERTY);
+		}
+	}
+
+	@Test
+	public void legacyProtocolIsAvailable() throws Exception {
+		ISession legacy = startLegacySession();
+		try {
+			EclInjectedCommandService.inject(ignored -> new Status(IStatus.INFO, "id", "legacy"));
+			IStatus status = legacy
+					.execute(org.eclipse.rcptt.ecl.client.tcp.tests.TestsFactory.eINSTANCE.createEclInjectedCommand())
+					.waitFor();
+			Assert.assertEquals("legacy", status.getMessage());
+		} finally {
+			legacy.close();
+		}
+	}
+
+	@Test(timeout = 20000)
+	public void manyLegacySessionsAreServedConcurrently() throws Exception {
+		// Below the job worker limit, as every command blocks a job
+		int sessions = 40;
+		CountDownLatch started = new CountDownLatch(sessions);
+		EclInjectedCommandService.inject(ignored -> {
+			started.countDown();
+			try {
+				return started.await(10, TimeUnit.SECONDS) ? Status.OK_STATUS : Status.CANCEL_STATUS;
+			} catch (InterruptedException e) {
+				return Status.CANCEL_STATUS;
+			}
+		});
+		List<ISession> legacy = new ArrayList<ISession>();
+		try {
+			List<IProcess> processes = new ArrayList<IProcess>();
+			for (int i = 0; i < sessions; i++) {
+				ISession session = startLegacySession();
+				legacy.add(session);
+				processes.add(session
+						.execute(org.eclipse.rcptt.ecl.client.tcp.tests.TestsFactory.eINSTANCE.createEclInjectedCommand()));
+			}
+			for (IProcess process : processes) {
+				Assert.assertTrue(process.waitFor().isOK());
+			}
+		} finally {
+			for (ISession session : legacy) {
+				session.close();
+			}
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void legacyProcessDiesIfClientDisconnects() throws Exception {
+		AtomicBoolean isAlive = new AtomicBoolean();
+		CountDownLatch start = new CountDownLatch(1);
+		CountDownLatch stop = new CountDownLatch(1);
+		EclInjectedCommandService.inject((ignored, process) -> {
+			do {
+				isAlive.set(process.isAlive());
+				start.countDown();
+			} while (isAlive.get());
+			stop.countDown();
+			return Status.CANCEL_STATUS;
+		});
+		ISession legacy = startLegacySession();
+		legacy.execute(org.eclipse.rcptt.ecl.client.tcp.tests.TestsFactory.eINSTANCE.createEclInjectedCommand());
+		assertTrue(start.await(5, TimeUnit.SECONDS));
+		legacy.close();
+		assertTrue(stop.await(5, TimeUnit.SECONDS));
+		Assert.assertFalse(isAlive.get());
+	}
 }
@@ -15,6 +15,8 @@
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
 
 import junit.framework.TestCase;
 
@@ -23,14 +25,20 @@
 import org.eclipse.rcptt.ecl.core.CoreFactory;
 import org.eclipse.rcptt.ecl.core.Exec;
 import org.eclipse.rcptt.ecl.core.ExecutableParameter;
+import org.eclipse.rcptt.ecl.core.Foreach;
 import org.eclipse.rcptt.ecl.core.LiteralParameter;
 import org.eclipse.rcptt.ecl.core.Parallel;
 import org.eclipse.rcptt.ecl.core.Pipeline;
 import org.eclipse.rcptt.ecl.core.Sequence;
 import org.eclipse.rcptt.ecl.core.tests.model.EmitData;
+import org.eclipse.rcptt.ecl.core.tests.model.IncrementCommand;
 import org.eclipse.rcptt.ecl.core.tests.model.IsPipeEmpty;
 import org.eclipse.rcptt.ecl.core.tests.model.ModelFactory;
+import org.eclipse.rcptt.ecl.core.tests.model.ModelPackage;
 import org.eclipse.rcptt.ecl.core.tests.model.SampleCommand;
+import org.eclipse.rcptt.ecl.internal.commands.ParallelService;
+import org.eclipse.rcptt.ecl.runtime.BoxedValues;
+import org.eclipse.rcptt.ecl.runtime.CoreUtils;
 import org.eclipse.rcptt.ecl.runtime.IPipe;
 import org.eclipse.rcptt.ecl.runtime.IProcess;
 import org.eclipse.rcptt.ecl.runtime.ISession;
@@ -108,6 +116,19 @@ public void testExecParallel() throws Exception {
 		assertEquals(3, getCount());
 	}
 
+	public void testParallelFailsFast() throws Exception {
+		reset();
+		session.putProperty(ParallelService.MAX_PARALLELISM, 1);
+		Parallel parallel = CoreFactory.eINSTANCE.createParallel();
+		parallel.getCommands().add(ModelFactory.eINSTANCE.createFail());
+		parallel.getCommands().add(ModelFactory.eINSTANCE.createSlowCommand());
+		parallel.getCommands().add(ModelFactory.eINSTANCE.createFail());
+		IStatus status = session.execute(parallel).waitFor();
+		assertEquals(IStatus.ERROR, status.getSeverity());
+		assertEquals(1, status.getChildren().length);
+		assertEquals(0, getCount());
+	}
+
 	public void testPipeline() throws Exception {
 		Pipeline pipeline = CoreFactory.eINSTANCE.createPipeline();
 		pipeline.getCommands().add(ModelFactory.eINSTANCE.createIncrementCommand());
@@ -126,6 +147,75 @@ public void testPipeline() throws Exception {
 		assertEquals(45, res.intValue());
 	}
 
+	public void testStreamingForeachInPipeline() throws Exception {
+		Foreach foreach = CoreFactory.eINSTANCE.createForeach();
+		foreach.setDo(ModelFactory.eINSTANCE.createIncrementCommand());
+
+		Pipeline pipeline = CoreFactory.eINSTANCE.createPipeline();
+		pipeline.getCommands().add(ModelFactory.eINSTANCE.createIncrementCommand());
+		pipeline.getCommands().add(foreach);
+
+		IPipe source = session.createPipe();
+		IPipe sink = session.createPipe();
+
+		source.write(Integer.valueOf(1));
+		source.close(Status.OK_STATUS);
+
+		IProcess process = session.execute(pipeline, source, sink);
+		assertTrue(process.waitFor().isOK());
+
+		Integer res = (Integer) sink.take(ISession.DEFAULT_TAKE_TIMEOUT);
+		assertEquals(3, res.intValue());
+	}
+
+	/*
+	 * Run foreach body for every input item, leaving the body unchanged
+	 */
+	public void testForeachBodyRunsPerItem() throws Exception {
+		Foreach foreach = CoreFactory.eINSTANCE.createForeach();
+		IncrementCommand body = ModelFactory.eINSTANCE.createIncrementCommand();
+		foreach.setDo(body);
+		for (int i = 0; i < 3; i++) {
+			foreach.getInput().add(BoxedValues.box(i * 10));
+		}
+
+		IPipe sink = session.createPipe();
+		IProcess process = session.execute(foreach, null, sink);
+		assertTrue(process.waitFor().isOK());
+
+		List<Object> result = CoreUtils.readPipeContent(sink);
+		assertEquals(Arrays.<Object> asList(1, 11, 21), result);
+		assertSame(body, foreach.getDo());
+	}
+
+	/*
+	 * Run the same foreach body tree for every item, input assigned to the
+	 * body commands by one item does not reach the next one
+	 */
+	public void testForeachBodyIsReusedAcrossItems() throws Exception {
+		Foreach foreach = CoreFactory.eINSTANCE.createForeach();
+		IncrementCommand first = ModelFactory.eINSTANCE.createIncrementCommand();
+		IncrementCommand second = ModelFactory.eINSTANCE.createIncrementCommand();
+		Pipeline body = CoreFactory.eINSTANCE.createPipeline();
+		body.getCommands().add(first);
+		body.getCommands().add(second);
+		foreach.setDo(body);
+		for (int i = 0; i < 3; i++) {
+			foreach.getInput().add(BoxedValues.box(i * 10));
+		}
+
+		IPipe sink = session.createPipe();
+		IProcess process = session.execute(foreach, null, sink);
+		assertTrue(process.waitFor().isOK());
+
+		List<Object> result = CoreUtils.readPipeContent(sink);
+		assertEquals(Arrays.<Object> asList(2, 12, 22), result);
+		assertSame(body, foreach.getDo());
+		assertEquals(Arrays.asList(first, second), body.getCommands());
+		assertFalse(first.eIsSet(ModelPackage.Literals.INCREMENT_COMMAND__VAL));
+		assertFalse(second.eIsSet(ModelPackage.Literals.INCREMENT_COMMAND__VAL));
+	}
+
 	/*
 	 * Execute "EmitData 42" via Exec
 	 */
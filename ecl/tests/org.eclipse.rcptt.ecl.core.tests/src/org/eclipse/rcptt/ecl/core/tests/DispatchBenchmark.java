@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.core.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.Status;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.rcptt.ecl.core.tests.model.IncrementCommand;
+import org.eclipse.rcptt.ecl.core.tests.model.ModelFactory;
+import org.eclipse.rcptt.ecl.internal.core.CommandDescriptor;
+import org.eclipse.rcptt.ecl.runtime.EclRuntime;
+import org.eclipse.rcptt.ecl.runtime.IPipe;
+import org.eclipse.rcptt.ecl.runtime.IProcess;
+import org.eclipse.rcptt.ecl.runtime.ISession;
+
+/**
+ * Measures per command dispatch overhead on a tight loop of trivial commands
+ * executed one by one, and the part of it saved by cached command
+ * descriptors. Results are asserted by {@link DispatchTest}, this class is
+ * left out of the build and is run as a JUnit Plug-in Test when needed.
+ */
+public class DispatchBenchmark extends TestCase {
+
+	private static final int COMMANDS = 20000;
+
+	public void testTightLoop() throws Exception {
+		ISession session = EclRuntime.createInlineSession();
+		try {
+			IncrementCommand command = ModelFactory.eINSTANCE.createIncrementCommand();
+			// warm up
+			run(session, command);
+			long start = System.nanoTime();
+			run(session, command);
+			long elapsed = System.nanoTime() - start;
+			System.out.println(String.format("%d commands: %d ms, %d ns per command", COMMANDS, elapsed / 1000000,
+					elapsed / COMMANDS));
+		} finally {
+			session.close();
+		}
+	}
+
+	public void testDescriptorLookup() throws Exception {
+		EClass eClass = ModelFactory.eINSTANCE.createIncrementCommand().eClass();
+		CommandDescriptor.create(eClass);
+		CommandDescriptor.get(eClass);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < COMMANDS; i++) {
+			CommandDescriptor.create(eClass);
+		}
+		long computed = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		for (int i = 0; i < COMMANDS; i++) {
+			CommandDescriptor.get(eClass);
+		}
+		long cached = System.nanoTime() - start;
+		System.out.println(String.format("%d lookups: computed %d ns, cached %d ns per command", COMMANDS,
+				computed / COMMANDS, cached / COMMANDS));
+		assertSame(CommandDescriptor.get(eClass), CommandDescriptor.get(eClass));
+	}
+
+	private void run(ISession session, IncrementCommand command) throws Exception {
+		Integer value = Integer.valueOf(0);
+		for (int i = 0; i < COMMANDS; i++) {
+			IPipe in = session.createPipe();
+			in.write(value);
+			in.close(Status.OK_STATUS);
+			IPipe out = session.createPipe();
+			IProcess process = session.execute(command, in, out);
+			assertTrue(process.waitFor().isOK());
+			value = (Integer) out.take(ISession.DEFAULT_TAKE_TIMEOUT);
+		}
+		assertEquals(COMMANDS, value.intValue());
+	}
+}
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.core.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.Status;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.rcptt.ecl.core.tests.model.IncrementCommand;
+import org.eclipse.rcptt.ecl.core.tests.model.ModelFactory;
+import org.eclipse.rcptt.ecl.internal.core.CommandDescriptor;
+import org.eclipse.rcptt.ecl.runtime.EclRuntime;
+import org.eclipse.rcptt.ecl.runtime.IPipe;
+import org.eclipse.rcptt.ecl.runtime.IProcess;
+import org.eclipse.rcptt.ecl.runtime.ISession;
+
+/**
+ * Commands executed one by one through cached command descriptors.
+ */
+public class DispatchTest extends TestCase {
+
+	private static final int COMMANDS = 1000;
+
+	public void testTightLoop() throws Exception {
+		ISession session = EclRuntime.createInlineSession();
+		try {
+			IncrementCommand command = ModelFactory.eINSTANCE.createIncrementCommand();
+			run(session, command);
+			// Second pass goes through the cached descriptor
+			run(session, command);
+		} finally {
+			session.close();
+		}
+	}
+
+	public void testDescriptorIsCached() throws Exception {
+		EClass eClass = ModelFactory.eINSTANCE.createIncrementCommand().eClass();
+		CommandDescriptor cached = CommandDescriptor.get(eClass);
+		assertSame(cached, CommandDescriptor.get(eClass));
+		assertSame(eClass, cached.getEClass());
+
+		CommandDescriptor computed = CommandDescriptor.create(eClass);
+		assertNotSame(cached, computed);
+		assertEquals(cached.getInputFeatures(), computed.getInputFeatures());
+	}
+
+	private void run(ISession session, IncrementCommand command) throws Exception {
+		Integer value = Integer.valueOf(0);
+		for (int i = 0; i < COMMANDS; i++) {
+			IPipe in = session.createPipe();
+			in.write(value);
+			in.close(Status.OK_STATUS);
+			IPipe out = session.createPipe();
+			IProcess process = session.execute(command, in, out);
+			assertTrue(process.waitFor().isOK());
+			value = (Integer) out.take(ISession.DEFAULT_TAKE_TIMEOUT);
+		}
+		assertEquals(COMMANDS, value.intValue());
+	}
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.core.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.rcptt.ecl.core.CoreFactory;
+import org.eclipse.rcptt.ecl.core.Exec;
+import org.eclipse.rcptt.ecl.core.tests.model.Data;
+import org.eclipse.rcptt.ecl.core.tests.model.ModelFactory;
+import org.eclipse.rcptt.ecl.internal.core.EMFStreamPipe;
+import org.eclipse.rcptt.ecl.internal.core.IMarkeredPipe;
+
+public class EMFStreamPipeTest extends TestCase {
+
+	public void testSnapshotsAndObjectsAreRead() throws Exception {
+		StringBuilder name = new StringBuilder();
+		while (name.length() < 100 * 1024) {
+			name.append("chunked");
+		}
+		Exec large = CoreFactory.eINSTANCE.createExec();
+		large.setName(name.toString());
+		Data small = ModelFactory.eINSTANCE.createData();
+		small.setValue(42);
+
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		IMarkeredPipe writer = new EMFStreamPipe(new ByteArrayInputStream(new byte[0]), bout);
+		writer.write(EMFStreamPipe.snapshot(large));
+		writer.write(EMFStreamPipe.snapshot(small));
+		writer.write(small);
+		writer.writeCloseMarker();
+
+		IMarkeredPipe reader = new EMFStreamPipe(new ByteArrayInputStream(bout.toByteArray()), new ByteArrayOutputStream());
+		assertEquals(name.toString(), ((Exec) reader.take(1000)).getName());
+		assertEquals(42, ((Data) reader.take(1000)).getValue());
+		assertEquals(42, ((Data) reader.take(1000)).getValue());
+		assertNull(reader.take(1000));
+		assertTrue(reader.isClosed());
+	}
+}
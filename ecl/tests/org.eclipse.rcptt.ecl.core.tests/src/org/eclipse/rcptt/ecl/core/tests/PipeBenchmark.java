@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.core.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.rcptt.ecl.internal.core.Pipe;
+import org.eclipse.rcptt.ecl.internal.core.RingBufferPipe;
+import org.eclipse.rcptt.ecl.internal.core.RingBufferPipe.Backpressure;
+import org.eclipse.rcptt.ecl.runtime.IPipe;
+
+/**
+ * Compares throughput and close latency of {@link Pipe} and
+ * {@link RingBufferPipe} with one producer and one consumer thread.
+ * <p>
+ * Not run by the build. Launch it as a JUnit Plug-in Test, or with
+ * {@link #main(String[])} as the pipes do not need a running platform.
+ */
+public class PipeBenchmark extends TestCase {
+
+	private static final int ELEMENTS = 1000000;
+	private static final int ROUNDS = 5;
+
+	private interface PipeFactory {
+		IPipe create();
+	}
+
+	private static final PipeFactory PIPE = new PipeFactory() {
+		public IPipe create() {
+			return new Pipe();
+		}
+	};
+
+	private static final PipeFactory RING = new PipeFactory() {
+		public IPipe create() {
+			return new RingBufferPipe(1024, Backpressure.BLOCK);
+		}
+	};
+
+	public void testThroughput() throws Exception {
+		throughput(PIPE);
+		throughput(RING);
+		long pipe = 0;
+		long ring = 0;
+		for (int i = 0; i < ROUNDS; i++) {
+			pipe += throughput(PIPE);
+			ring += throughput(RING);
+		}
+		System.out.println(String.format("%d elements x %d rounds: Pipe %d ms, RingBufferPipe %d ms", ELEMENTS,
+				ROUNDS, pipe, ring));
+	}
+
+	public void testCloseLatency() throws Exception {
+		long pipe = 0;
+		long ring = 0;
+		for (int i = 0; i < ROUNDS; i++) {
+			pipe += closeLatency(PIPE);
+			ring += closeLatency(RING);
+		}
+		System.out.println(String.format("Close latency, average of %d: Pipe %d us, RingBufferPipe %d us",
+				ROUNDS, pipe / ROUNDS / 1000, ring / ROUNDS / 1000));
+	}
+
+	public static void main(String[] args) throws Exception {
+		junit.textui.TestRunner.run(PipeBenchmark.class);
+	}
+
+	private long throughput(PipeFactory factory) throws Exception {
+		final IPipe pipe = factory.create();
+		final Object element = new Object();
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					for (int i = 0; i < ELEMENTS; i++) {
+						pipe.write(element);
+					}
+					pipe.close(Status.OK_STATUS);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		};
+		long start = System.currentTimeMillis();
+		producer.start();
+		int count = 0;
+		while (!(pipe.take(Long.MAX_VALUE) instanceof IStatus)) {
+			count++;
+		}
+		long result = System.currentTimeMillis() - start;
+		producer.join();
+		assertEquals(ELEMENTS, count);
+		return result;
+	}
+
+	private long closeLatency(PipeFactory factory) throws Exception {
+		final IPipe pipe = factory.create();
+		final long[] closedAt = new long[1];
+		Thread closer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+					closedAt[0] = System.nanoTime();
+					pipe.close(Status.OK_STATUS);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		};
+		closer.start();
+		assertTrue(pipe.take(Long.MAX_VALUE) instanceof IStatus);
+		long result = System.nanoTime() - closedAt[0];
+		closer.join();
+		return result;
+	}
+}
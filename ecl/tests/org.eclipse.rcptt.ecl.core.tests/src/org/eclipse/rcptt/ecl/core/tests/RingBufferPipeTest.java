@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.core.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.rcptt.ecl.internal.core.RingBufferPipe;
+import org.eclipse.rcptt.ecl.internal.core.RingBufferPipe.Backpressure;
+import org.eclipse.rcptt.ecl.runtime.EclRuntime;
+import org.eclipse.rcptt.ecl.runtime.IPipe;
+import org.eclipse.rcptt.ecl.runtime.ISession;
+
+public class RingBufferPipeTest extends TestCase {
+
+	public void testGrowKeepsOrder() throws Exception {
+		IPipe pipe = new RingBufferPipe(4, Backpressure.GROW);
+		for (int i = 0; i < 100; i++) {
+			pipe.write(i);
+		}
+		pipe.close(Status.OK_STATUS);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, pipe.take(1000));
+		}
+		assertTrue(pipe.take(1000) instanceof IStatus);
+	}
+
+	public void testBlockingProducer() throws Exception {
+		final IPipe pipe = new RingBufferPipe(2, Backpressure.BLOCK);
+		final int count = 10000;
+		Thread producer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					for (int i = 0; i < count; i++) {
+						pipe.write(i);
+					}
+					pipe.close(Status.OK_STATUS);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		};
+		producer.start();
+		for (int i = 0; i < count; i++) {
+			assertEquals(i, pipe.take(10000));
+		}
+		assertEquals(Status.OK_STATUS, pipe.take(10000));
+		producer.join();
+	}
+
+	public void testCloseWakesConsumer() throws Exception {
+		final IPipe pipe = new RingBufferPipe(2, Backpressure.BLOCK);
+		new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(200);
+					pipe.close(Status.CANCEL_STATUS);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		}.start();
+		long start = System.currentTimeMillis();
+		assertEquals(Status.CANCEL_STATUS, pipe.take(10000));
+		assertTrue(System.currentTimeMillis() - start < 5000);
+	}
+
+	public void testTimeout() throws Exception {
+		IPipe pipe = new RingBufferPipe(2, Backpressure.BLOCK);
+		assertNull(pipe.take(50));
+	}
+
+	public void testSessionProperty() throws Exception {
+		ISession session = EclRuntime.createSession();
+		try {
+			assertFalse(session.createPipe() instanceof RingBufferPipe);
+			session.putProperty(EclRuntime.PIPE_CAPACITY, "4");
+			session.putProperty(EclRuntime.PIPE_BACKPRESSURE, "block");
+			assertTrue(session.createPipe() instanceof RingBufferPipe);
+			session.putProperty(EclRuntime.PIPE_CAPACITY, null);
+			assertFalse(session.createPipe() instanceof RingBufferPipe);
+		} finally {
+			session.close();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.core.tests;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.Status;
+import org.eclipse.rcptt.ecl.core.CoreFactory;
+import org.eclipse.rcptt.ecl.core.Pipeline;
+import org.eclipse.rcptt.ecl.core.tests.model.ModelFactory;
+import org.eclipse.rcptt.ecl.runtime.EclRuntime;
+import org.eclipse.rcptt.ecl.runtime.IPipe;
+import org.eclipse.rcptt.ecl.runtime.IProcess;
+import org.eclipse.rcptt.ecl.runtime.ISession;
+
+/**
+ * Compares command dispatch cost of the job based session and the inline
+ * session on a long pipeline of trivial commands.
+ * <p>
+ * Benchmark only prints timings, so the build does not run it: its name
+ * does not match test class patterns. Run it as a JUnit Plug-in Test.
+ */
+public class SessionModeBenchmark extends TestCase {
+
+	private static final int COMMANDS = 2000;
+	private static final int ROUNDS = 5;
+
+	public void testJobsVsInline() throws Exception {
+		long jobs = measure(EclRuntime.createSession());
+		long inline = measure(EclRuntime.createInlineSession());
+		System.out.println(String.format("%d commands x %d rounds: jobs %d ms, inline %d ms", COMMANDS,
+				ROUNDS, jobs, inline));
+	}
+
+	private long measure(ISession session) throws Exception {
+		try {
+			// warm up
+			run(session);
+			long start = System.currentTimeMillis();
+			for (int i = 0; i < ROUNDS; i++) {
+				run(session);
+			}
+			return System.currentTimeMillis() - start;
+		} finally {
+			session.close();
+		}
+	}
+
+	private void run(ISession session) throws Exception {
+		Pipeline pipeline = CoreFactory.eINSTANCE.createPipeline();
+		for (int i = 0; i < COMMANDS; i++) {
+			pipeline.getCommands().add(ModelFactory.eINSTANCE.createIncrementCommand());
+		}
+		IPipe source = session.createPipe();
+		source.write(Integer.valueOf(0));
+		source.close(Status.OK_STATUS);
+		IPipe sink = session.createPipe();
+		IProcess process = session.execute(pipeline, source, sink);
+		assertTrue(process.waitFor().isOK());
+		assertEquals(COMMANDS, ((Integer) sink.take(ISession.DEFAULT_TAKE_TIMEOUT)).intValue());
+	}
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ecl.core.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.rcptt.ecl.core.Command;
+import org.eclipse.rcptt.ecl.core.CoreFactory;
+import org.eclipse.rcptt.ecl.core.Exec;
+import org.eclipse.rcptt.ecl.core.util.ECLBinaryResourceImpl.EObjectInputStream;
+import org.eclipse.rcptt.ecl.core.util.ECLBinaryResourceImpl.EObjectOutputStream;
+import org.eclipse.rcptt.ecl.internal.core.ChunkedMessage;
+import org.eclipse.rcptt.ecl.parser.EclCoreParser;
+
+public class TypeDictionaryTest extends TestCase {
+
+	private static final String[] RECORDED = {
+			"get-view \"Package Explorer\" | get-tree | select \"Project/src/Main.java\" | double-click",
+			"get-editor \"Main.java\" | get-text-viewer | set-caret-pos 12 5",
+			"get-editor \"Main.java\" | get-text-viewer | type-text \"System.out.println();\"",
+			"get-button \"Save (M1+S)\" | click",
+			"get-menu -path \"Project/Build Project\" | click",
+			"get-window \"New Java Project\" | get-editbox -after [get-label \"Project name:\"] | set-text Sample",
+			"get-window \"New Java Project\" | get-button Finish | click",
+			"get-view Problems | get-tree | get-property itemCount | equals 0 | verify-true" };
+	private static final int ROUNDS = 50;
+
+	private final EObjectOutputStream.TypeDictionary outTypes = new EObjectOutputStream.TypeDictionary();
+	private final EObjectInputStream.TypeDictionary inTypes = new EObjectInputStream.TypeDictionary();
+	private final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+	private final DataOutputStream out = new DataOutputStream(bout);
+
+	public void testDictionaryReducesSize() throws Exception {
+		Command[] commands = new Command[RECORDED.length];
+		for (int i = 0; i < commands.length; i++) {
+			commands[i] = EclCoreParser.newCommand(RECORDED[i]);
+		}
+		long plain = measure(commands, null, null);
+		long dictionary = measure(commands, outTypes, inTypes);
+		assertTrue(dictionary < plain);
+	}
+
+	public void testMessagesWrittenOutOfEncodingOrder() throws Exception {
+		ChunkedMessage first = ChunkedMessage.encode(exec("first"), outTypes);
+		ChunkedMessage second = ChunkedMessage.encode(exec("second"), outTypes);
+		second.writeTo(out);
+		first.writeTo(out);
+
+		DataInputStream in = input();
+		assertEquals("second", ((Exec) ChunkedMessage.decode(in, inTypes)).getName());
+		assertEquals("first", ((Exec) ChunkedMessage.decode(in, inTypes)).getName());
+	}
+
+	public void testUnknownTypeKeepsDictionaryInSync() throws Exception {
+		// Defines Exec along with a class the reader does not know
+		EPackage ePackage = EcoreFactory.eINSTANCE.createEPackage();
+		ePackage.setName("unknown");
+		ePackage.setNsURI("http://eclipse.org/rcptt/ecl/tests/unknown");
+		EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+		eClass.setName("Unknown");
+		EReference child = EcoreFactory.eINSTANCE.createEReference();
+		child.setName("child");
+		child.setEType(EcorePackage.Literals.EOBJECT);
+		child.setContainment(true);
+		eClass.getEStructuralFeatures().add(child);
+		ePackage.getEClassifiers().add(eClass);
+		EObject unknown = EcoreUtil.create(eClass);
+		unknown.eSet(child, exec("nested"));
+
+		ChunkedMessage.encode(unknown, outTypes).writeTo(out);
+		ChunkedMessage.encode(exec("next"), outTypes).writeTo(out);
+
+		DataInputStream in = input();
+		try {
+			ChunkedMessage.decode(in, inTypes);
+			fail("Unknown type is decoded");
+		} catch (CoreException e) {
+			// expected
+		}
+		assertEquals("next", ((Exec) ChunkedMessage.decode(in, inTypes)).getName());
+	}
+
+	private static Exec exec(String name) {
+		Exec exec = CoreFactory.eINSTANCE.createExec();
+		exec.setName(name);
+		return exec;
+	}
+
+	private DataInputStream input() {
+		return new DataInputStream(new ByteArrayInputStream(bout.toByteArray()));
+	}
+
+	private static long measure(Command[] commands, EObjectOutputStream.TypeDictionary outTypes,
+			EObjectInputStream.TypeDictionary inTypes) throws Exception {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bout);
+		for (int round = 0; round < ROUNDS; round++) {
+			for (Command command : commands) {
+				ChunkedMessage.encode(EcoreUtil.copy(command), outTypes).writeTo(out);
+			}
+		}
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bout.toByteArray()));
+		for (int round = 0; round < ROUNDS; round++) {
+			for (Command command : commands) {
+				EObject read = ChunkedMessage.decode(in, inTypes);
+				assertTrue(EcoreUtil.equals(command, read));
+			}
+		}
+		return bout.size();
+	}
+}
@@ -35,6 +35,16 @@ public void testLexer001() throws Throwable {
 		Assert.assertEquals("set1", command.getName());
 	}
 
+	public void testCachedParseReturnsIndependentCopies() throws Throwable {
+		Command first = process("set1 -a 1 | set2");
+		Command second = process("set1 -a 1 | set2");
+		String expected = toString(first);
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(expected, toString(second));
+		((Pipeline) first).getCommands().clear();
+		Assert.assertEquals(expected, toString(process("set1 -a 1 | set2")));
+	}
+
 	private void check(String content, String checkCode) throws Throwable {
 		Command cmd = process(content);
 		String out = toString(cmd);
@@ -15,6 +15,7 @@
 import static org.eclipse.rcptt.internal.launching.Q7LaunchingPlugin.PLUGIN_ID;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -22,11 +23,19 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.BooleanSupplier;
 
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
@@ -41,9 +50,12 @@
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
 import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.pde.internal.launching.IPDEConstants;
 import org.eclipse.pde.launching.IPDELauncherConstants;
@@ -55,6 +67,7 @@
 import org.eclipse.rcptt.core.ecl.core.model.ExecutionPhase;
 import org.eclipse.rcptt.core.ecl.core.model.Q7CoreFactory;
 import org.eclipse.rcptt.core.ecl.core.model.Q7Information;
+import org.eclipse.rcptt.core.internal.ecl.core.ContextCache;
 import org.eclipse.rcptt.core.launching.events.AutBundleState;
 import org.eclipse.rcptt.core.launching.events.AutEvent;
 import org.eclipse.rcptt.core.launching.events.AutEventInit;
@@ -79,6 +92,7 @@
 import org.eclipse.rcptt.ecl.core.Sequence;
 import org.eclipse.rcptt.ecl.core.SessionState;
 import org.eclipse.rcptt.ecl.core.Val;
+import org.eclipse.rcptt.ecl.core.util.Statuses;
 import org.eclipse.rcptt.ecl.debug.commands.CommandsFactory;
 import org.eclipse.rcptt.ecl.debug.commands.DebugCommand;
 import org.eclipse.rcptt.ecl.debug.commands.DebugScript;
@@ -114,6 +128,8 @@
 import org.eclipse.rcptt.tesla.ecl.model.TeslaPackage;
 
 import com.google.common.base.Preconditions;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
 
 @SuppressWarnings("restriction")
 public class BaseAutLaunch implements AutLaunch, IBaseAutLaunchRetarget {
@@ -131,6 +147,38 @@ public class BaseAutLaunch implements AutLaunch, IBaseAutLaunchRetarget {
 	private AutEventInit autInit;
 	private AutEventStart autStart;
 	private Context context;
+	private final EclSessionPool sessions = new EclSessionPool();
+	/** Hashes of contexts probably cached by AUT, see ContextCache */
+	private final Set<String> contextsInAut = ConcurrentHashMap.newKeySet();
+	/** Hashes of executable contexts by path of their resources */
+	private final Map<IPath, ContextHash> contextHashes = new ConcurrentHashMap<IPath, ContextHash>();
+
+	/**
+	 * Hash of executable context made from a particular version of its
+	 * resource.
+	 */
+	private static final class ContextHash {
+		final long stamp;
+		final long localTimeStamp;
+		String hash;
+
+		/** Version is taken before the context is read */
+		ContextHash(IResource resource) {
+			this.stamp = resource.getModificationStamp();
+			this.localTimeStamp = resource.getLocalTimeStamp();
+		}
+
+		boolean isSameVersion(ContextHash other) {
+			return stamp == other.stamp && localTimeStamp == other.localTimeStamp;
+		}
+	}
+
+	/** Runs session computations, so that callers can time out or cancel */
+	private static final ExecutorService SESSION_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "AUT ECL session");
+		thread.setDaemon(true);
+		return thread;
+	});
 
 	public interface Context {
 		ISession connect(String host, int port) throws IOException;
@@ -179,7 +227,7 @@ public synchronized Object execute(Command command) throws CoreException, Interr
 
 	@Override
 	public synchronized Object execute(Command command, long timeout) throws CoreException, InterruptedException {
-		return execute(command, timeout, new NullProgressMonitor());
+		return execute(command, timeout, null);
 	}
 
 	@Override
@@ -217,18 +265,27 @@ public synchronized Object execute(Command command, long timeout, IProgressMonit
 
 	interface Interruption {
 		void checkInterruption() throws CoreException;
+
+		/**
+		 * @return milliseconds to wait before checking interruption again
+		 */
+		long getWaitTime();
 	}
 
 	private static final class TimeoutInterruption implements Interruption {
+		/** Cancellation of progress monitor can only be noticed by polling */
+		private static final long CANCEL_CHECK_INTERVAL = 100;
 		private final BooleanSupplier isCancelled;
+		private final boolean cancellable;
 		private final long stop;
 		private final long timeout;
 		private final BaseAutLaunch launch;
 
-		private TimeoutInterruption(BooleanSupplier isCancelled, long timeout, BaseAutLaunch launch)
-				throws CoreException {
+		private TimeoutInterruption(BooleanSupplier isCancelled, boolean cancellable, long timeout,
+				BaseAutLaunch launch) throws CoreException {
 			super();
 			this.isCancelled = isCancelled;
+			this.cancellable = cancellable;
 			this.launch = launch;
 			if (timeout <= 0)
 				throw new CoreException(launch.createTimeoutStatus(timeout));
@@ -239,7 +296,7 @@ private TimeoutInterruption(BooleanSupplier isCancelled, long timeout, BaseAutLa
 		public static TimeoutInterruption forTimeout(IProgressMonitor monitor, long timeout, BaseAutLaunch launch)
 				throws CoreException {
 			BooleanSupplier supplier = monitor == null ? (() -> false) : monitor::isCanceled;
-			return new TimeoutInterruption(supplier, timeout, launch);
+			return new TimeoutInterruption(supplier, monitor != null, timeout, launch);
 		}
 
 		@Override
@@ -253,44 +310,47 @@ public void checkInterruption() throws CoreException {
 
 		}
 
+		@Override
+		public long getWaitTime() {
+			long remaining = Math.max(1, stop - System.currentTimeMillis());
+			return cancellable ? Math.min(remaining, CANCEL_CHECK_INTERVAL) : remaining;
+		}
+
 		public boolean isDone() {
 			return isCancelled.getAsBoolean() || stop < System.currentTimeMillis();
 		}
 	}
 
-	@SuppressWarnings("unchecked")
-	private <T> T computeInNewSession(Interruption isCancelled, final Computation<T> computation)
+	/**
+	 * Runs computation on a shared thread. Session is taken from the pool if
+	 * reuse is allowed, and returned to it if computation succeeds.
+	 */
+	private <T> T computeInSession(Interruption isCancelled, boolean reuse, final Computation<T> computation)
 			throws CoreException, InterruptedException {
-		final Object[] result = new Object[] { null };
-		final Exception[] wrappedException = new Exception[] { null };
-		Thread execThread = new Thread() {
-			@Override
-			public void run() {
-				ISession session = null;
-				try {
-					session = createEclSession();
-					result[0] = computation.get(session);
-				} catch (Exception e) {
-					wrappedException[0] = e;
-				} finally {
-					if (session != null) {
-						safeClose(session);
-					}
-				}
-			};
-		};
-		execThread.start();
+		long start = System.nanoTime();
+		final String address = getHost() + ":" + getEclPort();
+		Future<T> future = SESSION_EXECUTOR.submit(() -> {
+			ISession session = sessions.acquire(address, reuse, this::createEclSession);
+			boolean success = false;
+			try {
+				T result = computation.get(session);
+				success = !Thread.currentThread().isInterrupted();
+				return result;
+			} finally {
+				sessions.release(session, address, reuse && success);
+			}
+		});
 		try {
-			while (execThread.isAlive()) {
+			while (true) {
 				isCancelled.checkInterruption();
-				execThread.join(100);
+				try {
+					return future.get(isCancelled.getWaitTime(), TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					// check interruption again
+				}
 			}
-		} finally {
-			execThread.interrupt();
-		}
-		
-		Exception wrapped = wrappedException[0];
-		if (wrapped != null) {
+		} catch (ExecutionException e) {
+			Throwable wrapped = e.getCause();
 			if (wrapped instanceof InterruptedException ie) {
 				throw ie;
 			}
@@ -299,9 +359,17 @@ public void run() {
 						new IStatus[] { ((CoreException) wrapped).getStatus() }, wrapped.getMessage(), wrapped));
 			}
 			throw new CoreException(Q7LaunchingPlugin.createStatus(IStatus.ERROR, wrapped.getMessage(), wrapped));
+		} finally {
+			future.cancel(true);
+			sessions.recordCall(System.nanoTime() - start);
 		}
+	}
 
-		return (T) result[0];
+	/**
+	 * @return pool statistics: sessions opened and reused, call latency
+	 */
+	public String getSessionStatistics() {
+		return sessions.toString();
 	}
 
 	private IStatus createInternalAutFailStatus(IContext context, IStatus result) {
@@ -321,14 +389,21 @@ private IStatus createTimeoutStatus(final long timeout) {
 		return statusWithAdvancedInfo instanceof ExecutionStatus ? statusWithAdvancedInfo : status;
 	}
 
+	/**
+	 * @param monitor
+	 *            may be <code>null</code> if command can't be cancelled
+	 */
 	private Object unsafeExecute(final Command command, final long timeout, final IProgressMonitor monitor)
 			throws CoreException, InterruptedException {
 		try {
 			long stop = System.currentTimeMillis() + timeout;
-			return computeInNewSession(TimeoutInterruption.forTimeout(monitor, timeout, this), session -> {
+			IProgressMonitor progress = monitor == null ? new NullProgressMonitor() : monitor;
+			// Language commands may declare procedures and variables in session
+			boolean reuse = command.eClass().getEPackage() != CorePackage.eINSTANCE;
+			return computeInSession(TimeoutInterruption.forTimeout(monitor, timeout, this), reuse, session -> {
 				IPipe out = session.createPipe();
 				IProcess rc = session.execute(command, null, out);
-				IStatus status = rc.waitFor(stop - System.currentTimeMillis(), monitor);
+				IStatus status = rc.waitFor(stop - System.currentTimeMillis(), progress);
 				if (!status.isOK()) {
 					throw new CoreException(status);
 				}
@@ -372,6 +447,8 @@ private List<Object> executeAndTakeAll(ISession session, Command command, long t
 	public void activate(String host, int ecl, int tesla, String platform, String capability, float seconds,
 			IProgressMonitor monitor) throws CoreException {
 		Q7LaunchingPlugin.logInfo("Activating AUT at host %s. ECL port: %d. Tesla port: %d", host, ecl, tesla);
+		sessions.clear();
+		contextsInAut.clear();
 		monitor.beginTask("AUT pinging", (int) seconds);
 		synchronized (launch) {
 			launch.setAttribute(IQ7Launch.ATTR_HOST, host);
@@ -420,7 +497,7 @@ public void activate(String host, int ecl, int tesla, String platform, String ca
 	public void ping() throws CoreException, InterruptedException {
 		try {
 			Object object = unsafeExecute(Q7CoreFactory.eINSTANCE.createGetQ7Information(),
-					TeslaLimits.getAUTStartupTimeout(), new NullProgressMonitor());
+					TeslaLimits.getAUTStartupTimeout(), null);
 			if (object instanceof Q7Information) {
 				Q7Information info = (Q7Information) object;
 				if (!info.isTeslaActive()) {
@@ -477,14 +554,6 @@ public ILaunch setLaunch(ILaunch launch) {
 		return oldLaunch;
 	}
 
-	private void safeClose(ISession session) {
-		try {
-			session.close();
-		} catch (Exception e) {
-			Q7LaunchingPlugin.log(e);
-		}
-	}
-
 	@Override
 	public ILaunch getLaunch() {
 		return launch;
@@ -565,6 +634,14 @@ public void terminated(IStatus status) {
 
 	public void setState(AutLaunchState state) {
 		this.state = state;
+		if (state == AutLaunchState.RESTART || state == AutLaunchState.TERMINATE) {
+			// Sessions and cached contexts of previous AUT process are useless
+			sessions.clear();
+			contextsInAut.clear();
+		}
+		if (state == AutLaunchState.TERMINATE) {
+			Q7LaunchingPlugin.logInfo("ECL sessions of AUT %s: %s", id, sessions);
+		}
 		for (AutLaunchListener listener : listeners) {
 			listener.stateChanged(this, state);
 		}
@@ -613,19 +690,47 @@ private void execElement(IQ7NamedElement element, long timeout, IProgressMonitor
 		}
 	}
 
+	/**
+	 * Context is made executable and hashed only if its hash is unknown for
+	 * the current version of its resource or AUT needs the whole context.
+	 */
 	private void execContext(IContext contextElement, IProgressMonitor monitor) throws CoreException {
-		org.eclipse.rcptt.core.scenario.Context context = (org.eclipse.rcptt.core.scenario.Context) EcoreUtil
-				.copy(contextElement.getModifiedNamedElement());
-		if (!(contextElement instanceof Q7InternalContext)) {
-			ContextType type = contextElement.getType();
-			if (type != null) {
-				type.getMaker().makeExecutable(context, contextElement);
+		IResource resource = getCacheableResource(contextElement);
+		ContextHash version = resource == null ? null : new ContextHash(resource);
+		ContextHash cached = version == null ? null : contextHashes.get(resource.getFullPath());
+		String hash = cached != null && cached.isSameVersion(version) ? cached.hash : null;
+		org.eclipse.rcptt.core.scenario.Context context = null;
+		if (hash == null) {
+			context = makeExecutable(contextElement);
+			hash = contentHash(context);
+			if (hash != null && version != null) {
+				version.hash = hash;
+				contextHashes.put(resource.getFullPath(), version);
 			}
 		}
-		EnterContext ec = Q7CoreFactory.eINSTANCE.createEnterContext();
-		ec.setData(context);
 		try {
-			final IStatus result = internalExecute(ec, TeslaLimits.getContextRunnableTimeout(), monitor, null);
+			IStatus result;
+			if (hash != null && contextsInAut.contains(hash)) {
+				result = internalExecute(createEnterContext(null, hash), TeslaLimits.getContextRunnableTimeout(),
+						monitor, null);
+				if (Statuses.hasCode(result, ContextCache.MISS_CODE)) {
+					contextsInAut.remove(hash);
+					if (context == null) {
+						context = makeExecutable(contextElement);
+					}
+					result = internalExecute(createEnterContext(context, hash), TeslaLimits.getContextRunnableTimeout(),
+							monitor, null);
+				}
+			} else {
+				if (context == null) {
+					context = makeExecutable(contextElement);
+				}
+				result = internalExecute(createEnterContext(context, hash), TeslaLimits.getContextRunnableTimeout(),
+						monitor, null);
+			}
+			if (hash != null && !result.matches(IStatus.ERROR)) {
+				contextsInAut.add(hash);
+			}
 			if (result.matches(IStatus.ERROR)) {
 				IStatus status = createInternalAutFailStatus(contextElement,result);
 				throw new CoreException(status);
@@ -635,6 +740,62 @@ private void execContext(IContext contextElement, IProgressMonitor monitor) thro
 		}
 	}
 
+	private static org.eclipse.rcptt.core.scenario.Context makeExecutable(IContext contextElement)
+			throws CoreException {
+		org.eclipse.rcptt.core.scenario.Context context = (org.eclipse.rcptt.core.scenario.Context) EcoreUtil
+				.copy(contextElement.getModifiedNamedElement());
+		if (!(contextElement instanceof Q7InternalContext)) {
+			ContextType type = contextElement.getType();
+			if (type != null) {
+				type.getMaker().makeExecutable(context, contextElement);
+			}
+		}
+		return context;
+	}
+
+	/**
+	 * @return resource that determines executable form of the context, or
+	 *         <code>null</code> if its hash can't be reused
+	 */
+	private static IResource getCacheableResource(IContext contextElement) throws CoreException {
+		if (contextElement instanceof Q7InternalContext || contextElement.isWorkingCopy()
+				|| contextElement.hasUnsavedChanges()) {
+			return null;
+		}
+		IResource resource = contextElement.getResource();
+		ContextType type = contextElement.getType();
+		if (resource == null || type == null || resource.getModificationStamp() == IResource.NULL_STAMP
+				|| !type.getMaker().isSelfContained(contextElement)) {
+			return null;
+		}
+		return resource;
+	}
+
+	private static EnterContext createEnterContext(org.eclipse.rcptt.core.scenario.Context context, String hash) {
+		EnterContext result = Q7CoreFactory.eINSTANCE.createEnterContext();
+		result.setData(context);
+		result.setHash(hash);
+		return result;
+	}
+
+	/**
+	 * @return hash of serialized context or <code>null</code> if context can't
+	 *         be serialized, in which case it is always sent in full
+	 */
+	private static String contentHash(org.eclipse.rcptt.core.scenario.Context context) {
+		Resource resource = new BinaryResourceImpl(URI.createURI("context"));
+		resource.getContents().add(context);
+		try (HashingOutputStream out = new HashingOutputStream(Hashing.sha256(), OutputStream.nullOutputStream())) {
+			resource.save(out, null);
+			return out.hash().toString();
+		} catch (IOException | RuntimeException e) {
+			Q7LaunchingPlugin.log("Failed to compute hash of context " + context.getName(), e);
+			return null;
+		} finally {
+			resource.getContents().remove(context);
+		}
+	}
+
 	private void execVerification(IVerification verificationElement, IProgressMonitor monitor, ExecutionPhase phase)
 			throws CoreException {
 		Verification verification = (Verification) EcoreUtil.copy(verificationElement.getModifiedNamedElement());
@@ -862,11 +1023,11 @@ public void gracefulShutdown(int timeoutSeconds) throws CoreException, TimeoutEx
 				return;
 			}
 			if (stop < currentTimeMillis() + 100) {
-				unsafeExecute(shutdownCmd, 100, new NullProgressMonitor()); // Give exception a chance to propagate, it was suppressed until timeout 
+				unsafeExecute(shutdownCmd, 100, null); // Give exception a chance to propagate, it was suppressed until timeout 
 				throw new TimeoutException("Timeout after " + timeoutSeconds + " seconds");
 			}
 			try {
-				unsafeExecute(shutdownCmd, stop - currentTimeMillis(), new NullProgressMonitor());
+				unsafeExecute(shutdownCmd, stop - currentTimeMillis(), null);
 			} catch (CoreException e) {
 				if (!TestSuiteUtils.isConnectionProblem(e)) {
 					throw new CoreException(
@@ -952,7 +1113,8 @@ private IStatus internalExecute(Command command, long timeout, IProgressMonitor
 		try {
 			long stop = System.currentTimeMillis() + timeout;
 			TimeoutInterruption interruption = TimeoutInterruption.forTimeout(monitor, timeout, this);
-			return computeInNewSession(interruption, session -> {
+			// Interpreter state is transferred explicitly, so script runs in a clean session
+			return computeInSession(interruption, false, session -> {
 				ExecutionStatus result;
 				restoreState(session, properties);
 				Command commandCopy = command;
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.internal.launching.aut;
+
+import static java.lang.String.format;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.rcptt.ecl.runtime.ISession;
+import org.eclipse.rcptt.internal.launching.Q7LaunchingPlugin;
+
+/**
+ * Idle ECL sessions of a single AUT, reused between commands instead of
+ * opening a session per command.
+ * <p>
+ * A session is returned to the pool only after a successful computation and
+ * is taken from it only while it is open, connected to the current address
+ * and has been idle for less than {@link #MAX_IDLE_MILLIS}.
+ */
+class EclSessionPool {
+	/** Sessions idle for longer are closed instead of being reused */
+	static final long MAX_IDLE_MILLIS = 30000;
+	private static final int MAX_IDLE_SESSIONS = 4;
+
+	interface SessionFactory {
+		ISession create() throws CoreException;
+	}
+
+	private static final class IdleSession {
+		final ISession session;
+		final String address;
+		final long since = System.currentTimeMillis();
+
+		IdleSession(ISession session, String address) {
+			this.session = session;
+			this.address = address;
+		}
+
+		boolean isHealthy(String currentAddress) {
+			return address.equals(currentAddress) && !session.isClosed()
+					&& System.currentTimeMillis() - since < MAX_IDLE_MILLIS;
+		}
+	}
+
+	private final Deque<IdleSession> idle = new ArrayDeque<IdleSession>();
+	private final AtomicLong created = new AtomicLong();
+	private final AtomicLong reused = new AtomicLong();
+	private final AtomicLong discarded = new AtomicLong();
+	private final AtomicLong calls = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * @return the most recently used healthy session to the given address or
+	 *         a new one if there is none or reuse is not allowed
+	 */
+	ISession acquire(String address, boolean reuse, SessionFactory factory)
+			throws CoreException {
+		while (reuse) {
+			IdleSession candidate;
+			synchronized (idle) {
+				candidate = idle.pollFirst();
+			}
+			if (candidate == null) {
+				break;
+			}
+			if (candidate.isHealthy(address)) {
+				reused.incrementAndGet();
+				return candidate.session;
+			}
+			close(candidate.session);
+		}
+		ISession session = factory.create();
+		created.incrementAndGet();
+		return session;
+	}
+
+	/**
+	 * Returns session to the pool, or closes it if it can't be reused.
+	 */
+	void release(ISession session, String address, boolean reusable) {
+		if (reusable && !session.isClosed()) {
+			synchronized (idle) {
+				if (idle.size() < MAX_IDLE_SESSIONS) {
+					idle.addFirst(new IdleSession(session, address));
+					return;
+				}
+			}
+		}
+		close(session);
+	}
+
+	/**
+	 * Closes all idle sessions, used when AUT is restarted or terminated.
+	 */
+	void clear() {
+		List<IdleSession> sessions;
+		synchronized (idle) {
+			sessions = new ArrayList<IdleSession>(idle);
+			idle.clear();
+		}
+		for (IdleSession session : sessions) {
+			close(session.session);
+		}
+	}
+
+	void recordCall(long nanos) {
+		calls.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		long max;
+		do {
+			max = maxNanos.get();
+		} while (nanos > max && !maxNanos.compareAndSet(max, nanos));
+	}
+
+	@Override
+	public String toString() {
+		long count = calls.get();
+		long average = count == 0 ? 0 : totalNanos.get() / count;
+		return format(
+				"%d calls, %d sessions opened, %d reused, %d discarded, latency avg %d ms, max %d ms",
+				count, created.get(), reused.get(), discarded.get(),
+				TimeUnit.NANOSECONDS.toMillis(average),
+				TimeUnit.NANOSECONDS.toMillis(maxNanos.get()));
+	}
+
+	private void close(ISession session) {
+		discarded.incrementAndGet();
+		try {
+			session.close();
+		} catch (Exception e) {
+			Q7LaunchingPlugin.log(e);
+		}
+	}
+}
@@ -13,22 +13,32 @@
 import static com.google.common.base.Predicates.compose;
 import static com.google.common.base.Predicates.equalTo;
 import static com.google.common.base.Predicates.not;
+import static com.google.common.base.Predicates.notNull;
 import static com.google.common.base.Predicates.or;
 import static com.google.common.collect.Iterables.filter;
 import static org.eclipse.rcptt.reporting.html.internal.Plugin.UTILS;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.text.NumberFormat;
+import java.util.Iterator;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.rcptt.reporting.Q7Info;
 import org.eclipse.rcptt.reporting.Q7Statistics;
+import org.eclipse.rcptt.reporting.ReportingFactory;
 import org.eclipse.rcptt.reporting.core.IQ7ReportConstants;
 import org.eclipse.rcptt.reporting.core.IReportRenderer;
 import org.eclipse.rcptt.reporting.html.internal.Plugin;
@@ -41,7 +51,9 @@
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Strings;
+import com.google.common.collect.Iterators;
 import com.google.common.html.HtmlEscapers;
+import com.google.common.io.CharStreams;
 
 public class HtmlReportRenderer implements IReportRenderer {
 
@@ -80,17 +92,29 @@ public IStatus generateReport(IContentFactory factory, String reportName,
 
 
 
+	/**
+	 * @return <code>true</code> to render report in a single pass over
+	 *         reports, or <code>false</code> to iterate reports once per
+	 *         section
+	 */
+	protected boolean isStreaming() {
+		return true;
+	}
+
 	protected void renderReport(PrintWriter writer, Iterable<Report> reports, IContentFactory content)
 			throws CoreException {
+		if (isStreaming()) {
+			renderStreaming(writer, reports, content);
+			return;
+		}
 		writer.println("<html>");
 		renderHead(writer, null);
 		writer.println("<body onload=\"installDetailsWorkaround()\">");
 		Q7Statistics statistics = ReportUtils.calculateStatistics(reports.iterator());
 		renderSummary(writer, reports, statistics);
-		Iterable<Report> passedReports = filter(reports, compose(equalTo(IStatus.OK), reportStatus));
-		Iterable<Report> skippedReports = filter(reports, compose(matches(IStatus.CANCEL), reportStatus));
-		Iterable<Report> failedReports = filter(reports,
-				compose(not(or(equalTo(IStatus.OK), matches(IStatus.CANCEL))), reportStatus));
+		Iterable<Report> passedReports = filter(reports, isPassed);
+		Iterable<Report> skippedReports = filter(reports, isSkipped);
+		Iterable<Report> failedReports = filter(reports, isFailed);
 
 		writer.println("<h1 class=\"failure\">Failed Tests (" + statistics.getFailed() + ")</h1>");
 		renderFailed(writer, content, failedReports);
@@ -113,6 +137,88 @@ protected void renderReport(PrintWriter writer, Iterable<Report> reports, IConte
 		writer.println("</body></html>");
 	}
 
+	/**
+	 * Renders the page in a single pass over reports. Failed tests are spooled
+	 * to a temporary file and screenshots are written as they are met, so
+	 * only the rows of skipped and passed tests are kept in memory.
+	 */
+	private void renderStreaming(PrintWriter writer, Iterable<Report> reports, IContentFactory content)
+			throws CoreException {
+		writer.println("<html>");
+		renderHead(writer, null);
+		writer.println("<body onload=\"installDetailsWorkaround()\">");
+
+		final Q7Statistics statistics = ReportingFactory.eINSTANCE.createQ7Statistics();
+		final StringWriter skippedRows = new StringWriter();
+		final StringWriter passedRows = new StringWriter();
+		final IContentFactory rowContent = content;
+		final PrintWriter skipped = new PrintWriter(skippedRows);
+		final PrintWriter passed = new PrintWriter(passedRows);
+		// Every report passes here once, failed ones go on to renderFailed()
+		final Iterator<Report> observed = Iterators.transform(Iterators.filter(reports.iterator(), notNull()),
+				new Function<Report, Report>() {
+					@Override
+					public Report apply(Report input) {
+						ReportUtils.addToStatistics(statistics, input);
+						try {
+							if (isSkipped.apply(input)) {
+								renderNameAndDuration(skipped, input, rowContent);
+							} else if (isPassed.apply(input)) {
+								renderNameAndDuration(passed, input, rowContent);
+							}
+						} catch (CoreException e) {
+							throw new RuntimeException(e);
+						}
+						return input;
+					}
+				});
+		Iterable<Report> failedReports = new Iterable<Report>() {
+			@Override
+			public Iterator<Report> iterator() {
+				return Iterators.filter(observed, isFailed);
+			}
+		};
+
+		File spool = null;
+		try {
+			spool = File.createTempFile("rcptt-failed", ".html");
+			try (PrintWriter failed = new PrintWriter(new OutputStreamWriter(
+					new BufferedOutputStream(new FileOutputStream(spool)), StandardCharsets.UTF_8))) {
+				renderFailed(failed, content, failedReports);
+			}
+			Iterators.size(observed);
+
+			renderSummary(writer, reports, statistics);
+			writer.println("<h1 class=\"failure\">Failed Tests (" + statistics.getFailed() + ")</h1>");
+			writer.flush();
+			try (Reader failed = new InputStreamReader(new FileInputStream(spool), StandardCharsets.UTF_8)) {
+				CharStreams.copy(failed, writer);
+			}
+		} catch (IOException e) {
+			throw new CoreException(UTILS.createError(e));
+		} finally {
+			if (spool != null) {
+				spool.delete();
+			}
+		}
+		skipped.flush();
+		passed.flush();
+
+		writer.println("<h1 class=\"skipped\">Skipped Tests (" + statistics.getSkipped() + ")</h1>");
+		writer.println("<table class=\"skipped\">");
+		writer.append(skippedRows.getBuffer());
+		writer.println("</table>");
+
+		writer.println("<details class=\"closed\"><summary><h1 class=\"passed\">Passed Tests ("
+				+ statistics.getPassed()
+				+ ")</h1></summary>");
+		writer.println("<table class=\"passed detailsContent\">");
+		writer.append(passedRows.getBuffer());
+		writer.println("</table>");
+		
+		writer.println("</body></html>");
+	}
+
 	protected void renderHead(PrintWriter writer, String title) {
 		writer.println("<head>");
 		if (!Strings.isNullOrEmpty(title))
@@ -224,6 +330,10 @@ public Integer apply(Report input) {
 		}
 	};
 
+	private final Predicate<Report> isPassed = compose(equalTo(IStatus.OK), reportStatus);
+	private final Predicate<Report> isSkipped = compose(matches(IStatus.CANCEL), reportStatus);
+	private final Predicate<Report> isFailed = not(or(isPassed, isSkipped));
+
 	Predicate<Integer> matches(final int mask) {
 		return new Predicate<Integer>() {
 			@Override
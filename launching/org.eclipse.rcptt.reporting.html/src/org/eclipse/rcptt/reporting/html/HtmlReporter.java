@@ -89,6 +89,15 @@ protected void renderNameAndDuration(PrintWriter writer, Report report, IContent
 		writer.println("</td><td>" + duration + " s</td></tr>");
 	}
 
+	/**
+	 * Test pages are numbered in order of sections, which needs a pass per
+	 * section. Rows of the main page are small in any case.
+	 */
+	@Override
+	protected boolean isStreaming() {
+		return false;
+	}
+
 	@Override
 	protected void renderHead(PrintWriter writer, String title) {
 		writer.println("<head>");
@@ -0,0 +1,24 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.reporting.util;
+
+import java.io.File;
+
+/**
+ * Reports given to a renderer which are read from a q7.report file. Lets
+ * renderers use the file as a whole instead of iterating reports.
+ */
+public interface IReportFileSource {
+	/**
+	 * @return q7.report file reports are read from
+	 */
+	File getReportFile();
+}
@@ -23,7 +23,7 @@
 import org.eclipse.rcptt.sherlock.core.streams.SherlockReportIterator;
 
 public class Q7ReportIterator implements
-		Iterable<Report>, Closeable {
+		Iterable<Report>, Closeable, IReportFileSource {
 	private final SherlockReportIterator sherlock;
 
 	public Q7ReportIterator(File file) {
@@ -69,6 +69,7 @@ public void close() {
 		sherlock.close();
 	}
 
+	@Override
 	public File getReportFile() {
 		return sherlock.getReportFile();
 	}
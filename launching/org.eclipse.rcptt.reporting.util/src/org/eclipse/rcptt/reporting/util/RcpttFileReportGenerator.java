@@ -11,6 +11,7 @@
 package org.eclipse.rcptt.reporting.util;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -35,13 +36,15 @@ public RcpttFileReportGenerator() {
 	public IStatus generateReport(IContentFactory factory, String reportName,
 			Iterable<Report> report) {
 
-		OutputStream stream = null;
-
+		File file = report instanceof IReportFileSource ? ((IReportFileSource) report)
+				.getReportFile() : null;
+		if (file == null) {
+			return Plugin.UTILS.createStatus(IStatus.ERROR, "Report "
+					+ reportName + " can only be copied from a report file");
+		}
 		try {
-			stream = factory.createFileStream(reportName + ".report");
-			FileUtil.copy(
-					new BufferedInputStream(new FileInputStream(((Q7ReportIterator) report)
-							.getReportFile())), stream);
+			OutputStream stream = factory.createFileStream(reportName + ".report");
+			FileUtil.copy(new BufferedInputStream(new FileInputStream(file)), stream);
 		} catch (CoreException e) {
 			return e.getStatus();
 		} catch (FileNotFoundException e) {
@@ -0,0 +1,325 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.reporting.util;
+
+import static org.eclipse.rcptt.reporting.util.internal.Plugin.UTILS;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.emf.common.util.EMap;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.rcptt.reporting.core.IReportRenderer;
+import org.eclipse.rcptt.reporting.core.IReportRenderer.IContentFactory;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.Report;
+
+/**
+ * Runs several report renderers concurrently, reading reports once for all of
+ * them.
+ * <p>
+ * Renderers iterate their reports in passes, every
+ * {@link Iterable#iterator()} call starts a new pass. A pass over the source
+ * is started when every running renderer has asked for one, and each report
+ * read is handed to all of them through a small bounded buffer, so the number
+ * of source reads is the largest number of passes of a single renderer and
+ * only a few reports are held in memory at once.
+ * <p>
+ * Renderers receive the same report objects and must not modify them. Lazily
+ * built parts of a report, like hash indexes of property maps, are built by
+ * the reading thread before the report is handed out, so renderers may read
+ * it concurrently. A renderer has to iterate to the end before requesting
+ * the next iterator.
+ * Nested iteration would truncate the outer pass, so a renderer requesting
+ * an iterator while its previous one has reports left fails with an error
+ * status.
+ * <p>
+ * If the source is an {@link IReportFileSource}, so are iterables given to
+ * renderers.
+ */
+public class ReportFanOut {
+	/** Reports buffered per renderer */
+	private static final int CAPACITY = 16;
+
+	private final Iterable<Report> source;
+	private final List<Renderer> renderers = new ArrayList<Renderer>();
+	private final Object lock = new Object();
+	/** Passes requested for the next read, guarded by lock */
+	private final List<Pass> requested = new ArrayList<Pass>();
+	/** Renderers still running, guarded by lock */
+	private int running;
+	/** No more passes are read, guarded by lock */
+	private boolean closed = false;
+	private int passes;
+
+	public ReportFanOut(Iterable<Report> source) {
+		this.source = source;
+	}
+
+	public void add(IReportRenderer renderer, IContentFactory factory,
+			String reportName) {
+		renderers.add(new Renderer(renderer, factory, reportName));
+	}
+
+	/**
+	 * Runs all added renderers and waits for them to complete. Reports are
+	 * read in the calling thread.
+	 *
+	 * @return statuses of all renderers
+	 */
+	public IStatus run() throws InterruptedException {
+		synchronized (lock) {
+			running = renderers.size();
+		}
+		List<Thread> threads = new ArrayList<Thread>();
+		for (Renderer renderer : renderers) {
+			Thread thread = new Thread(renderer, "Report renderer: "
+					+ renderer.renderer.getClass().getSimpleName());
+			thread.setDaemon(true);
+			threads.add(thread);
+			thread.start();
+		}
+		try {
+			readPasses();
+		} finally {
+			synchronized (lock) {
+				closed = true;
+				for (Pass pass : requested) {
+					pass.end();
+				}
+				requested.clear();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+		}
+		MultiStatus result = new MultiStatus(UTILS.getID(), 0,
+				"Report generation", null);
+		for (Renderer renderer : renderers) {
+			result.add(renderer.status);
+		}
+		return result;
+	}
+
+	/**
+	 * @return number of times source has been iterated
+	 */
+	public int getPassCount() {
+		return passes;
+	}
+
+	private void readPasses() throws InterruptedException {
+		while (true) {
+			List<Pass> pass;
+			synchronized (lock) {
+				while (running > 0 && requested.size() < running) {
+					lock.wait();
+				}
+				if (running == 0) {
+					return;
+				}
+				pass = new ArrayList<Pass>(requested);
+				requested.clear();
+			}
+			passes++;
+			try {
+				Iterator<Report> reports = source.iterator();
+				while (reports.hasNext() && !allCancelled(pass)) {
+					Report report = reports.next();
+					if (report == null) {
+						continue;
+					}
+					if (pass.size() > 1) {
+						prepare(report);
+					}
+					for (Pass consumer : pass) {
+						consumer.put(report);
+					}
+				}
+			} finally {
+				for (Pass consumer : pass) {
+					consumer.end();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Initializes lazily created parts of the report, which are not safe to
+	 * be created by several renderer threads at once.
+	 */
+	private static void prepare(Report report) {
+		prepare((EObject) report);
+		for (TreeIterator<EObject> i = report.eAllContents(); i.hasNext();) {
+			prepare(i.next());
+		}
+	}
+
+	private static void prepare(EObject object) {
+		for (EStructuralFeature feature : object.eClass().getEAllStructuralFeatures()) {
+			// Creates empty lists on first access
+			Object value = object.eGet(feature);
+			if (value instanceof EMap<?, ?>) {
+				// Builds the hash index
+				((EMap<?, ?>) value).get(null);
+			}
+		}
+	}
+
+	private static boolean allCancelled(List<Pass> pass) {
+		for (Pass consumer : pass) {
+			if (!consumer.isCancelled()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private final class Renderer implements Runnable, Iterable<Report>,
+			IReportFileSource {
+		final IReportRenderer renderer;
+		final IContentFactory factory;
+		final String reportName;
+		IStatus status;
+		private Pass current;
+
+		Renderer(IReportRenderer renderer, IContentFactory factory,
+				String reportName) {
+			this.renderer = renderer;
+			this.factory = factory;
+			this.reportName = reportName;
+		}
+
+		public void run() {
+			try {
+				status = renderer.generateReport(factory, reportName, this);
+			} catch (Throwable e) {
+				status = UTILS.createError("Failed to generate report "
+						+ reportName, e);
+			} finally {
+				synchronized (lock) {
+					if (current != null) {
+						requested.remove(current);
+						current.cancel();
+					}
+					running--;
+					lock.notifyAll();
+				}
+			}
+			if (status == null) {
+				status = UTILS.createInfo("Report " + reportName
+						+ " has been generated");
+			}
+		}
+
+		@Override
+		public File getReportFile() {
+			return source instanceof IReportFileSource ? ((IReportFileSource) source)
+					.getReportFile() : null;
+		}
+
+		public Iterator<Report> iterator() {
+			synchronized (lock) {
+				if (current != null) {
+					boolean finished = current.isFinished();
+					requested.remove(current);
+					current.cancel();
+					if (!finished) {
+						current = null;
+						throw new IllegalStateException("Report " + reportName
+								+ " requested reports while iterating them, which is not supported");
+					}
+				}
+				current = new Pass();
+				if (closed) {
+					current.end();
+				} else {
+					requested.add(current);
+					lock.notifyAll();
+				}
+				return current;
+			}
+		}
+	}
+
+	/**
+	 * Reports of a single pass for a single renderer.
+	 */
+	private static final class Pass implements Iterator<Report> {
+		private final ArrayDeque<Report> buffer = new ArrayDeque<Report>();
+		private boolean ended = false;
+		private boolean cancelled = false;
+
+		synchronized void put(Report report) throws InterruptedException {
+			while (buffer.size() >= CAPACITY && !cancelled) {
+				wait();
+			}
+			if (!cancelled) {
+				buffer.add(report);
+				notifyAll();
+			}
+		}
+
+		synchronized void end() {
+			ended = true;
+			notifyAll();
+		}
+
+		synchronized void cancel() {
+			cancelled = true;
+			buffer.clear();
+			notifyAll();
+		}
+
+		synchronized boolean isCancelled() {
+			return cancelled;
+		}
+
+		/**
+		 * @return <code>true</code> if consumer has got all reports of the pass
+		 */
+		synchronized boolean isFinished() {
+			return cancelled || ended && buffer.isEmpty();
+		}
+
+		public synchronized boolean hasNext() {
+			try {
+				while (buffer.isEmpty() && !ended && !cancelled) {
+					wait();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+			return !buffer.isEmpty();
+		}
+
+		public synchronized Report next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			Report result = buffer.poll();
+			notifyAll();
+			return result;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
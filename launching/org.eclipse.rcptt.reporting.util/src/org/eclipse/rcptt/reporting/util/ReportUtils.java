@@ -75,51 +75,41 @@ public static Q7Statistics calculateStatistics(Iterable<Report> iterator) {
 
 	public static Q7Statistics calculateStatistics(Iterator<Report> iterator) {
 		Q7Statistics statistics = ReportingFactory.eINSTANCE.createQ7Statistics();
-
-		long startTime = Long.MAX_VALUE;
-		long endTime = Long.MIN_VALUE;
-		long totalTime = 0;
-		int total = 0;
-		int failed = 0;
-		int passed = 0;
-		int skipped = 0;
-
 		while (iterator.hasNext()) {
-			Report report = iterator.next();
-			if (report == null) {
-				continue;
-			}
-			Node localRoot = report.getRoot();
-			if (localRoot == null) {
-				Plugin.UTILS.log(new NullPointerException("Report should always have root"));
-				continue;
-			}
+			addToStatistics(statistics, iterator.next());
+		}
+		return statistics;
+	}
 
-			total += 1;
-			Q7Info q7info = (Q7Info) localRoot.getProperties().get(IQ7ReportConstants.ROOT);
-			SimpleSeverity severity = SimpleSeverity.create(q7info);
-			switch (severity) {
-			case CANCEL:
-				skipped++;
-				break;
-			case ERROR:
-				failed++;
-				break;
-			case OK:
-				passed++;
-				break;
-			}
-			startTime = Math.min(startTime, localRoot.getStartTime());
-			endTime = Math.max(endTime, localRoot.getEndTime());
-			totalTime += (localRoot.getDuration());
+	/**
+	 * Accounts a single report in statistics, for renderers reading reports
+	 * once.
+	 */
+	public static void addToStatistics(Q7Statistics statistics, Report report) {
+		if (report == null) {
+			return;
+		}
+		Node localRoot = report.getRoot();
+		if (localRoot == null) {
+			Plugin.UTILS.log(new NullPointerException("Report should always have root"));
+			return;
 		}
 
-		statistics.setTime((int) totalTime);
-		statistics.setTotal(total);
-		statistics.setFailed(failed);
-		statistics.setPassed(passed);
-		statistics.setSkipped(skipped);
-		return statistics;
+		statistics.setTotal(statistics.getTotal() + 1);
+		Q7Info q7info = (Q7Info) localRoot.getProperties().get(IQ7ReportConstants.ROOT);
+		SimpleSeverity severity = SimpleSeverity.create(q7info);
+		switch (severity) {
+		case CANCEL:
+			statistics.setSkipped(statistics.getSkipped() + 1);
+			break;
+		case ERROR:
+			statistics.setFailed(statistics.getFailed() + 1);
+			break;
+		case OK:
+			statistics.setPassed(statistics.getPassed() + 1);
+			break;
+		}
+		statistics.setTime(statistics.getTime() + (int) localRoot.getDuration());
 	}
 
 	/**
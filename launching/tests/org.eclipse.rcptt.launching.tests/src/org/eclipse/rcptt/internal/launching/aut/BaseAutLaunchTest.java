@@ -23,16 +23,21 @@
 
 import java.io.IOException;
 
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.rcptt.core.ContextType;
+import org.eclipse.rcptt.core.IContextMaker;
 import org.eclipse.rcptt.core.ecl.context.ContextFactory;
 import org.eclipse.rcptt.core.ecl.context.EclContext;
+import org.eclipse.rcptt.core.ecl.core.model.EnterContext;
 import org.eclipse.rcptt.core.ecl.core.model.ExecutionPhase;
+import org.eclipse.rcptt.core.internal.ecl.core.ContextCache;
 import org.eclipse.rcptt.core.model.IContext;
 import org.eclipse.rcptt.ecl.core.CoreFactory;
 import org.eclipse.rcptt.ecl.core.Global;
@@ -49,6 +54,7 @@
 import org.eclipse.rcptt.tesla.ecl.model.SetupPlayer;
 import org.eclipse.rcptt.tesla.ecl.model.ShoutdownPlayer;
 import org.eclipse.rcptt.tesla.ecl.model.ShutdownAut;
+import org.eclipse.rcptt.tesla.ecl.model.TeslaFactory;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
@@ -102,6 +108,20 @@ public void simpleValidCommand() throws CoreException, InterruptedException {
 		Assert.assertEquals(RV, subject.execute(CoreFactory.eINSTANCE.createGlobal()));
 	}
 	
+	@Test(timeout=10000)
+	public void sessionIsReusedForToolCommands() throws CoreException, InterruptedException, IOException {
+		BaseAutLaunch subject = createSubject();
+		Assert.assertEquals(RV, subject.execute(TeslaFactory.eINSTANCE.createSetupPlayer()));
+		Assert.assertEquals(RV, subject.execute(TeslaFactory.eINSTANCE.createSetupPlayer()));
+		verify(context, Mockito.times(1)).connect("127.0.0.1", 9922);
+		// Language commands may change session state
+		Assert.assertEquals(RV, subject.execute(CoreFactory.eINSTANCE.createGlobal()));
+		verify(context, Mockito.times(2)).connect("127.0.0.1", 9922);
+		when(session.isClosed()).thenReturn(true);
+		Assert.assertEquals(RV, subject.execute(TeslaFactory.eINSTANCE.createSetupPlayer()));
+		verify(context, Mockito.times(3)).connect("127.0.0.1", 9922);
+	}
+
 	@Test(timeout=1500)
 	public void connectHangs() throws CoreException, InterruptedException, IOException {
 		when(context.connect("127.0.0.1", 9922)).thenAnswer(invocation -> {
@@ -141,6 +161,91 @@ public void extractScriptFromEclContext() throws CoreException {
 		Mockito.verify(session).execute(isA(ShoutdownPlayer.class), ArgumentMatchers.isNull(IPipe.class), ArgumentMatchers.isA(IPipe.class));
 	}
 	
+	@Test(timeout=10000)
+	public void contextIsSentByHashOnceCached() throws CoreException {
+		EclContext eclContext = ContextFactory.eINSTANCE.createEclContext();
+		Script script = CoreFactory.eINSTANCE.createScript();
+		script.setContent("scriptBody");
+		eclContext.setScript(script);
+		IContext context = Mockito.mock(IContext.class);
+		when(context.exists()).thenReturn(true);
+		when(context.getModifiedNamedElement()).thenReturn(eclContext);
+		ContextType type = Mockito.mock(ContextType.class);
+		when(context.getType()).thenReturn(type);
+		when(type.getId()).thenReturn("org.eclipse.rcptt.ctx.other");
+		when(type.getMaker()).thenReturn(Mockito.mock(IContextMaker.class));
+		when(session.execute(isA(EnterContext.class))).thenReturn(process);
+		BaseAutLaunch subject = createSubject();
+
+		subject.run(context, 20000, null, ExecutionPhase.START);
+		subject.run(context, 20000, null, ExecutionPhase.START);
+		ArgumentCaptor<EnterContext> commands = ArgumentCaptor.forClass(EnterContext.class);
+		verify(session, Mockito.times(2)).execute(commands.capture());
+		EnterContext first = commands.getAllValues().get(0);
+		EnterContext second = commands.getAllValues().get(1);
+		Assert.assertNotNull(first.getData());
+		Assert.assertNotNull(first.getHash());
+		Assert.assertNull(second.getData());
+		Assert.assertEquals(first.getHash(), second.getHash());
+	}
+
+	@Test(timeout=10000)
+	public void contextIsResentOnCacheMiss() throws CoreException {
+		EclContext eclContext = ContextFactory.eINSTANCE.createEclContext();
+		IContext context = Mockito.mock(IContext.class);
+		when(context.exists()).thenReturn(true);
+		when(context.getModifiedNamedElement()).thenReturn(eclContext);
+		ContextType type = Mockito.mock(ContextType.class);
+		when(context.getType()).thenReturn(type);
+		when(type.getId()).thenReturn("org.eclipse.rcptt.ctx.other");
+		when(type.getMaker()).thenReturn(Mockito.mock(IContextMaker.class));
+		IProcess miss = Mockito.mock(IProcess.class);
+		when(miss.waitFor(anyLong(), any()))
+				.thenReturn(new Status(IStatus.ERROR, "test", ContextCache.MISS_CODE, "Not cached", null));
+		when(session.execute(isA(EnterContext.class))).thenAnswer(invocation -> {
+			EnterContext command = (EnterContext) invocation.getArguments()[0];
+			return command.getData() == null ? miss : process;
+		});
+		BaseAutLaunch subject = createSubject();
+
+		subject.run(context, 20000, null, ExecutionPhase.START);
+		subject.run(context, 20000, null, ExecutionPhase.START);
+		verify(session, Mockito.times(3)).execute(isA(EnterContext.class));
+	}
+
+	@Test(timeout=10000)
+	public void contextIsNotMadeWhileResourceIsUnchanged() throws CoreException {
+		EclContext eclContext = ContextFactory.eINSTANCE.createEclContext();
+		IContext context = Mockito.mock(IContext.class);
+		IResource resource = Mockito.mock(IResource.class);
+		when(resource.getFullPath()).thenReturn(new Path("/project/context.ctx"));
+		when(resource.getModificationStamp()).thenReturn(1L);
+		when(context.exists()).thenReturn(true);
+		when(context.getResource()).thenReturn(resource);
+		when(context.getModifiedNamedElement()).thenReturn(eclContext);
+		ContextType type = Mockito.mock(ContextType.class);
+		IContextMaker maker = Mockito.mock(IContextMaker.class);
+		when(context.getType()).thenReturn(type);
+		when(type.getId()).thenReturn("org.eclipse.rcptt.ctx.other");
+		when(type.getMaker()).thenReturn(maker);
+		when(maker.isSelfContained(context)).thenReturn(true);
+		when(session.execute(isA(EnterContext.class))).thenReturn(process);
+		BaseAutLaunch subject = createSubject();
+
+		subject.run(context, 20000, null, ExecutionPhase.START);
+		subject.run(context, 20000, null, ExecutionPhase.START);
+		verify(maker, Mockito.times(1)).makeExecutable(any(), any());
+		verify(context, Mockito.times(1)).getModifiedNamedElement();
+
+		when(resource.getModificationStamp()).thenReturn(2L);
+		subject.run(context, 20000, null, ExecutionPhase.START);
+		verify(maker, Mockito.times(2)).makeExecutable(any(), any());
+		ArgumentCaptor<EnterContext> commands = ArgumentCaptor.forClass(EnterContext.class);
+		verify(session, Mockito.times(3)).execute(commands.capture());
+		Assert.assertNull(commands.getAllValues().get(1).getData());
+		Assert.assertNull(commands.getAllValues().get(2).getData());
+	}
+
 	@Test(timeout=10000)
 	public void setupPlayerRespectsTimeoutArgument() throws CoreException {
 		Script script = CoreFactory.eINSTANCE.createScript();
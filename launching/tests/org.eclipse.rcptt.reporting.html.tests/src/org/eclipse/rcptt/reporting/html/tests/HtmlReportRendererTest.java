@@ -16,6 +16,8 @@
 import java.text.DecimalFormatSymbols;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.rcptt.internal.core.RcpttPlugin;
@@ -124,6 +126,31 @@ public void testElapsed() {
 				result.contains("ExecutionTime</th><td>4" + separator + "5s"));
 	}
 
+	@Test
+	public void testStreamingReadsReportsOnce() {
+		final List<Report> reports = Arrays.asList(createReport("1", IStatus.ERROR), createReport("2", IStatus.OK),
+				createReport("3", IStatus.CANCEL), createReport("4", IStatus.ERROR));
+		final int[] passes = { 0 };
+		Iterable<Report> counting = new Iterable<Report>() {
+			@Override
+			public Iterator<Report> iterator() {
+				passes[0]++;
+				return reports.iterator();
+			}
+		};
+		String streamed = generate(counting);
+		Assert.assertEquals(1, passes[0]);
+
+		VolatileContentFactory sectioned = new VolatileContentFactory();
+		new HtmlReportRenderer() {
+			@Override
+			protected boolean isStreaming() {
+				return false;
+			}
+		}.generateReport(sectioned, "1", reports);
+		Assert.assertEquals(sectioned.read("1.html"), streamed);
+	}
+
 	// @Test
 	public void renderZip() {
 		Q7ReportIterator iterator = new Q7ReportIterator(new File("C:\\Users\\vasili\\Downloads\\tests.report"));
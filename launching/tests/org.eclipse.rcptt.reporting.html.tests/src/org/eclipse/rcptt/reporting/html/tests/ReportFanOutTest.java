@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * 	Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.reporting.html.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.rcptt.internal.core.RcpttPlugin;
+import org.eclipse.rcptt.reporting.core.ReportHelper;
+import org.eclipse.rcptt.reporting.html.HtmlReportRenderer;
+import org.eclipse.rcptt.reporting.util.JUnitFileReportGenerator;
+import org.eclipse.rcptt.reporting.util.Q7ReportIterator;
+import org.eclipse.rcptt.reporting.util.RcpttFileReportGenerator;
+import org.eclipse.rcptt.reporting.util.ReportFanOut;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.Node;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.Report;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.ReportFactory;
+import org.eclipse.rcptt.sherlock.core.streams.SherlockReportOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReportFanOutTest {
+	private static final int REPORTS = 100;
+
+	private static class CountingIterable implements Iterable<Report> {
+		final List<Report> reports;
+		int passes = 0;
+
+		CountingIterable(List<Report> reports) {
+			this.reports = reports;
+		}
+
+		@Override
+		public Iterator<Report> iterator() {
+			passes++;
+			return reports.iterator();
+		}
+	}
+
+	private static List<Report> createReports() {
+		List<Report> result = new ArrayList<Report>();
+		int[] severities = { IStatus.OK, IStatus.ERROR, IStatus.CANCEL };
+		for (int i = 0; i < REPORTS; i++) {
+			Report report = ReportFactory.eINSTANCE.createReport();
+			Node node = ReportFactory.eINSTANCE.createNode();
+			node.setName("test" + i);
+			node.setStartTime(1000);
+			node.setEndTime(1000 + i);
+			ReportHelper.getInfo(node)
+					.setResult(RcpttPlugin.createProcessStatus(severities[i % severities.length], "Message " + i));
+			report.setRoot(node);
+			result.add(report);
+		}
+		return result;
+	}
+
+	@Test
+	public void testSingleReadForAllRenderers() throws InterruptedException {
+		List<Report> reports = createReports();
+
+		CountingIterable sequential = new CountingIterable(reports);
+		VolatileContentFactory expectedHtml = new VolatileContentFactory();
+		VolatileContentFactory expectedJUnit = new VolatileContentFactory();
+		new HtmlReportRenderer().generateReport(expectedHtml, "report", sequential);
+		new JUnitFileReportGenerator().generateReport(expectedJUnit, "report", sequential);
+
+		CountingIterable shared = new CountingIterable(reports);
+		VolatileContentFactory html = new VolatileContentFactory();
+		VolatileContentFactory junit = new VolatileContentFactory();
+		ReportFanOut fanOut = new ReportFanOut(shared);
+		fanOut.add(new HtmlReportRenderer(), html, "report");
+		fanOut.add(new JUnitFileReportGenerator(), junit, "report");
+		IStatus status = fanOut.run();
+
+		Assert.assertTrue(status.toString(), status.isOK());
+		Assert.assertEquals(shared.passes, fanOut.getPassCount());
+		Assert.assertTrue("Renderers should share reads: " + shared.passes + " of " + sequential.passes,
+				shared.passes < sequential.passes);
+		Assert.assertEquals(expectedJUnit.read("report.junit.xml"), junit.read("report.junit.xml"));
+		Assert.assertEquals(expectedHtml.read("report.html"), html.read("report.html"));
+	}
+
+	@Test
+	public void testRendererFailureDoesNotBlockOthers() throws InterruptedException {
+		CountingIterable shared = new CountingIterable(createReports());
+		VolatileContentFactory junit = new VolatileContentFactory();
+		ReportFanOut fanOut = new ReportFanOut(shared);
+		fanOut.add(new JUnitFileReportGenerator() {
+			@Override
+			public IStatus generateReport(IContentFactory factory, String reportName, Iterable<Report> report) {
+				// Abandons pass after the first report
+				report.iterator().next();
+				throw new IllegalStateException("Broken renderer");
+			}
+		}, new VolatileContentFactory(), "broken");
+		fanOut.add(new JUnitFileReportGenerator(), junit, "report");
+		IStatus status = fanOut.run();
+
+		Assert.assertTrue(status.matches(IStatus.ERROR));
+		Assert.assertTrue(junit.read("report.junit.xml").contains("test" + (REPORTS - 1)));
+	}
+
+	@Test
+	public void testNestedIterationFails() throws InterruptedException {
+		CountingIterable shared = new CountingIterable(createReports());
+		VolatileContentFactory junit = new VolatileContentFactory();
+		ReportFanOut fanOut = new ReportFanOut(shared);
+		fanOut.add(new JUnitFileReportGenerator() {
+			@Override
+			public IStatus generateReport(IContentFactory factory, String reportName, Iterable<Report> report) {
+				Iterator<Report> outer = report.iterator();
+				outer.next();
+				report.iterator();
+				return Status.OK_STATUS;
+			}
+		}, new VolatileContentFactory(), "nested");
+		fanOut.add(new JUnitFileReportGenerator(), junit, "report");
+		IStatus status = fanOut.run();
+
+		Assert.assertTrue(status.matches(IStatus.ERROR));
+		Assert.assertTrue(junit.read("report.junit.xml").contains("test" + (REPORTS - 1)));
+	}
+
+	@Test
+	public void testRcpttRendererCopiesReportFile() throws Exception {
+		File file = File.createTempFile("fanout", ".report");
+		try {
+			try (SherlockReportOutputStream out = new SherlockReportOutputStream(new FileOutputStream(file))) {
+				for (Report report : createReports()) {
+					out.write(report);
+				}
+			}
+			VolatileContentFactory rcptt = new VolatileContentFactory();
+			VolatileContentFactory junit = new VolatileContentFactory();
+			try (Q7ReportIterator reports = new Q7ReportIterator(file)) {
+				ReportFanOut fanOut = new ReportFanOut(reports);
+				fanOut.add(new RcpttFileReportGenerator(), rcptt, "copy");
+				fanOut.add(new JUnitFileReportGenerator(), junit, "report");
+				IStatus status = fanOut.run();
+				Assert.assertTrue(status.toString(), status.isOK());
+			}
+			Assert.assertArrayEquals(Files.readAllBytes(file.toPath()), rcptt.readBytes("copy.report"));
+			Assert.assertTrue(junit.read("report.junit.xml").contains("test" + (REPORTS - 1)));
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ * 	Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.reporting.html.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.rcptt.internal.core.RcpttPlugin;
+import org.eclipse.rcptt.reporting.core.ReportHelper;
+import org.eclipse.rcptt.reporting.util.Q7ReportIterator;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.Node;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.Report;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.ReportFactory;
+import org.eclipse.rcptt.sherlock.core.streams.ReportSummary;
+import org.eclipse.rcptt.sherlock.core.streams.SherlockReportFormat;
+import org.eclipse.rcptt.sherlock.core.streams.SherlockReportOutputStream;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReportIndexTest {
+	private static final int COUNT = 5;
+	private File file;
+
+	@Before
+	public void before() throws IOException {
+		file = File.createTempFile("index", ".report");
+	}
+
+	@After
+	public void after() {
+		file.delete();
+		SherlockReportFormat.getIndexFile(file).delete();
+	}
+
+	private static Report createReport(int i) {
+		Report report = ReportFactory.eINSTANCE.createReport();
+		Node node = ReportFactory.eINSTANCE.createNode();
+		node.setName("test" + i);
+		node.setStartTime(1000);
+		node.setEndTime(1000 + i * 10);
+		ReportHelper.getInfo(node).setId("id" + i);
+		ReportHelper.getInfo(node)
+				.setResult(RcpttPlugin.createProcessStatus(i % 2 == 0 ? IStatus.OK : IStatus.ERROR, "Message"));
+		report.setRoot(node);
+		return report;
+	}
+
+	private void writeIndexedReport() throws IOException {
+		try (SherlockReportOutputStream out = new SherlockReportOutputStream(new FileOutputStream(file), file)) {
+			for (int i = 0; i < COUNT; i++) {
+				out.write(createReport(i));
+			}
+		}
+	}
+
+	private void writeReportWithoutIndex(int first) throws IOException {
+		try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+			for (int i = first; i < first + COUNT; i++) {
+				out.putNextEntry(new ZipEntry(i + "_test.report"));
+				SherlockReportFormat.storeReport(createReport(i), out, false);
+			}
+		}
+	}
+
+	@Test
+	public void testSummaries() throws IOException {
+		writeIndexedReport();
+
+		List<ReportSummary> summaries = SherlockReportFormat.loadSummaries(file);
+		Assert.assertEquals(COUNT, summaries.size());
+		ReportSummary third = summaries.get(3);
+		Assert.assertEquals("test3", third.getName());
+		Assert.assertEquals("id3", third.getId());
+		Assert.assertEquals(IStatus.ERROR, third.getSeverity());
+		Assert.assertEquals(30, third.getDuration());
+
+		// Every zip entry is a report, as older readers expect
+		try (ZipFile zip = new ZipFile(file)) {
+			Assert.assertEquals(COUNT, zip.size());
+		}
+		int count = 0;
+		try (Q7ReportIterator iterator = new Q7ReportIterator(file)) {
+			for (Report next : iterator) {
+				Assert.assertNotNull(next);
+				count++;
+			}
+		}
+		Assert.assertEquals(COUNT, count);
+	}
+
+	@Test
+	public void testSummariesOfReportWithoutIndex() throws IOException {
+		writeReportWithoutIndex(0);
+
+		List<ReportSummary> summaries = SherlockReportFormat.loadSummaries(file);
+		Assert.assertEquals(COUNT, summaries.size());
+		Assert.assertEquals("id4", summaries.get(4).getId());
+		Assert.assertEquals("4_test.report", summaries.get(4).getEntryName());
+	}
+
+	@Test
+	public void testLoadSingleReport() throws IOException {
+		writeIndexedReport();
+
+		ReportSummary third = SherlockReportFormat.loadSummaries(file).get(3);
+		Report report = SherlockReportFormat.loadReport(file, third.getEntryName());
+		Assert.assertEquals("test3", report.getRoot().getName());
+		Assert.assertNull(SherlockReportFormat.loadReport(file, "missing.report"));
+	}
+
+	@Test
+	public void testStaleIndexIsIgnored() throws IOException {
+		writeIndexedReport();
+		long modified = file.lastModified();
+		// Report is replaced by a writer that does not know about index
+		writeReportWithoutIndex(COUNT);
+		file.setLastModified(modified + 2000);
+
+		List<ReportSummary> summaries = SherlockReportFormat.loadSummaries(file);
+		Assert.assertEquals(COUNT, summaries.size());
+		Assert.assertEquals("id" + COUNT, summaries.get(0).getId());
+	}
+
+	@Test
+	public void testCorruptIndexIsIgnored() throws IOException {
+		writeIndexedReport();
+		File index = SherlockReportFormat.getIndexFile(file);
+		byte[] content = Files.readAllBytes(index.toPath());
+		Files.write(index.toPath(), Arrays.copyOf(content, content.length / 2));
+
+		List<ReportSummary> summaries = SherlockReportFormat.loadSummaries(file);
+		Assert.assertEquals(COUNT, summaries.size());
+		Assert.assertEquals("id4", summaries.get(4).getId());
+	}
+}
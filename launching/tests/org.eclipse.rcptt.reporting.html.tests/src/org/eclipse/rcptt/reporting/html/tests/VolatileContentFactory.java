@@ -76,6 +76,10 @@ public void removeFileOrFolder(String name) throws CoreException {
 	}
 
 	public String read(String path) {
-		return new String(data.get(createKey(path)), StandardCharsets.UTF_8);
+		return new String(readBytes(path), StandardCharsets.UTF_8);
+	}
+
+	public byte[] readBytes(String path) {
+		return data.get(createKey(path));
 	}
 }
@@ -45,6 +45,8 @@ enum CommandArg {
 		Runner("The runner platform (SWT or RAP)", "runnerPlatform"),
 		Location("AUT Product location", "aut"), //
 		Count("AUT Instances count", "autCount"), //
+		WarmPool("Spare AUT instances launched in background to replace restarted ones (default 0, ignored with reuseExistingWorkspace)",
+				"autWarmPool"), //
 		RAPPort("RAP AUT Server port", "rapPort"), //
 		RAPServletPath("RAP AUT servlet path", "rapPath"), //
 		RAPOpenBrowserCommand("Start browser command", "browserCmd"), //
@@ -54,6 +56,9 @@ enum CommandArg {
 		Suites("Comma separated testsuite names.", "suites"), //
 		Import("Project to import to AUT workspace", "import"), //
 		Q7Report("File name of q7 report", "q7report"), //
+		TimingReport(
+				"q7 report of a previous run to take test durations from, to start longest tests first (default: q7report)",
+				"timingReport"), //
 		AUTReport("File name of AUT report about initialization issues",
 				"autReport"), //
 		HTMLReport("File name of HTML report", "htmlReport"), //
@@ -124,12 +129,14 @@ public String getMessage() {
 	public final List<File> toImport = new ArrayList<File>();
 	public String location;
 	private String q7ReportLocation = null;
+	public String timingReportLocation = null;
 	private String autReportLocation = null;
 	public String htmlReportLocation = null;
 	public String junitReportLocation = null;
 	public final List<String> toTest = new ArrayList<String>();
 	public final List<String> suites = new ArrayList<String>();
 	public int autCount = 1;
+	public int warmAutCount = 0;
 	public String autWorkspacePrefix;
 	public String[] autArgs;
 	public String[] autVMArgs = new String[0];
@@ -327,6 +334,9 @@ public boolean processArgs(final String[] args) {
 			case Q7Report:
 				q7ReportLocation = i.next();
 				break;
+			case TimingReport:
+				timingReportLocation = i.next();
+				break;
 			case AUTReport:
 				autReportLocation = i.next();
 				break;
@@ -390,6 +400,15 @@ public boolean processArgs(final String[] args) {
 							.info("WARNING: AUT count parameter must be an integer value.");
 				}
 				break;
+			case WarmPool:
+				try {
+					warmAutCount = Integer.parseInt(i.next());
+				} catch (final NumberFormatException e) {
+					HeadlessRunnerPlugin
+							.getDefault()
+							.info("WARNING: AUT warm pool size must be an integer value.");
+				}
+				break;
 			case Limit:
 				try {
 					limit = Integer.parseInt(i.next());
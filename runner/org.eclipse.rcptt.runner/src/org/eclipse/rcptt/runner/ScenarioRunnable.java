@@ -54,6 +54,10 @@ public ScenarioRunnable(ResultsHandler resultsHandler,
 		this.reportWriter = reportWriter;
 	}
 
+	public IQ7NamedElement getScenario() {
+		return scenario;
+	}
+
 	public void run(AutThread worker) throws CoreException, InterruptedException {
 		TestResult result = null;
 		Report report = null;
@@ -20,6 +20,7 @@
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
@@ -28,14 +29,17 @@
 import org.eclipse.jdt.launching.IVMInstall;
 import org.eclipse.jdt.launching.JavaRuntime;
 import org.eclipse.jdt.launching.environments.IExecutionEnvironment;
+import org.eclipse.rcptt.internal.launching.aut.BaseAutLaunch;
 import org.eclipse.rcptt.launching.ext.VmInstallMetaData;
 import org.eclipse.rcptt.runner.HeadlessRunnerPlugin;
 import org.eclipse.rcptt.runner.RunnerConfiguration;
-import org.eclipse.rcptt.runner.ScenarioRunnable;
 
+@SuppressWarnings("restriction")
 public class AUTsManager {
 	final List<AutThread> autThreads = new ArrayList<AutThread>();
 	final AtomicInteger autCounter = new AtomicInteger(0);
+	private final AtomicReference<AutLaunchFail> launchFailure = new AtomicReference<AutLaunchFail>();
+	private volatile WarmAutPool warmPool;
 
 	private final RunnerConfiguration conf;
 	private final TargetPlatformChecker tpc;
@@ -52,35 +56,74 @@ public boolean isClean() {
 		return autThreads.isEmpty();
 	}
 
-	public void launchAutsAndStartTheirThreads(List<ScenarioRunnable> runnables) throws AutLaunchFail {
+	/**
+	 * Starts AUT threads, which launch their AUTs concurrently and start
+	 * tests as soon as their own AUT is up. A thread which fails to launch its
+	 * AUT stops, see {@link #getLaunchFailure()}.
+	 * <p>
+	 * Note that a launch failure no longer aborts the run before any test is
+	 * started: tests go on in the AUTs which are up, and the failure is
+	 * reported only when no AUT thread is left.
+	 */
+	public void launchAutsAndStartTheirThreads(TestQueue runnables) {
 		for (int i = 0; i < conf.autCount; i++) {
 			if (runnables.isEmpty()) {
 				break;
 			}
-
-			AutThread t = new AutThread(runnables, this, conf, tpc);
-			int a = 0;
-			while (true) {
-				try {
-					t.launchAut();
-					break;
-				} catch (RuntimeException e) {
-					if (a > 10)
-						throw new AutLaunchFail("AUT launch failed after 10 tries.", e);
-					System.out
-							.println("Failed to launch AUT:" + e.getMessage());
-					HeadlessRunnerPlugin.getDefault().info(
-							"Failed to launch AUT:" + e.getMessage());
-				}
-				a++;
-			}
-			autThreads.add(t);
+			autThreads.add(new AutThread(runnables, this, conf, tpc));
+		}
+		if (conf.warmAutCount > 0 && conf.reuseExistingWorkspace) {
+			// All AUTs would share one workspace
+			HeadlessRunnerPlugin.getDefault()
+					.info("WARNING: AUT warm pool is disabled because existing workspace is reused.");
+		} else if (conf.warmAutCount > 0 && !autThreads.isEmpty()) {
+			warmPool = new WarmAutPool(this, conf, tpc, conf.warmAutCount);
 		}
 		for (AutThread t : autThreads) {
 			t.start();
 		}
 	}
 
+	void autLaunched(AutThread thread) {
+		// Spares compete with test AUTs for CPU, so they boot after the first one
+		if (warmPool != null) {
+			warmPool.start();
+		}
+	}
+
+	void launchFailed(AutThread thread, AutLaunchFail e) {
+		launchFailure.compareAndSet(null, e);
+		String message = "AUT-" + thread.autId + ":" + e.getMessage() + " Tests go on in other AUTs, if any.";
+		System.out.println(message);
+		HeadlessRunnerPlugin.getDefault().info(message);
+	}
+
+	/**
+	 * @return first AUT launch failure or <code>null</code>
+	 */
+	public AutLaunchFail getLaunchFailure() {
+		return launchFailure.get();
+	}
+
+	/**
+	 * @return running spare AUT or <code>null</code>
+	 */
+	BaseAutLaunch takeWarmAut() {
+		return warmPool == null ? null : warmPool.take();
+	}
+
+	/**
+	 * Shuts down replaced AUT in background.
+	 */
+	void disposeAut(BaseAutLaunch launch) {
+		WarmAutPool pool = warmPool;
+		if (pool != null) {
+			pool.dispose(launch);
+		} else if (launch != null) {
+			AutThread.shutdown(launch, conf.shutdownTimeout);
+		}
+	}
+
 	//
 
 	public void initShutdownHook() {
@@ -135,6 +178,15 @@ void shutdownAUTs() throws CoreException {
 			}
 		}
 		autThreads.clear();
+		WarmAutPool pool = warmPool;
+		warmPool = null;
+		if (pool != null) {
+			try {
+				pool.shutdown();
+			} catch (InterruptedException e) {
+				// Same as above
+			}
+		}
 		if (!status.isOK())
 			throw new CoreException(status);
 	}
@@ -13,7 +13,6 @@
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeoutException;
 
@@ -61,19 +60,22 @@
 @SuppressWarnings("restriction")
 public class AutThread extends Thread {
 
-	public BaseAutLaunch launch;
+	public volatile BaseAutLaunch launch;
 	public final int autId;
 	public int restartId = 0;
 	private String outFilePath;
-	private boolean cancel = false;
-	private final List<ScenarioRunnable> runnables;
+	private volatile boolean cancel = false;
+	/** Monitor of AUT launch in progress, canceled by {@link #cancelLaunch()} */
+	private volatile IProgressMonitor launchMonitor;
+	private volatile boolean launchCanceled = false;
+	private final TestQueue runnables;
 	private ScenarioRunnable currentRunnable = null;
 
 	private final AUTsManager manager;
 	private final RunnerConfiguration conf;
 	private final TargetPlatformChecker tpc;
 
-	public AutThread(List<ScenarioRunnable> r, AUTsManager manager, RunnerConfiguration conf,
+	public AutThread(TestQueue r, AUTsManager manager, RunnerConfiguration conf,
 			TargetPlatformChecker tpc) {
 		super("AUT-Worker-" + manager.autCounter.get());
 		autId = manager.autCounter.getAndIncrement();
@@ -127,17 +129,36 @@ private void checkAut() throws InterruptedException, CoreException {
 		}
 	}
 
+	/**
+	 * Launches own AUT first, so that tests start as soon as this AUT is
+	 * ready, regardless of the other ones.
+	 */
 	@Override
 	public void run() {
 		try {
+			if (launch == null) {
+				try {
+					launchAutWithRetries();
+				} catch (AutLaunchFail e) {
+					manager.launchFailed(this, e);
+					return;
+				}
+				manager.autLaunched(this);
+			}
 			while (!runnables.isEmpty() && !cancel) {
 				checkAut();
 
-				synchronized (runnables) {
-					currentRunnable = runnables.remove(0);
+				currentRunnable = runnables.take(this);
+				if (currentRunnable == null) {
+					// Last tests are being taken by other threads
+					Thread.sleep(10);
+					continue;
 				}
-				if (currentRunnable != null) {
-					currentRunnable.run(this);
+				ScenarioRunnable running = currentRunnable;
+				try {
+					running.run(this);
+				} finally {
+					runnables.completed(running);
 				}
 			}
 		} catch (InterruptedException e) {
@@ -278,6 +299,24 @@ private boolean updateJVM(ILaunchConfigurationWorkingCopy configuration, ITarget
 		return false;
 	}
 
+	void launchAutWithRetries() throws AutLaunchFail {
+		int a = 0;
+		while (true) {
+			try {
+				launchAut();
+				return;
+			} catch (RuntimeException e) {
+				if (launchCanceled)
+					throw new AutLaunchFail("AUT launch canceled.", e);
+				if (a > 10)
+					throw new AutLaunchFail("AUT launch failed after 10 tries.", e);
+				System.out.println("AUT-" + autId + ":" + "Failed to launch AUT:" + e.getMessage());
+				HeadlessRunnerPlugin.getDefault().info("AUT-" + autId + ":" + "Failed to launch AUT:" + e.getMessage());
+			}
+			a++;
+		}
+	}
+
 	void launchAut() {
 		if (restartId != 0) {
 			HeadlessRunnerPlugin.getDefault()
@@ -331,6 +370,10 @@ void launchAut() {
 
 		try {
 			IProgressMonitor monitor = new PrintStreamMonitor("AUT-" + autId + ":" + restartPostfix, logFile2);
+			launchMonitor = monitor;
+			if (launchCanceled) {
+				monitor.setCanceled(true);
+			}
 			ILaunchConfiguration savedConfig = createAUTLaunchConfiguration(autWorkspace, restartId);
 			Aut aut = AutManager.INSTANCE.getByLaunch(savedConfig);
 			if (aut == null) {
@@ -360,10 +403,41 @@ void launchAut() {
 		}
 	}
 
+	/**
+	 * Cancels AUT launch in progress and further retries. AUT process being
+	 * launched is terminated.
+	 */
+	void cancelLaunch() {
+		launchCanceled = true;
+		IProgressMonitor monitor = launchMonitor;
+		if (monitor != null) {
+			monitor.setCanceled(true);
+		}
+	}
+
 	private String getAutWorkspace(String restartPostfix) {
 		return conf.reuseExistingWorkspace ? conf.autWorkspacePrefix : conf.autWorkspacePrefix + autId + restartPostfix;
 	}
 
+	/**
+	 * Shuts down an AUT which is no longer used by any thread, logging
+	 * failures.
+	 */
+	static void shutdown(BaseAutLaunch launch, int timeout) {
+		try {
+			try {
+				launch.gracefulShutdown(timeout);
+			} catch (TimeoutException e) {
+				launch.terminate();
+			}
+		} catch (CoreException e) {
+			HeadlessRunnerPlugin.log(e.getStatus());
+		} catch (InterruptedException e) {
+			launch.terminate();
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	public void shutdown() throws CoreException, InterruptedException {
 		if (launch != null) {
 			System.out.printf("Initiating shutdown. AUT is currently %s\n", launch.getLaunch().isTerminated() ? "terminated" : "running");
@@ -395,7 +469,22 @@ private static ILaunchConfigurationWorkingCopy createLaunchConfiguration(ITarget
 		return config;
 	}
 
+	/**
+	 * Replaces AUT with a pre-launched one if there is a ready one in the
+	 * warm pool, shutting the old AUT down in background. Otherwise the AUT is
+	 * shut down and launched again by this thread.
+	 */
 	public void restart() throws CoreException, InterruptedException {
+		BaseAutLaunch warm = manager.takeWarmAut();
+		if (warm != null) {
+			BaseAutLaunch old = launch;
+			launch = warm;
+			restartId++;
+			manager.disposeAut(old);
+			HeadlessRunnerPlugin.getDefault().info("AUT-" + autId + ":" + "Switched to a pre-launched AUT");
+			System.out.println("AUT-" + autId + ":" + "Switched to a pre-launched AUT");
+			return;
+		}
 		shutdown();
 		restartId++;
 		launchAut();
@@ -407,9 +496,7 @@ public void restart() throws CoreException, InterruptedException {
 	 */
 	void retry() {
 		if (currentRunnable != null) {
-			synchronized (runnables) {
-				runnables.add(0, currentRunnable);
-			}
+			runnables.retry(currentRunnable);
 			currentRunnable = null;
 		}
 	}
@@ -20,6 +20,7 @@
 import org.eclipse.rcptt.reporting.util.FileContentFactory;
 import org.eclipse.rcptt.reporting.util.JUnitFileReportGenerator;
 import org.eclipse.rcptt.reporting.util.Q7ReportIterator;
+import org.eclipse.rcptt.reporting.util.ReportFanOut;
 import org.eclipse.rcptt.runner.HeadlessRunner;
 import org.eclipse.rcptt.runner.HeadlessRunnerPlugin;
 import org.eclipse.rcptt.runner.RunnerConfiguration;
@@ -33,24 +34,40 @@ public void report(Q7ReportIterator reportIterator, HeadlessRunner caller,
 			RunnerConfiguration conf) {
 
 		if (reportIterator != null) {
+			// All renderers are fed by a single read of the report
+			ReportFanOut fanOut = new ReportFanOut(reportIterator);
 			if (conf.htmlReportLocation != null) {
 				if (conf.splitHTMLReport) {
-					createReport(HtmlReporter.class, reportIterator,
-							conf.htmlReportLocation);
+					addReport(fanOut, HtmlReporter.class, conf.htmlReportLocation);
 				} else {
-					createReport(HtmlReportRenderer.class, reportIterator,
-							conf.htmlReportLocation);
+					addReport(fanOut, HtmlReportRenderer.class, conf.htmlReportLocation);
 				}
 			}
 			if (conf.junitReportLocation != null) {
-				createReport(JUnitFileReportGenerator.class, reportIterator,
+				addReport(fanOut, JUnitFileReportGenerator.class,
 						conf.junitReportLocation);
 			}
 			if (conf.report != null) {
 				IPath filePath = new Path(conf.report.path);
-				conf.report.renderer.getRenderer().generateReport(
+				fanOut.add(conf.report.renderer.getRenderer(),
 						new FileContentFactory(filePath.removeLastSegments(1)),
-						noExt(filePath.lastSegment()), reportIterator);
+						noExt(filePath.lastSegment()));
+			}
+			try {
+				long start = System.currentTimeMillis();
+				IStatus status = fanOut.run();
+				for (IStatus child : status.getChildren()) {
+					if (child.matches(IStatus.ERROR)) {
+						HeadlessRunnerPlugin.getDefault().getLog().log(child);
+					}
+				}
+				HeadlessRunnerPlugin.getDefault().info(
+						String.format("Reports generated in %d ms, %d pass(es) over %s",
+								System.currentTimeMillis() - start, fanOut.getPassCount(),
+								reportIterator.getReportFile()));
+			} catch (InterruptedException e) {
+				log("Report generation interrupted", e);
+				Thread.currentThread().interrupt();
 			}
 		}
 
@@ -77,6 +94,20 @@ public void createReport(Class<? extends IReportRenderer> rendererClass,
 		createReport(renderer, report, outFile);
 	}
 
+	private void addReport(ReportFanOut fanOut,
+			Class<? extends IReportRenderer> rendererClass, String outFile) {
+		IReportRenderer renderer;
+		try {
+			renderer = rendererClass.getDeclaredConstructor().newInstance();
+		} catch (Exception e) {
+			log("Error creating renderer", e);
+			return;
+		}
+		IPath filePath = Path.fromOSString(outFile);
+		fanOut.add(renderer, new FileContentFactory(filePath.removeLastSegments(1)),
+				noExt(filePath.lastSegment()));
+	}
+
 	public void createReport(IReportRenderer renderer, Q7ReportIterator report,
 			String outFile) {
 		IPath filePath = Path.fromOSString(outFile);
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.runner.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.rcptt.core.model.IQ7NamedElement;
+import org.eclipse.rcptt.core.model.ITestCase;
+import org.eclipse.rcptt.core.model.ModelException;
+import org.eclipse.rcptt.runner.ScenarioRunnable;
+
+/**
+ * Tests waiting for an AUT, longest first by durations of a previous run.
+ * Tests without history are estimated by the median of known durations, so
+ * without any history the suite order is kept.
+ * <p>
+ * An AUT prefers a test of the same suite and contexts as its previous one,
+ * unless it is much shorter than the longest pending test, since AUT state
+ * left by a similar test makes its contexts cheaper to apply.
+ */
+public final class TestQueue {
+	/** Affine test is taken if it is at least this part of the longest one */
+	private static final double AFFINITY_THRESHOLD = 0.5;
+
+	private static final class Entry {
+		final ScenarioRunnable runnable;
+		final long estimate;
+		final int order;
+		final String affinity;
+
+		Entry(ScenarioRunnable runnable, long estimate, int order, String affinity) {
+			this.runnable = runnable;
+			this.estimate = estimate;
+			this.order = order;
+			this.affinity = affinity;
+		}
+	}
+
+	private static final Comparator<Entry> LONGEST_FIRST = new Comparator<Entry>() {
+		public int compare(Entry o1, Entry o2) {
+			int result = Long.compare(o2.estimate, o1.estimate);
+			return result != 0 ? result : Integer.compare(o1.order, o2.order);
+		}
+	};
+
+	private final ConcurrentSkipListSet<Entry> pending = new ConcurrentSkipListSet<Entry>(LONGEST_FIRST);
+	/** Tests to be run again, ahead of others */
+	private final ConcurrentLinkedDeque<ScenarioRunnable> retries = new ConcurrentLinkedDeque<ScenarioRunnable>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final Map<Object, String> workerAffinity = new ConcurrentHashMap<Object, String>();
+	private final Map<ScenarioRunnable, String> affinities = new ConcurrentHashMap<ScenarioRunnable, String>();
+
+	private final int known;
+	private final long predictedMakespan;
+	private final AtomicLong firstTaken = new AtomicLong();
+	private final AtomicLong lastCompleted = new AtomicLong();
+
+	/**
+	 * @param runnables
+	 *            tests in suite order
+	 * @param workers
+	 *            number of AUTs to predict makespan for
+	 */
+	public TestQueue(List<ScenarioRunnable> runnables, TestTimings timings, int workers) {
+		long[] durations = new long[runnables.size()];
+		List<Long> knownDurations = new ArrayList<Long>();
+		for (int i = 0; i < durations.length; i++) {
+			IQ7NamedElement scenario = runnables.get(i).getScenario();
+			durations[i] = timings.get(getId(scenario), getName(scenario));
+			if (durations[i] >= 0) {
+				knownDurations.add(durations[i]);
+			}
+		}
+		known = knownDurations.size();
+		Collections.sort(knownDurations);
+		long median = knownDurations.isEmpty() ? 0 : knownDurations.get(knownDurations.size() / 2);
+		long[] estimates = new long[durations.length];
+		for (int i = 0; i < durations.length; i++) {
+			ScenarioRunnable runnable = runnables.get(i);
+			estimates[i] = durations[i] >= 0 ? durations[i] : median;
+			String affinity = getAffinity(runnable);
+			affinities.put(runnable, affinity);
+			pending.add(new Entry(runnable, estimates[i], i, affinity));
+		}
+		size.set(durations.length);
+		predictedMakespan = known == 0 ? -1 : predictMakespan(estimates, workers);
+	}
+
+	public static TestQueue empty() {
+		return new TestQueue(Collections.<ScenarioRunnable> emptyList(), TestTimings.empty(), 1);
+	}
+
+	private static String getId(IQ7NamedElement scenario) {
+		try {
+			return scenario.getID();
+		} catch (ModelException e) {
+			return null;
+		}
+	}
+
+	private static String getName(IQ7NamedElement scenario) {
+		try {
+			return scenario.getElementName();
+		} catch (ModelException e) {
+			return scenario.getName();
+		}
+	}
+
+	private static String getAffinity(ScenarioRunnable runnable) {
+		StringBuilder result = new StringBuilder();
+		if (runnable.suite.getProject() != null) {
+			result.append(runnable.suite.getProject().getName());
+		}
+		if (runnable.getScenario() instanceof ITestCase) {
+			try {
+				String[] contexts = ((ITestCase) runnable.getScenario()).getContexts();
+				if (contexts != null) {
+					contexts = contexts.clone();
+					Arrays.sort(contexts);
+					for (String context : contexts) {
+						result.append(':').append(context);
+					}
+				}
+			} catch (ModelException e) {
+				// No affinity by contexts
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Greedy list scheduling of tests sorted longest first, each on the least
+	 * loaded AUT. Affinity is not taken into account.
+	 */
+	private static long predictMakespan(long[] estimates, int workers) {
+		long[] sorted = estimates.clone();
+		Arrays.sort(sorted);
+		PriorityQueue<Long> loads = new PriorityQueue<Long>();
+		for (int i = 0; i < Math.max(1, workers); i++) {
+			loads.add(0L);
+		}
+		for (int i = sorted.length - 1; i >= 0; i--) {
+			loads.add(loads.poll() + sorted[i]);
+		}
+		long result = 0;
+		for (long load : loads) {
+			result = Math.max(result, load);
+		}
+		return result;
+	}
+
+	/**
+	 * @return next test for the worker or <code>null</code> if queue is empty
+	 */
+	public ScenarioRunnable take(Object worker) {
+		firstTaken.compareAndSet(0, System.currentTimeMillis());
+		ScenarioRunnable result = retries.pollFirst();
+		if (result == null) {
+			Entry entry = takeEntry(workerAffinity.get(worker));
+			if (entry == null) {
+				return null;
+			}
+			result = entry.runnable;
+		}
+		size.decrementAndGet();
+		String affinity = affinities.get(result);
+		if (affinity != null) {
+			workerAffinity.put(worker, affinity);
+		}
+		return result;
+	}
+
+	/**
+	 * Chooses a test without removing others, so that a concurrent take never
+	 * sees the queue empty while tests are pending.
+	 */
+	private Entry takeEntry(String affinity) {
+		while (true) {
+			Iterator<Entry> entries = pending.iterator();
+			if (!entries.hasNext()) {
+				return null;
+			}
+			Entry longest = entries.next();
+			Entry chosen = longest;
+			if (affinity != null && !affinity.equals(longest.affinity)) {
+				while (entries.hasNext()) {
+					Entry entry = entries.next();
+					if (entry.estimate < longest.estimate * AFFINITY_THRESHOLD) {
+						break;
+					}
+					if (affinity.equals(entry.affinity)) {
+						chosen = entry;
+						break;
+					}
+				}
+			}
+			if (pending.remove(chosen)) {
+				return chosen;
+			}
+			// Taken by another worker meanwhile
+		}
+	}
+
+	/**
+	 * Puts a test back to be taken first.
+	 */
+	public void retry(ScenarioRunnable runnable) {
+		retries.addFirst(runnable);
+		size.incrementAndGet();
+	}
+
+	/**
+	 * Records completion of a taken test.
+	 */
+	public void completed(ScenarioRunnable runnable) {
+		lastCompleted.set(System.currentTimeMillis());
+	}
+
+	public boolean isEmpty() {
+		return size.get() <= 0;
+	}
+
+	public int size() {
+		return Math.max(0, size.get());
+	}
+
+	/**
+	 * Removes and returns all pending tests.
+	 */
+	public List<ScenarioRunnable> drain() {
+		List<ScenarioRunnable> result = new ArrayList<ScenarioRunnable>();
+		ScenarioRunnable runnable;
+		while ((runnable = retries.pollFirst()) != null) {
+			result.add(runnable);
+			size.decrementAndGet();
+		}
+		Entry entry;
+		while ((entry = pending.pollFirst()) != null) {
+			result.add(entry.runnable);
+			size.decrementAndGet();
+		}
+		return result;
+	}
+
+	/**
+	 * @return predicted and actual time between the first test start and the
+	 *         last test end
+	 */
+	public String getMakespanSummary() {
+		long actual = firstTaken.get() == 0 || lastCompleted.get() == 0 ? 0 : lastCompleted.get() - firstTaken.get();
+		if (predictedMakespan < 0) {
+			return String.format("Test makespan: %.1f s, no timings of a previous run", actual / 1000.);
+		}
+		return String.format("Test makespan: predicted %.1f s (%d of %d tests timed by a previous run), actual %.1f s",
+				predictedMakespan / 1000., known, affinities.size(), actual / 1000.);
+	}
+}
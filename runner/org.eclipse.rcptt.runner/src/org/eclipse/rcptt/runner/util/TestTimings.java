@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.runner.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.rcptt.runner.HeadlessRunnerPlugin;
+import org.eclipse.rcptt.sherlock.core.streams.ReportSummary;
+import org.eclipse.rcptt.sherlock.core.streams.SherlockReportFormat;
+
+/**
+ * Test durations of a previous run, taken from start and end times of report
+ * roots in the index file of its q7.report.
+ */
+public final class TestTimings {
+	private final Map<String, Long> byId = new HashMap<String, Long>();
+	private final Map<String, Long> byName = new HashMap<String, Long>();
+
+	private TestTimings() {
+	}
+
+	public static TestTimings empty() {
+		return new TestTimings();
+	}
+
+	/**
+	 * Reads durations from a report index. Missing or unreadable report gives
+	 * no timings.
+	 */
+	public static TestTimings read(File report) {
+		TestTimings result = new TestTimings();
+		if (report == null || !report.isFile() || report.length() == 0) {
+			return result;
+		}
+		try {
+			for (ReportSummary summary : SherlockReportFormat.loadSummaries(report)) {
+				result.add(summary);
+			}
+		} catch (IOException | RuntimeException e) {
+			HeadlessRunnerPlugin.getDefault().info("Failed to read test timings from " + report, e);
+		}
+		return result;
+	}
+
+	private void add(ReportSummary summary) {
+		long duration = summary.getDuration();
+		if (duration <= 0) {
+			// Skipped or generated report
+			return;
+		}
+		if (summary.getId() != null) {
+			byId.put(summary.getId(), duration);
+		}
+		if (summary.getName() != null) {
+			byName.put(summary.getName(), duration);
+		}
+	}
+
+	/**
+	 * @return duration in milliseconds or -1 if unknown
+	 */
+	public long get(String id, String name) {
+		Long result = id == null ? null : byId.get(id);
+		if (result == null && name != null) {
+			result = byName.get(name);
+		}
+		return result == null ? -1 : result;
+	}
+
+	public boolean isEmpty() {
+		return byId.isEmpty() && byName.isEmpty();
+	}
+
+	public int size() {
+		return Math.max(byId.size(), byName.size());
+	}
+}
@@ -18,13 +18,21 @@
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IWorkspace;
@@ -98,36 +106,78 @@ public Q7ReportIterator findAndRunTests() throws CoreException, AutLaunchFail, I
 		return runTests(tests);
 	}
 
-	private static List<String> buildTestNamePatterns(List<String> globs) {
-		List<String> result = new ArrayList<String>();
+	private static List<Pattern> buildTestNamePatterns(List<String> globs) {
+		List<Pattern> result = new ArrayList<Pattern>();
 		for (String glob : globs) {
-			result.add(globToRegex(glob));
+			result.add(Pattern.compile(globToRegex(glob)));
 		}
 		return result;
 	}
 
-	private static boolean matches(String name, List<String> patterns) {
+	private static boolean matches(String name, List<Pattern> patterns) {
 		if (patterns.isEmpty()) {
 			return true;
 		}
 
-		for (String pattern : patterns) {
-			if (name.matches(pattern)) {
+		for (Pattern pattern : patterns) {
+			if (pattern.matcher(name).matches()) {
 				return true;
 			}
 		}
 		return false;
 	}
 
+	/** Outcome of checking a single test case found in workspace */
+	private static final class Candidate {
+		final ITestCase testCase;
+		String skippedBy;
+		boolean skipped;
+		boolean matched;
+		boolean intact;
+
+		Candidate(ITestCase testCase) {
+			this.testCase = testCase;
+		}
+	}
+
+	/**
+	 * Results of integrity checks of test cases and contexts by path, shared
+	 * by all test cases, so that a context used by many tests is resolved
+	 * once.
+	 */
+	private static final class IntegrityCache {
+		final Map<String, Boolean> results = new ConcurrentHashMap<String, Boolean>();
+		final AtomicInteger hits = new AtomicInteger();
+	}
+
+	/**
+	 * State of integrity check of a single test case. An element reached
+	 * again through a cycle of contexts is assumed intact, so results of
+	 * elements which depend on such an assumption are not cached until the
+	 * element which started the cycle is complete.
+	 */
+	private static final class IntegrityCheck {
+		/** Elements being checked, by depth */
+		final Map<String, Integer> inProgress = new HashMap<String, Integer>();
+		/** Lowest depth of an element in progress reached again */
+		int lowestCycle = Integer.MAX_VALUE;
+	}
+
 	private TestSuite[] findScenarios() throws CoreException, InterruptedException {
-		final List<String> testNamePatterns = buildTestNamePatterns(conf.toTest);
+		final List<Pattern> testNamePatterns = buildTestNamePatterns(conf.toTest);
+		if (!testNamePatterns.isEmpty()) {
+			System.out.println("Test name filters: " + testNamePatterns);
+		}
+		long start = System.nanoTime();
 		IWorkspace workspace = ResourcesPlugin.getWorkspace();
 		IWorkspaceDescription descrition = workspace.getDescription();
 		descrition.setAutoBuilding(false);
 		workspace.setDescription(descrition);
 		ProjectUtil.importProjects(conf.toImport, System.out);
+		long imported = System.nanoTime();
 		new MigrateProjectsJob(ResourcesPlugin.getWorkspace().getRoot())
 				.runSync();
+		long migrated = System.nanoTime();
 		IProject[] projects;
 		try {
 			projects = ProjectUtil.projects();
@@ -157,6 +207,7 @@ private TestSuite[] findScenarios() throws CoreException, InterruptedException {
 				e.rethrowUnchecked();
 				throw e;
 			}
+			long collected = System.nanoTime();
 			IWorkspaceFinder finder = WorkspaceFinder.getInstance();
 			if (collector instanceof TestSuiteElementCollector ts) {
 				Set<String> absent = ts.getAbsentSuites();
@@ -165,30 +216,30 @@ private TestSuite[] findScenarios() throws CoreException, InterruptedException {
 				}
 			}
 			
-			Map<IQ7Project, TestSuite> result = new HashMap<>();
+			List<Candidate> candidates = new ArrayList<Candidate>();
 			for (IQ7NamedElement element : collector.getElements()) {
-				if (!(element instanceof ITestCase)) {
-					continue;
+				if (element instanceof ITestCase) {
+					candidates.add(new Candidate((ITestCase) element));
 				}
-				ITestCase tcase = (ITestCase) element;
-				if (isSkipExecuton(tcase)) {
-					String tags = tcase.getTags();
-					String skipBy = null;
-					for (String s : conf.tagsToSkip) {
-						if (tags.contains(s)) {
-							skipBy = s;
-						}
-					}
+			}
+			IntegrityCache integrity = new IntegrityCache();
+			checkCandidates(candidates, testNamePatterns, finder, integrity);
+			long checked = System.nanoTime();
+
+			Map<IQ7Project, TestSuite> result = new HashMap<>();
+			for (Candidate candidate : candidates) {
+				ITestCase tcase = candidate.testCase;
+				if (candidate.skipped) {
 					System.out.println("-- Testcase is skipped by tag \""
-							+ skipBy + "\" -- " + tcase.getName());
+							+ candidate.skippedBy + "\" -- " + tcase.getName());
 					continue;
 				}
 
-				if (!matches(tcase.getName(), testNamePatterns)) {
+				if (!candidate.matched) {
 					continue;
 				}
 
-				if (!ensureIntegrity(tcase, finder, new HashSet<String>())) {
+				if (!candidate.intact) {
 					throw new CoreException(Status.error(tcase.getPath() + " is malformed"));
 				}
 				
@@ -200,6 +251,12 @@ private TestSuite[] findScenarios() throws CoreException, InterruptedException {
 				result.values().forEach(TestSuite::sort);
 			}
 
+			System.out.println(String.format(
+					"Test discovery (ms): import %d, migrate %d, collect %d, check %d; "
+							+ "%d test cases, %d integrity checks, %d reused",
+					millis(imported - start), millis(migrated - imported), millis(collected - migrated),
+					millis(checked - collected), candidates.size(), integrity.results.size(),
+					integrity.hits.get()));
 			if (result.isEmpty()) {
 				System.out.println(String.format("No tests found"));
 			} else {
@@ -208,6 +265,68 @@ private TestSuite[] findScenarios() throws CoreException, InterruptedException {
 		return result.values().toArray(new TestSuite[0]);
 	}
 
+	private static long millis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	/**
+	 * Reads, filters and checks integrity of test cases in parallel. Reading a
+	 * test case parses its resource, which dominates discovery time.
+	 */
+	private void checkCandidates(List<Candidate> candidates, final List<Pattern> testNamePatterns,
+			final IWorkspaceFinder finder, final IntegrityCache integrity)
+			throws CoreException, InterruptedException {
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(candidates.size());
+		for (final Candidate candidate : candidates) {
+			tasks.add(() -> {
+				checkCandidate(candidate, testNamePatterns, finder, integrity);
+				return null;
+			});
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), candidates.size())));
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof RuntimeException runtime) {
+						throw runtime;
+					}
+					if (cause instanceof Error error) {
+						throw error;
+					}
+					if (cause instanceof CoreException core) {
+						throw core;
+					}
+					throw new CoreException(Status.error("Failed to check test cases", cause));
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void checkCandidate(Candidate candidate, List<Pattern> testNamePatterns, IWorkspaceFinder finder,
+			IntegrityCache integrity) throws ModelException {
+		ITestCase tcase = candidate.testCase;
+		if (isSkipExecuton(tcase)) {
+			candidate.skipped = true;
+			String tags = tcase.getTags();
+			for (String s : conf.tagsToSkip) {
+				if (tags.contains(s)) {
+					candidate.skippedBy = s;
+				}
+			}
+			return;
+		}
+		candidate.matched = matches(tcase.getName(), testNamePatterns);
+		if (candidate.matched) {
+			candidate.intact = ensureIntegrity(tcase, finder, new IntegrityCheck(), integrity);
+		}
+	}
+
 	private boolean isSkipExecuton(ITestCase testCase) {
 		try {
 			return TagsUtil.hasAny(testCase, conf.tagsToSkip);
@@ -220,10 +339,40 @@ private boolean isSkipExecuton(ITestCase testCase) {
 	}
 
 	private boolean ensureIntegrity(IQ7NamedElement tcase,
-			IWorkspaceFinder finder, Set<String> processedIds) {
-		if (!processedIds.add(tcase.getPath().toString())) {
-			return true;// Already processed
+			IWorkspaceFinder finder, IntegrityCheck check, IntegrityCache cache) {
+		String path = tcase.getPath().toString();
+		Boolean known = cache.results.get(path);
+		if (known != null) {
+			cache.hits.incrementAndGet();
+			return known;
+		}
+		Integer cycle = check.inProgress.get(path);
+		if (cycle != null) {
+			check.lowestCycle = Math.min(check.lowestCycle, cycle);
+			return true;// Decided by the element in progress
+		}
+		int depth = check.inProgress.size();
+		int outerCycle = check.lowestCycle;
+		check.inProgress.put(path, depth);
+		check.lowestCycle = Integer.MAX_VALUE;
+		boolean result;
+		try {
+			result = checkIntegrity(tcase, finder, check, cache);
+		} finally {
+			check.inProgress.remove(path);
 		}
+		// Failure never comes from an assumption, success is final once
+		// no element above this one was assumed intact
+		boolean complete = check.lowestCycle >= depth;
+		if (!result || complete) {
+			cache.results.put(path, result);
+		}
+		check.lowestCycle = complete ? outerCycle : Math.min(outerCycle, check.lowestCycle);
+		return result;
+	}
+
+	private boolean checkIntegrity(IQ7NamedElement tcase,
+			IWorkspaceFinder finder, IntegrityCheck check, IntegrityCache cache) {
 		IContext[] contexts = RcpttCore.getInstance().getContexts(tcase, finder, false);
 		List<String> unresolved = new ArrayList<String>();
 		for (IContext ctx : contexts) {
@@ -241,7 +390,7 @@ private boolean ensureIntegrity(IQ7NamedElement tcase,
 					return false;
 				}
 			} else {
-				if (!ensureIntegrity(ctx, finder, processedIds)) {
+				if (!ensureIntegrity(ctx, finder, check, cache)) {
 					return false;
 				}
 			}
@@ -267,21 +416,28 @@ private boolean ensureIntegrity(IQ7NamedElement tcase,
 
 	private Q7ReportIterator runTests(final TestSuite[] tests) throws DebugException, AutLaunchFail {
 		Assert.isTrue(auts.isClean(), "AUTs manages should not have been used before");
-		List<ScenarioRunnable> runnables = Collections.synchronizedList(new ArrayList<ScenarioRunnable>());
+		TestQueue runnables = TestQueue.empty();
 		failedCount = 0;
 		File reportFile = new File(conf.getQ7ReportLocation());
+		// Read before report file is overwritten
+		TestTimings timings = TestTimings.read(
+				conf.timingReportLocation != null ? new File(conf.timingReportLocation) : reportFile);
+		if (!timings.isEmpty()) {
+			System.out.println("Test timings of a previous run: " + timings.size());
+		}
 
 		createFolderForFile(reportFile);
 
 		Set<String> failed = new HashSet<String>();
 		try (SherlockReportOutputStream reportWriter = new SherlockReportOutputStream(
-					new BufferedOutputStream(new FileOutputStream(reportFile)))) {
+					new BufferedOutputStream(new FileOutputStream(reportFile)), reportFile)) {
 			int count = 0;
 			for (final TestSuite suite : tests) {
 				suite.setLimit(conf.limit);
 				count += suite.getScenarios().size();
 			}
 			int artifacts = 0;
+			List<ScenarioRunnable> scenarios = new ArrayList<ScenarioRunnable>();
 			for (final TestSuite suite : tests) {
 				for (final IQ7NamedElement scenario : suite.getScenarios()) {
 					ScenarioRunnable runnable = new ScenarioRunnable(
@@ -289,10 +445,11 @@ private Q7ReportIterator runTests(final TestSuite[] tests) throws DebugException
 									+ Integer.valueOf(artifacts) + " from "
 									+ Integer.valueOf(count) + ")",
 							reportWriter);
-					runnables.add(runnable);
+					scenarios.add(runnable);
 					artifacts++;
 				}
 			}
+			runnables = new TestQueue(scenarios, timings, conf.autCount);
 			System.out.println("Testcase Artifacts:" + artifacts);
 
 			List<Q7TestCase> testCases = new ArrayList<Q7TestCase>();
@@ -359,7 +516,9 @@ private Q7ReportIterator runTests(final TestSuite[] tests) throws DebugException
 				if (!alive) {
 					// No alive threads -> finish
 					if (!runnables.isEmpty()) {
-						error.compareAndSet(null, new AutLaunchFail("AUT is not available", null));
+						AutLaunchFail launchFailure = auts.getLaunchFailure();
+						error.compareAndSet(null,
+								launchFailure != null ? launchFailure : new AutLaunchFail("AUT is not available", null));
 					}
 					skipRemaining(runnables, "AUT is not available");
 					break;
@@ -368,6 +527,10 @@ private Q7ReportIterator runTests(final TestSuite[] tests) throws DebugException
 				Thread.sleep(100);
 			}
 
+			String makespan = runnables.getMakespanSummary();
+			System.out.println(makespan);
+			HeadlessRunnerPlugin.getDefault().info(makespan);
+
 			if (failed.size() > 0) {
 				System.out.println("Failed Tests:");
 				for (String scenario : failed) {
@@ -407,14 +570,14 @@ private Q7ReportIterator runTests(final TestSuite[] tests) throws DebugException
 	 * @param message
 	 * @throws CoreException
 	 */
-	private void skipRemaining(List<ScenarioRunnable> runnables, String message) {
-		if (runnables.size() > 0) {
+	private void skipRemaining(TestQueue runnables, String message) {
+		List<ScenarioRunnable> remaining = runnables.drain();
+		if (remaining.size() > 0) {
 			System.out.println("Skip remaining: " + message);
 			HeadlessRunnerPlugin.getDefault().info("Skip remaining: " + message);
-			for (ScenarioRunnable runnable : runnables) {
+			for (ScenarioRunnable runnable : remaining) {
 				runnable.skip(message, true);
 			}
-			runnables.clear();
 		}
 	}
 
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.runner.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.rcptt.internal.launching.aut.BaseAutLaunch;
+import org.eclipse.rcptt.launching.AutLaunchState;
+import org.eclipse.rcptt.runner.HeadlessRunnerPlugin;
+import org.eclipse.rcptt.runner.RunnerConfiguration;
+
+/**
+ * Spare AUTs launched in background. When an {@link AutThread} has to restart
+ * its AUT, it takes a running one from the pool, and the old AUT is shut down
+ * and a replacement is launched in background, so the worker does not wait
+ * for an Eclipse boot.
+ * <p>
+ * Spares are launched by {@link AutThread}s which are never started, so they
+ * get workspaces and console logs of their own.
+ */
+@SuppressWarnings("restriction")
+final class WarmAutPool {
+	private final AUTsManager manager;
+	private final RunnerConfiguration conf;
+	private final TargetPlatformChecker tpc;
+	private final int size;
+	private final LinkedBlockingQueue<BaseAutLaunch> ready = new LinkedBlockingQueue<BaseAutLaunch>();
+	private final ExecutorService launcher = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "AUT-Warm-Pool");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/** Guarded by this */
+	private final Set<AutThread> launching = new HashSet<AutThread>();
+	private final AtomicBoolean started = new AtomicBoolean(false);
+	private volatile boolean closed = false;
+
+	WarmAutPool(AUTsManager manager, RunnerConfiguration conf, TargetPlatformChecker tpc, int size) {
+		this.manager = manager;
+		this.conf = conf;
+		this.tpc = tpc;
+		this.size = size;
+	}
+
+	/**
+	 * Starts launching spares. Only the first call has effect.
+	 */
+	void start() {
+		if (started.compareAndSet(false, true)) {
+			for (int i = 0; i < size; i++) {
+				launchSpare();
+			}
+		}
+	}
+
+	private void launchSpare() {
+		if (closed) {
+			return;
+		}
+		launcher.execute(() -> {
+			AutThread spare = new AutThread(TestQueue.empty(), manager, conf, tpc);
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				launching.add(spare);
+			}
+			try {
+				spare.launchAutWithRetries();
+			} catch (AutLaunchFail e) {
+				if (!closed) {
+					HeadlessRunnerPlugin.getDefault().info("Failed to launch spare AUT: " + e.getMessage(), e);
+				}
+				return;
+			} finally {
+				synchronized (this) {
+					launching.remove(spare);
+				}
+			}
+			synchronized (this) {
+				if (!closed) {
+					ready.add(spare.launch);
+					return;
+				}
+			}
+			AutThread.shutdown(spare.launch, conf.shutdownTimeout);
+		});
+	}
+
+	/**
+	 * @return running AUT or <code>null</code> if none is ready yet. A
+	 *         replacement is launched for every taken AUT.
+	 */
+	BaseAutLaunch take() {
+		BaseAutLaunch launch;
+		while ((launch = ready.poll()) != null) {
+			launchSpare();
+			if (AutLaunchState.ACTIVE.equals(launch.getState())) {
+				return launch;
+			}
+			dispose(launch);
+		}
+		return null;
+	}
+
+	/**
+	 * Shuts down an AUT in background.
+	 */
+	void dispose(final BaseAutLaunch launch) {
+		if (launch == null) {
+			return;
+		}
+		try {
+			launcher.execute(() -> AutThread.shutdown(launch, conf.shutdownTimeout));
+		} catch (RuntimeException e) {
+			// Pool is closed already
+			AutThread.shutdown(launch, conf.shutdownTimeout);
+		}
+	}
+
+	/**
+	 * Shuts down spare AUTs. Launches in progress are canceled, which
+	 * terminates their processes, and waited for.
+	 */
+	void shutdown() throws InterruptedException {
+		List<BaseAutLaunch> spares = new ArrayList<BaseAutLaunch>();
+		List<AutThread> canceled;
+		synchronized (this) {
+			closed = true;
+			ready.drainTo(spares);
+			canceled = new ArrayList<AutThread>(launching);
+		}
+		for (AutThread spare : canceled) {
+			spare.cancelLaunch();
+		}
+		for (BaseAutLaunch spare : spares) {
+			AutThread.shutdown(spare, conf.shutdownTimeout);
+		}
+		launcher.shutdown();
+		if (!launcher.awaitTermination(conf.waitAutTimeout, TimeUnit.SECONDS)) {
+			// Launch ignored cancellation, kill what it has started
+			for (AutThread spare : canceled) {
+				BaseAutLaunch launch = spare.launch;
+				if (launch != null) {
+					launch.terminate();
+				}
+			}
+			launcher.shutdownNow();
+		}
+	}
+}
@@ -22,8 +22,16 @@
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BooleanSupplier;
 import java.util.zip.ZipInputStream;
 
@@ -31,6 +39,9 @@
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceVisitor;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.IWorkspaceRunnable;
@@ -41,6 +52,7 @@
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.emf.ecore.EObject;
@@ -48,7 +60,11 @@
 import org.eclipse.rcptt.core.Q7Features;
 import org.eclipse.rcptt.core.scenario.Context;
 import org.eclipse.rcptt.ctx.impl.internal.resources.Activator;
+import org.eclipse.rcptt.ctx.resources.WorkspaceManifest.ProjectContent;
+import org.eclipse.rcptt.ctx.resources.WorkspaceManifest.ProjectState;
+import org.eclipse.rcptt.ctx.resources.WorkspaceManifest.Stamp;
 import org.eclipse.rcptt.internal.core.RcpttPlugin;
+import org.eclipse.rcptt.reporting.core.ReportManager;
 import org.eclipse.rcptt.resources.WSUtils;
 import org.eclipse.rcptt.resources.impl.FileBuffersUtils;
 import org.eclipse.rcptt.resources.impl.WSCaptureUtils;
@@ -57,6 +73,8 @@
 import org.eclipse.rcptt.tesla.ecl.impl.UIRunnable;
 import org.eclipse.rcptt.tesla.internal.ui.player.SWTUIPlayer;
 import org.eclipse.rcptt.tesla.internal.ui.player.UIJobCollector;
+import org.eclipse.rcptt.util.ParallelFiles;
+import org.eclipse.rcptt.util.ParallelFiles.FileTask;
 import org.eclipse.rcptt.util.resources.ResourcesUtil;
 import org.eclipse.rcptt.workspace.WSFile;
 import org.eclipse.rcptt.workspace.WSFileLink;
@@ -70,6 +88,125 @@
 
 public class WorkspaceContextProcessor implements IContextProcessor {
 
+	/**
+	 * What has been done by a single application, reported to test report.
+	 */
+	private static final class Statistics {
+		int projects;
+		int projectsSkipped;
+		int filesSkipped;
+		int filesWritten;
+		int resourcesDeleted;
+		long refresh;
+		long hash;
+		long clear;
+		long fit;
+		long finalRefresh;
+
+		@Override
+		public String toString() {
+			return String.format(
+					"projects: %d, unchanged: %d; files written: %d, unchanged: %d; resources deleted: %d; "
+							+ "time (ms): refresh %d, hash %d, clear %d, fit %d, final refresh %d",
+					projects, projectsSkipped, filesWritten, filesSkipped, resourcesDeleted, millis(refresh),
+					millis(hash), millis(clear), millis(fit), millis(finalRefresh));
+		}
+
+		private static long millis(long nanos) {
+			return TimeUnit.NANOSECONDS.toMillis(nanos);
+		}
+	}
+
+	/**
+	 * Skips files of a project which have not changed since the last
+	 * application.
+	 */
+	private static final class Incremental {
+		final ProjectContent content;
+		final ProjectState state;
+		final Map<String, Stamp> stamps;
+		final Statistics statistics;
+		/** Files to write in parallel or <code>null</code> */
+		final FileBatch batch;
+
+		Incremental(ProjectContent content, ProjectState state, Map<String, Stamp> stamps, Statistics statistics,
+				FileBatch batch) {
+			this.content = content;
+			this.state = state;
+			this.stamps = stamps;
+			this.statistics = statistics;
+			this.batch = batch;
+		}
+
+		boolean isUnchanged(IFile file) {
+			boolean result = state != null
+					&& state.isUnchanged(file.getProjectRelativePath().toString(), content, stamps);
+			if (result) {
+				statistics.filesSkipped++;
+			} else {
+				statistics.filesWritten++;
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Files of a project to be decompressed and written directly to file
+	 * system on worker threads, then registered in workspace with a single
+	 * refresh of the project.
+	 */
+	private static final class FileBatch {
+		private final List<FileTask> writes = new ArrayList<FileTask>();
+		private final List<IFile> written = Collections.synchronizedList(new ArrayList<IFile>());
+
+		/**
+		 * @return <code>false</code> if file can't be written directly and
+		 *         should be created through workspace API
+		 */
+		boolean add(final WSFile file, final IFile rFile) {
+			IPath path = rFile.getLocation();
+			if (path == null || file.getContent() == null) {
+				return false;
+			}
+			final File target = path.toFile();
+			writes.add(new FileTask() {
+				@Override
+				public void run() throws IOException {
+					byte[] content = readContent(null, file);
+					if (target.isFile() && target.length() == content.length
+							&& Arrays.equals(content, Files.readAllBytes(target.toPath()))) {
+						return;
+					}
+					Files.write(target.toPath(), content);
+					if (file.isExecutable()) {
+						updateFilePermissions(target);
+					}
+					written.add(rFile);
+				}
+			});
+			return true;
+		}
+
+		void flush(IProject project) throws CoreException {
+			if (writes.isEmpty()) {
+				return;
+			}
+			try {
+				ParallelFiles.runAll(writes);
+			} catch (IOException e) {
+				throw new CoreException(new Status(IStatus.ERROR, Activator.PLUGIN_ID, e.getMessage(), e));
+			} finally {
+				writes.clear();
+			}
+			project.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
+			for (IFile file : written) {
+				// sync file buffer for location
+				FileBuffersUtils.getFileBuffers().syncLocation(file.getFullPath());
+			}
+			written.clear();
+		}
+	}
+
 	@Override
 	public void apply(final Context context, BooleanSupplier isCancelled) throws CoreException {
 		final WorkspaceContext wc = (WorkspaceContext) context;
@@ -77,27 +214,47 @@ public void apply(final Context context, BooleanSupplier isCancelled) throws Cor
 		// Smart cancel/close jobs with showed UI interactions.
 		final UIJobCollector collector = new UIJobCollector();
 		Job.getJobManager().addJobChangeListener(collector);
+		final Statistics statistics = new Statistics();
 
 		try {
 			final IWorkspace ws = ResourcesPlugin.getWorkspace();
 
 			disableMessageDialogsAndEnableCollector(collector);
 
+			long start = System.nanoTime();
 			ws.run(refreshWorkspace, null, IWorkspace.AVOID_UPDATE, null);
+			statistics.refresh = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			final Map<String, ProjectContent> contents = new HashMap<String, ProjectContent>();
+			for (WSProject project : wc.getContent().getProjects()) {
+				contents.put(project.getName(), new ProjectContent(project));
+			}
+			statistics.hash = System.nanoTime() - start;
 
+			start = System.nanoTime();
 			if (wc.isClearWorkspace()) {
-				clearWorkspace(wc, toIntExact(stop - currentTimeMillis()), isCancelled);
+				clearWorkspace(wc, contents, statistics, toIntExact(stop - currentTimeMillis()), isCancelled);
 			}
+			statistics.clear = System.nanoTime() - start;
 
+			start = System.nanoTime();
 			ws.run(new IWorkspaceRunnable() {
 				@Override
 				public void run(final IProgressMonitor monitor)
 						throws CoreException {
-					fit(wc.getLocation(), wc.getContent(), true);
+					fitIncrementally(wc.getLocation(), wc.getContent(), contents, statistics);
 				}
 			}, null, IWorkspace.AVOID_UPDATE, null);
+			statistics.fit = System.nanoTime() - start;
 
-			ws.run(refreshWorkspace, null, IWorkspace.AVOID_UPDATE, null);
+			if (statistics.projectsSkipped < statistics.projects || statistics.resourcesDeleted > 0
+					|| !wc.getContent().getProjectLinks().isEmpty()) {
+				start = System.nanoTime();
+				ws.run(refreshWorkspace, null, IWorkspace.AVOID_UPDATE, null);
+				statistics.finalRefresh = System.nanoTime() - start;
+			}
+			ReportManager.appendLogExtra("Workspace context " + wc.getName() + " " + statistics);
 
 			UIRunnable.exec(new UIRunnable<Object>() {
 				@Override
@@ -109,6 +266,8 @@ public Object run() throws CoreException {
 			}, toIntExact(stop - currentTimeMillis()), isCancelled);
 			collector.join(TeslaLimits.getContextJoinTimeout(), isCancelled);
 		} catch (Exception e) {
+			// Workspace is in unknown state
+			WorkspaceManifest.INSTANCE.clear();
 			CoreException ee = new CoreException(RcpttPlugin.createStatus(
 					"Failed to execute context: " + wc.getName() + " Cause: "
 							+ e.getMessage(), e));
@@ -120,7 +279,8 @@ public Object run() throws CoreException {
 		}
 	}
 
-	private void clearWorkspace(final WorkspaceContext wc, int timeout, BooleanSupplier isCancelled) throws CoreException {
+	private void clearWorkspace(final WorkspaceContext wc, final Map<String, ProjectContent> contents,
+			final Statistics statistics, int timeout, BooleanSupplier isCancelled) throws CoreException {
 		final IWorkspace ws = ResourcesPlugin.getWorkspace();
 		long stop = currentTimeMillis() + timeout;
 		// close all editor with input to resource
@@ -140,7 +300,7 @@ public Object run() throws CoreException {
 						@Override
 						public void run(final IProgressMonitor monitor)
 								throws CoreException {
-							removeWorkspaceFiles(wc);
+							removeWorkspaceFiles(wc, contents, statistics);
 						}
 					}, null, IWorkspace.AVOID_UPDATE, null);
 				} catch (CoreException e) {
@@ -155,18 +315,37 @@ public void run(final IProgressMonitor monitor)
 		}
 	}
 
-	private static void removeWorkspaceFiles(WorkspaceContext wc)
-			throws CoreException {
+	/**
+	 * Removes all projects except ignored ones and ones left by previous
+	 * application of a context having them. Members of the latter not present
+	 * in new context and not ignored are removed instead, and their markers
+	 * and persistent properties are cleared, as a new project would have none.
+	 */
+	private static void removeWorkspaceFiles(WorkspaceContext wc, Map<String, ProjectContent> contents,
+			Statistics statistics) throws CoreException {
 		final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
 		final IProject[] projects = root.getProjects();
 		final String contextName = wc.getName();
 		String ignoredPattern = wc.getIgnoredByClearPattern();
+		Set<File> keptLocations = new HashSet<File>();
 
 		String[] resolveIgnoredPattern = WSOptions.resolveIgnoredPattern("", ignoredPattern);
 		for (final IProject project : projects) {
 			try {
 				if (!WSOptions.isIgnored(project.getName(), resolveIgnoredPattern)) {
+					ProjectContent content = contents.get(project.getName());
+					if (content != null && project.isOpen()
+							&& WorkspaceManifest.INSTANCE.get(project.getName()) != null) {
+						statistics.resourcesDeleted += deleteExtraMembers(project, content, resolveIgnoredPattern);
+						clearResourceState(project);
+						if (project.getLocation() != null) {
+							keptLocations.add(project.getLocation().toFile());
+						}
+						continue;
+					}
+					WorkspaceManifest.INSTANCE.remove(project.getName());
 					project.delete(false, true, new NullProgressMonitor());
+					statistics.resourcesDeleted++;
 				}
 			} catch (CoreException e) {
 				throw new CoreException(createProjectDeleteFailStatus(contextName, project.getName(), e));
@@ -182,12 +361,79 @@ private static void removeWorkspaceFiles(WorkspaceContext wc)
 		File file = path.toFile();
 		try {
 			String[] ignoredPatterns = WSOptions.resolveIgnoredPattern(file.getPath(), ignoredPattern);
-			tryDeleteFilesExceptMetadata(file, ignoredPatterns);
+			tryDeleteFilesExceptMetadata(file, ignoredPatterns, keptLocations);
 		} catch (IOException e) {
 			throw new CoreException(createContextFailStatus(contextName, e));
 		}
 	}
 
+	/**
+	 * Deletes project members which are not in context, except ignored ones.
+	 * A folder with an ignored member is kept, its other members are deleted.
+	 *
+	 * @param ignoredPatterns
+	 *            patterns matched against workspace paths of members
+	 * @return number of deleted resources
+	 */
+	private static int deleteExtraMembers(IProject project, ProjectContent content, String[] ignoredPatterns)
+			throws CoreException {
+		// Sorted, so that a folder goes right before its members
+		List<String> paths = new ArrayList<String>(WorkspaceManifest.collectStamps(project).keySet());
+		Collections.sort(paths);
+		List<String> ignored = new ArrayList<String>();
+		for (String path : paths) {
+			if (WSOptions.isIgnored(project.getName() + "/" + path, ignoredPatterns)) {
+				ignored.add(path);
+			}
+		}
+		int deleted = 0;
+		String deletedFolder = null;
+		for (String path : paths) {
+			if (deletedFolder != null && path.startsWith(deletedFolder)) {
+				continue;
+			}
+			if (content.paths.contains(path) || path.equals(IProjectDescription.DESCRIPTION_FILE_NAME)
+					|| isIgnoredOrHasIgnored(path, ignored)) {
+				continue;
+			}
+			IResource resource = project.findMember(path);
+			if (resource == null) {
+				continue;
+			}
+			resource.delete(true, new NullProgressMonitor());
+			deleted++;
+			deletedFolder = path + "/";
+		}
+		return deleted;
+	}
+
+	private static boolean isIgnoredOrHasIgnored(String path, List<String> ignored) {
+		String folder = path + "/";
+		for (String ignoredPath : ignored) {
+			if (ignoredPath.equals(path) || ignoredPath.startsWith(folder)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes markers and persistent properties of a kept project and its
+	 * members.
+	 */
+	private static void clearResourceState(IProject project) throws CoreException {
+		project.deleteMarkers(null, true, IResource.DEPTH_INFINITE);
+		project.accept(new IResourceVisitor() {
+			@Override
+			public boolean visit(IResource resource) throws CoreException {
+				for (QualifiedName key : resource.getPersistentProperties().keySet()) {
+					resource.setPersistentProperty(key, null);
+				}
+				return true;
+			}
+		});
+	}
+
 	private void disableMessageDialogsAndEnableCollector(
 			final UIJobCollector collector) throws CoreException {
 		UIRunnable.exec(new UIRunnable<Object>() {
@@ -214,10 +460,11 @@ public Context create(EObject param) throws CoreException {
 	// private static final int STEP_LAST = 16;
 
 	private static void tryDeleteFilesExceptMetadata(final File folder,
-			String[] ignoredPatterns) throws IOException {
-		List<File> undeletedResource = new ArrayList<File>();
-		deleteFilesExceptMetadata(folder, ignoredPatterns, undeletedResource,
-				true);
+			String[] ignoredPatterns, Set<File> kept) throws IOException {
+		boolean parallel = Q7Features.getInstance().isTrue(Q7Features.Q7_CONTEXTS_PARALLEL_FILES);
+		List<File> undeletedResource = Collections.synchronizedList(new ArrayList<File>());
+		deleteRootExceptMetadata(folder, ignoredPatterns, kept, undeletedResource,
+				parallel);
 
 		if (undeletedResource.size() > 0
 				&& Q7Features.getInstance().isTrue(
@@ -225,8 +472,8 @@ private static void tryDeleteFilesExceptMetadata(final File folder,
 			System.gc();
 			System.runFinalization();
 			undeletedResource.clear();
-			deleteFilesExceptMetadata(folder, ignoredPatterns,
-					undeletedResource, true);
+			deleteRootExceptMetadata(folder, ignoredPatterns, kept,
+					undeletedResource, parallel);
 		}
 
 		if (undeletedResource.size() > 0) {
@@ -257,29 +504,70 @@ private static void appendFileToList(File file, StringBuilder sb) {
 		sb.append(String.format("%n\t'%s'", file.getAbsolutePath()));
 	}
 
+	/**
+	 * Deletes workspace root content, with each top level folder deleted on its
+	 * own thread in parallel mode.
+	 */
+	private static void deleteRootExceptMetadata(final File folder,
+			final String[] ignoredPatterns, final Set<File> kept,
+			final List<File> undeletedResource, boolean parallel) throws IOException {
+		if (!parallel) {
+			deleteFilesExceptMetadata(folder, ignoredPatterns, kept, undeletedResource, true);
+			return;
+		}
+		List<FileTask> tasks = new ArrayList<FileTask>();
+		for (final File file : folder.listFiles()) {
+			if (isKept(file, ignoredPatterns, kept, true)) {
+				continue;
+			}
+			tasks.add(new FileTask() {
+				@Override
+				public void run() {
+					deleteFileExceptMetadata(file, ignoredPatterns, kept, undeletedResource);
+				}
+			});
+		}
+		ParallelFiles.runAll(tasks);
+	}
+
 	private static boolean deleteFilesExceptMetadata(final File folder,
-			final String[] ignoredPatterns, final List<File> undeletedResource,
-			boolean root) {
+			final String[] ignoredPatterns, final Set<File> kept,
+			final List<File> undeletedResource, boolean root) {
 		boolean haveIgnoredChild = false;
 		for (final File file : folder.listFiles()) {
-			if ((file.getName().equals(".metadata") && root)
-					|| WSOptions.isIgnored(file.getPath(), ignoredPatterns)) {
+			if (isKept(file, ignoredPatterns, kept, root)) {
 				haveIgnoredChild = true;
 				continue;
 			}
-			boolean ignoreBecauseOfChild = false;
-			if (file.isDirectory()) {
-				ignoreBecauseOfChild = deleteFilesExceptMetadata(file,
-						ignoredPatterns, undeletedResource, false);
-				haveIgnoredChild = haveIgnoredChild || ignoreBecauseOfChild;
-			}
-			if (!ignoreBecauseOfChild && !file.delete()) {
-				undeletedResource.add(file);
-			}
+			haveIgnoredChild |= deleteFileExceptMetadata(file, ignoredPatterns, kept, undeletedResource);
 		}
 		return haveIgnoredChild;
 	}
 
+	private static boolean isKept(File file, String[] ignoredPatterns, Set<File> kept, boolean root) {
+		return (file.getName().equals(".metadata") && root)
+				|| WSOptions.isIgnored(file.getPath(), ignoredPatterns)
+				|| kept.contains(file);
+	}
+
+	/**
+	 * @return <code>true</code> if file is a folder not deleted because of an
+	 *         ignored child
+	 */
+	private static boolean deleteFileExceptMetadata(final File file,
+			final String[] ignoredPatterns, final Set<File> kept,
+			final List<File> undeletedResource) {
+		boolean ignoreBecauseOfChild = false;
+		if (file.isDirectory()) {
+			ignoreBecauseOfChild = deleteFilesExceptMetadata(file,
+					ignoredPatterns, kept, undeletedResource, false);
+		}
+		if (!ignoreBecauseOfChild && !file.delete()) {
+			undeletedResource.add(file);
+		}
+		return ignoreBecauseOfChild;
+	}
+
 	private static IStatus createProjectDeleteFailStatus(String contextName, String projectName, Exception cause) {
 		return RcpttPlugin.createStatus(String.format("Context '%s' failed: cannot remove project '%s' from workspace",
 				contextName, projectName), cause);
@@ -318,7 +606,7 @@ private boolean fit(final String location, final WSRoot root,
 				rProject = wsRoot.getProject(project.getName());
 			}
 			final IProject rProjectFinal = rProject;
-			success &= fitProject(location, project, rProjectFinal, modify);
+			success &= fitProject(location, project, rProjectFinal, modify, null);
 		}
 
 		for (final WSProjectLink project : root.getProjectLinks()) {
@@ -335,8 +623,52 @@ private boolean fit(final String location, final WSRoot root,
 		return success;
 	}
 
+	/**
+	 * Creates context content, skipping projects and files which have not
+	 * changed since previous application and remembering the result.
+	 */
+	private void fitIncrementally(final String location, final WSRoot root,
+			Map<String, ProjectContent> contents, Statistics statistics) throws CoreException {
+		IWorkspaceRoot wsRoot = ResourcesPlugin.getWorkspace().getRoot();
+		boolean parallel = Q7Features.getInstance().isTrue(Q7Features.Q7_CONTEXTS_PARALLEL_FILES);
+		for (final WSProject project : root.getProjects()) {
+			IProject rProject = ResourcesUtil.getCaseInsensitiveChild(wsRoot,
+					project.getName(), IProject.class);
+			if (rProject == null) {
+				rProject = wsRoot.getProject(project.getName());
+			}
+			statistics.projects++;
+			ProjectContent content = contents.get(project.getName());
+			ProjectState state = WorkspaceManifest.INSTANCE.get(project.getName());
+			Map<String, Stamp> stamps = WorkspaceManifest.collectStamps(rProject);
+			if (rProject.exists() && WorkspaceManifest.isUnchanged(state, content, rProject, stamps)) {
+				statistics.projectsSkipped++;
+				continue;
+			}
+			WorkspaceManifest.INSTANCE.remove(project.getName());
+			FileBatch batch = parallel ? new FileBatch() : null;
+			fitProject(location, project, rProject, true,
+					new Incremental(content, state, stamps, statistics, batch));
+			if (batch != null) {
+				batch.flush(rProject);
+			}
+			WorkspaceManifest.INSTANCE.put(project.getName(),
+					new ProjectState(content, WorkspaceManifest.collectStamps(rProject)));
+		}
+
+		for (final WSProjectLink project : root.getProjectLinks()) {
+			IProject rProject = ResourcesUtil.getCaseInsensitiveChild(wsRoot,
+					project.getName(), IProject.class);
+			if (rProject == null) {
+				rProject = wsRoot.getProject(project.getName());
+			}
+			WorkspaceManifest.INSTANCE.remove(project.getName());
+			fitProjectLink(location, project, rProject, true);
+		}
+	}
+
 	private boolean fitProject(final String location, final WSProject project,
-			final IProject rProject, final boolean modify) throws CoreException {
+			final IProject rProject, final boolean modify, Incremental incremental) throws CoreException {
 		if (!rProject.exists()) {
 			if (!modify)
 				return false;
@@ -347,7 +679,7 @@ private boolean fitProject(final String location, final WSProject project,
 				return false;
 			rProject.open(new NullProgressMonitor());
 		}
-		return fitContent(location, project, rProject, modify);
+		return fitContent(location, project, rProject, modify, incremental);
 	}
 
 	private boolean fitProjectLink(final String location,
@@ -367,12 +699,12 @@ private boolean fitProjectLink(final String location,
 	}
 
 	private boolean fitContent(final String location, final WSFolder folder,
-			final IContainer rFolder, final boolean modify)
+			final IContainer rFolder, final boolean modify, Incremental incremental)
 			throws CoreException {
 		boolean success = true;
 		for (final WSFolder child : folder.getFolders()) {
 			final IFolder rChild = rFolder.getFolder(new Path(child.getName()));
-			success &= fitFolder(location, child, rChild, modify);
+			success &= fitFolder(location, child, rChild, modify, incremental);
 		}
 		for (final WSFolderLink child : folder.getFolderLinks()) {
 			final IFolder rChild = rFolder.getFolder(new Path(child.getName()));
@@ -380,6 +712,12 @@ private boolean fitContent(final String location, final WSFolder folder,
 		}
 		for (final WSFile child : folder.getFiles()) {
 			final IFile rChild = rFolder.getFile(new Path(child.getName()));
+			if (incremental != null && incremental.isUnchanged(rChild)) {
+				continue;
+			}
+			if (incremental != null && incremental.batch != null && incremental.batch.add(child, rChild)) {
+				continue;
+			}
 			success &= fitFile(location, child, rChild, modify);
 		}
 		for (final WSFileLink child : folder.getFileLinks()) {
@@ -408,13 +746,13 @@ private boolean fitContent(final String location,
 	}
 
 	private boolean fitFolder(final String location, final WSFolder folder,
-			final IFolder rFolder, final boolean modify) throws CoreException {
+			final IFolder rFolder, final boolean modify, Incremental incremental) throws CoreException {
 		if (!rFolder.exists()) {
 			if (!modify)
 				return false;
 			rFolder.create(true, true, new NullProgressMonitor());
 		}
-		return fitContent(location, folder, rFolder, modify);
+		return fitContent(location, folder, rFolder, modify, incremental);
 	}
 
 	private boolean fitFolderLink(final String location,
@@ -433,21 +771,7 @@ private boolean fitFile(final String location, final WSFile file,
 		if (!rFile.exists() && !modify)
 			return false;
 		try {
-			byte[] content = null;
-			if (file.getContent() == null) {
-				content = WSUtils.getFileContent(location, file);
-			} else {
-				if (Q7Features.getInstance().isTrue(
-						Q7Features.Q7_CONTEXTS_RESOURCES_ZIPPED_TRANSFER)) {
-
-					ZipInputStream zin = new ZipInputStream(
-							new ByteArrayInputStream(file.getContent()));
-					zin.getNextEntry();
-					content = WSUtils.getStreamContent(zin);
-				} else {
-					content = file.getContent();
-				}
-			}
+			byte[] content = readContent(location, file);
 			final ByteArrayInputStream input = new ByteArrayInputStream(content);
 			if (rFile.exists()) {
 				InputStream fileContent = rFile.getContents();
@@ -483,21 +807,39 @@ private boolean fitFile(final String location, final WSFile file,
 		}
 	}
 
-	private void updateFilePermissions(IFile rFile) {
+	private static byte[] readContent(final String location, final WSFile file) throws IOException {
+		if (file.getContent() == null) {
+			return WSUtils.getFileContent(location, file);
+		}
+		if (Q7Features.getInstance().isTrue(
+				Q7Features.Q7_CONTEXTS_RESOURCES_ZIPPED_TRANSFER)) {
+
+			ZipInputStream zin = new ZipInputStream(
+					new ByteArrayInputStream(file.getContent()));
+			zin.getNextEntry();
+			return WSUtils.getStreamContent(zin);
+		}
+		return file.getContent();
+	}
+
+	private static void updateFilePermissions(IFile rFile) {
 		IPath fileLocation = rFile.getLocation();
 		if (null != fileLocation) {
-			File jFile = fileLocation.toFile();
-			try {
-				boolean result = jFile.setExecutable(true, true);
-				if (!result) {
-					RcpttPlugin.log(
-							String.format("Failed to set executable permission to file: %s", jFile.getAbsolutePath()),
-							null);
-				}
-			} catch (SecurityException e) {
-				RcpttPlugin.log(String.format("Failed to set executable permission to file: %s", jFile.getAbsolutePath()),
-						e);
+			updateFilePermissions(fileLocation.toFile());
+		}
+	}
+
+	private static void updateFilePermissions(File jFile) {
+		try {
+			boolean result = jFile.setExecutable(true, true);
+			if (!result) {
+				RcpttPlugin.log(
+						String.format("Failed to set executable permission to file: %s", jFile.getAbsolutePath()),
+						null);
 			}
+		} catch (SecurityException e) {
+			RcpttPlugin.log(String.format("Failed to set executable permission to file: %s", jFile.getAbsolutePath()),
+					e);
 		}
 	}
 
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.ctx.resources;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.rcptt.workspace.WSFile;
+import org.eclipse.rcptt.workspace.WSFolder;
+import org.eclipse.rcptt.workspace.WSProject;
+
+/**
+ * Remembers projects as they were left by the last workspace context
+ * application, so that the next application can skip what has not changed.
+ * <p>
+ * Content of a project in a context is identified by hashes of raw (possibly
+ * zipped) file contents, so neither comparing nor decompressing files is
+ * needed. State of a project in workspace is identified by modification and
+ * local time stamps of its resources, which are kept in resource tree and
+ * change whenever a resource is modified, either through workspace API or by
+ * a refresh.
+ */
+class WorkspaceManifest {
+	static final WorkspaceManifest INSTANCE = new WorkspaceManifest();
+
+	/** Modification state of a single resource */
+	static final class Stamp {
+		final long modificationStamp;
+		final long localTimeStamp;
+
+		Stamp(long modificationStamp, long localTimeStamp) {
+			this.modificationStamp = modificationStamp;
+			this.localTimeStamp = localTimeStamp;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Stamp)) {
+				return false;
+			}
+			Stamp other = (Stamp) obj;
+			return modificationStamp == other.modificationStamp && localTimeStamp == other.localTimeStamp;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(modificationStamp) * 31 + Long.hashCode(localTimeStamp);
+		}
+	}
+
+	/**
+	 * Content of a project in a context.
+	 */
+	static final class ProjectContent {
+		/** Project relative path to content hash, for files */
+		final Map<String, String> files = new HashMap<String, String>();
+		/** Project relative paths of files and folders */
+		final Set<String> paths = new HashSet<String>();
+		/**
+		 * Hash of the whole project or <code>null</code> if some content is
+		 * not in context and can't be hashed
+		 */
+		final String hash;
+
+		ProjectContent(WSProject project) {
+			MessageDigest digest = createDigest();
+			boolean complete = collect(project, "", digest);
+			hash = complete ? toHex(digest.digest()) : null;
+		}
+
+		private boolean collect(WSFolder folder, String prefix, MessageDigest digest) {
+			boolean complete = folder.getFolderLinks().isEmpty() && folder.getFileLinks().isEmpty();
+			// Sort to make project hash independent of order in model
+			Map<String, WSFile> sortedFiles = new TreeMap<String, WSFile>();
+			for (WSFile file : folder.getFiles()) {
+				sortedFiles.put(file.getName(), file);
+			}
+			for (WSFile file : sortedFiles.values()) {
+				String path = prefix + file.getName();
+				paths.add(path);
+				if (file.getContent() == null) {
+					// Content is read from context location, can't tell if it is changed
+					complete = false;
+					continue;
+				}
+				String fileHash = hash(file.getContent()) + (file.isExecutable() ? "x" : "");
+				files.put(path, fileHash);
+				digest.update(path.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+				digest.update(fileHash.getBytes(StandardCharsets.UTF_8));
+			}
+			Map<String, WSFolder> sortedFolders = new TreeMap<String, WSFolder>();
+			for (WSFolder child : folder.getFolders()) {
+				sortedFolders.put(child.getName(), child);
+			}
+			for (WSFolder child : sortedFolders.values()) {
+				String path = prefix + child.getName();
+				paths.add(path);
+				digest.update(path.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 1);
+				complete &= collect(child, path + "/", digest);
+			}
+			return complete;
+		}
+	}
+
+	/**
+	 * A project as left by the last application.
+	 */
+	static final class ProjectState {
+		final ProjectContent content;
+		final Map<String, Stamp> stamps;
+
+		ProjectState(ProjectContent content, Map<String, Stamp> stamps) {
+			this.content = content;
+			this.stamps = stamps;
+		}
+
+		/**
+		 * @return <code>true</code> if file at given path has been written
+		 *         with the same content it has in new context and has not been
+		 *         modified since
+		 */
+		boolean isUnchanged(String path, ProjectContent newContent, Map<String, Stamp> currentStamps) {
+			String contentHash = newContent.files.get(path);
+			Stamp stamp = stamps.get(path);
+			return stamp != null && contentHash != null && contentHash.equals(content.files.get(path))
+					&& stamp.equals(currentStamps.get(path));
+		}
+	}
+
+	private final Map<String, ProjectState> projects = new HashMap<String, ProjectState>();
+
+	synchronized ProjectState get(String project) {
+		return projects.get(project);
+	}
+
+	synchronized void put(String project, ProjectState state) {
+		projects.put(project, state);
+	}
+
+	synchronized void remove(String project) {
+		projects.remove(project);
+	}
+
+	synchronized void clear() {
+		projects.clear();
+	}
+
+	/**
+	 * @return <code>true</code> if project is in the same state as it was
+	 *         left by the last application of the same content
+	 */
+	static boolean isUnchanged(ProjectState state, ProjectContent content, IProject project,
+			Map<String, Stamp> currentStamps) {
+		return state != null && content.hash != null && content.hash.equals(state.content.hash)
+				&& project.isOpen() && state.stamps.equals(currentStamps);
+	}
+
+	/**
+	 * Collects stamps of all project members from resource tree, without
+	 * accessing file system.
+	 */
+	static Map<String, Stamp> collectStamps(IProject project) throws CoreException {
+		final Map<String, Stamp> result = new HashMap<String, Stamp>();
+		if (!project.isAccessible()) {
+			return result;
+		}
+		final int prefix = project.getFullPath().segmentCount();
+		project.accept(new IResourceProxyVisitor() {
+			@Override
+			public boolean visit(IResourceProxy proxy) throws CoreException {
+				if (proxy.getType() == IResource.PROJECT) {
+					return true;
+				}
+				IResource resource = proxy.requestResource();
+				String path = resource.getFullPath().removeFirstSegments(prefix).toString();
+				result.put(path, new Stamp(proxy.getModificationStamp(), resource.getLocalTimeStamp()));
+				return true;
+			}
+		}, IContainer.INCLUDE_HIDDEN | IContainer.INCLUDE_TEAM_PRIVATE_MEMBERS);
+		return result;
+	}
+
+	static String hash(byte[] content) {
+		return toHex(createDigest().digest(content));
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder result = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			result.append(Character.forDigit((b >> 4) & 0xF, 16));
+			result.append(Character.forDigit(b & 0xF, 16));
+		}
+		return result.toString();
+	}
+}
@@ -45,6 +45,8 @@
 public abstract class UIRunnable<T> {
 	private static final boolean DEBUG_PROCEED = "true"
 			.equals(Platform.getDebugOption("org.eclipse.rcptt.tesla.ecl.impl/debug/proceed"));
+	/** Maximal interval between checks of background jobs after execution, in milliseconds */
+	private static final long JOB_CHECK_INTERVAL = 50;
 	private enum RunningState {
 		Starting, Execution, Done, Finished
 	}
@@ -185,6 +187,7 @@ public void run() {
 			}
 			if (!result.isCompletedExceptionally()) {
 				for (;;) {
+					long changes = collector.getChanges();
 					Q7WaitInfoRoot info = TeslaBridge.getCurrentWaitInfo(true);
 					if (collector.isEmpty(org.eclipse.rcptt.tesla.core.context.ContextManagement.currentContext(), info)) {
 						break;
@@ -197,7 +200,8 @@ public void run() {
 						storeTimeoutInReport(display, collector);
 						throw new CoreException(new Status(IStatus.ERROR, PLUGIN_ID, IProcess.TIMEOUT_CODE, "Background jobs are running for too long", new RuntimeException()));
 					}
-					Thread.sleep(1);
+					// Jobs are re-checked on change, timeouts and step mode need a periodic check
+					collector.awaitChange(changes, JOB_CHECK_INTERVAL);
 				}
 			}
 			return (T) result.get(1, TimeUnit.MILLISECONDS);
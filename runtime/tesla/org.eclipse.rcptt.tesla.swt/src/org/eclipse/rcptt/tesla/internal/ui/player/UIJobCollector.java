@@ -60,6 +60,10 @@ public class UIJobCollector implements IJobChangeListener {
 	private static final boolean DEBUG_REPORT_OUTPUT = "true".equals(Platform.getDebugOption("org.eclipse.rcptt.tesla.swt/debug/debugReportOutput"));
 	private static final PrintWriter DEBUG_WRITER = new PrintWriter(System.out);
 	private static final Object FAMILY = new Object();
+	/** Running jobs are not sampled for being blocked until they are active for this long, in milliseconds */
+	private static final long SAMPLING_THRESHOLD = 100;
+	/** Minimal interval between samples of the same job, in milliseconds */
+	private static final long SAMPLING_INTERVAL = 50;
 	
 	/** 
 	 * Timeouts and intervals for active job detection
@@ -123,6 +127,7 @@ private class JobInfo {
 		private boolean blocked = false;
 		private long runningTime = System.currentTimeMillis();
 		private Thread lastThread = null;
+		private long lastSample = 0;
 
 		JobInfo(Job job) {
 			this.job = job;
@@ -179,6 +184,42 @@ private synchronized boolean isDone() {
 			return !context.containsClass("org.eclipse.core.internal.jobs.JobListeners");
 		}
 
+		/**
+		 * @return time when this inactive job may become active without a job
+		 *         change event, 0 if it can't be predicted
+		 */
+		synchronized long getActivationTime() {
+			switch (status) {
+			case IGNORED:
+				return Long.MAX_VALUE;
+			case UNKNOWN:
+				if (Job.SLEEPING == job.getState()) {
+					if (startingTime < System.currentTimeMillis()) {
+						// Overdue sleeping jobs are ignored until they wake up
+						return Long.MAX_VALUE;
+					}
+					return startingTime - parameters.delayToWaitFor();
+				}
+				return 0;
+			default:
+				// Done jobs wait for their listeners, which is not tracked by events
+				return 0;
+			}
+		}
+
+		/**
+		 * Stack traces are expensive, so sample only jobs active for a while
+		 * and not more often than {@link #SAMPLING_INTERVAL}.
+		 */
+		synchronized boolean shouldSample() {
+			long now = System.currentTimeMillis();
+			if (startingTime + SAMPLING_THRESHOLD > now || lastSample + SAMPLING_INTERVAL > now) {
+				return false;
+			}
+			lastSample = now;
+			return true;
+		}
+
 		synchronized void scheduled(long delay) {
 			status = calcJobStatus(job);
 			startingTime = System.currentTimeMillis() + delay;
@@ -247,6 +288,13 @@ public void poke() {
 	}
 
 	private final Map<Job, JobInfo> jobs = Collections.synchronizedMap(new IdentityHashMap<Job, JobInfo>());
+	private final Object changeLock = new Object();
+	/** Number of job changes, guarded by {@link #changeLock} */
+	private long changes = 0;
+	/** Number of changes when all jobs were found inactive, -1 if they were not */
+	private long idleChanges = -1;
+	/** Time when one of inactive jobs may become active */
+	private long idleUntil = 0;
 	private boolean state;
 	private boolean needDisable = false;
 	private final IParameters parameters;
@@ -276,6 +324,7 @@ protected org.eclipse.core.runtime.IStatus run(org.eclipse.core.runtime.IProgres
 							jobs.remove(job, info);
 							event("gone", info);
 							found = true;
+							changed();
 						}
 					}
 				}
@@ -323,6 +372,7 @@ public void awake(IJobChangeEvent event) {
 		if (job.belongsTo(FAMILY)) {
 			return;
 		}
+		changed();
 		JobInfo info = getOrCreateJobInfo(job);
 		info.awake();
 		event("awake", info);
@@ -334,6 +384,7 @@ public void done(IJobChangeEvent event) {
 		if (job.belongsTo(FAMILY)) {
 			return;
 		}
+		changed();
 		JobInfo info = null;
 		synchronized (jobs) {
 			boolean reschedule = TeslaSWTAccess.getJobEventReSchedule(event) && state;
@@ -360,19 +411,24 @@ public void done(IJobChangeEvent event) {
 
 	@Override
 	public void running(IJobChangeEvent event) {
+		if (!event.getJob().belongsTo(FAMILY)) {
+			changed();
+		}
 	}
 
 	@Override
 	public void scheduled(IJobChangeEvent event) {
+		Job job = event.getJob();
+		if (job.belongsTo(FAMILY)) {
+			return;
+		}
+		// State of a tracked job changes even if collector is disabled
+		changed();
 		synchronized (jobs) {
 			if (!state) {
 				return;
 			}
 		}
-		Job job = event.getJob();
-		if (job.belongsTo(FAMILY)) {
-			return;
-		}
 		JobInfo jobInfo = getOrCreateJobInfo(job);
 		jobInfo.scheduled(event.getDelay());
 		event("scheduled", jobInfo);
@@ -486,6 +542,7 @@ public void sleeping(IJobChangeEvent event) {
 		if (job.belongsTo(FAMILY)) {
 			return;
 		}
+		changed();
 		JobInfo info = getOrCreateJobInfo(job);
 		info.sleeping();
 		event("sleeping", info);
@@ -645,8 +702,11 @@ public boolean isEmpty(Context context, Q7WaitInfoRoot info) {
 		List<Job> realJobs = new ArrayList<>();
 		List<Job> jobsInUI = new ArrayList<>();
 		final Display display = Display.getCurrent();
+		long observed = getChanges();
+		if (isKnownIdle(observed)) {
+			return logReturnResult(true, realJobs, jobsInUI, info);
+		}
 
-		
 		// Remove all canceled jobs
 		if (!removeCanceledJobs()) {
 			return false;
@@ -654,11 +714,15 @@ public boolean isEmpty(Context context, Q7WaitInfoRoot info) {
 		synchronized (jobs) {
 			if (jobs.isEmpty()) {
 				debug("Nothing left");
+				setIdle(observed, Long.MAX_VALUE);
 				return logReturnResult(true, realJobs, jobsInUI, info);
 			}
+			boolean allInactive = true;
+			long activationTime = Long.MAX_VALUE;
 			for (JobInfo jobInfo : jobs.values()) {
 				Job job = jobInfo.job;
 				if (!jobInfo.isActive()) {
+					activationTime = Math.min(activationTime, jobInfo.getActivationTime());
 					if (DEBUG) {
 						String name = job.getClass().getName();
 						if (!IGNORED_BY_DEFAULT.contains(name))
@@ -667,9 +731,11 @@ public boolean isEmpty(Context context, Q7WaitInfoRoot info) {
 					continue;
 				}
 				
+				allInactive = false;
 				debug(String.format("Checking: %s", jobInfo.toString()));
 
-				if (job.getClass().getName().contains("org.eclipse.debug.internal.ui.DebugUIPlugin$")) {
+				boolean canSample = jobInfo.isActiveFor(SAMPLING_THRESHOLD);
+				if (canSample && job.getClass().getName().contains("org.eclipse.debug.internal.ui.DebugUIPlugin$")) {
 					// It looks like background launching job.
 					Thread thread = job.getThread();
 					if (thread == null) {
@@ -713,8 +779,9 @@ public boolean isEmpty(Context context, Q7WaitInfoRoot info) {
 					continue;
 				}
 
-				boolean isBlocked = isBlocked(job);
-				jobInfo.blocked(isBlocked);
+				if (jobInfo.shouldSample()) {
+					jobInfo.blocked(isBlocked(job));
+				}
 				
 				if (jobInfo.isBlockedFor(parameters.stepModeStartDelay())) {
 					if (!jobInfo.jobInStepMode) {
@@ -753,7 +820,7 @@ public boolean isEmpty(Context context, Q7WaitInfoRoot info) {
 							}
 						}
 					}
-					if (isSyncSupported()) {
+					if (isSyncSupported() && canSample) {
 						// Check for any other job running Display.sleep()
 						if (context.contains(Display.class.getName(), "sleep")) {
 														if (TeslaEventManager.getManager().isJobInSyncExec(job, context)) {
@@ -817,6 +884,7 @@ public boolean isEmpty(Context context, Q7WaitInfoRoot info) {
 				if (jobInfo.isActive())
 					realJobs.add(job);
 			}
+			setIdle(allInactive ? observed : -1, activationTime);
 		}
 		if (!jobsInUI.isEmpty()) {
 			if (realJobs.size() == 1 && realJobs.get(0).belongsTo(getFamilyAutoBuild())) {
@@ -856,6 +924,55 @@ public void run() {
 		return logReturnResult(realJobs.isEmpty(), realJobs, jobsInUI, info);
 	}
 
+	/**
+	 * @return <code>true</code> if all jobs were found inactive and neither a
+	 *         job has changed since, nor a delayed job may have become active
+	 */
+	private boolean isKnownIdle(long observed) {
+		synchronized (jobs) {
+			return idleChanges == observed && System.currentTimeMillis() < idleUntil;
+		}
+	}
+
+	private void setIdle(long observed, long until) {
+		idleChanges = observed;
+		idleUntil = until;
+	}
+
+	private void changed() {
+		synchronized (changeLock) {
+			changes++;
+			changeLock.notifyAll();
+		}
+	}
+
+	/**
+	 * @return number of job changes seen by this collector, to be passed to
+	 *         {@link #awaitChange(long, long)}
+	 */
+	public long getChanges() {
+		synchronized (changeLock) {
+			return changes;
+		}
+	}
+
+	/**
+	 * Waits until a job changes after the given number of changes, or timeout
+	 * expires. Lets callers re-check jobs on changes instead of polling.
+	 */
+	public void awaitChange(long since, long timeout) throws InterruptedException {
+		long stop = System.currentTimeMillis() + timeout;
+		synchronized (changeLock) {
+			while (changes == since) {
+				long left = stop - System.currentTimeMillis();
+				if (left <= 0) {
+					return;
+				}
+				changeLock.wait(left);
+			}
+		}
+	}
+
 	private boolean isBlocked(Job job) {
 		if (job.getState() == Job.RUNNING) {
 			Thread thread = job.getThread();
@@ -912,6 +1029,7 @@ public void enable() {
 			this.needDisable = false;
 			copy = new ArrayList<>(jobs.values());
 		}
+		changed();
 		for (JobInfo jobInfo: copy) {
 			if (jobInfo.isActive())
 				jobInfo.poke();
@@ -932,6 +1050,7 @@ public void disable() {
 			this.state = false;
 			this.needDisable = false;
 		}
+		changed();
 		debug("disable");
 	}
 
@@ -1042,6 +1161,7 @@ public void clean() {
 			jobs.clear();
 			debug("clean");
 		}
+		changed();
 	}
 
 	private void debug(String message) {
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.contexts.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.rcptt.util.FileUtil;
+import org.eclipse.rcptt.util.ParallelFiles;
+import org.eclipse.rcptt.util.ParallelFiles.FileTask;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelFilesTest {
+	private static final int COUNT = 100;
+	private File folder;
+
+	@Before
+	public void before() throws IOException {
+		folder = Files.createTempDirectory("parallel").toFile();
+	}
+
+	@After
+	public void after() {
+		FileUtil.deleteFile(folder, true);
+	}
+
+	private List<FileTask> writes() {
+		List<FileTask> result = new ArrayList<FileTask>();
+		for (int i = 0; i < COUNT; i++) {
+			final File file = new File(folder, (i % 10) + "/" + i + ".txt");
+			final byte[] content = ("content " + i).getBytes(StandardCharsets.UTF_8);
+			result.add(new FileTask() {
+				@Override
+				public void run() throws IOException {
+					Files.write(file.toPath(), content);
+				}
+			});
+		}
+		return result;
+	}
+
+	@Test
+	public void allFilesAreWrittenAndDeleted() throws IOException {
+		for (int i = 0; i < 10; i++) {
+			new File(folder, Integer.toString(i)).mkdir();
+		}
+		ParallelFiles.runAll(writes());
+		assertArrayEquals("content 42".getBytes(StandardCharsets.UTF_8),
+				Files.readAllBytes(new File(folder, "2/42.txt").toPath()));
+		assertEquals(10, new File(folder, "7").list().length);
+
+		ParallelFiles.deleteChildren(folder);
+		assertTrue(folder.isDirectory());
+		assertEquals(0, folder.list().length);
+	}
+
+	@Test
+	public void failureIsReported() {
+		// Parent folders are missing, so every write fails
+		try {
+			ParallelFiles.runAll(writes());
+			fail("Failure is expected");
+		} catch (IOException e) {
+			// expected
+		}
+		assertEquals(0, folder.list().length);
+	}
+}
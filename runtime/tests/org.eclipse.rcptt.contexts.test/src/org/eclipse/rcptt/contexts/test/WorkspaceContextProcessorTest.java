@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.contexts.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.rcptt.ctx.resources.WorkspaceContextProcessor;
+import org.eclipse.rcptt.resources.WSUtils;
+import org.eclipse.rcptt.workspace.WSFile;
+import org.eclipse.rcptt.workspace.WSFolder;
+import org.eclipse.rcptt.workspace.WSProject;
+import org.eclipse.rcptt.workspace.WSRoot;
+import org.eclipse.rcptt.workspace.WorkspaceContext;
+import org.eclipse.rcptt.workspace.WorkspaceFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WorkspaceContextProcessorTest {
+	private static final String PROJECT = "workspaceContextTest";
+	/** Session properties are lost when a project is deleted */
+	private static final QualifiedName KEPT = new QualifiedName("org.eclipse.rcptt.contexts.test", "kept");
+
+	private final WorkspaceContextProcessor processor = new WorkspaceContextProcessor();
+	private final IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT);
+
+	@Before
+	public void before() throws CoreException {
+		apply(createContext(new LinkedHashMap<String, String>()));
+	}
+
+	@After
+	public void after() throws CoreException {
+		apply(createContext(new LinkedHashMap<String, String>()));
+	}
+
+	private static Map<String, String> files(String... pathsAndContents) {
+		Map<String, String> result = new LinkedHashMap<String, String>();
+		for (int i = 0; i < pathsAndContents.length; i += 2) {
+			result.put(pathsAndContents[i], pathsAndContents[i + 1]);
+		}
+		return result;
+	}
+
+	private static WorkspaceContext createContext(Map<String, String> files) {
+		WorkspaceContext context = WorkspaceFactory.eINSTANCE.createWorkspaceContext();
+		context.setName("test");
+		context.setClearWorkspace(true);
+		WSRoot root = WorkspaceFactory.eINSTANCE.createWSRoot();
+		context.setContent(root);
+		if (files.isEmpty()) {
+			return context;
+		}
+		WSProject project = WSUtils.getProject(root, PROJECT, true);
+		for (Map.Entry<String, String> entry : files.entrySet()) {
+			String[] segments = entry.getKey().split("/");
+			WSFolder folder = project;
+			for (int i = 0; i < segments.length - 1; i++) {
+				folder = WSUtils.getFolder(folder, segments[i], true);
+			}
+			WSFile file = WSUtils.getFile(folder, segments[segments.length - 1], true);
+			file.setContent(zip(entry.getValue()));
+		}
+		return context;
+	}
+
+	/** Context file content is zipped, see Q7Features */
+	private static byte[] zip(String content) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+			out.putNextEntry(new ZipEntry("content"));
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new AssertionError(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private void apply(WorkspaceContext context) throws CoreException {
+		processor.apply(context, () -> false);
+	}
+
+	private static String read(IFile file) throws CoreException, IOException {
+		try (InputStream stream = file.getContents(true)) {
+			return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static void create(IFile file, String content) throws CoreException {
+		file.create(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), true,
+				new NullProgressMonitor());
+	}
+
+	@Test
+	public void sameContextIsAppliedWithoutChanges() throws CoreException, IOException {
+		WorkspaceContext context = createContext(files("a.txt", "a", "dir/b.txt", "b"));
+		apply(context);
+		IFile a = project.getFile("a.txt");
+		IFile b = project.getFile("dir/b.txt");
+		long aStamp = a.getModificationStamp();
+		long bStamp = b.getModificationStamp();
+		project.setSessionProperty(KEPT, Boolean.TRUE);
+		project.setPersistentProperty(KEPT, "value");
+
+		apply(context);
+		assertEquals(Boolean.TRUE, project.getSessionProperty(KEPT));
+		assertEquals(aStamp, a.getModificationStamp());
+		assertEquals(bStamp, b.getModificationStamp());
+		assertEquals("b", read(b));
+		// Kept project looks like a new one
+		assertNull(project.getPersistentProperty(KEPT));
+	}
+
+	@Test
+	public void onlyChangedFilesAreWritten() throws CoreException, IOException {
+		apply(createContext(files("a.txt", "a", "dir/b.txt", "b")));
+		IFile a = project.getFile("a.txt");
+		long aStamp = a.getModificationStamp();
+
+		apply(createContext(files("a.txt", "a", "dir/b.txt", "changed")));
+		assertEquals(aStamp, a.getModificationStamp());
+		assertEquals("changed", read(project.getFile("dir/b.txt")));
+	}
+
+	@Test
+	public void fileModifiedOutOfBandIsRestored() throws CoreException, IOException {
+		WorkspaceContext context = createContext(files("a.txt", "a", "dir/b.txt", "b"));
+		apply(context);
+		IFile a = project.getFile("a.txt");
+		IFile b = project.getFile("dir/b.txt");
+		long bStamp = b.getModificationStamp();
+		// Same length, so that only the stamps tell the change
+		Files.write(a.getLocation().toFile().toPath(), "x".getBytes(StandardCharsets.UTF_8));
+		a.getLocation().toFile().setLastModified(System.currentTimeMillis() + 2000);
+
+		apply(context);
+		assertEquals("a", read(a));
+		assertEquals(bStamp, b.getModificationStamp());
+	}
+
+	@Test
+	public void removedFilesAreDeleted() throws CoreException, IOException {
+		apply(createContext(files("a.txt", "a", "dir/b.txt", "b")));
+		IFile a = project.getFile("a.txt");
+		long aStamp = a.getModificationStamp();
+		project.setSessionProperty(KEPT, Boolean.TRUE);
+
+		apply(createContext(files("a.txt", "a")));
+		assertEquals(Boolean.TRUE, project.getSessionProperty(KEPT));
+		assertFalse(project.getFolder("dir").exists());
+		assertEquals(aStamp, a.getModificationStamp());
+		assertEquals("a", read(a));
+	}
+
+	@Test
+	public void ignoredMembersOfKeptProjectAreNotDeleted() throws CoreException {
+		apply(createContext(files("a.txt", "a")));
+		project.setSessionProperty(KEPT, Boolean.TRUE);
+		IFolder folder = project.getFolder("dir");
+		folder.create(true, true, new NullProgressMonitor());
+		create(folder.getFile("keep.log"), "log");
+		create(folder.getFile("extra.txt"), "extra");
+		create(project.getFile("extra.txt"), "extra");
+
+		WorkspaceContext context = createContext(files("a.txt", "a"));
+		context.setIgnoredByClearPattern(PROJECT + "/dir/*.log");
+		apply(context);
+		assertEquals(Boolean.TRUE, project.getSessionProperty(KEPT));
+		assertTrue(folder.getFile("keep.log").exists());
+		assertFalse(folder.getFile("extra.txt").exists());
+		assertFalse(project.getFile("extra.txt").exists());
+		assertTrue(project.getFile("a.txt").exists());
+	}
+
+	@Test
+	public void failedApplicationResetsManifest() throws CoreException {
+		WorkspaceContext context = createContext(files("a.txt", "a"));
+		apply(context);
+		project.setSessionProperty(KEPT, Boolean.TRUE);
+
+		WorkspaceContext broken = createContext(files("a.txt", "a"));
+		WSProject brokenProject = WSUtils.getProject(broken.getContent(), PROJECT + "Broken", true);
+		// Neither content nor its location
+		WSUtils.getFile(brokenProject, "missing.txt", true);
+		try {
+			apply(broken);
+			fail("Context with missing file content should fail");
+		} catch (CoreException e) {
+			// expected
+		}
+		assertEquals(Boolean.TRUE, project.getSessionProperty(KEPT));
+
+		// Workspace state is unknown after failure, so project is recreated
+		apply(context);
+		assertNull(project.getSessionProperty(KEPT));
+		assertTrue(project.getFile("a.txt").exists());
+		assertFalse(ResourcesPlugin.getWorkspace().getRoot().getProject(PROJECT + "Broken").exists());
+	}
+}
@@ -243,6 +243,30 @@ public void doNotWaitForJobsRescheduledInFuture() throws InterruptedException {
 		assertEmpty("Skip jobs scheduled for distant future", subject);
 		Assert.assertTrue(System.currentTimeMillis() < start + 1000);
 	}
+
+	@Test
+	public void waitForDelayedJobWhenItIsDue() throws InterruptedException {
+		Parameters parameters = new Parameters();
+		UIJobCollector subject = new UIJobCollector(parameters);
+		prepare(subject);
+		long start = System.currentTimeMillis();
+		sleepingJob.schedule(parameters.delayToWaitFor * 2);
+		assertEmpty("Skip jobs scheduled for distant future", subject);
+		sleepUntil(start + parameters.delayToWaitFor + schedulingTolerance);
+		Assert.assertFalse("Should wait for a job about to start", isEmpty(subject));
+	}
+
+	@Test
+	public void awaitChangeOnSchedule() throws InterruptedException {
+		UIJobCollector subject = new UIJobCollector(new Parameters());
+		prepare(subject);
+		long changes = subject.getChanges();
+		long start = System.currentTimeMillis();
+		sleepingJob.schedule();
+		subject.awaitChange(changes, 10000);
+		Assert.assertTrue("Should be notified on job change", System.currentTimeMillis() < start + schedulingTolerance);
+		Assert.assertNotEquals(changes, subject.getChanges());
+	}
 	
 	@Test
 	public void doNotWaitForPrescheduledRescheduledInFuture() throws InterruptedException {
@@ -0,0 +1,155 @@
+/********************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *   Xored Software Inc - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.rcptt.watson.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.rcptt.sherlock.core.INodeBuilder;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.Event;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.LoggingCategory;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.LoggingData;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.Node;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.Report;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.ReportFactory;
+import org.eclipse.rcptt.sherlock.core.reporting.ReportBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReportBuilderTest {
+
+	private static Event createEvent(String text) {
+		Event event = ReportFactory.eINSTANCE.createEvent();
+		LoggingData data = ReportFactory.eINSTANCE.createLoggingData();
+		data.setText(text);
+		event.setData(data);
+		return event;
+	}
+
+	@Test
+	public void equalEventsAreCounted() {
+		ReportBuilder builder = ReportBuilder.create("test");
+		INodeBuilder node = builder.getCurrent().beginTask("child");
+		node.createEvent(createEvent("a"));
+		node.createEvent(createEvent("b"));
+		node.createEvent(createEvent("a"));
+		Report first = builder.getReportCopy();
+		node.createEvent(createEvent("b"));
+		Report second = builder.getReportCopy();
+
+		List<Event> events = first.getRoot().getChildren().get(0).getEvents();
+		Assert.assertEquals(2, events.size());
+		Assert.assertEquals(2, events.get(0).getCount());
+		Assert.assertEquals(1, events.get(1).getCount());
+		events = second.getRoot().getChildren().get(0).getEvents();
+		Assert.assertEquals(2, events.size());
+		Assert.assertEquals(2, events.get(1).getCount());
+	}
+
+	@Test
+	public void logsAreAppended() {
+		ReportBuilder builder = ReportBuilder.create("test");
+		INodeBuilder node = builder.getCurrent();
+		node.appendLog(LoggingCategory.DEFAULT, "one");
+		Assert.assertEquals("one\n", ReportBuilder.getLogs(builder.getReportCopy().getRoot(), LoggingCategory.DEFAULT));
+		node.appendLog(LoggingCategory.DEFAULT, "two");
+		Assert.assertEquals("one\ntwo\n",
+				ReportBuilder.getLogs(builder.getReportCopy().getRoot(), LoggingCategory.DEFAULT));
+	}
+
+	@Test
+	public void concurrentEventsAreAllRecorded() throws InterruptedException {
+		final ReportBuilder builder = ReportBuilder.create("test");
+		final INodeBuilder node = builder.getCurrent();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 4; i++) {
+			final int thread = i;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 1000; j++) {
+						node.createEvent(createEvent("event " + (j % 100)));
+						if (j % 250 == 0) {
+							builder.getReportCopy();
+						}
+						node.appendLog(LoggingCategory.DEFAULT, "thread " + thread);
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Node root = builder.getReportCopy().getRoot();
+		Assert.assertEquals(100, root.getEvents().size());
+		int count = 0;
+		for (Event event : root.getEvents()) {
+			count += event.getCount();
+		}
+		Assert.assertEquals(4000, count);
+		Assert.assertEquals(4000, ReportBuilder.getLogs(root, LoggingCategory.DEFAULT).split("\n").length);
+	}
+
+	@Test
+	public void takenReportIsNotChanged() {
+		ReportBuilder builder = ReportBuilder.create("test");
+		INodeBuilder node = builder.getCurrent();
+		node.createEvent(createEvent("a"));
+		Report report = builder.takeReport();
+		Assert.assertEquals(1, report.getRoot().getEvents().size());
+		node.createEvent(createEvent("b"));
+		node.beginTask("late");
+		Assert.assertEquals(1, builder.getReportCopy().getRoot().getEvents().size());
+		Assert.assertTrue(report.getRoot().getChildren().isEmpty());
+	}
+
+	@Test
+	public void takenReportIsNotUpdated() {
+		ReportBuilder builder = ReportBuilder.create("test");
+		INodeBuilder root = builder.getCurrent();
+		INodeBuilder child = root.beginTask("child");
+		child.endTask();
+		Report report = builder.takeReport();
+		Node taken = report.getRoot().getChildren().get(0);
+		long duration = taken.getDuration();
+		int properties = taken.getProperties().size();
+
+		child.update(node -> node.setName("changed"));
+		root.appendTask("child").endTask();
+		Assert.assertEquals("child", taken.getName());
+		Assert.assertEquals(duration, taken.getDuration());
+		Assert.assertEquals(properties, taken.getProperties().size());
+	}
+
+	@Test
+	public void snapshotIsCopiedOnlyAfterChange() {
+		ReportBuilder builder = ReportBuilder.create("test");
+		INodeBuilder node = builder.getCurrent();
+		node.createEvent(createEvent("a"));
+		Report first = builder.getReportCopy();
+		Assert.assertSame(first, builder.getReportCopy());
+
+		node.createEvent(createEvent("a"));
+		Report second = builder.getReportCopy();
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(1, first.getRoot().getEvents().get(0).getCount());
+		Assert.assertEquals(2, second.getRoot().getEvents().get(0).getCount());
+
+		node.beginTask("child");
+		Report third = builder.getReportCopy();
+		Assert.assertNotSame(second, third);
+		Assert.assertEquals(1, third.getRoot().getChildren().size());
+		Assert.assertSame(third, builder.getReportCopy());
+	}
+}
@@ -11,6 +11,9 @@
 package org.eclipse.rcptt.core.persistence.plain;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -21,6 +24,7 @@
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.rcptt.core.persistence.PersistenceManager;
+import org.eclipse.rcptt.core.persistence.plain.PlainTextPersistenceModel.Header;
 import org.eclipse.rcptt.core.scenario.Scenario;
 import org.eclipse.rcptt.core.scenario.ScenarioFactory;
 import org.eclipse.rcptt.core.workspace.RcpttCore;
@@ -55,6 +59,52 @@ public void deleteDescription() throws IOException, CoreException {
 		Assert.assertNull(scenario.getDescription());
 	}
 	
+	@Test
+	public void readHeader() throws IOException, CoreException {
+		IFile file = createFile();
+		Scenario scenario = createScenario();
+		scenario.setTags("smoke, ui");
+		scenario.getContexts().addAll(Arrays.asList("ctx1", "ctx2"));
+		save(scenario, toURI(file));
+		Header header = readHeader(file);
+		Assert.assertEquals(scenario.getId(), header.getId());
+		Assert.assertEquals("test", header.getName());
+		Assert.assertEquals("smoke, ui", header.getTags());
+		Assert.assertEquals(Arrays.asList("ctx1", "ctx2"), header.getContexts());
+	}
+
+	@Test
+	public void readHeaderDefaults() throws IOException, CoreException {
+		IFile file = createFile();
+		save(createScenario(), toURI(file));
+		Header header = readHeader(file);
+		Assert.assertEquals("", header.getTags());
+		Assert.assertEquals(Collections.emptyList(), header.getContexts());
+	}
+
+	private Scenario createScenario() {
+		Scenario scenario = ScenarioFactory.eINSTANCE.createScenario();
+		scenario.setVersion(Double.toString(RcpttCore.SCENARIO_VERSION));
+		scenario.setId(EcoreUtil.generateUUID());
+		scenario.setName("test");
+		return scenario;
+	}
+
+	private void save(Scenario scenario, URI uri) {
+		Resource resource = new Q7LazyResource(uri);
+		resource.setTrackingModification(true);
+		resource.getContents().add(scenario);
+		PersistenceManager.getInstance().saveResource(resource);
+	}
+
+	private Header readHeader(IFile file) throws IOException, CoreException {
+		try (InputStream contents = file.getContents()) {
+			Header header = PlainTextPersistenceModel.readHeader(contents);
+			Assert.assertNotNull(header);
+			return header;
+		}
+	}
+
 	private Scenario saveLoad(Scenario scenario, URI uri) {
 		Resource resource = new Q7LazyResource(uri);
 		resource.setTrackingModification(true);
@@ -0,0 +1,220 @@
+/********************************************************************************
+ * Copyright (c) 2025 Xored Software Inc and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *   Xored Software Inc - initial API and implementation
+ ********************************************************************************/
+package org.eclipse.rcptt.internal.core.model.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.rcptt.core.model.index.IQ7IndexConstants;
+import org.eclipse.rcptt.core.model.search.SearchPattern.IKeyQuery;
+import org.eclipse.rcptt.internal.core.RcpttPlugin;
+import org.eclipse.rcptt.util.FileUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IndexTest {
+	private static final Path PATH = new Path("/indexTest");
+	private Index index;
+
+	@Before
+	public void before() {
+		index = new Index(PATH);
+		index.update("a.test", 1, keys("a", "alpha", "ctx1", "ctx2"));
+		index.update("b.test", 2, keys("b", "beta", "ctx2"));
+		index.update("c.test", 3, keys("c", "alphabet"));
+	}
+
+	@After
+	public void after() {
+		index.dispose();
+	}
+
+	private static Map<String, List<String>> keys(String id, String name, String... contexts) {
+		Map<String, List<String>> result = new HashMap<String, List<String>>();
+		result.put(IQ7IndexConstants.ID, Arrays.asList(id));
+		result.put(IQ7IndexConstants.NAME, Arrays.asList(name));
+		result.put(IQ7IndexConstants.CONTEXT_REF, Arrays.asList(contexts));
+		return result;
+	}
+
+	private static Set<String> paths(List<QueryResult> results) {
+		Set<String> paths = new TreeSet<String>();
+		for (QueryResult result : results) {
+			paths.add(result.path);
+		}
+		return paths;
+	}
+
+	private static Set<String> set(String... paths) {
+		return new TreeSet<String>(Arrays.asList(paths));
+	}
+
+	@Test
+	public void exactPrefixAndWildcardQueries() {
+		String[] contextRef = { IQ7IndexConstants.CONTEXT_REF };
+		assertEquals(set("a.test", "b.test"), paths(index.query(contextRef, "ctx2")));
+		assertEquals(set("a.test"), paths(index.query(contextRef, "ctx1")));
+		assertEquals(set("a.test", "c.test"), paths(index.queryPrefix(IQ7IndexConstants.NAME, "alpha")));
+		assertEquals(set("c.test"), paths(index.queryWildcard(IQ7IndexConstants.NAME, "al*t")));
+		assertEquals(set("b.test"), paths(index.queryWildcard(IQ7IndexConstants.NAME, "?eta")));
+		assertEquals(set("b.test"), paths(index.queryIDs("b")));
+		assertEquals("c", index.queryID("c.test"));
+		assertEquals("beta", index.queryName("b.test"));
+		assertEquals(2, index.getModificationStamp("b.test"));
+	}
+
+	@Test
+	public void updateReplacesDocument() {
+		String[] contextRef = { IQ7IndexConstants.CONTEXT_REF };
+		assertEquals(set("a.test", "b.test"), paths(index.query(contextRef, "ctx2")));
+		index.update("a.test", 4, keys("a", "gamma", "ctx3"));
+		assertEquals(set("b.test"), paths(index.query(contextRef, "ctx2")));
+		assertEquals(set("a.test"), paths(index.query(contextRef, "ctx3")));
+		assertEquals(set("c.test"), paths(index.queryPrefix(IQ7IndexConstants.NAME, "alpha")));
+		assertEquals(4, index.getModificationStamp("a.test"));
+
+		index.remove("b.test");
+		assertEquals(set(), paths(index.query(contextRef, "ctx2")));
+		assertNull(index.queryName("b.test"));
+		assertEquals(set("a.test", "c.test"), set(index.queryDocumentNames()));
+	}
+
+	@Test
+	public void patternIsCheckedAgainstValues() {
+		List<QueryResult> results = index.query(new String[] { IQ7IndexConstants.CONTEXT_REF }, new IKeyQuery() {
+			@Override
+			public boolean accept(String key, String value) {
+				return value.startsWith("ctx");
+			}
+		}, null);
+		assertEquals(3, results.size());
+		index.addKey("c.test", IQ7IndexConstants.CONTEXT_REF, "ctx1");
+		assertEquals(set("a.test", "c.test"),
+				paths(index.query(new String[] { IQ7IndexConstants.CONTEXT_REF }, "ctx1")));
+	}
+
+	@Test
+	public void valueSharedByManyDocumentsIsUpdatedInPlace() {
+		String[] contextRef = { IQ7IndexConstants.CONTEXT_REF };
+		Set<String> expected = set("a.test", "b.test");
+		for (int i = 0; i < 100; i++) {
+			index.update(i + ".test", i, keys("id" + i, "name" + i, "ctx2"));
+			expected.add(i + ".test");
+		}
+		assertEquals(expected, paths(index.query(contextRef, "ctx2")));
+		for (int i = 0; i < 100; i += 2) {
+			index.update(i + ".test", i, keys("id" + i, "name" + i, "ctx3"));
+			expected.remove(i + ".test");
+		}
+		index.remove("1.test");
+		expected.remove("1.test");
+		assertEquals(expected, paths(index.query(contextRef, "ctx2")));
+		assertEquals(50, index.query(contextRef, "ctx3").size());
+		assertEquals(10, index.queryWildcard(IQ7IndexConstants.NAME, "name1?").size());
+	}
+
+	private static Index reload() {
+		Index result = new Index(PATH);
+		result.load();
+		return result;
+	}
+
+	@Test
+	public void indexIsSavedAndUpdatesAreAppended() throws IOException {
+		index.save();
+		Index loaded = reload();
+		assertEquals(set("a.test", "b.test"),
+				paths(loaded.query(new String[] { IQ7IndexConstants.CONTEXT_REF }, "ctx2")));
+		assertEquals("alphabet", loaded.queryName("c.test"));
+		assertEquals(3, loaded.getModificationStamp("c.test"));
+
+		loaded.update("b.test", 5, keys("b", "delta"));
+		loaded.remove("c.test");
+		loaded.save();
+		loaded = reload();
+		assertEquals(set("a.test", "b.test"), set(loaded.queryDocumentNames()));
+		assertEquals("delta", loaded.queryName("b.test"));
+		assertEquals(set("a.test"),
+				paths(loaded.query(new String[] { IQ7IndexConstants.CONTEXT_REF }, "ctx2")));
+		assertEquals(Arrays.asList("ctx1", "ctx2"),
+				loaded.query("a.test").get(IQ7IndexConstants.CONTEXT_REF));
+	}
+
+	@Test
+	public void keysOfLoadedIndexAreBuiltOnQuery() throws IOException {
+		index.save();
+		Index loaded = reload();
+		String[] contextRef = { IQ7IndexConstants.CONTEXT_REF };
+		assertEquals(set("a.test", "c.test"), paths(loaded.queryPrefix(IQ7IndexConstants.NAME, "alpha")));
+
+		// Name is built and updated in place, context reference is built later
+		loaded.update("a.test", 4, keys("a", "gamma", "ctx3"));
+		loaded.addKey("c.test", IQ7IndexConstants.CONTEXT_REF, "ctx2");
+		assertEquals(set("c.test"), paths(loaded.queryPrefix(IQ7IndexConstants.NAME, "alpha")));
+		assertEquals(set("a.test"), paths(loaded.query(new String[] { IQ7IndexConstants.NAME }, "gamma")));
+		assertEquals(set("b.test", "c.test"), paths(loaded.query(contextRef, "ctx2")));
+		loaded.remove("b.test");
+		assertEquals(set("c.test"), paths(loaded.query(contextRef, "ctx2")));
+		assertEquals(set("a.test"), paths(loaded.query(contextRef, "ctx3")));
+	}
+
+	@Test
+	public void corruptIndexIsIgnored() throws IOException {
+		index.save();
+		File file = RcpttPlugin.getDefault().getStateLocation().append("index")
+				.append(FileUtil.getID(PATH.toString()) + ".index").toFile();
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		// Last pair value refers past the string table
+		ByteBuffer.wrap(bytes).putInt(bytes.length - 4, Integer.MAX_VALUE);
+		Files.write(file.toPath(), bytes);
+		Index loaded = reload();
+		assertEquals(0, loaded.queryDocumentNames().length);
+	}
+
+	@Test
+	public void previousFormatIsMigrated() throws IOException {
+		File file = RcpttPlugin.getDefault().getStateLocation().append("index")
+				.append(FileUtil.getID(PATH.toString()) + ".index").toFile();
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+			out.writeUTF("INDEX_ID_1.0.3");
+			out.writeInt(1);
+			out.writeUTF("old.test");
+			out.writeLong(7);
+			out.writeInt(1);
+			out.writeUTF(IQ7IndexConstants.NAME);
+			out.writeInt(1);
+			out.writeUTF("old");
+		}
+		Index loaded = reload();
+		assertEquals("old", loaded.queryName("old.test"));
+		loaded.save();
+		loaded = reload();
+		assertEquals("old", loaded.queryName("old.test"));
+		assertEquals(7, loaded.getModificationStamp("old.test"));
+	}
+}
@@ -10,14 +10,23 @@
  *******************************************************************************/
 package org.eclipse.rcptt.sherlock.core.reporting;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.EMap;
+import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.emf.ecore.util.EcoreUtil.Copier;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
 import org.eclipse.rcptt.ecl.runtime.BoxedValues;
 import org.eclipse.rcptt.sherlock.core.INodeBuilder;
 import org.eclipse.rcptt.sherlock.core.model.sherlock.report.Event;
@@ -32,6 +41,12 @@
 
 /**
  * Build a complex report.
+ * <p>
+ * Events and logs are appended to per-node buffers without taking the report
+ * lock, and are applied to the report model in bulk when it is read: on
+ * snapshots, property reads and direct node access. Events equal to a
+ * pending one are counted rather than buffered. A snapshot is only copied
+ * again when the report has changed since the previous one.
  */
 public class ReportBuilder implements IReportBuilder {
 	private static final String NODE_INDEX_PROPERTY = "rcptt.watson.node.index";
@@ -39,6 +54,71 @@ public class ReportBuilder implements IReportBuilder {
 
 	private final Report report;
 	private NodeBuilder currentNode;
+	/** Pending changes of nodes */
+	private final ConcurrentHashMap<Node, NodeBuffer> buffers = new ConcurrentHashMap<Node, NodeBuffer>();
+	/** Report is handed out by {@link #takeReport()}, guarded by report */
+	private boolean taken = false;
+	/**
+	 * Copy returned by {@link #getReportCopy()}, reset by any change of the
+	 * report. Guarded by report.
+	 */
+	private Report snapshot;
+
+	/**
+	 * Changes of a node not yet applied to the report.
+	 */
+	private static final class NodeBuffer {
+		/** New events in order of creation, guarded by this */
+		final List<PendingEvent> events = new ArrayList<PendingEvent>();
+		/** Same events by hash of their data, guarded by this */
+		final Map<Integer, List<PendingEvent>> pendingIndex = new HashMap<Integer, List<PendingEvent>>();
+		/** Guarded by this */
+		final Map<LoggingCategory, StringBuilder> logs = new EnumMap<LoggingCategory, StringBuilder>(
+				LoggingCategory.class);
+		/**
+		 * Events of the node by hash of their data, built on first use. Guarded
+		 * by report.
+		 */
+		Map<Integer, List<Event>> eventIndex;
+
+		/**
+		 * @return pending event with equal data or <code>null</code>
+		 */
+		PendingEvent findPending(int hash, Event event) {
+			List<PendingEvent> bucket = pendingIndex.get(hash);
+			if (bucket != null) {
+				for (PendingEvent pending : bucket) {
+					if (EcoreUtil.equals(event.getData(), pending.event.getData())) {
+						return pending;
+					}
+				}
+			}
+			return null;
+		}
+
+		void addPending(PendingEvent pending) {
+			events.add(pending);
+			List<PendingEvent> bucket = pendingIndex.get(pending.hash);
+			if (bucket == null) {
+				pendingIndex.put(pending.hash, bucket = new ArrayList<PendingEvent>(1));
+			}
+			bucket.add(pending);
+		}
+	}
+
+	/**
+	 * Copy of a new event and the number of equal events created after it.
+	 */
+	private static final class PendingEvent {
+		final Event event;
+		final int hash;
+		int duplicates = 0;
+
+		PendingEvent(Event event, int hash) {
+			this.event = event;
+			this.hash = hash;
+		}
+	}
 	
 	//Provides synchronized access to report nodes
 	private class NodeBuilder implements INodeBuilder {
@@ -72,7 +152,10 @@ public INodeBuilder beginTask(String name) {
 			setNodeIndex(child, currentChildIndex);
 			setNodeLastStartTime(child, child.getStartTime());
 			synchronized (report) {
-				node.getChildren().add(getChildPosition(name), child);
+				if (!taken) {
+					node.getChildren().add(getChildPosition(name), child);
+					snapshot = null;
+				}
 				currentNode = new NodeBuilder(this, child);
 			}
 			currentChildIndex++;
@@ -80,15 +163,14 @@ public INodeBuilder beginTask(String name) {
 		}
 		
 		private NodeBuilder findChildNode(String name) {
-			for (Node child : node.getChildren()) {
-				if (name.equals(child.getName())
-						&& currentChildIndex == getNodeIndex(child)) {
-					setNodeLastStartTime(child, getTime());
-					synchronized (report) {
-						currentNode = new NodeBuilder(this, child);
+			synchronized (report) {
+				for (Node child : node.getChildren()) {
+					if (name.equals(child.getName())
+							&& currentChildIndex == getNodeIndex(child)) {
+						restart(child);
+						currentChildIndex++;
+						return currentNode;
 					}
-					currentChildIndex++;
-					return currentNode;
 				}
 			}
 			return null;
@@ -98,54 +180,65 @@ private NodeBuilder findChildNode(String name) {
 		 * Find existing subnode by name and index and make it active.
 		 */
 		public INodeBuilder appendTask(String name) {
-			for (Node child : node.getChildren()) {
-				if (name.equals(child.getName())) {
-					setNodeLastStartTime(child, getTime());
-					synchronized (report) {
-						currentNode = new NodeBuilder(this, child);
+			synchronized (report) {
+				for (Node child : node.getChildren()) {
+					if (name.equals(child.getName())) {
+						restart(child);
+						return currentNode;
 					}
-					return currentNode;
 				}
 			}
 			return beginTask(name);
 		}
 
+		/**
+		 * Makes existing child active again. Should be called under report
+		 * lock.
+		 */
+		private void restart(Node child) {
+			if (!taken) {
+				setNodeLastStartTime(child, getTime());
+				snapshot = null;
+			}
+			currentNode = new NodeBuilder(this, child);
+		}
+
 		/**
 		 * Will go one level up.
 		 */
 		@Override
 		public void endTask() {
 			synchronized (report) {
-				node.setEndTime(getTime());
-				long duration = node.getEndTime() - getNodeLastStartTime(node);
-				node.setDuration(node.getDuration() + duration);
+				if (!taken) {
+					node.setEndTime(getTime());
+					long duration = node.getEndTime() - getNodeLastStartTime(node);
+					node.setDuration(node.getDuration() + duration);
+					snapshot = null;
+				}
 				if (parent == null)
 					throw new IllegalStateException("Root report node can't be closed.");
 				currentNode = parent;
 			}
 		}
 		
+		/**
+		 * Event equal to a pending one is only counted, pending events are
+		 * merged with equal ones of the node when buffer is applied.
+		 */
 		@Override
 		public void createEvent(Event event) {
-			synchronized (report) {
-				Event childEvent = findChildEvent(event);
-				if (childEvent != null) {
-					childEvent.setCount(childEvent.getCount() + 1);
+			NodeBuffer buffer = getBuffer(node);
+			int hash = hash(event.getData());
+			synchronized (buffer) {
+				PendingEvent pending = buffer.findPending(hash, event);
+				if (pending != null) {
+					pending.duplicates++;
 					return;
 				}
 				Event copy = EcoreUtil.copy(event);
 				copy.setTime(getTime());
-				node.getEvents().add(copy);
-			}
-		}
-
-		private Event findChildEvent(Event event) {
-			for (Event childEvent : node.getEvents()) {
-				if (EcoreUtil.equals(event.getData(), childEvent.getData())) {
-					return childEvent;
-				}
+				buffer.addPending(new PendingEvent(copy, hash));
 			}
-			return null;
 		}
 
 		/*
@@ -153,16 +246,14 @@ private Event findChildEvent(Event event) {
 		 */
 		@Override
 		public void appendLog(LoggingCategory category, String text) {
-			String log_key = getLogCategoryKey(category);
-			synchronized (report) {
-				EMap<String, EObject> properties = node.getProperties();
-				LoggingData data = (LoggingData) properties.get(log_key);
-				if (data == null)
-					properties.put(log_key, data = ReportFactory.eINSTANCE.createLoggingData());
-				StringBuilder sb = new StringBuilder(data.getText());
-				sb.append(text);
-				sb.append("\n");
-				data.setText(sb.toString());
+			NodeBuffer buffer = getBuffer(node);
+			synchronized (buffer) {
+				StringBuilder log = buffer.logs.get(category);
+				if (log == null) {
+					buffer.logs.put(category, log = new StringBuilder());
+				}
+				log.append(text);
+				log.append("\n");
 			}
 		}
 		
@@ -170,13 +261,17 @@ public void appendLog(LoggingCategory category, String text) {
 		public void setProperty(String key, EObject value) {
 			EObject copy = EcoreUtil.copy(value);
 			synchronized (report) {
-				node.getProperties().put(key, copy);
+				if (!taken) {
+					node.getProperties().put(key, copy);
+					snapshot = null;
+				}
 			}
 		}
 		
 		@Override
 		public EObject getProperty(String key) {
 			synchronized (report) {
+				flush(node);
 				return node.getProperties().get(key);
 			}
 		}
@@ -191,14 +286,27 @@ public void addSnapshot(Snaphot snapshot) {
 			Snaphot copy = EcoreUtil.copy(snapshot);
 			copy.setTime(getTime());
 			synchronized (report) {
-				node.getSnapshots().add(copy);
+				if (!taken) {
+					node.getSnapshots().add(copy);
+					snapshot = null;
+				}
 			}
 		}
 		
 		@Override
 		public void update(Procedure1<Node> runnable) {
 			synchronized (report) {
+				if (taken) {
+					return;
+				}
+				flush(node);
 				runnable.apply(node);
+				// Events might have been changed
+				NodeBuffer buffer = buffers.get(node);
+				if (buffer != null) {
+					buffer.eventIndex = null;
+				}
+				snapshot = null;
 			}
 		}
 
@@ -254,7 +362,10 @@ public EventSource registerEventSource(String name) {
 		EventSource source = ReportFactory.eINSTANCE.createEventSource();
 		source.setName(name);
 		synchronized (report) {
-			report.getSources().add(source);
+			if (!taken) {
+				report.getSources().add(source);
+				snapshot = null;
+			}
 		}
 		return source;
 	}
@@ -274,13 +385,158 @@ public EventSource registerEventSource(String name) {
 //		return report;
 //	}
 
+	private NodeBuffer getBuffer(Node node) {
+		NodeBuffer buffer = buffers.get(node);
+		if (buffer == null) {
+			NodeBuffer created = new NodeBuffer();
+			buffer = buffers.putIfAbsent(node, created);
+			if (buffer == null) {
+				buffer = created;
+			}
+		}
+		return buffer;
+	}
+
+	/**
+	 * Applies pending events and logs of all nodes. Should be called under
+	 * report lock.
+	 */
+	private void flush() {
+		for (Node node : buffers.keySet()) {
+			flush(node);
+		}
+	}
+
+	/**
+	 * Applies pending events and logs of a node. Should be called under
+	 * report lock.
+	 */
+	private void flush(Node node) {
+		NodeBuffer buffer = buffers.get(node);
+		if (buffer == null || taken) {
+			return;
+		}
+		List<PendingEvent> events;
+		synchronized (buffer) {
+			if (buffer.events.isEmpty() && buffer.logs.isEmpty()) {
+				return;
+			}
+			events = new ArrayList<PendingEvent>(buffer.events);
+			buffer.events.clear();
+			buffer.pendingIndex.clear();
+		}
+		snapshot = null;
+		for (PendingEvent pending : events) {
+			if (buffer.eventIndex == null) {
+				buffer.eventIndex = new HashMap<Integer, List<Event>>();
+				for (Event existing : node.getEvents()) {
+					indexEvent(buffer.eventIndex, hash(existing.getData()), existing);
+				}
+			}
+			Event existing = findEvent(buffer.eventIndex, pending.hash, pending.event);
+			if (existing != null) {
+				existing.setCount(existing.getCount() + 1 + pending.duplicates);
+			} else {
+				pending.event.setCount(pending.event.getCount() + pending.duplicates);
+				node.getEvents().add(pending.event);
+				indexEvent(buffer.eventIndex, pending.hash, pending.event);
+			}
+		}
+		synchronized (buffer) {
+			for (Map.Entry<LoggingCategory, StringBuilder> entry : buffer.logs.entrySet()) {
+				String key = getLogCategoryKey(entry.getKey());
+				EMap<String, EObject> properties = node.getProperties();
+				LoggingData data = (LoggingData) properties.get(key);
+				if (data == null)
+					properties.put(key, data = ReportFactory.eINSTANCE.createLoggingData());
+				data.setText(data.getText() + entry.getValue());
+			}
+			buffer.logs.clear();
+		}
+	}
+
+	private static void indexEvent(Map<Integer, List<Event>> index, int hash, Event event) {
+		List<Event> bucket = index.get(hash);
+		if (bucket == null) {
+			index.put(hash, bucket = new ArrayList<Event>(1));
+		}
+		bucket.add(event);
+	}
+
+	private static Event findEvent(Map<Integer, List<Event>> index, int hash, Event event) {
+		List<Event> bucket = index.get(hash);
+		if (bucket != null) {
+			for (Event existing : bucket) {
+				if (EcoreUtil.equals(event.getData(), existing.getData())) {
+					return existing;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Structural hash consistent with {@link EcoreUtil#equals(EObject, EObject)}:
+	 * combines class, set attributes and contained objects.
+	 */
+	private static int hash(EObject object) {
+		if (object == null) {
+			return 0;
+		}
+		int result = object.eClass().hashCode();
+		for (EAttribute attribute : object.eClass().getEAllAttributes()) {
+			if (!object.eIsSet(attribute) || FeatureMapUtil.isFeatureMap(attribute)) {
+				continue;
+			}
+			result = 31 * result + Arrays.deepHashCode(new Object[] { object.eGet(attribute) });
+		}
+		for (EReference reference : object.eClass().getEAllContainments()) {
+			if (!object.eIsSet(reference)) {
+				continue;
+			}
+			Object value = object.eGet(reference);
+			if (value instanceof List<?>) {
+				for (Object child : (List<?>) value) {
+					result = 31 * result + (child instanceof EObject ? hash((EObject) child) : 0);
+				}
+			} else if (value instanceof EObject) {
+				result = 31 * result + hash((EObject) value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a snapshot of the report. Snapshot is shared by calls made
+	 * while the report is not changed, and it should not be modified.
+	 */
 	public Report getReportCopy() {
 		synchronized (report) {
-			Report reportCopy = EcoreUtil.copy(report);
-			Node root = reportCopy.getRoot();
+			flush();
+			if (snapshot == null) {
+				snapshot = EcoreUtil.copy(report);
+				Node root = snapshot.getRoot();
+				root.setEndTime(getTime());
+				root.setDuration(root.getEndTime() - root.getStartTime());
+			}
+			return snapshot;
+		}
+	}
+
+	/**
+	 * Completes the report and hands it out without copying. Later changes
+	 * through node builders are ignored, so the builder should be discarded.
+	 */
+	public Report takeReport() {
+		synchronized (report) {
+			flush();
+			taken = true;
+			buffers.clear();
+			snapshot = null;
+			Node root = report.getRoot();
 			root.setEndTime(getTime());
 			root.setDuration(root.getEndTime() - root.getStartTime());
-			return reportCopy;
+			return report;
 		}
 	}
 
@@ -365,6 +621,7 @@ public static ReportBuilder create(String title) {
 	public ReportBuilderStore save() {
 		ReportBuilderStore store = ReportFactory.eINSTANCE.createReportBuilderStore();
 		synchronized (report) {
+			flush();
 			EcoreUtil.Copier copier = new Copier();
 			store.setReport((Report) copier.copy(report));
 			store.setCurrentNode((Node) copier.get(currentNode.node));
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2019 Xored Software Inc and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * which accompanies this distribution, and is available at
+ * https://www.eclipse.org/legal/epl-v20.html
+ *
+ * Contributors:
+ *     Xored Software Inc - initial API and implementation and/or initial documentation
+ *******************************************************************************/
+package org.eclipse.rcptt.sherlock.core.streams;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.Node;
+import org.eclipse.rcptt.sherlock.core.model.sherlock.report.Report;
+
+/**
+ * Metadata of a single report in a q7.report file, available without
+ * loading the report itself.
+ *
+ * @see SherlockReportFormat#loadSummaries(java.io.File)
+ */
+public class ReportSummary {
+	/** Key of root node property with test info */
+	private static final String INFO_PROPERTY = "q7";
+
+	private final String entryName;
+	private final String name;
+	private final String id;
+	private final int severity;
+	private final long startTime;
+	private final long endTime;
+
+	public ReportSummary(String entryName, String name, String id,
+			int severity, long startTime, long endTime) {
+		this.entryName = entryName;
+		this.name = name;
+		this.id = id;
+		this.severity = severity;
+		this.startTime = startTime;
+		this.endTime = endTime;
+	}
+
+	/**
+	 * Summarizes a report. Test id and result are taken from root properties
+	 * reflectively, as reporting model is not available here.
+	 */
+	public static ReportSummary create(String entryName, Report report) {
+		Node root = report.getRoot();
+		if (root == null) {
+			return new ReportSummary(entryName, null, null, -1, 0, 0);
+		}
+		String id = null;
+		int severity = -1;
+		EObject info = root.getProperties().get(INFO_PROPERTY);
+		if (info != null) {
+			Object value = get(info, "id");
+			if (value instanceof String) {
+				id = (String) value;
+			}
+			Object result = get(info, "result");
+			if (result instanceof EObject) {
+				Object resultSeverity = get((EObject) result, "severity");
+				if (resultSeverity instanceof Integer) {
+					severity = (Integer) resultSeverity;
+				}
+			}
+		}
+		return new ReportSummary(entryName, root.getName(), id, severity,
+				root.getStartTime(), root.getEndTime());
+	}
+
+	private static Object get(EObject object, String featureName) {
+		EStructuralFeature feature = object.eClass().getEStructuralFeature(
+				featureName);
+		return feature == null ? null : object.eGet(feature);
+	}
+
+	void write(DataOutput out) throws IOException {
+		out.writeUTF(entryName);
+		writeString(out, name);
+		writeString(out, id);
+		out.writeInt(severity);
+		out.writeLong(startTime);
+		out.writeLong(endTime);
+	}
+
+	static ReportSummary read(DataInput in) throws IOException {
+		return new ReportSummary(in.readUTF(), readString(in),
+				readString(in), in.readInt(), in.readLong(), in.readLong());
+	}
+
+	private static void writeString(DataOutput out, String value)
+			throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	/**
+	 * @return name of report entry in q7.report, see
+	 *         {@link SherlockReportFormat#loadReport(java.io.File, String)}
+	 */
+	public String getEntryName() {
+		return entryName;
+	}
+
+	/**
+	 * @return name of report root, usually test name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return test id or <code>null</code> if unknown
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return severity of test result or -1 if unknown
+	 */
+	public int getSeverity() {
+		return severity;
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public long getEndTime() {
+		return endTime;
+	}
+
+	public long getDuration() {
+		return endTime - startTime;
+	}
+}
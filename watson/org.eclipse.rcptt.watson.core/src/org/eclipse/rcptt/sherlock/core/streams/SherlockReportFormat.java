@@ -10,22 +10,47 @@
  *******************************************************************************/
 package org.eclipse.rcptt.sherlock.core.streams;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 
+import org.eclipse.rcptt.sherlock.core.SherlockCore;
 import org.eclipse.rcptt.sherlock.core.model.sherlock.report.Report;
 
 /**
  * Use this class to load and store Q7 execution reports.
+ * <p>
+ * A q7.report file is a zip with an entry per report, written by
+ * {@link SherlockReportOutputStream}. It may be accompanied by an index file,
+ * see {@link #getIndexFile(File)}, with {@link ReportSummary} of every
+ * report. Index is kept out of the zip, as readers of older versions load
+ * every zip entry as a report. Index header records length and modification
+ * time of the report it was written for, so a replaced report is detected.
  */
 public class SherlockReportFormat {
+	/** Suffix of index file name, appended to the report file name */
+	public static final String INDEX_SUFFIX = ".index";
+
+	private static final int INDEX_MAGIC = 0x51374958;
+	private static final int INDEX_VERSION = 2;
+
 	/**
 	 * Store Q7 execution report into output stream.
 	 * 
@@ -80,4 +105,126 @@ public static Report loadReport(InputStream stream, boolean close, boolean compr
 		}
 		return null;
 	}
+
+	/**
+	 * Load a single report from q7.report, without reading other reports.
+	 * 
+	 * @param file
+	 *            - q7.report file.
+	 * @param entryName
+	 *            - report entry, see {@link ReportSummary#getEntryName()}.
+	 * @return Report or null if there is no such entry.
+	 */
+	public static Report loadReport(File file, String entryName)
+			throws IOException {
+		try (ZipFile zip = new ZipFile(file)) {
+			ZipEntry entry = zip.getEntry(entryName);
+			if (entry == null) {
+				return null;
+			}
+			try (InputStream stream = new BufferedInputStream(
+					zip.getInputStream(entry))) {
+				return loadReport(stream, false, true);
+			}
+		}
+	}
+
+	/**
+	 * @return index file of a q7.report file, which may not exist
+	 */
+	public static File getIndexFile(File file) {
+		return new File(file.getPath() + INDEX_SUFFIX);
+	}
+
+	/**
+	 * Load summaries of all reports in q7.report, in order of reports. Only
+	 * the index is read, reports themselves are loaded if there is no index,
+	 * it is unreadable or it was written for another version of the report.
+	 */
+	public static List<ReportSummary> loadSummaries(File file)
+			throws IOException {
+		List<ReportSummary> summaries = loadIndex(file);
+		if (summaries != null) {
+			return summaries;
+		}
+		try (ZipFile zip = new ZipFile(file)) {
+			List<ReportSummary> result = new ArrayList<ReportSummary>();
+			Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+				try (InputStream stream = new BufferedInputStream(
+						zip.getInputStream(entry))) {
+					Report report = loadReport(stream, false, true);
+					if (report != null) {
+						result.add(ReportSummary.create(entry.getName(),
+								report));
+					}
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * @return summaries from index of the report, or null if there is no
+	 *         valid index for the current content of the report
+	 */
+	private static List<ReportSummary> loadIndex(File file) {
+		File index = getIndexFile(file);
+		if (!index.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(index)))) {
+			return readIndex(in, file);
+		} catch (IOException | RuntimeException e) {
+			SherlockCore.log(e);
+			return null;
+		}
+	}
+
+	static void writeIndex(List<ReportSummary> summaries, File report,
+			OutputStream stream) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				stream));
+		out.writeInt(INDEX_MAGIC);
+		out.writeInt(INDEX_VERSION);
+		out.writeLong(report.length());
+		out.writeLong(report.lastModified());
+		out.writeInt(summaries.size());
+		for (ReportSummary summary : summaries) {
+			summary.write(out);
+		}
+		out.flush();
+	}
+
+	private static List<ReportSummary> readIndex(DataInputStream in,
+			File report) throws IOException {
+		if (in.readInt() != INDEX_MAGIC) {
+			throw new IOException("Invalid report index");
+		}
+		int version = in.readInt();
+		if (version != INDEX_VERSION) {
+			throw new IOException("Unsupported report index version: "
+					+ version);
+		}
+		// Report may have been replaced without index
+		if (in.readLong() != report.length()
+				|| in.readLong() != report.lastModified()) {
+			return null;
+		}
+		int count = in.readInt();
+		if (count < 0) {
+			throw new IOException("Invalid report index");
+		}
+		// Count is not trusted for preallocation, index may be corrupt
+		List<ReportSummary> result = new ArrayList<ReportSummary>();
+		for (int i = 0; i < count; i++) {
+			result.add(ReportSummary.read(in));
+		}
+		if (in.read() != -1) {
+			throw new IOException("Invalid report index");
+		}
+		return result;
+	}
 }
@@ -11,8 +11,12 @@
 package org.eclipse.rcptt.sherlock.core.streams;
 
 import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -22,9 +26,23 @@
 public class SherlockReportOutputStream implements Closeable {
 	private ZipOutputStream stream;
 	int index = 0;
+	private final File reportFile;
+	private final List<ReportSummary> summaries = new ArrayList<ReportSummary>();
 
 	public SherlockReportOutputStream(OutputStream out) {
+		this(out, null);
+	}
+
+	/**
+	 * @param reportFile
+	 *            file <code>out</code> writes to. Summaries of reports are
+	 *            written on close to its index file, see
+	 *            {@link SherlockReportFormat#getIndexFile(File)}. May be
+	 *            <code>null</code> to write no index.
+	 */
+	public SherlockReportOutputStream(OutputStream out, File reportFile) {
 		this.stream = new ZipOutputStream(out);
+		this.reportFile = reportFile;
 	}
 
 	/**
@@ -45,6 +63,9 @@ public synchronized String write(Report report) {
 		try {
 			stream.putNextEntry(entry);
 			SherlockReportFormat.storeReport(report, stream, false);
+			if (reportFile != null) {
+				summaries.add(ReportSummary.create(id, report));
+			}
 		} catch (IOException e) {
 			SherlockCore.log(e);
 			return null;
@@ -52,7 +73,10 @@ public synchronized String write(Report report) {
 		return id;
 	}
 
-	public void close() {
+	/**
+	 * Closes the stream and writes index of reports, if requested.
+	 */
+	public synchronized void close() {
 		if (index > 0) {
 			try {
 				stream.close();
@@ -60,5 +84,14 @@ public void close() {
 				SherlockCore.log(e);
 			}
 		}
+		// Report is complete now, so index records its final length
+		if (reportFile != null) {
+			try (OutputStream out = new FileOutputStream(
+					SherlockReportFormat.getIndexFile(reportFile))) {
+				SherlockReportFormat.writeIndex(summaries, reportFile, out);
+			} catch (IOException e) {
+				SherlockCore.log(e);
+			}
+		}
 	}
 }
\ No newline at end of file